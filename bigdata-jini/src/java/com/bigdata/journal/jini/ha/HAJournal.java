@@ -60,6 +60,7 @@ import com.bigdata.counters.CounterSet;
 import com.bigdata.counters.Instrument;
 import com.bigdata.ha.HAGlue;
 import com.bigdata.ha.QuorumService;
+import com.bigdata.ha.QuorumServiceBase;
 import com.bigdata.ha.RunState;
 import com.bigdata.ha.halog.HALogWriter;
 import com.bigdata.ha.halog.IHALogReader;
@@ -824,6 +825,13 @@ public class HAJournal extends Journal {
          */
         String TmpDirBytesAvailable = "Temp Volume Bytes Available";
 
+        /**
+         * The namespace for the counters of the write replication pipeline.
+         * 
+         * @see QuorumServiceBase#getPipelineCounters()
+         */
+        String Pipeline = "Pipeline";
+
     }
     
     /**
@@ -886,6 +894,24 @@ public class HAJournal extends Journal {
                         }
                     });
 
+        }
+        {
+
+            QuorumService<HAGlue> client = null;
+            try {
+                client = getQuorum().getClient();
+            } catch (IllegalStateException ex) {
+                // Quorum client is not running.
+            }
+
+            if (client instanceof QuorumServiceBase) {
+
+                root.makePath(IHAJournalCounters.Pipeline).attach(
+                        ((QuorumServiceBase<?, ?>) client)
+                                .getPipelineCounters());
+
+            }
+
         }
 
         return root;
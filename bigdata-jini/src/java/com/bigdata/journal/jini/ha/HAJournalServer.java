@@ -85,6 +85,7 @@ import com.bigdata.ha.msg.IHAWriteMessage;
 import com.bigdata.ha.msg.IHAWriteSetStateResponse;
 import com.bigdata.io.DirectBufferPool;
 import com.bigdata.io.IBufferAccess;
+import com.bigdata.io.compression.BlockGZIPOutputStream;
 import com.bigdata.io.writecache.WriteCache;
 import com.bigdata.jini.start.config.ZookeeperClientConfig;
 import com.bigdata.jini.util.JiniUtil;
@@ -394,6 +395,22 @@ public class HAJournalServer extends AbstractServer {
         
         int DEFAULT_STARTUP_THREADS = 20;
 
+        /**
+         * The number of threads that will be used to compress a snapshot and
+         * to decompress or verify a snapshot. When GT ONE (1), the snapshot is
+         * written as a sequence of independently compressed GZIP members
+         * which record their own length, so the snapshot may be decompressed
+         * and verified in parallel. A value of ONE (1) writes the snapshot
+         * through a single GZIP stream. Either format may be read using a
+         * <code>GZIPInputStream</code>. The default is
+         * {@value #DEFAULT_SNAPSHOT_THREADS}.
+         * 
+         * @see BlockGZIPOutputStream
+         */
+        String SNAPSHOT_THREADS = "snapshotThreads";
+
+        int DEFAULT_SNAPSHOT_THREADS = 4;
+
         /**
          * The policy that specifies when a new snapshot will be taken. The
          * decision to take a snapshot is a local decision and the snapshot is
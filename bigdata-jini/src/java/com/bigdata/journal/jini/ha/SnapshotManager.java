@@ -44,6 +44,8 @@ import java.util.Set;
 import java.util.TreeMap;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.FutureTask;
 import java.util.concurrent.atomic.AtomicLong;
@@ -69,6 +71,8 @@ import com.bigdata.ha.QuorumService;
 import com.bigdata.ha.msg.HASnapshotResponse;
 import com.bigdata.ha.msg.IHASnapshotRequest;
 import com.bigdata.ha.msg.IHASnapshotResponse;
+import com.bigdata.io.compression.BlockGZIPOutputStream;
+import com.bigdata.io.compression.BlockGZIPReader;
 import com.bigdata.journal.AbstractJournal.ISnapshotData;
 import com.bigdata.journal.CommitCounterUtility;
 import com.bigdata.journal.FileMetadata;
@@ -87,6 +91,7 @@ import com.bigdata.striterator.Resolver;
 import com.bigdata.striterator.Striterator;
 import com.bigdata.util.ChecksumError;
 import com.bigdata.util.ChecksumUtility;
+import com.bigdata.util.concurrent.DaemonThreadFactory;
 import com.bigdata.util.concurrent.LatchedExecutor;
 
 /**
@@ -199,6 +204,11 @@ public class SnapshotManager implements IServiceInit<Void> {
      * @see HAJournalServer.ConfigurationOptions#STARTUP_THREADS
      */
     private final int startupThreads;
+
+    /**
+     * @see HAJournalServer.ConfigurationOptions#SNAPSHOT_THREADS
+     */
+    private final int snapshotThreads;
     
     /**
      * An in memory index over the last commit time of each snapshot. This is
@@ -332,6 +342,23 @@ public class SnapshotManager implements IServiceInit<Void> {
 
         }
         
+        {
+
+            snapshotThreads = (Integer) config
+                    .getEntry(
+                            HAJournalServer.ConfigurationOptions.COMPONENT,
+                            HAJournalServer.ConfigurationOptions.SNAPSHOT_THREADS,
+                            Integer.TYPE,
+                            HAJournalServer.ConfigurationOptions.DEFAULT_SNAPSHOT_THREADS);
+
+            if (snapshotThreads <= 0) {
+                throw new ConfigurationException(
+                        HAJournalServer.ConfigurationOptions.SNAPSHOT_THREADS
+                                + "=" + snapshotThreads + " : must be GT ZERO");
+            }
+
+        }
+        
         snapshotIndex = SnapshotIndex.createTransient();
 
         // Note: Caller MUST invoke init() Callable.
@@ -1496,8 +1523,8 @@ public class SnapshotManager implements IServiceInit<Void> {
 				boolean success = false;
 				try {
 
-					os = new DataOutputStream(new GZIPOutputStream(
-							new FileOutputStream(tmp)));
+					os = new DataOutputStream(snapshotManager
+							.newSnapshotOutputStream(tmp));
 
 					// write out the file data.
 					((IHABufferStrategy) journal.getBufferStrategy())
@@ -1685,8 +1712,8 @@ public class SnapshotManager implements IServiceInit<Void> {
 			boolean success = false;
 			try {
 
-				os = new DataOutputStream(new GZIPOutputStream(
-						new FileOutputStream(tmp)));
+				os = new DataOutputStream(snapshotManager
+						.newSnapshotOutputStream(tmp));
 				
 				
 
@@ -1795,6 +1822,30 @@ public class SnapshotManager implements IServiceInit<Void> {
 
 		}
     } // class SnapshotTask
+
+    /**
+     * Return the stream on which a snapshot will be written.
+     * 
+     * @param file
+     *            The file on which the snapshot will be written.
+     * 
+     * @see HAJournalServer.ConfigurationOptions#SNAPSHOT_THREADS
+     */
+    private OutputStream newSnapshotOutputStream(final File file)
+            throws IOException {
+
+        final OutputStream os = new FileOutputStream(file);
+
+        if (snapshotThreads == 1) {
+
+            return new GZIPOutputStream(os);
+
+        }
+
+        return new BlockGZIPOutputStream(os, journal.getExecutorService(),
+                snapshotThreads);
+
+    }
     
     /**
      * Compute the digest of a snapshot file.
@@ -1820,7 +1871,12 @@ public class SnapshotManager implements IServiceInit<Void> {
 
         final File file = getSnapshotFile(commitCounter);
 
-        getSnapshotDigest(file, digest);
+        if (log.isInfoEnabled())
+            log.info("Computing digest: " + file);
+
+        // Note: Decompresses the members in parallel when possible.
+        BlockGZIPReader.digest(file, digest, journal.getExecutorService(),
+                snapshotThreads);
         
     }
 
@@ -1897,40 +1953,10 @@ public class SnapshotManager implements IServiceInit<Void> {
 
     }
 
-    /**
-     * Copy the input stream to the output stream.
-     * 
-     * @param content
-     *            The input stream.
-     * @param outstr
-     *            The output stream.
-     * 
-     * @throws IOException
-     */
-    static private void copyStream(final InputStream content,
-            final OutputStream outstr) throws IOException {
-
-        final byte[] buf = new byte[1024];
-
-        while (true) {
-
-            final int rdlen = content.read(buf);
-
-            if (rdlen <= 0) {
-
-                break;
-
-            }
-
-            outstr.write(buf, 0, rdlen);
-
-        }
-
-    }
-
     /**
      * Decompress a snapshot onto the specified file. The original file is not
-     * modified.
+     * modified. A snapshot written as a sequence of independently compressed
+     * members is decompressed in parallel.
      * 
      * @param src
      *            The snapshot.
@@ -1958,24 +1984,16 @@ public class SnapshotManager implements IServiceInit<Void> {
         if (log.isInfoEnabled())
             log.info("src=" + src + ", dst=" + dst);
 
-        InputStream is = null;
-        OutputStream os = null;
+        final int nthreads = Runtime.getRuntime().availableProcessors();
+
+        final ExecutorService executor = Executors.newFixedThreadPool(
+                nthreads, new DaemonThreadFactory(SnapshotManager.class
+                        .getName() + ".decompress"));
+
         try {
-            is = new GZIPInputStream(new FileInputStream(src));
-            os = new FileOutputStream(dst);
-            copyStream(is, os);
-            os.flush();
+            BlockGZIPReader.decompress(src, dst, executor, nthreads);
         } finally {
-            if (is != null)
-                try {
-                    is.close();
-                } catch (IOException ex) {
-                }
-            if (os != null)
-                try {
-                    os.close();
-                } catch (IOException ex) {
-                }
+            executor.shutdownNow();
         }
 
     }
@@ -0,0 +1,409 @@
+/**
+
+Copyright (C) SYSTAP, LLC 2006-2015.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@systap.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+/*
+ * Created on Oct 17, 2026
+ */
+
+package com.bigdata.bop.rdf.join;
+
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.FutureTask;
+
+import com.bigdata.bop.BOp;
+import com.bigdata.bop.BOpContext;
+import com.bigdata.bop.Constant;
+import com.bigdata.bop.IBindingSet;
+import com.bigdata.bop.IConstant;
+import com.bigdata.bop.IVariable;
+import com.bigdata.bop.IVariableOrConstant;
+import com.bigdata.bop.NV;
+import com.bigdata.bop.PipelineOp;
+import com.bigdata.bop.ap.Predicate;
+import com.bigdata.bop.engine.BOpStats;
+import com.bigdata.bop.paths.ArbitraryLengthPathOp;
+import com.bigdata.rdf.internal.IV;
+import com.bigdata.rdf.spo.SPORelation;
+import com.bigdata.rdf.spo.TransitiveClosureIndex;
+import com.bigdata.relation.accesspath.IBlockingBuffer;
+import com.bigdata.relation.accesspath.UnsyncLocalOutputBuffer;
+
+import cutthecrap.utils.striterators.ICloseableIterator;
+
+/**
+ * Evaluates a <code>p*</code> or <code>p+</code> property path using the
+ * {@link TransitiveClosureIndex} rather than running the path to a fixed point.
+ * This is a drop in replacement for the {@link ArbitraryLengthPathOp} when the
+ * path is a single predicate for which the transitive closure is maintained.
+ * For each source solution, the left and right terms are taken from the
+ * annotations (constants) or the solution (variables) and the solution is
+ * extended with each distinct <code>(left,right)</code> pair connected by the
+ * path.
+ *
+ * @see TransitiveClosureIndex
+ */
+public class TransitiveClosureScanOp extends PipelineOp {
+
+    private static final long serialVersionUID = 1L;
+
+    public interface Annotations extends PipelineOp.Annotations {
+
+        /**
+         * The left term - can be a variable or a constant.
+         */
+        String LEFT_TERM = ArbitraryLengthPathOp.Annotations.LEFT_TERM;
+
+        /**
+         * The right term - can be a variable or a constant.
+         */
+        String RIGHT_TERM = ArbitraryLengthPathOp.Annotations.RIGHT_TERM;
+
+        /**
+         * The lower bound on the path length. Either zero (0) for
+         * <code>p*</code> or one (1) for <code>p+</code>.
+         */
+        String LOWER_BOUND = ArbitraryLengthPathOp.Annotations.LOWER_BOUND;
+
+        /**
+         * The {@link IConstant} whose value is the {@link IV} of the
+         * predicate.
+         */
+        String PREDICATE = TransitiveClosureScanOp.class.getName()
+                + ".predicate";
+
+        /**
+         * The namespace of the {@link SPORelation} (as a one element
+         * <code>String[]</code>).
+         */
+        String RELATION_NAME = Predicate.Annotations.RELATION_NAME;
+
+        String TIMESTAMP = Predicate.Annotations.TIMESTAMP;
+
+    }
+
+    /**
+     * Deep copy constructor.
+     */
+    public TransitiveClosureScanOp(final TransitiveClosureScanOp op) {
+
+        super(op);
+
+    }
+
+    /**
+     * Shallow copy constructor.
+     */
+    public TransitiveClosureScanOp(final BOp[] args,
+            final Map<String, Object> annotations) {
+
+        super(args, annotations);
+
+        getRequiredProperty(Annotations.LEFT_TERM);
+        getRequiredProperty(Annotations.RIGHT_TERM);
+        getRequiredProperty(Annotations.PREDICATE);
+        getRequiredProperty(Annotations.RELATION_NAME);
+        getRequiredProperty(Annotations.TIMESTAMP);
+
+        final long lowerBound = (Long) getRequiredProperty(Annotations.LOWER_BOUND);
+
+        if (lowerBound != 0L && lowerBound != 1L)
+            throw new IllegalArgumentException(Annotations.LOWER_BOUND + "="
+                    + lowerBound);
+
+    }
+
+    public TransitiveClosureScanOp(final BOp[] args, final NV... annotations) {
+
+        this(args, NV.asMap(annotations));
+
+    }
+
+    @Override
+    public FutureTask<Void> eval(final BOpContext<IBindingSet> context) {
+
+        return new FutureTask<Void>(new ChunkTask(this, context));
+
+    }
+
+    static private class ChunkTask implements Callable<Void> {
+
+        private final TransitiveClosureScanOp op;
+
+        private final BOpContext<IBindingSet> context;
+
+        private final IVariableOrConstant<?> leftTerm;
+
+        private final IVariableOrConstant<?> rightTerm;
+
+        private final IV<?, ?> p;
+
+        private final boolean zeroLength;
+
+        @SuppressWarnings("rawtypes")
+        ChunkTask(final TransitiveClosureScanOp op,
+                final BOpContext<IBindingSet> context) {
+
+            this.op = op;
+
+            this.context = context;
+
+            this.leftTerm = (IVariableOrConstant<?>) op
+                    .getRequiredProperty(Annotations.LEFT_TERM);
+
+            this.rightTerm = (IVariableOrConstant<?>) op
+                    .getRequiredProperty(Annotations.RIGHT_TERM);
+
+            this.p = (IV) ((IConstant<?>) op
+                    .getRequiredProperty(Annotations.PREDICATE)).get();
+
+            this.zeroLength = (Long) op
+                    .getRequiredProperty(Annotations.LOWER_BOUND) == 0L;
+
+        }
+
+        @Override
+        public Void call() throws Exception {
+
+            final BOpStats stats = context.getStats();
+
+            final ICloseableIterator<IBindingSet[]> itr = context.getSource();
+
+            final IBlockingBuffer<IBindingSet[]> sink = context.getSink();
+
+            final UnsyncLocalOutputBuffer<IBindingSet> unsyncBuffer = new UnsyncLocalOutputBuffer<IBindingSet>(
+                    op.getChunkCapacity(), sink);
+
+            try {
+
+                final String namespace = ((String[]) op
+                        .getRequiredProperty(Annotations.RELATION_NAME))[0];
+
+                final long timestamp = (Long) op
+                        .getRequiredProperty(Annotations.TIMESTAMP);
+
+                final SPORelation spo = (SPORelation) context.getResource(
+                        namespace, timestamp);
+
+                final TransitiveClosureIndex ndx = spo
+                        .getTransitiveClosureIndex();
+
+                while (itr.hasNext()) {
+
+                    final IBindingSet[] chunk = itr.next();
+
+                    stats.chunksIn.increment();
+                    stats.unitsIn.add(chunk.length);
+
+                    for (IBindingSet bset : chunk) {
+
+                        handleSolution(ndx, bset, unsyncBuffer);
+
+                    }
+
+                }
+
+                unsyncBuffer.flush();
+
+                sink.flush();
+
+                // done.
+                return null;
+
+            } finally {
+
+                sink.close();
+
+            }
+
+        }
+
+        /**
+         * Extend the solution with each <code>(left,right)</code> pair which
+         * is connected by the path and consistent with the solution.
+         */
+        private void handleSolution(final TransitiveClosureIndex ndx,
+                final IBindingSet bset,
+                final UnsyncLocalOutputBuffer<IBindingSet> out) {
+
+            final IV<?, ?> left = get(leftTerm, bset);
+
+            final IV<?, ?> right = get(rightTerm, bset);
+
+            if (left != null && right != null) {
+
+                if ((zeroLength && left.equals(right))
+                        || ndx.contains(p, left, right)) {
+
+                    emit(bset, left, right, out);
+
+                }
+
+            } else if (left != null) {
+
+                final Set<IV<?, ?>> found = new LinkedHashSet<IV<?, ?>>();
+
+                if (zeroLength)
+                    found.add(left);
+
+                collect(ndx.getReachableFrom(p, left), found);
+
+                for (IV<?, ?> o : found) {
+
+                    emit(bset, left, o, out);
+
+                }
+
+            } else if (right != null) {
+
+                final Set<IV<?, ?>> found = new LinkedHashSet<IV<?, ?>>();
+
+                if (zeroLength)
+                    found.add(right);
+
+                collect(ndx.getReachableTo(p, right), found);
+
+                for (IV<?, ?> s : found) {
+
+                    emit(bset, s, right, out);
+
+                }
+
+            } else {
+
+                final ICloseableIterator<IV<?, ?>[]> itr = ndx.getReachable(p);
+
+                try {
+
+                    while (itr.hasNext()) {
+
+                        final IV<?, ?>[] e = itr.next();
+
+                        if (zeroLength && e[0].equals(e[1])) {
+
+                            // Reported below as a zero length path.
+                            continue;
+
+                        }
+
+                        emit(bset, e[0], e[1], out);
+
+                    }
+
+                } finally {
+
+                    itr.close();
+
+                }
+
+                if (zeroLength) {
+
+                    for (IV<?, ?> n : ndx.getNodes(p)) {
+
+                        emit(bset, n, n, out);
+
+                    }
+
+                }
+
+            }
+
+        }
+
+        /**
+         * Return the value of the term (if it is a constant) or its binding in
+         * the solution (if it is a variable) and <code>null</code> if the
+         * variable is not bound.
+         */
+        @SuppressWarnings("rawtypes")
+        private static IV<?, ?> get(final IVariableOrConstant<?> term,
+                final IBindingSet bset) {
+
+            if (term.isConstant())
+                return (IV) term.get();
+
+            final IConstant<?> c = bset.get((IVariable<?>) term);
+
+            return c == null ? null : (IV) c.get();
+
+        }
+
+        @SuppressWarnings({ "rawtypes", "unchecked" })
+        private void emit(final IBindingSet bset, final IV<?, ?> left,
+                final IV<?, ?> right,
+                final UnsyncLocalOutputBuffer<IBindingSet> out) {
+
+            final IBindingSet tmp = bset.clone();
+
+            if (leftTerm.isVar()) {
+
+                tmp.set((IVariable) leftTerm, new Constant<IV>(left));
+
+            }
+
+            if (rightTerm.isVar()) {
+
+                final IConstant<?> c = tmp.get((IVariable<?>) rightTerm);
+
+                if (c != null && !c.get().equals(right)) {
+
+                    /*
+                     * The same variable appears on both sides of the path and
+                     * the binding is not consistent.
+                     */
+                    return;
+
+                }
+
+                tmp.set((IVariable) rightTerm, new Constant<IV>(right));
+
+            }
+
+            out.add(tmp);
+
+        }
+
+        private static void collect(final ICloseableIterator<IV<?, ?>> itr,
+                final Set<IV<?, ?>> c) {
+
+            try {
+
+                while (itr.hasNext()) {
+
+                    c.add(itr.next());
+
+                }
+
+            } finally {
+
+                itr.close();
+
+            }
+
+        }
+
+    }
+
+}
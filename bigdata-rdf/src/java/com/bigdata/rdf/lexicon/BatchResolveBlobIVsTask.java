@@ -35,6 +35,7 @@ class BatchResolveBlobIVsTask implements Callable<Void> {
     private final Collection<BlobIV<?>> ivs;
     private final ConcurrentHashMap<IV<?,?>/* iv */, BigdataValue/* term */> ret;
     private final ITermCache<IV<?,?>, BigdataValue> termCache;
+    private final OffHeapTermCache offHeapCache;
     private final BigdataValueFactory valueFactory;
     private final int MAX_CHUNK;
 
@@ -44,6 +45,7 @@ class BatchResolveBlobIVsTask implements Callable<Void> {
             final Collection<BlobIV<?>> ivs,
             final ConcurrentHashMap<IV<?, ?>/* iv */, BigdataValue/* term */> ret,
             final ITermCache<IV<?,?>, BigdataValue> termCache,
+            final OffHeapTermCache offHeapCache,
             final BigdataValueFactory valueFactory,
             final int chunkSize) {
 
@@ -57,6 +59,8 @@ class BatchResolveBlobIVsTask implements Callable<Void> {
         
         this.termCache = termCache;
         
+        this.offHeapCache = offHeapCache;
+        
         this.valueFactory = valueFactory;
         
         this.MAX_CHUNK = chunkSize;
@@ -95,7 +99,7 @@ class BatchResolveBlobIVsTask implements Callable<Void> {
 
             new ResolveBlobsTask(ndx, 0/* fromIndex */,
                     numNotFound/* toIndex */, keys, notFound, ret,
-                    termCache, valueFactory).call();
+                    termCache, offHeapCache, valueFactory).call();
 
         } else {
 
@@ -136,7 +140,8 @@ class BatchResolveBlobIVsTask implements Callable<Void> {
                 // + toIndex + ", remaining=" + remaining);
 
                 tasks.add(new ResolveBlobsTask(ndx, fromIndex, toIndex,
-                        keys, notFound, ret, termCache, valueFactory));
+                        keys, notFound, ret, termCache, offHeapCache,
+                        valueFactory));
 
                 fromIndex = toIndex;
 
@@ -73,6 +73,7 @@ import com.bigdata.btree.filter.PrefixFilter;
 import com.bigdata.btree.filter.TupleFilter;
 import com.bigdata.btree.keys.IKeyBuilder;
 import com.bigdata.btree.keys.KVO;
+import com.bigdata.btree.keys.KeyBuilder;
 import com.bigdata.cache.ConcurrentWeakValueCacheWithBatchedUpdates;
 import com.bigdata.journal.IIndexManager;
 import com.bigdata.journal.IResourceLock;
@@ -527,6 +528,15 @@ public class LexiconRelation extends AbstractRelation<BigdataValue>
                 termCache = termCacheFactory.getInstance(new NT(namespace,
                         commitTime.longValue()), termCacheCapacity * 2);
 
+                /*
+                 * The off-heap term cache is shared across all read-only views
+                 * of the lexicon for this namespace. It is resolved lazily
+                 * since it is keyed in part by the UUID of the ID2TERM index.
+                 */
+                offHeapTermCacheCapacity = Long.parseLong(getProperty(
+                        AbstractTripleStore.Options.OFF_HEAP_TERM_CACHE_CAPACITY,
+                        AbstractTripleStore.Options.DEFAULT_OFF_HEAP_TERM_CACHE_CAPACITY));
+
             } else {
 
                 /*
@@ -539,7 +549,14 @@ public class LexiconRelation extends AbstractRelation<BigdataValue>
                         16 // concurrency level (16 is the default)
                 ));
 
+                // Never for a mutable view (an abort could reassign an IV).
+                offHeapTermCacheCapacity = 0L;
+
             }
+
+            offHeapTermCacheShards = Integer.parseInt(getProperty(
+                    AbstractTripleStore.Options.OFF_HEAP_TERM_CACHE_SHARDS,
+                    AbstractTripleStore.Options.DEFAULT_OFF_HEAP_TERM_CACHE_SHARDS));
             
         }
         
@@ -2572,6 +2589,11 @@ public class LexiconRelation extends AbstractRelation<BigdataValue>
         int numNotFound = 0;
 
         final boolean isDebugEnabled = log.isDebugEnabled();
+
+        final OffHeapTermCache offHeapTermCache = getOffHeapTermCache();
+
+        final IKeyBuilder keyBuilder = offHeapTermCache == null ? null
+                : KeyBuilder.newInstance();
         
         for (IV<?,?> iv : ivs) {
             
@@ -2611,6 +2633,22 @@ public class LexiconRelation extends AbstractRelation<BigdataValue>
 
                 }
 
+                if (offHeapTermCache != null) {
+
+                    final BigdataValue tmp = _getOffHeap(offHeapTermCache,
+                            keyBuilder, iv);
+
+                    if (tmp != null) {
+
+                        // resolved against the off-heap term cache.
+                        ret.put(iv, tmp);
+
+                        continue;
+
+                    }
+
+                }
+
                 // We will need to read on an index.
                 numNotFound++;
 
@@ -2654,14 +2692,16 @@ public class LexiconRelation extends AbstractRelation<BigdataValue>
 	        if (!termIVs.isEmpty()) {
 	
 	            tasks.add(new BatchResolveTermIVsTask(service, getId2TermIndex(),
-	                    termIVs, ret, termCache, valueFactory, termsChunksSize));
+	                    termIVs, ret, termCache, offHeapTermCache, valueFactory,
+	                    termsChunksSize));
 	
 	        }
 	
 	        if (!blobIVs.isEmpty()) {
 	
 	            tasks.add(new BatchResolveBlobIVsTask(service, getBlobsIndex(),
-	                    blobIVs, ret, termCache, valueFactory, blobsChunkSize));
+	                    blobIVs, ret, termCache, offHeapTermCache, valueFactory,
+	                    blobsChunkSize));
 	
 	        }
 	
@@ -2846,6 +2886,87 @@ public class LexiconRelation extends AbstractRelation<BigdataValue>
      */
 //    final private ConcurrentWeakValueCacheWithBatchedUpdates<IV<?,?>, BigdataValue> termCache;
     final private ITermCache<IV<?,?>,BigdataValue> termCache;
+
+    /**
+     * The maximum #of bytes in the {@link #offHeapTermCache} -or- ZERO (0L) if
+     * the off-heap term cache is not used by this view of the lexicon.
+     * 
+     * @see AbstractTripleStore.Options#OFF_HEAP_TERM_CACHE_CAPACITY
+     */
+    final private long offHeapTermCacheCapacity;
+
+    /**
+     * @see AbstractTripleStore.Options#OFF_HEAP_TERM_CACHE_SHARDS
+     */
+    final private int offHeapTermCacheShards;
+
+    /**
+     * The off-heap term cache (lazily resolved).
+     * 
+     * @see #getOffHeapTermCache()
+     */
+    private volatile OffHeapTermCache offHeapTermCache;
+
+    /**
+     * Return the {@link OffHeapTermCache} shared by the read-only views of the
+     * lexicon for this namespace.
+     * 
+     * @return The off-heap term cache -or- <code>null</code> if it is disabled
+     *         or if this is not a read-only view of the lexicon.
+     */
+    final OffHeapTermCache getOffHeapTermCache() {
+
+        if (offHeapTermCacheCapacity <= 0L)
+            return null;
+
+        OffHeapTermCache t = offHeapTermCache;
+
+        if (t == null) {
+
+            /*
+             * Note: The UUID of the ID2TERM index prevents carry over of the
+             * cached records across a drop/create sequence for the namespace.
+             */
+            final UUID indexUUID = getId2TermIndex().getIndexMetadata()
+                    .getIndexUUID();
+
+            offHeapTermCache = t = OffHeapTermCache.getInstance(
+                    getNamespace() + "/" + indexUUID, offHeapTermCacheCapacity,
+                    offHeapTermCacheShards);
+
+        }
+
+        return t;
+
+    }
+
+    /**
+     * Resolve an {@link IV} against the {@link OffHeapTermCache}. The value is
+     * entered into the {@link #termCache} as a side-effect.
+     * 
+     * @return The {@link BigdataValue} -or- <code>null</code> if the
+     *         {@link IV} was not found in the off-heap term cache.
+     */
+    private BigdataValue _getOffHeap(final OffHeapTermCache cache,
+            final IKeyBuilder keyBuilder, final IV<?, ?> iv) {
+
+        final byte[] data = cache.get(iv.encode(keyBuilder.reset()).getKey());
+
+        if (data == null)
+            return null;
+
+        // This also sets the value factory.
+        final BigdataValue value = valueFactory.getValueSerializer()
+                .deserialize(data);
+
+        // This sets the term identifier.
+        value.setIV(iv);
+
+        final BigdataValue tmp = termCache.putIfAbsent(iv, value);
+
+        return tmp != null ? tmp : value;
+
+    }
     
     /**
      * Factory used for {@link #termCache} for read-only views of the lexicon.
@@ -3002,6 +3123,18 @@ public class LexiconRelation extends AbstractRelation<BigdataValue>
 
         // handle bnodes, the termCache.
         BigdataValue value = _getTermId(iv);
+
+        if (value == null) {
+
+            final OffHeapTermCache cache = getOffHeapTermCache();
+
+            if (cache != null) {
+
+                value = _getOffHeap(cache, KeyBuilder.newInstance(), iv);
+
+            }
+
+        }
         
         if (value != null || !readFromIndex)
             return value;
@@ -3030,6 +3163,11 @@ public class LexiconRelation extends AbstractRelation<BigdataValue>
         if (data == null)
             return null;
 
+        final OffHeapTermCache cache = getOffHeapTermCache();
+
+        if (cache != null)
+            cache.putIfAbsent(key, data);
+
         // This also sets the value factory.
         BigdataValue value = valueFactory.getValueSerializer().deserialize(data);
         
@@ -3067,6 +3205,11 @@ public class LexiconRelation extends AbstractRelation<BigdataValue>
         if (data == null)
             return null;
 
+        final OffHeapTermCache cache = getOffHeapTermCache();
+
+        if (cache != null)
+            cache.putIfAbsent(key, data);
+
         // This also sets the value factory.
         BigdataValue value = valueFactory.getValueSerializer().deserialize(data);
         
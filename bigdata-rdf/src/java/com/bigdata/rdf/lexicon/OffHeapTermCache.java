@@ -0,0 +1,515 @@
+/**
+
+Copyright (C) SYSTAP, LLC 2006-2015.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@systap.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+/*
+ * Created on Oct 17, 2026
+ */
+
+package com.bigdata.rdf.lexicon;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.log4j.Logger;
+
+import com.bigdata.counters.CounterSet;
+import com.bigdata.counters.Instrument;
+import com.bigdata.io.DirectBufferPool;
+import com.bigdata.rdf.internal.IV;
+import com.bigdata.rdf.model.BigdataValue;
+import com.bigdata.rwstore.sector.IMemoryManager;
+import com.bigdata.rwstore.sector.MemoryManager;
+import com.bigdata.rwstore.sector.MemoryManagerOutOfMemory;
+import com.bigdata.util.CanonicalFactory;
+
+/**
+ * A size bounded cache of the reverse lexicon which keeps the serialized form
+ * of the {@link BigdataValue}s on the native heap. The key is the encoded
+ * {@link IV} (the key of the ID2TERM or BLOBS index) and the value is the
+ * record stored under that key in the index, so an entry may be entered into
+ * the cache directly from the results of a batch lookup without
+ * re-serializing the {@link BigdataValue}.
+ * <p>
+ * The cache is divided into shards by the hash code of the key. Each shard is
+ * guarded by its own lock and evicts in LRU order once the #of bytes in the
+ * records for that shard exceeds its share of the capacity of the cache. The
+ * records are written onto a {@link MemoryManager} backed by the
+ * {@link DirectBufferPool} and do not place any demand on the JVM heap beyond
+ * the key and the address of the record.
+ * <p>
+ * The mapping from a {@link TermId} or {@link BlobIV} to its lexical form is
+ * immutable once it has been committed. The cache may therefore be shared by
+ * all read-only views of the lexicon for a given namespace regardless of
+ * their commit time. It MUST NOT be populated from unisolated views since an
+ * abort could cause an {@link IV} to be reassigned. Instances are obtained
+ * using {@link #getInstance(String, long, int)}, which is keyed by the
+ * namespace and the UUID of the ID2TERM index in order to prevent carry over
+ * across a drop/create sequence for the triple store.
+ * 
+ * @see AbstractTripleStore.Options#OFF_HEAP_TERM_CACHE_CAPACITY
+ */
+public class OffHeapTermCache {
+
+    private static final Logger log = Logger.getLogger(OffHeapTermCache.class);
+
+    /**
+     * The maximum #of bytes in the records in each shard.
+     */
+    private final long maxBytesPerShard;
+
+    /**
+     * Records larger than this are not cached. This prevents a single large
+     * literal from flushing a shard.
+     */
+    private final int maxRecordSize;
+    
+    /**
+     * The native memory on which the records are stored.
+     */
+    private final IMemoryManager mmgr;
+
+    /**
+     * The shards.
+     */
+    private final Shard[] shards;
+
+    private final AtomicLong hitCount = new AtomicLong();
+
+    private final AtomicLong missCount = new AtomicLong();
+
+    private final AtomicLong insertCount = new AtomicLong();
+
+    private final AtomicLong evictionCount = new AtomicLong();
+
+    /**
+     * One shard of the cache.
+     */
+    private static class Shard {
+
+        final ReentrantLock lock = new ReentrantLock();
+
+        /**
+         * Map from the key to the address of the record in an access order
+         * (LRU) ordering.
+         */
+        final LinkedHashMap<Key, Long> map = new LinkedHashMap<Key, Long>(
+                16/* initialCapacity */, .75f/* loadFactor */, true/* accessOrder */);
+
+        /**
+         * The #of bytes in the records for this shard.
+         */
+        long bytes = 0L;
+
+    }
+
+    /**
+     * Wraps a <code>byte[]</code> key for use in a hash map.
+     */
+    private static class Key {
+
+        private final byte[] key;
+
+        private final int hash;
+
+        Key(final byte[] key) {
+
+            this.key = key;
+
+            this.hash = Arrays.hashCode(key);
+
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o)
+                return true;
+            if (!(o instanceof Key))
+                return false;
+            final Key t = (Key) o;
+            return hash == t.hash && Arrays.equals(key, t.key);
+        }
+
+    }
+
+    /**
+     * @param capacity
+     *            The maximum #of bytes in the cached records.
+     * @param nshards
+     *            The #of shards (lock striping).
+     */
+    public OffHeapTermCache(final long capacity, final int nshards) {
+
+        if (capacity <= 0)
+            throw new IllegalArgumentException();
+
+        if (nshards <= 0)
+            throw new IllegalArgumentException();
+
+        this.maxBytesPerShard = Math.max(1L, capacity / nshards);
+
+        this.maxRecordSize = (int) Math.min(Integer.MAX_VALUE,
+                Math.max(1L, maxBytesPerShard / 8));
+
+        /*
+         * Note: The memory manager is sized to twice the capacity of the cache
+         * in order to allow for the slot size rounding of the allocators. The
+         * allocations are non-blocking. If the memory manager is exhausted
+         * then the record is simply not cached.
+         */
+        final long sectorSize = DirectBufferPool.INSTANCE.getBufferCapacity();
+
+        final int sectors = (int) Math.min(Integer.MAX_VALUE,
+                (2 * capacity) / sectorSize + 1);
+
+        this.mmgr = new MemoryManager(DirectBufferPool.INSTANCE, sectors,
+                false/* blocks */, null/* properties */);
+
+        this.shards = new Shard[nshards];
+
+        for (int i = 0; i < nshards; i++) {
+
+            shards[i] = new Shard();
+
+        }
+
+    }
+
+    private Shard getShard(final Key k) {
+
+        // Note: spread the bits of the hash code before choosing the shard.
+        int h = k.hash;
+        h ^= (h >>> 20) ^ (h >>> 12);
+        h ^= (h >>> 7) ^ (h >>> 4);
+
+        return shards[(h & 0x7fffffff) % shards.length];
+
+    }
+
+    /**
+     * Return a copy of the record cached under the key.
+     * 
+     * @param key
+     *            The encoded {@link IV}.
+     * 
+     * @return The record -or- <code>null</code> if there is no record for that
+     *         key in the cache.
+     */
+    public byte[] get(final byte[] key) {
+
+        final Key k = new Key(key);
+
+        final Shard shard = getShard(k);
+
+        shard.lock.lock();
+        try {
+
+            final Long addr = shard.map.get(k);
+
+            if (addr == null) {
+
+                missCount.incrementAndGet();
+
+                return null;
+
+            }
+
+            hitCount.incrementAndGet();
+
+            // Note: read while holding the lock so the record can not be freed.
+            return mmgr.read(addr.longValue());
+
+        } finally {
+
+            shard.lock.unlock();
+
+        }
+
+    }
+
+    /**
+     * Enter a record into the cache. This is a NOP if there is already a record
+     * for that key or if the record is too large to be cached.
+     * 
+     * @param key
+     *            The encoded {@link IV}.
+     * @param val
+     *            The record from the ID2TERM or BLOBS index.
+     */
+    public void putIfAbsent(final byte[] key, final byte[] val) {
+
+        if (val == null || val.length == 0 || val.length > maxRecordSize)
+            return;
+
+        final Key k = new Key(key);
+
+        final Shard shard = getShard(k);
+
+        shard.lock.lock();
+        try {
+
+            if (shard.map.containsKey(k))
+                return;
+
+            // Make room for the new record.
+            evict(shard, maxBytesPerShard - val.length);
+
+            long addr;
+            try {
+                addr = mmgr.allocate(ByteBuffer.wrap(val), false/* blocks */);
+            } catch (MemoryManagerOutOfMemory ex) {
+                /*
+                 * The native memory is exhausted (other shards may be holding
+                 * onto more than their share of the slots). Release some
+                 * memory from this shard and retry once.
+                 */
+                evict(shard, shard.bytes / 2);
+                try {
+                    addr = mmgr.allocate(ByteBuffer.wrap(val), false/* blocks */);
+                } catch (MemoryManagerOutOfMemory ex2) {
+                    if (log.isInfoEnabled())
+                        log.info("Native memory exhausted: " + ex2);
+                    return;
+                }
+            }
+
+            shard.map.put(k, Long.valueOf(addr));
+
+            shard.bytes += val.length;
+
+            insertCount.incrementAndGet();
+
+        } finally {
+
+            shard.lock.unlock();
+
+        }
+
+    }
+
+    /**
+     * Evict LRU records from the shard until the #of bytes in that shard is
+     * not greater than the given target. The caller MUST hold the lock for the
+     * shard.
+     */
+    private void evict(final Shard shard, final long target) {
+
+        final Iterator<Map.Entry<Key, Long>> itr = shard.map.entrySet()
+                .iterator();
+
+        while (shard.bytes > target && itr.hasNext()) {
+
+            final long addr = itr.next().getValue().longValue();
+
+            itr.remove();
+
+            shard.bytes -= mmgr.allocationSize(addr);
+
+            mmgr.free(addr);
+
+            evictionCount.incrementAndGet();
+
+        }
+
+    }
+
+    /**
+     * The #of records in the cache.
+     */
+    public int size() {
+
+        int n = 0;
+
+        for (Shard shard : shards) {
+
+            shard.lock.lock();
+            try {
+                n += shard.map.size();
+            } finally {
+                shard.lock.unlock();
+            }
+
+        }
+
+        return n;
+
+    }
+
+    /**
+     * The #of bytes in the records in the cache.
+     */
+    public long getByteCount() {
+
+        long n = 0;
+
+        for (Shard shard : shards) {
+
+            shard.lock.lock();
+            try {
+                n += shard.bytes;
+            } finally {
+                shard.lock.unlock();
+            }
+
+        }
+
+        return n;
+
+    }
+
+    /**
+     * Discard all entries and release the native memory back to the pool.
+     */
+    public void clear() {
+
+        for (Shard shard : shards) {
+
+            shard.lock.lock();
+
+        }
+
+        try {
+
+            for (Shard shard : shards) {
+
+                shard.map.clear();
+
+                shard.bytes = 0L;
+
+            }
+
+            mmgr.clear();
+
+        } finally {
+
+            for (Shard shard : shards) {
+
+                shard.lock.unlock();
+
+            }
+
+        }
+
+    }
+
+    public CounterSet getCounters() {
+
+        final CounterSet root = new CounterSet();
+
+        root.addCounter("size", new Instrument<Integer>() {
+            @Override
+            public void sample() {
+                setValue(size());
+            }
+        });
+
+        root.addCounter("byteCount", new Instrument<Long>() {
+            @Override
+            public void sample() {
+                setValue(getByteCount());
+            }
+        });
+
+        root.addCounter("hitCount", new Instrument<Long>() {
+            @Override
+            public void sample() {
+                setValue(hitCount.get());
+            }
+        });
+
+        root.addCounter("missCount", new Instrument<Long>() {
+            @Override
+            public void sample() {
+                setValue(missCount.get());
+            }
+        });
+
+        root.addCounter("insertCount", new Instrument<Long>() {
+            @Override
+            public void sample() {
+                setValue(insertCount.get());
+            }
+        });
+
+        root.addCounter("evictionCount", new Instrument<Long>() {
+            @Override
+            public void sample() {
+                setValue(evictionCount.get());
+            }
+        });
+
+        return root;
+
+    }
+
+    @Override
+    public String toString() {
+
+        return getClass().getSimpleName() + "{shards=" + shards.length
+                + ", maxBytesPerShard=" + maxBytesPerShard + ", hitCount="
+                + hitCount.get() + ", missCount=" + missCount.get()
+                + ", insertCount=" + insertCount.get() + ", evictionCount="
+                + evictionCount.get() + "}";
+
+    }
+
+    /**
+     * Factory for instances shared by the read-only views of the lexicon.
+     */
+    static private CanonicalFactory<String/* key */, OffHeapTermCache, long[]/* state */> factory = new CanonicalFactory<String, OffHeapTermCache, long[]>(
+            1/* queueCapacity */) {
+        @Override
+        protected OffHeapTermCache newInstance(final String key,
+                final long[] state) {
+            return new OffHeapTermCache(state[0], (int) state[1]);
+        }
+    };
+
+    /**
+     * Return the instance shared by the read-only views of the lexicon.
+     * 
+     * @param key
+     *            The namespace of the lexicon and the UUID of its ID2TERM
+     *            index.
+     * @param capacity
+     *            The maximum #of bytes in the cached records.
+     * @param nshards
+     *            The #of shards.
+     */
+    static OffHeapTermCache getInstance(final String key, final long capacity,
+            final int nshards) {
+
+        return factory.getInstance(key, new long[] { capacity, nshards });
+
+    }
+
+}
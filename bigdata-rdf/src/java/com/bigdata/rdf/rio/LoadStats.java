@@ -39,6 +39,37 @@ public class LoadStats {
     public final CAT loadTime = new CAT();
     public final CAT commitTime = new CAT();
     public final CAT totalTime = new CAT();
+
+    /*
+     * Per-stage statistics for the pipelined load. These are zero unless the
+     * DataLoader was configured with parser threads. The stage times are
+     * summed over the threads of the stage.
+     */
+
+    /**
+     * The elapsed time (ms) spent by the parser threads.
+     */
+    public final CAT parseTime = new CAT();
+
+    /**
+     * The elapsed time (ms) spent resolving terms against the lexicon.
+     */
+    public final CAT termTime = new CAT();
+
+    /**
+     * The #of terms submitted to the lexicon for resolution.
+     */
+    public final CAT termCount = new CAT();
+
+    /**
+     * The elapsed time (ms) spent writing on the statement indices.
+     */
+    public final CAT indexTime = new CAT();
+
+    /**
+     * The #of statements written on the statement indices.
+     */
+    public final CAT indexCount = new CAT();
     
     private transient volatile long lastReportTime = 0l;
 
@@ -60,6 +91,19 @@ public class LoadStats {
 
     }
 
+    /**
+     * The rate (per second) of a stage given the #of units processed and the
+     * elapsed time of that stage.
+     */
+    private static long rate(final CAT n, final CAT elapsed) {
+
+        final long ms = elapsed.estimate_get();
+
+        return ms == 0L ? 0L
+                : (long) (((double) n.estimate_get()) / ((double) ms) * 1000d);
+
+    }
+
     public void add(final LoadStats stats) {
 
         toldTriples.add(stats.toldTriples.get());
@@ -70,6 +114,16 @@ public class LoadStats {
 
         totalTime.add(stats.totalTime.get());
 
+        parseTime.add(stats.parseTime.get());
+
+        termTime.add(stats.termTime.get());
+
+        termCount.add(stats.termCount.get());
+
+        indexTime.add(stats.indexTime.get());
+
+        indexCount.add(stats.indexCount.get());
+
         if (stats.closureStats != null) {
 
             closureStats.add(stats.closureStats);
@@ -119,6 +173,12 @@ public class LoadStats {
                 + ", commitLatency="
                 + commitTime.estimate_get()
                 + "ms"
+                + (parseTime.estimate_get() != 0L ? ", parse="
+                        + parseTime.estimate_get() + "ms (" + rate(toldTriples, parseTime)
+                        + " stmts/s), terms=" + termTime.estimate_get() + "ms ("
+                        + rate(termCount, termTime) + " terms/s), index="
+                        + indexTime.estimate_get() + "ms (" + rate(indexCount, indexTime)
+                        + " stmts/s)" : "")
                 + (closureStats.elapsed.estimate_get()!=0L? "\n"+closureStats.toString() : "");
 
     }
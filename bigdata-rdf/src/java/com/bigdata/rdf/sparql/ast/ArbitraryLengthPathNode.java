@@ -92,7 +92,18 @@ public class ArbitraryLengthPathNode
          * The upper bound on the number of rounds to run.
          */
         String UPPER_BOUND =  Annotations.class.getName() + ".upperBound";
-        
+
+        /**
+         * When present, the {@link ConstantNode} for a predicate whose
+         * transitive closure is maintained by the database. The path is then
+         * evaluated as a range scan of that index rather than by running the
+         * subgroup to a fixed point.
+         * 
+         * @see com.bigdata.rdf.spo.TransitiveClosureIndex
+         */
+        String TRANSITIVE_CLOSURE_PREDICATE = Annotations.class.getName()
+                + ".transitiveClosurePredicate";
+
     }
 	
     /**
@@ -189,6 +200,17 @@ public class ArbitraryLengthPathNode
     	return (Long) super.getRequiredProperty(Annotations.UPPER_BOUND);
     }
     
+    /**
+     * Return the predicate whose transitive closure index will be used to
+     * evaluate the path -or- <code>null</code> if the path must be run to a
+     * fixed point.
+     * 
+     * @see Annotations#TRANSITIVE_CLOSURE_PREDICATE
+     */
+    public ConstantNode transitiveClosurePredicate() {
+        return (ConstantNode) super.getProperty(Annotations.TRANSITIVE_CLOSURE_PREDICATE);
+    }
+
     /**
      * Return the subgroup.
      */
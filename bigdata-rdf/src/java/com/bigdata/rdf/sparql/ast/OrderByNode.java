@@ -31,6 +31,7 @@ import java.util.Iterator;
 import java.util.Map;
 
 import com.bigdata.bop.BOp;
+import com.bigdata.rdf.sparql.ast.optimizers.ASTTopKOptimizer;
 
 /**
  * AST node models an ORDER BY clause.
@@ -48,6 +49,31 @@ public class OrderByNode extends SolutionModifierBase implements
      */
     private static final long serialVersionUID = 1L;
 
+    interface Annotations extends SolutionModifierBase.Annotations {
+
+        /**
+         * The #of ordered solutions which will be consumed (the OFFSET plus
+         * the LIMIT) when the ORDER BY is followed directly by a SLICE.
+         * 
+         * @see ASTTopKOptimizer
+         */
+        String TOP_K = "topK";
+
+        long DEFAULT_TOP_K = Long.MAX_VALUE;
+
+        /**
+         * When <code>true</code>, the solutions are produced in the ORDER BY
+         * order by the access path for the (single) statement pattern in the
+         * WHERE clause and no sort is required.
+         * 
+         * @see ASTTopKOptimizer
+         */
+        String INDEX_ORDER = "indexOrder";
+
+        boolean DEFAULT_INDEX_ORDER = false;
+
+    }
+
     /**
      * Deep copy constructor.
      */
@@ -92,6 +118,37 @@ public class OrderByNode extends SolutionModifierBase implements
         return arity() == 0;
         
     }
+
+    /**
+     * @see Annotations#TOP_K
+     */
+    public long getTopK() {
+
+        return getProperty(Annotations.TOP_K, Annotations.DEFAULT_TOP_K);
+
+    }
+
+    public void setTopK(final long topK) {
+
+        setProperty(Annotations.TOP_K, topK);
+
+    }
+
+    /**
+     * @see Annotations#INDEX_ORDER
+     */
+    public boolean isIndexOrder() {
+
+        return getProperty(Annotations.INDEX_ORDER,
+                Annotations.DEFAULT_INDEX_ORDER);
+
+    }
+
+    public void setIndexOrder(final boolean indexOrder) {
+
+        setProperty(Annotations.INDEX_ORDER, indexOrder);
+
+    }
     
     @Override
     @SuppressWarnings({ "unchecked", "rawtypes" })
@@ -37,16 +37,21 @@ import com.bigdata.bop.engine.IRunningQuery;
 import com.bigdata.bop.engine.QueryEngine;
 import com.bigdata.bop.fed.QueryEngineFactory;
 import com.bigdata.bop.join.HashJoinAnnotations;
+import com.bigdata.bop.paths.ArbitraryLengthPathOp;
+import com.bigdata.bop.solutions.MemorySortOp;
+import com.bigdata.bop.solutions.ParallelSortOp;
 import com.bigdata.htree.HTree;
 import com.bigdata.io.DirectBufferPool;
 import com.bigdata.rawstore.Bytes;
 import com.bigdata.rdf.sparql.ast.cache.CacheConnectionFactory;
+import com.bigdata.rdf.sparql.ast.cache.PlanCache;
 import com.bigdata.rdf.sparql.ast.hints.QueryHintRegistry;
 import com.bigdata.rdf.sparql.ast.hints.QueryHintScope;
 import com.bigdata.rdf.sparql.ast.optimizers.ASTDistinctTermScanOptimizer;
 import com.bigdata.rdf.sparql.ast.optimizers.ASTFastRangeCountOptimizer;
 import com.bigdata.rdf.sparql.ast.optimizers.ASTOptimizerList;
 import com.bigdata.rdf.sparql.ast.optimizers.ASTStaticJoinOptimizer;
+import com.bigdata.rdf.sparql.ast.optimizers.ASTTopKOptimizer;
 import com.bigdata.rdf.sparql.ast.optimizers.DefaultOptimizerList;
 
 /**
@@ -148,6 +153,29 @@ public interface QueryHints {
 
     int DEFAULT_RTO_NEDGES = 1;
 
+    /**
+     * The factor by which the actual cardinality of a join may exceed the
+     * cardinality estimated by the static query optimizer before the
+     * {@link QueryOptimizerEnum#Adaptive} optimizer abandons the static join
+     * ordering and re-plans the join group using the runtime query optimizer
+     * (default {@value #DEFAULT_RTO_ADAPTIVE_THRESHOLD}).
+     */
+    String RTO_ADAPTIVE_THRESHOLD = "RTO-adaptiveThreshold";
+
+    double DEFAULT_RTO_ADAPTIVE_THRESHOLD = 10d;
+
+    /**
+     * The #of solutions which the static join ordering may produce for a join
+     * group before the {@link QueryOptimizerEnum#Adaptive} optimizer commits to
+     * that join ordering (default {@value #DEFAULT_RTO_ADAPTIVE_LIMIT}). Those
+     * solutions are buffered so the join group may still be re-planned. Once
+     * the limit is reached the buffered solutions are released and the actual
+     * cardinalities are no longer monitored.
+     */
+    String RTO_ADAPTIVE_LIMIT = "RTO-adaptiveLimit";
+
+    int DEFAULT_RTO_ADAPTIVE_LIMIT = 1000;
+
     /**
      * Query hint sets the optimistic threshold for the static join order
      * optimizer.
@@ -243,6 +271,31 @@ public interface QueryHints {
     long DEFAULT_ANALYTIC_MAX_MEMORY_PER_QUERY = Long.valueOf(System
             .getProperty(QueryHints.class.getName() + "."
                     + ANALYTIC_MAX_MEMORY_PER_QUERY, "0"));
+
+    /**
+     * The maximum amount of JVM heap memory that may be retained by the
+     * operators of a single query -or- ZERO (0L) if no limit should be
+     * imposed. When non-zero, the JVM hash indices and the JVM DISTINCT
+     * SOLUTIONS operator start on the JVM heap and adaptively spill their
+     * state onto the native heap (the {@link HTree} on the per-query memory
+     * manager) once the limit would be exceeded. Operators which can not spill
+     * (GROUP BY) will break the query instead. This keeps a single query from
+     * exhausting the JVM heap of a shared endpoint.
+     * <p>
+     * The default is ZERO (0) which implies no limit. The default may be
+     * overridden using the environment variable named
+     * 
+     * <pre>
+     * com.bigdata.rdf.sparql.ast.QueryHints.maxHeapMemoryPerQuery
+     * </pre>
+     * 
+     * @see #ANALYTIC_MAX_MEMORY_PER_QUERY
+     */
+    String MAX_HEAP_MEMORY_PER_QUERY = "maxHeapMemoryPerQuery";
+
+    long DEFAULT_MAX_HEAP_MEMORY_PER_QUERY = Long.valueOf(System
+            .getProperty(QueryHints.class.getName() + "."
+                    + MAX_HEAP_MEMORY_PER_QUERY, "0"));
     
     /**
      * When <code>true</code>, will use the version of DISTINCT SOLUTIONS based
@@ -296,6 +349,66 @@ public interface QueryHints {
 
     boolean DEFAULT_NATIVE_HASH_JOINS = DEFAULT_ANALYTIC;
 
+    /**
+     * When <code>true</code>, ORDER BY is evaluated using the
+     * {@link ParallelSortOp}, which sorts bounded runs in parallel, spills full
+     * runs onto native memory and merges them on the last pass. When the
+     * query has a LIMIT, only the best OFFSET+LIMIT solutions are retained.
+     * When <code>false</code>, the {@link MemorySortOp} is used. The default
+     * may be overridden using the environment variable named
+     * 
+     * <pre>
+     * com.bigdata.rdf.sparql.ast.QueryHints.parallelSort
+     * </pre>
+     * 
+     * Note: This query hint MUST be applied in the {@link QueryHintScope#Query}.
+     */
+    String PARALLEL_SORT = "parallelSort";
+
+    boolean DEFAULT_PARALLEL_SORT = Boolean.valueOf(System.getProperty(
+            QueryHints.class.getName() + "." + PARALLEL_SORT, "false"));
+
+    /**
+     * When <code>true</code>, the IVs bound to the projected variables
+     * are left unmaterialized until the solutions are consumed. Each chunk of
+     * solutions is then materialized using a single batch request against the
+     * lexicon and converted directly into Sesame solutions without copying the
+     * bigdata solutions. When <code>false</code>, the projection is
+     * materialized by a producer thread ahead of the consumer. This has no
+     * effect if the projection is materialized within the query plan. The
+     * default may be overridden using the environment variable named
+     * 
+     * <pre>
+     * com.bigdata.rdf.sparql.ast.QueryHints.lateMaterialization
+     * </pre>
+     * 
+     * Note: This query hint MUST be applied in the {@link QueryHintScope#Query}.
+     */
+    String LATE_MATERIALIZATION = "lateMaterialization";
+
+    boolean DEFAULT_LATE_MATERIALIZATION = Boolean.valueOf(System.getProperty(
+            QueryHints.class.getName() + "." + LATE_MATERIALIZATION, "false"));
+
+    /**
+     * When <code>true</code>, an arbitrary length path whose ends are both
+     * known for an incoming solution is evaluated by a bidirectional,
+     * meet-in-the-middle search rather than by expanding the path from one end
+     * until the frontier is exhausted. The default may be overridden using the
+     * environment variable named
+     * 
+     * <pre>
+     * com.bigdata.rdf.sparql.ast.QueryHints.bidirectionalPaths
+     * </pre>
+     * 
+     * Note: This query hint MUST be applied in the {@link QueryHintScope#Query}.
+     * 
+     * @see ArbitraryLengthPathOp.Annotations#BIDIRECTIONAL
+     */
+    String BIDIRECTIONAL_PATHS = "bidirectionalPaths";
+
+    boolean DEFAULT_BIDIRECTIONAL_PATHS = Boolean.valueOf(System.getProperty(
+            QueryHints.class.getName() + "." + BIDIRECTIONAL_PATHS, "false"));
+
     /**
      * When <code>true</code>, a merge-join pattern will be recognized if it
      * appears in a join group. When <code>false</code>, this can still be
@@ -523,11 +636,54 @@ public interface QueryHints {
     boolean DEFAULT_DESCRIBE_CACHE = false;
 
     /**
-     * FIXME Hack enables the cache feature if the describe cache is enabled.
+     * When <code>true</code>, the solutions for SELECT queries will be cached.
+     * The cache is keyed on the optimized AST and an entry computed against
+     * one commit point is reused by readers on later commit points as long as
+     * none of the statement index key ranges read by the query have changed.
+     * This is useful when the same expensive queries (e.g., aggregations) are
+     * issued repeatedly between updates. The cache is only setup when the
+     * default is <code>true</code>, in which case the query hint may be used
+     * to bypass the cache for a specific query. The default may be overridden
+     * using the environment variable named
+     * 
+     * <pre>
+     * com.bigdata.rdf.sparql.ast.QueryHints.solutionSetCache
+     * </pre>
+     * 
+     * @see SolutionSetCache
+     */
+    String SOLUTION_SET_CACHE = "solutionSetCache";
+
+    boolean DEFAULT_SOLUTION_SET_CACHE = Boolean.valueOf(System.getProperty(
+            QueryHints.class.getName() + "." + SOLUTION_SET_CACHE, "false"));
+
+    /**
+     * When <code>true</code>, the parsed and the optimized ASTs for queries
+     * are cached and reused when the same query string is issued again
+     * against the same KB. The optimized AST is only reused by queries without
+     * exogenous solutions and query hints which read on a read-only view and
+     * is recomputed once the #of statements in the KB has drifted. The default
+     * may be overridden using the environment variable named
+     * 
+     * <pre>
+     * com.bigdata.rdf.sparql.ast.QueryHints.planCache
+     * </pre>
+     * 
+     * @see PlanCache
+     */
+    String PLAN_CACHE = "planCache";
+
+    boolean DEFAULT_PLAN_CACHE = Boolean.valueOf(System.getProperty(
+            QueryHints.class.getName() + "." + PLAN_CACHE, "false"));
+
+    /**
+     * FIXME Hack enables the cache feature if the describe cache, the
+     * solution set cache or the plan cache is enabled.
      * 
      * @see CacheConnectionFactory#getCacheConnection(QueryEngine)
      */
-    boolean CACHE_ENABLED = DEFAULT_DESCRIBE_CACHE;
+    boolean CACHE_ENABLED = DEFAULT_DESCRIBE_CACHE
+            || DEFAULT_SOLUTION_SET_CACHE || DEFAULT_PLAN_CACHE;
 
     /**
      * Query hint controls the manner in which a DESCRIBE query is evaluated.
@@ -645,6 +801,15 @@ public interface QueryHints {
 	boolean DEFAULT_DISTINCT_TERM_SCAN_OPTIMIZER = Boolean.valueOf(System
 			.getProperty(DISTINCT_TERM_SCAN_OPTIMIZER, "true"));
 
+    /**
+     * The name of an property that may be used to enable or disable the
+     * {@link ASTTopKOptimizer}.
+     */
+    String TOP_K_OPTIMIZER = "topKOptimizer";
+
+    boolean DEFAULT_TOP_K_OPTIMIZER = Boolean.valueOf(System.getProperty(
+            TOP_K_OPTIMIZER, "true"));
+
    /**
     * The name of the subclass derived from {@link ASTOptimizerList} that will
     * be used to optimize SPARQL QUERY and UPDATE requests. This class MUST
@@ -65,6 +65,19 @@ public enum QueryOptimizerEnum {
      * or 100x). For long running joins, this can translates into a savings of
      * minutes or hours.
      */
-    Runtime;
+    Runtime,
+    /**
+     * The static query optimizer is used to order the joins, but the actual
+     * cardinality of each join is compared with the cardinality estimated by
+     * the static optimizer while the query runs. If a join produces more than
+     * {@link QueryHints#RTO_ADAPTIVE_THRESHOLD} times as many solutions as
+     * were estimated before the first {@link QueryHints#RTO_ADAPTIVE_LIMIT}
+     * solutions have been produced by the join group, then the static plan is
+     * abandoned and the joins are re-ordered by the runtime query optimizer.
+     * This avoids the overhead of the runtime query optimizer for queries
+     * where the static estimates are good while protecting against the worst
+     * join orderings produced by the static query optimizer.
+     */
+    Adaptive;
 
 }
@@ -43,6 +43,7 @@ import com.bigdata.rdf.sparql.ast.eval.AST2BOpUtility;
 import com.bigdata.rdf.sparql.ast.optimizers.ASTGraphGroupOptimizer;
 import com.bigdata.rdf.sparql.ast.optimizers.ASTRangeConstraintOptimizer;
 import com.bigdata.rdf.sparql.ast.optimizers.ASTSimpleOptionalOptimizer;
+import com.bigdata.rdf.sparql.ast.optimizers.ASTTopKOptimizer;
 import com.bigdata.rdf.sparql.ast.optimizers.StaticOptimizer;
 import com.bigdata.rdf.spo.DistinctTermAdvancer;
 import com.bigdata.rdf.spo.ISPO;
@@ -215,6 +216,17 @@ public class StatementPatternNode extends
 		 *      PREDICATEs query is slow </a>
 		 */
         String DISTINCT_TERM_SCAN_VAR = "distinctTermScanVar";
+
+        /**
+         * When <code>true</code>, the access path is visited in reverse key
+         * order. This is used when the key order of the access path imposes a
+         * descending ORDER BY.
+         * 
+         * @see ASTTopKOptimizer
+         */
+        String REVERSE_SCAN = "reverseScan";
+
+        boolean DEFAULT_REVERSE_SCAN = false;
         
     }
     
@@ -459,6 +471,25 @@ public class StatementPatternNode extends
 		setProperty(Annotations.DISTINCT_TERM_SCAN_VAR, var);
 
 	}
+
+	/**
+	 * Return <code>true</code> iff the access path will be visited in reverse
+	 * key order.
+	 * 
+	 * @see Annotations#REVERSE_SCAN
+	 */
+	final public boolean isReverseScan() {
+
+		return getProperty(Annotations.REVERSE_SCAN,
+				Annotations.DEFAULT_REVERSE_SCAN);
+
+	}
+
+	final public void setReverseScan(final boolean reverseScan) {
+
+		setProperty(Annotations.REVERSE_SCAN, reverseScan);
+
+	}
     
     /**
      * {@inheritDoc}
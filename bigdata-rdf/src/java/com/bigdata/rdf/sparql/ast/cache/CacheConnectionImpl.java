@@ -27,8 +27,10 @@ Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
 
 package com.bigdata.rdf.sparql.ast.cache;
 
+import java.util.Map;
 import java.util.Properties;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
@@ -37,7 +39,9 @@ import com.bigdata.bfs.BigdataFileSystem;
 import com.bigdata.bop.engine.QueryEngine;
 import com.bigdata.btree.HTreeIndexMetadata;
 import com.bigdata.btree.view.FusedView;
+import com.bigdata.counters.CounterSet;
 import com.bigdata.htree.HTree;
+import com.bigdata.io.DirectBufferPool;
 import com.bigdata.journal.AbstractJournal;
 import com.bigdata.journal.AbstractLocalTransactionManager;
 import com.bigdata.journal.BufferMode;
@@ -53,6 +57,7 @@ import com.bigdata.rawstore.Bytes;
 import com.bigdata.rdf.sparql.ast.QueryHints;
 import com.bigdata.relation.locator.DefaultResourceLocator;
 import com.bigdata.resources.IndexManager;
+import com.bigdata.rwstore.sector.MemoryManager;
 import com.bigdata.service.IDataService;
 import com.bigdata.sparse.SparseRowStore;
 
@@ -98,6 +103,27 @@ public class CacheConnectionImpl implements ICacheConnection {
      */
     private boolean enableDescribeCache;
 
+    /**
+     * The native memory backing the solution set cache -or- <code>null</code>
+     * if the solution set cache is not enabled.
+     */
+    private final MemoryManager solutionSetCacheMemory;
+
+    /**
+     * The solution set cache for each KB namespace.
+     */
+    private final ConcurrentHashMap<String, SolutionSetCache> solutionSetCaches = new ConcurrentHashMap<String, SolutionSetCache>();
+
+    /**
+     * <code>true</code> iff the plan cache is enabled.
+     */
+    private final boolean enablePlanCache;
+
+    /**
+     * The plan cache for each KB namespace.
+     */
+    private final ConcurrentHashMap<String, PlanCache> planCaches = new ConcurrentHashMap<String, PlanCache>();
+
     /**
      * Boolean determines whether or not the main database is used for the
      * cache. When the main database is used, the cache winds up being durable.
@@ -194,6 +220,17 @@ public class CacheConnectionImpl implements ICacheConnection {
         this.enableDescribeCache = QueryHints.DEFAULT_DESCRIBE_CACHE
                 && queryEngine.getFederation() == null;
 
+        /*
+         * The solution set cache reads historical views of the statement
+         * indices on the journal in order to decide whether an entry may be
+         * reused for a later commit point.
+         */
+        this.solutionSetCacheMemory = QueryHints.DEFAULT_SOLUTION_SET_CACHE
+                && queryEngine.getFederation() == null ? new MemoryManager(
+                DirectBufferPool.INSTANCE) : null;
+
+        this.enablePlanCache = QueryHints.DEFAULT_PLAN_CACHE;
+
     }
     
     @Override
@@ -208,6 +245,28 @@ public class CacheConnectionImpl implements ICacheConnection {
 
 //        cacheMap.clear();
 
+        for (SolutionSetCache cache : solutionSetCaches.values()) {
+
+            cache.clear();
+
+        }
+
+        solutionSetCaches.clear();
+
+        for (PlanCache cache : planCaches.values()) {
+
+            cache.clear();
+
+        }
+
+        planCaches.clear();
+
+        if (solutionSetCacheMemory != null) {
+
+            solutionSetCacheMemory.close();
+
+        }
+
         if (!useMainDatabaseForCache) {
 
             /*
@@ -234,6 +293,25 @@ public class CacheConnectionImpl implements ICacheConnection {
 
         }
 
+        // SOLUTIONS cache (if enabled)
+        final SolutionSetCache solutionSetCache = solutionSetCaches
+                .remove(namespace);
+
+        if (solutionSetCache != null) {
+
+            solutionSetCache.clear();
+
+        }
+
+        // PLAN cache (if enabled)
+        final PlanCache planCache = planCaches.remove(namespace);
+
+        if (planCache != null) {
+
+            planCache.clear();
+
+        }
+
     }
     
     /**
@@ -332,6 +410,106 @@ public class CacheConnectionImpl implements ICacheConnection {
      * END OF DESCRIBE CACHE SUPPORT
      */
 
+    /**
+     * 
+     * @return The view of the solution set cache -or- <code>null</code> if
+     *         the cache is not enabled or the timestamp is not a read-only
+     *         view of a commit point.
+     * 
+     * @see QueryHints#SOLUTION_SET_CACHE
+     */
+    @Override
+    public ISolutionSetCache getSolutionSetCache(final String namespace,
+            final long timestamp) {
+
+        if (solutionSetCacheMemory == null) {
+
+            // Not enabled.
+            return null;
+
+        }
+
+        if (namespace == null)
+            throw new IllegalArgumentException();
+
+        SolutionSetCache cache = solutionSetCaches.get(namespace);
+
+        if (cache == null) {
+
+            final SolutionSetCache tmp = new SolutionSetCache(namespace,
+                    solutionSetCacheMemory.createAllocationContext(),
+                    System.getProperties());
+
+            cache = solutionSetCaches.putIfAbsent(namespace, tmp);
+
+            if (cache == null)
+                cache = tmp;
+
+        }
+
+        return cache.getView((AbstractJournal) getLocalIndexManager(),
+                timestamp);
+
+    }
+
+    /**
+     * 
+     * @return The plan cache -or- <code>null</code> if the cache is not
+     *         enabled.
+     * 
+     * @see QueryHints#PLAN_CACHE
+     */
+    @Override
+    public PlanCache getPlanCache(final String namespace) {
+
+        if (!enablePlanCache) {
+
+            // Not enabled.
+            return null;
+
+        }
+
+        if (namespace == null)
+            throw new IllegalArgumentException();
+
+        PlanCache cache = planCaches.get(namespace);
+
+        if (cache == null) {
+
+            final PlanCache tmp = new PlanCache(namespace,
+                    System.getProperties());
+
+            cache = planCaches.putIfAbsent(namespace, tmp);
+
+            if (cache == null)
+                cache = tmp;
+
+        }
+
+        return cache;
+
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The counters for the plan cache are reported for each KB namespace.
+     */
+    @Override
+    public CounterSet getCounters() {
+
+        final CounterSet root = new CounterSet();
+
+        for (Map.Entry<String, PlanCache> e : planCaches.entrySet()) {
+
+            root.makePath(e.getKey()).attach(e.getValue().getCounters());
+
+        }
+
+        return root;
+
+    }
+
     /**
      * The {@link InnerCacheJournal} provides the backing store for transient
      * named solution sets.
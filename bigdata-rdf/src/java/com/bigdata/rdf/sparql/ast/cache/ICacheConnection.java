@@ -23,6 +23,8 @@ Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
  */
 package com.bigdata.rdf.sparql.ast.cache;
 
+import com.bigdata.counters.CounterSet;
+
 /**
  * Interface for an abstraction used to support application specific local
  * caches, remote caches, and cache fabrics.
@@ -76,4 +78,34 @@ public interface ICacheConnection {
      */
     IDescribeCache getDescribeCache(final String namespace, final long timestamp);
 
+    /**
+     * Return a view of the solution set cache.
+     * 
+     * @param namespace
+     *            The KB namespace.
+     * @param timestamp
+     *            The timestamp of the view.
+     * 
+     * @return The view of the solution set cache -or- <code>null</code> if no
+     *         cache is available for that KB and timestamp.
+     */
+    ISolutionSetCache getSolutionSetCache(final String namespace,
+            final long timestamp);
+
+    /**
+     * Return the plan cache for the KB.
+     * 
+     * @param namespace
+     *            The KB namespace.
+     * 
+     * @return The plan cache -or- <code>null</code> if the plan cache is not
+     *         enabled.
+     */
+    PlanCache getPlanCache(final String namespace);
+
+    /**
+     * Return the performance counters for the caches.
+     */
+    CounterSet getCounters();
+
 }
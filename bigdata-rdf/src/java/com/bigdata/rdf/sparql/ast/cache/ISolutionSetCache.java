@@ -0,0 +1,106 @@
+/**
+
+Copyright (C) SYSTAP, LLC 2006-2015.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@systap.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+/*
+ * Created on Oct 17, 2026
+ */
+
+package com.bigdata.rdf.sparql.ast.cache;
+
+import com.bigdata.bop.IBindingSet;
+import com.bigdata.bop.engine.IRunningQuery;
+import com.bigdata.rdf.sparql.ast.QueryHints;
+import com.bigdata.rdf.sparql.ast.QueryRoot;
+
+import cutthecrap.utils.striterators.ICloseableIterator;
+
+/**
+ * A view of a cache of query solutions for a KB as of some commit point. The
+ * entries are keyed on a normalized form of the optimized AST, the exogenous
+ * solutions, and the manner in which the projection is materialized. An entry
+ * which was computed against an older commit point is reused iff none of the
+ * statement index key ranges read by the query have changed since the commit
+ * point at which the entry was last known to be valid.
+ * 
+ * @see QueryHints#SOLUTION_SET_CACHE
+ * @see ICacheConnection#getSolutionSetCache(String, long)
+ */
+public interface ISolutionSetCache {
+
+    /**
+     * Return the key under which the solutions for the query would be cached.
+     * 
+     * @param optimizedQuery
+     *            The optimized AST.
+     * @param bindingSets
+     *            The exogenous solutions.
+     * @param materializeProjectionInQuery
+     *            <code>true</code> iff the projection is materialized by the
+     *            query plan.
+     * 
+     * @return The key -or- <code>null</code> if the solutions for that query
+     *         can not be cached (e.g., because it invokes a SERVICE or a
+     *         non-deterministic function).
+     */
+    String getCacheKey(QueryRoot optimizedQuery, IBindingSet[] bindingSets,
+            boolean materializeProjectionInQuery);
+
+    /**
+     * Return the cached solutions for the key.
+     * 
+     * @param key
+     *            The key.
+     * 
+     * @return An iterator visiting the cached solutions -or-
+     *         <code>null</code> if there is no entry for that key which is
+     *         valid for the commit point of this view.
+     */
+    ICloseableIterator<IBindingSet[]> get(String key);
+
+    /**
+     * Wrap the iterator draining the solutions for a query such that the
+     * solutions will be entered into the cache if the query runs to completion
+     * and the iterator is exhausted by normal means.
+     * 
+     * @param key
+     *            The key.
+     * @param optimizedQuery
+     *            The optimized AST (used to identify the key ranges of the
+     *            statement indices on which the entry depends).
+     * @param runningQuery
+     *            The query.
+     * @param src
+     *            The iterator draining the solutions for that query.
+     * 
+     * @return The wrapped iterator.
+     */
+    ICloseableIterator<IBindingSet[]> put(String key,
+            QueryRoot optimizedQuery, IRunningQuery runningQuery,
+            ICloseableIterator<IBindingSet[]> src);
+
+    /**
+     * Discard all entries for the KB.
+     */
+    void destroy();
+
+}
@@ -0,0 +1,925 @@
+/**
+
+Copyright (C) SYSTAP, LLC 2006-2015.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@systap.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+/*
+ * Created on Oct 17, 2026
+ */
+
+package com.bigdata.rdf.sparql.ast.cache;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.log4j.Logger;
+
+import com.bigdata.bop.BOp;
+import com.bigdata.bop.BOpUtility;
+import com.bigdata.bop.IBindingSet;
+import com.bigdata.bop.IConstant;
+import com.bigdata.bop.IVariable;
+import com.bigdata.counters.CounterSet;
+import com.bigdata.counters.Instrument;
+import com.bigdata.journal.TimestampUtility;
+import com.bigdata.rdf.internal.IV;
+import com.bigdata.rdf.sparql.ast.ASTContainer;
+import com.bigdata.rdf.sparql.ast.BindingsClause;
+import com.bigdata.rdf.sparql.ast.ConstantNode;
+import com.bigdata.rdf.sparql.ast.NamedSubqueryInclude;
+import com.bigdata.rdf.sparql.ast.NamedSubqueryRoot;
+import com.bigdata.rdf.sparql.ast.OrderByNode;
+import com.bigdata.rdf.sparql.ast.QueryHints;
+import com.bigdata.rdf.sparql.ast.QueryRoot;
+import com.bigdata.rdf.sparql.ast.StatementPatternNode;
+import com.bigdata.rdf.store.AbstractTripleStore;
+
+/**
+ * A cache of the parsed and the optimized ASTs for the SPARQL queries issued
+ * against a KB. Entries are keyed on the query string and the base URI.
+ * Bindings passed with the request are not parameterized out of the key.
+ * Instead, the optimized AST is neither cached nor reused for a request having
+ * such bindings.
+ * <p>
+ * The parsed (original) AST depends only on the query string and the base URI.
+ * It may be reused as long as the KB has not been destroyed and re-created
+ * (which would change the {@link IV}s of the constants in the AST).
+ * <p>
+ * The optimized AST additionally reflects the exogenous solutions, the query
+ * hints and the range counts observed by the optimizers. It is only cached and
+ * reused when there are no exogenous solutions and no query hints, when the
+ * query reads on a read-only view, and when every constant in the query was
+ * resolved against the lexicon (an unknown term allows the optimizers to prune
+ * the query, which would become wrong once the term is added). The
+ * {@link QueryHints#QUERYID} is the only query hint which is ignored. An
+ * optimized AST which the optimizers rewrote based on the data itself (rather
+ * than on the range counts) is not cached either. The optimized AST is
+ * discarded and recomputed once the #of statements in the KB has
+ * drifted from the #of statements when it was optimized by more than
+ * {@link Options#REFRESH_THRESHOLD}.
+ * <p>
+ * Note: The query plan ({@link com.bigdata.bop.PipelineOp}) is always
+ * generated from the (cached) optimized AST for each query. The query plan
+ * embeds the UUID of the query, so it can not be shared by concurrent
+ * queries.
+ * 
+ * @see QueryHints#PLAN_CACHE
+ */
+public class PlanCache {
+
+    private static final transient Logger log = Logger
+            .getLogger(PlanCache.class);
+
+    /**
+     * Configuration options for the {@link PlanCache}. These are read from
+     * the {@link Properties} given to the constructor.
+     */
+    public interface Options {
+
+        /**
+         * The maximum #of parsed queries and the maximum #of optimized ASTs
+         * in the cache for a given KB.
+         */
+        String MAX_ENTRIES = PlanCache.class.getName() + ".maxEntries";
+
+        String DEFAULT_MAX_ENTRIES = "1000";
+
+        /**
+         * A cached optimized AST is discarded once the #of statements in the
+         * KB differs from the #of statements when that AST was optimized by
+         * more than this fraction.
+         */
+        String REFRESH_THRESHOLD = PlanCache.class.getName()
+                + ".refreshThreshold";
+
+        String DEFAULT_REFRESH_THRESHOLD = ".1";
+
+    }
+
+    /**
+     * The KB namespace.
+     */
+    private final String namespace;
+
+    /**
+     * @see Options#MAX_ENTRIES
+     */
+    private final int maxEntries;
+
+    /**
+     * @see Options#REFRESH_THRESHOLD
+     */
+    private final double refreshThreshold;
+
+    /**
+     * The parsed queries in LRU order.
+     * <p>
+     * Note: Guarded by <code>this</code>.
+     */
+    private final LinkedHashMap<Key, Entry> parsed = new LinkedHashMap<Key, Entry>(
+            16/* initialCapacity */, .75f/* loadFactor */, true/* accessOrder */);
+
+    /**
+     * The optimized ASTs in LRU order, keyed by the query string. The base URI
+     * is not part of the key. Instead, the original AST of the entry must be
+     * equal to the original AST of the query.
+     * <p>
+     * Note: Guarded by <code>this</code>.
+     */
+    private final LinkedHashMap<String, OptimizedAST> optimized = new LinkedHashMap<String, OptimizedAST>(
+            16/* initialCapacity */, .75f/* loadFactor */, true/* accessOrder */);
+
+    private final AtomicLong parseHitCount = new AtomicLong();
+
+    private final AtomicLong parseMissCount = new AtomicLong();
+
+    private final AtomicLong planHitCount = new AtomicLong();
+
+    private final AtomicLong planMissCount = new AtomicLong();
+
+    private final AtomicLong refreshCount = new AtomicLong();
+
+    private final AtomicLong evictionCount = new AtomicLong();
+
+    /**
+     * @param namespace
+     *            The KB namespace.
+     * @param properties
+     *            The configuration properties.
+     * 
+     * @see Options
+     */
+    public PlanCache(final String namespace, final Properties properties) {
+
+        if (namespace == null)
+            throw new IllegalArgumentException();
+
+        this.namespace = namespace;
+
+        this.maxEntries = Integer.parseInt(properties.getProperty(
+                Options.MAX_ENTRIES, Options.DEFAULT_MAX_ENTRIES));
+
+        this.refreshThreshold = Double.parseDouble(properties.getProperty(
+                Options.REFRESH_THRESHOLD, Options.DEFAULT_REFRESH_THRESHOLD));
+
+        if (maxEntries <= 0)
+            throw new IllegalArgumentException(Options.MAX_ENTRIES + "="
+                    + maxEntries);
+
+        if (refreshThreshold < 0d)
+            throw new IllegalArgumentException(Options.REFRESH_THRESHOLD + "="
+                    + refreshThreshold);
+
+    }
+
+    /*
+     * Parsed AST.
+     */
+
+    /**
+     * Return a new {@link ASTContainer} for a cached parse of the query.
+     * 
+     * @param db
+     *            The KB.
+     * @param queryStr
+     *            The query string.
+     * @param baseURI
+     *            The base URI.
+     * 
+     * @return A new {@link ASTContainer} having a copy of the original AST
+     *         -or- <code>null</code> if the query is not in the cache.
+     */
+    public ASTContainer getParsedQuery(final AbstractTripleStore db,
+            final String queryStr, final String baseURI) {
+
+        final Entry e;
+        synchronized (this) {
+            final Key key = new Key(queryStr, baseURI);
+            final Entry tmp = parsed.get(key);
+            if (tmp != null && !tmp.indexUUID.equals(getIndexUUID(db))) {
+                // The KB was destroyed and re-created.
+                parsed.remove(key);
+                e = null;
+            } else {
+                e = tmp;
+            }
+        }
+
+        if (e == null) {
+
+            parseMissCount.incrementAndGet();
+
+            return null;
+
+        }
+
+        parseHitCount.incrementAndGet();
+
+        final ASTContainer astContainer = new ASTContainer(
+                (QueryRoot) BOpUtility.deepCopy(e.originalAST));
+
+        astContainer.setQueryString(queryStr);
+
+        astContainer.setParseTree(e.parseTree);
+
+        return astContainer;
+
+    }
+
+    /**
+     * Cache the parse of a query. This is a NOP unless the query is
+     * {@link #isCacheable(ASTContainer) cacheable}.
+     * 
+     * @param db
+     *            The KB.
+     * @param baseURI
+     *            The base URI.
+     * @param astContainer
+     *            The parsed query.
+     */
+    public void putParsedQuery(final AbstractTripleStore db,
+            final String baseURI, final ASTContainer astContainer) {
+
+        if (!isCacheable(astContainer))
+            return;
+
+        final Key key = new Key(astContainer.getQueryString(), baseURI);
+
+        final Entry e = new Entry(getIndexUUID(db),
+                (QueryRoot) BOpUtility.deepCopy(astContainer.getOriginalAST()),
+                astContainer.getParseTree());
+
+        synchronized (this) {
+
+            parsed.put(key, e);
+
+            evict(parsed);
+
+        }
+
+    }
+
+    /*
+     * Optimized AST.
+     */
+
+    /**
+     * Return a copy of the cached optimized AST for the query.
+     * 
+     * @param db
+     *            The KB view against which the query will be evaluated.
+     * @param astContainer
+     *            The query.
+     * @param bindingSets
+     *            The exogenous solutions.
+     * 
+     * @return The optimized AST and the #of identifiers which were assigned
+     *         while it was optimized -or- <code>null</code> if there is no
+     *         valid cached optimized AST for the query.
+     */
+    public OptimizedAST getOptimizedAST(final AbstractTripleStore db,
+            final ASTContainer astContainer, final IBindingSet[] bindingSets) {
+
+        if (!isPlanCacheable(db, astContainer, bindingSets))
+            return null;
+
+        final String queryStr = astContainer.getQueryString();
+
+        final OptimizedAST tmp;
+        synchronized (this) {
+            tmp = optimized.get(queryStr);
+        }
+
+        if (tmp != null && tmp.indexUUID.equals(getIndexUUID(db))
+                && tmp.originalAST.equals(astContainer.getOriginalAST())) {
+
+            if (!isStale(db, tmp)) {
+
+                planHitCount.incrementAndGet();
+
+                return new OptimizedAST(tmp.indexUUID, tmp.originalAST,
+                        (QueryRoot) BOpUtility.deepCopy(tmp.optimizedAST),
+                        tmp.nextId, tmp.statementCount);
+
+            }
+
+            // The statistics have drifted. Optimize the query again.
+            refreshCount.incrementAndGet();
+
+            synchronized (this) {
+                if (optimized.get(queryStr) == tmp)
+                    optimized.remove(queryStr);
+            }
+
+        }
+
+        planMissCount.incrementAndGet();
+
+        return null;
+
+    }
+
+    /**
+     * Cache the optimized AST for the query. This is a NOP unless the
+     * optimized AST may be reused for later evaluations of the same query.
+     * 
+     * @param db
+     *            The KB view against which the query was optimized.
+     * @param astContainer
+     *            The query.
+     * @param bindingSets
+     *            The exogenous solutions.
+     * @param optimizedAST
+     *            The optimized AST.
+     * @param nextId
+     *            The next identifier which would have been assigned by the
+     *            evaluation context once the query was optimized.
+     */
+    public void putOptimizedAST(final AbstractTripleStore db,
+            final ASTContainer astContainer, final IBindingSet[] bindingSets,
+            final QueryRoot optimizedAST, final int nextId) {
+
+        if (!isPlanCacheable(db, astContainer, bindingSets))
+            return;
+
+        if (!isReusable(optimizedAST))
+            return;
+
+        final OptimizedAST tmp = new OptimizedAST(getIndexUUID(db),
+                (QueryRoot) BOpUtility.deepCopy(astContainer.getOriginalAST()),
+                (QueryRoot) BOpUtility.deepCopy(optimizedAST), nextId, db
+                        .getSPORelation().getPrimaryIndex().rangeCount());
+
+        synchronized (this) {
+
+            optimized.put(astContainer.getQueryString(), tmp);
+
+            evict(optimized);
+
+        }
+
+    }
+
+    /**
+     * An optimized AST together with the state required to generate a query
+     * plan from it without running the optimizers.
+     */
+    public static class OptimizedAST {
+
+        /**
+         * The UUID of the primary statement index when the AST was optimized.
+         */
+        private final UUID indexUUID;
+
+        private final QueryRoot originalAST;
+
+        private final QueryRoot optimizedAST;
+
+        private final int nextId;
+
+        private final long statementCount;
+
+        private OptimizedAST(final UUID indexUUID, final QueryRoot originalAST,
+                final QueryRoot optimizedAST, final int nextId,
+                final long statementCount) {
+
+            this.indexUUID = indexUUID;
+
+            this.originalAST = originalAST;
+
+            this.optimizedAST = optimizedAST;
+
+            this.nextId = nextId;
+
+            this.statementCount = statementCount;
+
+        }
+
+        /**
+         * The optimized AST.
+         */
+        public QueryRoot getOptimizedAST() {
+
+            return optimizedAST;
+
+        }
+
+        /**
+         * The next identifier which would have been assigned by the
+         * evaluation context once the query was optimized. Identifiers below
+         * this value may appear in the optimized AST (e.g., in the names of
+         * the named subqueries generated by the optimizers) and must not be
+         * reused when the query plan is generated.
+         */
+        public int getNextId() {
+
+            return nextId;
+
+        }
+
+    }
+
+    /*
+     * Policy.
+     */
+
+    /**
+     * Return <code>true</code> iff the parse of the query may be cached. This
+     * is the case for queries which do not use query hints (the query hints
+     * are interpreted by the parser and the optimizers) and whose constants
+     * were all resolved against the lexicon.
+     */
+    static boolean isCacheable(final ASTContainer astContainer) {
+
+        final String queryStr = astContainer.getQueryString();
+
+        if (queryStr == null || !astContainer.isQuery())
+            return false;
+
+        if (queryStr.contains(QueryHints.NAMESPACE))
+            return false;
+
+        if (astContainer.getQueryHints() != null) {
+
+            /*
+             * Note: The QUERYID is assigned to each query by the NSS and does
+             * not change the query plan.
+             */
+            for (String name : astContainer.getQueryHints()
+                    .stringPropertyNames()) {
+
+                if (!QueryHints.QUERYID.equals(name))
+                    return false;
+
+            }
+
+        }
+
+        final QueryRoot queryRoot = astContainer.getOriginalAST();
+
+        // The named solution sets declared by the query.
+        final Set<String> namedSubqueries = new HashSet<String>();
+
+        if (queryRoot.getNamedSubqueries() != null) {
+
+            for (NamedSubqueryRoot nsr : queryRoot.getNamedSubqueries()) {
+
+                namedSubqueries.add(nsr.getName());
+
+            }
+
+        }
+
+        if (queryRoot.getBindingsClause() != null
+                && !isResolved(queryRoot.getBindingsClause()))
+            return false;
+
+        final Iterator<BOp> itr = BOpUtility
+                .preOrderIteratorWithAnnotations(queryRoot);
+
+        while (itr.hasNext()) {
+
+            final BOp op = itr.next();
+
+            if (op instanceof ConstantNode) {
+
+                final IV<?, ?> iv = ((ConstantNode) op).getValueExpression()
+                        .get();
+
+                if (iv == null || iv.isNullIV())
+                    return false;
+
+            } else if (op instanceof BindingsClause) {
+
+                if (!isResolved((BindingsClause) op))
+                    return false;
+
+            } else if (op instanceof NamedSubqueryInclude) {
+
+                /*
+                 * A pre-existing named solution set is data which is not
+                 * covered by the statistics.
+                 */
+                if (!namedSubqueries.contains(((NamedSubqueryInclude) op)
+                        .getName()))
+                    return false;
+
+            }
+
+        }
+
+        return true;
+
+    }
+
+    /**
+     * Return <code>true</code> iff all constants in the VALUES clause were
+     * resolved against the lexicon.
+     */
+    @SuppressWarnings("rawtypes")
+    private static boolean isResolved(final BindingsClause bindingsClause) {
+
+        for (IBindingSet bset : bindingsClause.getBindingSets()) {
+
+            final Iterator<Map.Entry<IVariable, IConstant>> itr = bset
+                    .iterator();
+
+            while (itr.hasNext()) {
+
+                final Object val = itr.next().getValue().get();
+
+                if (val instanceof IV && ((IV) val).isNullIV())
+                    return false;
+
+            }
+
+        }
+
+        return true;
+
+    }
+
+    /**
+     * Return <code>true</code> iff the optimized AST for the query may be
+     * cached or reused.
+     */
+    private boolean isPlanCacheable(final AbstractTripleStore db,
+            final ASTContainer astContainer, final IBindingSet[] bindingSets) {
+
+        if (!TimestampUtility.isReadOnly(db.getTimestamp()))
+            return false;
+
+        if (bindingSets != null) {
+
+            for (IBindingSet bset : bindingSets) {
+
+                if (!bset.isEmpty())
+                    return false;
+
+            }
+
+        }
+
+        return isCacheable(astContainer);
+
+    }
+
+    /**
+     * Return <code>true</code> iff the optimized AST does not depend on the
+     * data beyond the range counts. This is not the case when the ORDER BY
+     * was elided in favor of the index order or when an access path is read
+     * in reverse index order, since these rewrites depend on the datatypes of
+     * the values in the KB and can become wrong after any update.
+     */
+    static boolean isReusable(final QueryRoot optimizedAST) {
+
+        final Iterator<BOp> itr = BOpUtility
+                .preOrderIteratorWithAnnotations(optimizedAST);
+
+        while (itr.hasNext()) {
+
+            final BOp op = itr.next();
+
+            if (op instanceof OrderByNode) {
+
+                if (((OrderByNode) op).isIndexOrder())
+                    return false;
+
+            } else if (op instanceof StatementPatternNode) {
+
+                if (((StatementPatternNode) op).isReverseScan())
+                    return false;
+
+            }
+
+        }
+
+        return true;
+
+    }
+
+    /**
+     * Return <code>true</code> iff the #of statements has drifted too far
+     * since the AST was optimized.
+     */
+    private boolean isStale(final AbstractTripleStore db,
+            final OptimizedAST tmp) {
+
+        final long nnow = db.getSPORelation().getPrimaryIndex().rangeCount();
+
+        final long nthen = tmp.statementCount;
+
+        return nthen == 0L ? nnow != 0L
+                : Math.abs(nnow - nthen) > refreshThreshold * nthen;
+
+    }
+
+    /*
+     * Entries.
+     */
+
+    /**
+     * The UUID of the primary statement index identifies the incarnation of
+     * the KB and hence the {@link IV}s in the cached ASTs.
+     */
+    private static UUID getIndexUUID(final AbstractTripleStore db) {
+
+        return db.getSPORelation().getPrimaryIndex().getIndexMetadata()
+                .getIndexUUID();
+
+    }
+
+    /**
+     * Evict entries in LRU order until the cache is within its capacity.
+     * <p>
+     * Note: Caller must hold the monitor.
+     */
+    private void evict(final Map<?, ?> map) {
+
+        final Iterator<?> itr = map.keySet().iterator();
+
+        while (map.size() > maxEntries && itr.hasNext()) {
+
+            itr.next();
+
+            itr.remove();
+
+            evictionCount.incrementAndGet();
+
+        }
+
+    }
+
+    /**
+     * Discard all entries.
+     */
+    public synchronized void clear() {
+
+        parsed.clear();
+
+        optimized.clear();
+
+    }
+
+    /**
+     * The #of entries in the cache (parsed queries plus optimized ASTs).
+     */
+    public synchronized int getEntryCount() {
+
+        return parsed.size() + optimized.size();
+
+    }
+
+    /**
+     * The #of parse requests which were satisfied from the cache.
+     */
+    public long getParseHitCount() {
+
+        return parseHitCount.get();
+
+    }
+
+    /**
+     * The #of parse requests which were not satisfied from the cache.
+     */
+    public long getParseMissCount() {
+
+        return parseMissCount.get();
+
+    }
+
+    /**
+     * The #of optimized AST requests which were satisfied from the cache.
+     */
+    public long getPlanHitCount() {
+
+        return planHitCount.get();
+
+    }
+
+    /**
+     * The #of optimized AST requests for cacheable queries which were not
+     * satisfied from the cache.
+     */
+    public long getPlanMissCount() {
+
+        return planMissCount.get();
+
+    }
+
+    /**
+     * The #of optimized ASTs discarded because the statistics had drifted.
+     */
+    public long getRefreshCount() {
+
+        return refreshCount.get();
+
+    }
+
+    /**
+     * The #of entries discarded by the LRU policy.
+     */
+    public long getEvictionCount() {
+
+        return evictionCount.get();
+
+    }
+
+    /**
+     * Return the performance counters for the cache.
+     */
+    public CounterSet getCounters() {
+
+        final CounterSet root = new CounterSet();
+
+        root.addCounter("entryCount", new Instrument<Integer>() {
+            @Override
+            public void sample() {
+                setValue(getEntryCount());
+            }
+        });
+
+        root.addCounter("parseHitCount", new Instrument<Long>() {
+            @Override
+            public void sample() {
+                setValue(parseHitCount.get());
+            }
+        });
+
+        root.addCounter("parseMissCount", new Instrument<Long>() {
+            @Override
+            public void sample() {
+                setValue(parseMissCount.get());
+            }
+        });
+
+        root.addCounter("parseHitRate", new Instrument<Double>() {
+            @Override
+            public void sample() {
+                setValue(hitRate(parseHitCount.get(), parseMissCount.get()));
+            }
+        });
+
+        root.addCounter("planHitCount", new Instrument<Long>() {
+            @Override
+            public void sample() {
+                setValue(planHitCount.get());
+            }
+        });
+
+        root.addCounter("planMissCount", new Instrument<Long>() {
+            @Override
+            public void sample() {
+                setValue(planMissCount.get());
+            }
+        });
+
+        root.addCounter("planHitRate", new Instrument<Double>() {
+            @Override
+            public void sample() {
+                setValue(hitRate(planHitCount.get(), planMissCount.get()));
+            }
+        });
+
+        root.addCounter("refreshCount", new Instrument<Long>() {
+            @Override
+            public void sample() {
+                setValue(refreshCount.get());
+            }
+        });
+
+        root.addCounter("evictionCount", new Instrument<Long>() {
+            @Override
+            public void sample() {
+                setValue(evictionCount.get());
+            }
+        });
+
+        return root;
+
+    }
+
+    private static double hitRate(final long hits, final long misses) {
+
+        final long n = hits + misses;
+
+        return n == 0L ? 0d : hits / (double) n;
+
+    }
+
+    @Override
+    public String toString() {
+
+        return getClass().getName() + "{namespace=" + namespace + ",entries="
+                + getEntryCount() + ",parseHits=" + parseHitCount
+                + ",parseMisses=" + parseMissCount + ",planHits="
+                + planHitCount + ",planMisses=" + planMissCount
+                + ",refreshes=" + refreshCount + ",evictions=" + evictionCount
+                + "}";
+
+    }
+
+    /**
+     * The key for an entry.
+     */
+    private static class Key {
+
+        private final String queryStr;
+
+        private final String baseURI;
+
+        Key(final String queryStr, final String baseURI) {
+
+            if (queryStr == null)
+                throw new IllegalArgumentException();
+
+            this.queryStr = queryStr;
+
+            this.baseURI = baseURI;
+
+        }
+
+        @Override
+        public int hashCode() {
+
+            return queryStr.hashCode();
+
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+
+            if (this == o)
+                return true;
+
+            if (!(o instanceof Key))
+                return false;
+
+            final Key t = (Key) o;
+
+            return queryStr.equals(t.queryStr)
+                    && (baseURI == null ? t.baseURI == null : baseURI
+                            .equals(t.baseURI));
+
+        }
+
+    }
+
+    /**
+     * A parsed query.
+     */
+    private static class Entry {
+
+        /**
+         * The UUID of the primary statement index when the entry was created.
+         */
+        private final UUID indexUUID;
+
+        /**
+         * The original AST.
+         */
+        private final QueryRoot originalAST;
+
+        /**
+         * The parse tree.
+         */
+        private final Object parseTree;
+
+        Entry(final UUID indexUUID, final QueryRoot originalAST,
+                final Object parseTree) {
+
+            this.indexUUID = indexUUID;
+
+            this.originalAST = originalAST;
+
+            this.parseTree = parseTree;
+
+        }
+
+    }
+
+}
@@ -0,0 +1,1115 @@
+/**
+
+Copyright (C) SYSTAP, LLC 2006-2015.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@systap.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+/*
+ * Created on Oct 17, 2026
+ */
+
+package com.bigdata.rdf.sparql.ast.cache;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Properties;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.log4j.Logger;
+import org.openrdf.model.URI;
+import org.openrdf.model.vocabulary.OWL;
+import org.openrdf.model.vocabulary.RDF;
+
+import com.bigdata.bop.BOp;
+import com.bigdata.bop.BOpUtility;
+import com.bigdata.bop.IBindingSet;
+import com.bigdata.bop.IConstant;
+import com.bigdata.bop.engine.IRunningQuery;
+import com.bigdata.bop.solutions.SolutionSetStream;
+import com.bigdata.btree.AbstractBTree;
+import com.bigdata.btree.BTreeRangeDiff;
+import com.bigdata.btree.ICheckpointProtocol;
+import com.bigdata.btree.keys.IKeyBuilder;
+import com.bigdata.btree.keys.KeyBuilder;
+import com.bigdata.btree.keys.NoSuccessorException;
+import com.bigdata.btree.keys.SuccessorUtil;
+import com.bigdata.journal.AbstractJournal;
+import com.bigdata.journal.ICommitRecord;
+import com.bigdata.journal.TimestampUtility;
+import com.bigdata.rdf.internal.IV;
+import com.bigdata.rdf.model.BigdataValue;
+import com.bigdata.rdf.sparql.ast.ASTBase;
+import com.bigdata.rdf.sparql.ast.FunctionNode;
+import com.bigdata.rdf.sparql.ast.FunctionRegistry;
+import com.bigdata.rdf.sparql.ast.NamedSubqueryInclude;
+import com.bigdata.rdf.sparql.ast.NamedSubqueryRoot;
+import com.bigdata.rdf.sparql.ast.QueryHints;
+import com.bigdata.rdf.sparql.ast.QueryRoot;
+import com.bigdata.rdf.sparql.ast.StatementPatternNode;
+import com.bigdata.rdf.sparql.ast.TermNode;
+import com.bigdata.rdf.sparql.ast.eval.AST2BOpBase;
+import com.bigdata.rdf.sparql.ast.service.ServiceNode;
+import com.bigdata.rdf.spo.SPOKeyOrder;
+import com.bigdata.rdf.spo.SPORelation;
+import com.bigdata.relation.accesspath.ThickCloseableIterator;
+import com.bigdata.rwstore.sector.IMemoryManager;
+import com.bigdata.rwstore.sector.MemStore;
+import com.bigdata.stream.Stream.StreamIndexMetadata;
+
+import cutthecrap.utils.striterators.ICloseableIterator;
+
+/**
+ * A cache of query solutions for a KB instance. Each entry is stored in a
+ * {@link SolutionSetStream} on its own allocation context of a
+ * {@link MemStore}, so the solutions live on the native heap and the storage
+ * for an entry is released in bulk when that entry is evicted. Entries are
+ * evicted in LRU order once either the maximum number of entries or the
+ * maximum amount of native memory would be exceeded.
+ * <p>
+ * Each entry records the commit points over which it is known to be valid and
+ * the key ranges of the statement index (POS or POCS) which were read by the
+ * query. When a reader on a more recent commit point finds an entry, the
+ * historical views of the statement index for the two commit points are
+ * compared using {@link BTreeRangeDiff}. If none of those key ranges has
+ * changed, the entry is reused and its validity is extended to the new commit
+ * point. Otherwise the entry is invalidated.
+ * <p>
+ * Only constant predicates narrow the dependencies of an entry to a key range.
+ * A statement pattern with a variable predicate (or with a predicate such as
+ * <code>rdf:type</code> which may be expanded by backchained inference)
+ * depends on the entire statement index.
+ * 
+ * @see QueryHints#SOLUTION_SET_CACHE
+ */
+public class SolutionSetCache {
+
+    private static final transient Logger log = Logger
+            .getLogger(SolutionSetCache.class);
+
+    /**
+     * Options understood by the {@link SolutionSetCache}. These are read from
+     * the {@link System} properties.
+     */
+    public interface Options {
+
+        /**
+         * The maximum #of entries in the cache for a given KB.
+         */
+        String MAX_ENTRIES = SolutionSetCache.class.getName() + ".maxEntries";
+
+        String DEFAULT_MAX_ENTRIES = "1000";
+
+        /**
+         * The maximum #of bytes of native memory which may be used to store
+         * the entries for a given KB.
+         */
+        String MAX_MEMORY = SolutionSetCache.class.getName() + ".maxMemory";
+
+        String DEFAULT_MAX_MEMORY = "" + (256 * 1024 * 1024);
+
+        /**
+         * The maximum #of solutions in a single entry. The solutions for a
+         * query which produces more solutions than this are not cached.
+         */
+        String MAX_SOLUTIONS = SolutionSetCache.class.getName()
+                + ".maxSolutions";
+
+        String DEFAULT_MAX_SOLUTIONS = "100000";
+
+    }
+
+    /**
+     * The function URIs whose value is not determined by the data.
+     */
+    private static final Set<URI> nonDeterministicFunctions = new HashSet<URI>(
+            Arrays.asList(new URI[] { FunctionRegistry.NOW,
+                    FunctionRegistry.RAND, FunctionRegistry.UUID,
+                    FunctionRegistry.STRUUID, FunctionRegistry.BNODE }));
+
+    /**
+     * The annotations which reflect statistics about the data rather than the
+     * semantics of the query. These are removed from the optimized AST when
+     * forming the key so that the key is stable across commit points.
+     */
+    private static final String[] statisticsAnnotations = new String[] {
+            AST2BOpBase.Annotations.ESTIMATED_CARDINALITY,
+            AST2BOpBase.Annotations.ORIGINAL_INDEX,
+            AST2BOpBase.Annotations.COST_SCAN,
+            AST2BOpBase.Annotations.COST_SUBQUERY, };
+
+    private final String namespace;
+
+    private final MemStore store;
+
+    private final int maxEntries;
+
+    private final long maxMemory;
+
+    private final int maxSolutions;
+
+    /**
+     * The entries in LRU order (access order).
+     * <p>
+     * Note: Guarded by <code>this</code>.
+     */
+    private final LinkedHashMap<String, Entry> map = new LinkedHashMap<String, Entry>(
+            16/* initialCapacity */, .75f/* loadFactor */, true/* accessOrder */);
+
+    /**
+     * The #of bytes of native memory in use by the entries in the cache.
+     * <p>
+     * Note: Guarded by <code>this</code>.
+     */
+    private long bytesInUse = 0L;
+
+    private final AtomicLong hitCount = new AtomicLong();
+
+    private final AtomicLong missCount = new AtomicLong();
+
+    private final AtomicLong revalidationCount = new AtomicLong();
+
+    private final AtomicLong invalidationCount = new AtomicLong();
+
+    private final AtomicLong evictionCount = new AtomicLong();
+
+    /**
+     * @param namespace
+     *            The KB namespace.
+     * @param mmgr
+     *            The memory manager on which the entries will be stored.
+     * @param properties
+     *            The configuration properties.
+     * 
+     * @see Options
+     */
+    public SolutionSetCache(final String namespace, final IMemoryManager mmgr,
+            final Properties properties) {
+
+        if (namespace == null)
+            throw new IllegalArgumentException();
+
+        if (mmgr == null)
+            throw new IllegalArgumentException();
+
+        if (properties == null)
+            throw new IllegalArgumentException();
+
+        this.namespace = namespace;
+
+        this.store = new MemStore(mmgr);
+
+        this.maxEntries = Integer.valueOf(properties.getProperty(
+                Options.MAX_ENTRIES, Options.DEFAULT_MAX_ENTRIES));
+
+        this.maxMemory = Long.valueOf(properties.getProperty(
+                Options.MAX_MEMORY, Options.DEFAULT_MAX_MEMORY));
+
+        this.maxSolutions = Integer.valueOf(properties.getProperty(
+                Options.MAX_SOLUTIONS, Options.DEFAULT_MAX_SOLUTIONS));
+
+        if (maxEntries <= 0)
+            throw new IllegalArgumentException(Options.MAX_ENTRIES);
+
+        if (maxMemory <= 0)
+            throw new IllegalArgumentException(Options.MAX_MEMORY);
+
+        if (maxSolutions <= 0)
+            throw new IllegalArgumentException(Options.MAX_SOLUTIONS);
+
+    }
+
+    /**
+     * Return a view of the cache reading on the commit point for the given
+     * timestamp.
+     * 
+     * @param journal
+     *            The journal on which the KB is stored.
+     * @param timestamp
+     *            The timestamp of the view of the KB.
+     * 
+     * @return The view -or- <code>null</code> if the timestamp is not a
+     *         read-only view of a commit point (mutable views can observe
+     *         writes which are not part of any commit point).
+     */
+    public ISolutionSetCache getView(final AbstractJournal journal,
+            final long timestamp) {
+
+        if (journal == null)
+            throw new IllegalArgumentException();
+
+        if (!TimestampUtility.isReadOnly(timestamp))
+            return null;
+
+        // Note: A read-only tx reads on the commit point before its txId.
+        final ICommitRecord commitRecord = journal.getCommitRecord(timestamp);
+
+        if (commitRecord == null)
+            return null;
+
+        return new View(journal, commitRecord.getTimestamp());
+
+    }
+
+    /**
+     * The #of entries in the cache.
+     */
+    public synchronized int getEntryCount() {
+
+        return map.size();
+
+    }
+
+    /**
+     * The #of bytes of native memory in use by the entries in the cache.
+     */
+    public synchronized long getBytesInUse() {
+
+        return bytesInUse;
+
+    }
+
+    /**
+     * The #of requests which were satisfied from the cache.
+     */
+    public long getHitCount() {
+
+        return hitCount.get();
+
+    }
+
+    /**
+     * The #of requests which were not satisfied from the cache.
+     */
+    public long getMissCount() {
+
+        return missCount.get();
+
+    }
+
+    /**
+     * The #of times an entry was found to be valid for a more recent commit
+     * point than the one for which it was last validated.
+     */
+    public long getRevalidationCount() {
+
+        return revalidationCount.get();
+
+    }
+
+    /**
+     * The #of entries discarded because a key range on which they depend was
+     * changed.
+     */
+    public long getInvalidationCount() {
+
+        return invalidationCount.get();
+
+    }
+
+    /**
+     * The #of entries discarded by the LRU or memory policy.
+     */
+    public long getEvictionCount() {
+
+        return evictionCount.get();
+
+    }
+
+    /**
+     * Discard all entries.
+     */
+    public synchronized void clear() {
+
+        final Iterator<Entry> itr = map.values().iterator();
+
+        while (itr.hasNext()) {
+
+            final Entry e = itr.next();
+
+            itr.remove();
+
+            release(e);
+
+        }
+
+    }
+
+    @Override
+    public String toString() {
+
+        return getClass().getName() + "{namespace=" + namespace + ",entries="
+                + getEntryCount() + ",bytesInUse=" + getBytesInUse()
+                + ",hits=" + hitCount + ",misses=" + missCount
+                + ",revalidations=" + revalidationCount + ",invalidations="
+                + invalidationCount + ",evictions=" + evictionCount + "}";
+
+    }
+
+    /*
+     * Keys and dependencies.
+     */
+
+    /**
+     * Form the key for an optimized AST. Annotations which reflect statistics
+     * about the data (and which can therefore differ from one commit point to
+     * the next for the same query) are stripped from a copy of the AST.
+     * 
+     * @return The key -or- <code>null</code> if the query may not be cached.
+     */
+    static String getCacheKey(final QueryRoot optimizedQuery,
+            final IBindingSet[] bindingSets,
+            final boolean materializeProjectionInQuery) {
+
+        if (optimizedQuery == null)
+            throw new IllegalArgumentException();
+
+        if (!isCacheable(optimizedQuery))
+            return null;
+
+        final QueryRoot copy = BOpUtility.deepCopy(optimizedQuery);
+
+        final List<ASTBase> nodes = new LinkedList<ASTBase>();
+
+        final Iterator<BOp> itr = BOpUtility
+                .preOrderIteratorWithAnnotations(copy);
+
+        while (itr.hasNext()) {
+
+            final BOp op = itr.next();
+
+            if (op instanceof ASTBase)
+                nodes.add((ASTBase) op);
+
+        }
+
+        for (ASTBase node : nodes) {
+
+            for (String name : statisticsAnnotations) {
+
+                node.clearProperty(name);
+
+            }
+
+        }
+
+        final StringBuilder sb = new StringBuilder();
+
+        sb.append(materializeProjectionInQuery);
+
+        sb.append('\n');
+
+        sb.append(bindingSets == null ? "[]" : Arrays.toString(bindingSets));
+
+        sb.append('\n');
+
+        sb.append(copy.toString());
+
+        return sb.toString();
+
+    }
+
+    /**
+     * Return <code>false</code> if the solutions for the query depend on
+     * something other than the statement indices as of the commit point (a
+     * SERVICE, a pre-existing named solution set, or a non-deterministic
+     * function).
+     */
+    private static boolean isCacheable(final QueryRoot optimizedQuery) {
+
+        final Set<String> namedSubqueries = new HashSet<String>();
+
+        final List<NamedSubqueryInclude> includes = new LinkedList<NamedSubqueryInclude>();
+
+        final Iterator<BOp> itr = BOpUtility
+                .preOrderIteratorWithAnnotations(optimizedQuery);
+
+        while (itr.hasNext()) {
+
+            final BOp op = itr.next();
+
+            if (op instanceof ServiceNode) {
+
+                return false;
+
+            } else if (op instanceof FunctionNode) {
+
+                if (nonDeterministicFunctions.contains(((FunctionNode) op)
+                        .getFunctionURI()))
+                    return false;
+
+            } else if (op instanceof NamedSubqueryRoot) {
+
+                namedSubqueries.add(((NamedSubqueryRoot) op).getName());
+
+            } else if (op instanceof NamedSubqueryInclude) {
+
+                includes.add((NamedSubqueryInclude) op);
+
+            }
+
+        }
+
+        for (NamedSubqueryInclude include : includes) {
+
+            if (!namedSubqueries.contains(include.getName())) {
+
+                // INCLUDE of a named solution set.
+                return false;
+
+            }
+
+        }
+
+        return true;
+
+    }
+
+    /**
+     * Return the key ranges of the statement index (POS or POCS) on which the
+     * solutions for the query depend. A <code>null</code> bound denotes an
+     * unbounded key range.
+     */
+    static List<byte[][]> getDependencies(final QueryRoot optimizedQuery) {
+
+        final List<byte[][]> ranges = new LinkedList<byte[][]>();
+
+        final IKeyBuilder keyBuilder = KeyBuilder.newInstance();
+
+        final Iterator<BOp> itr = BOpUtility
+                .preOrderIteratorWithAnnotations(optimizedQuery);
+
+        while (itr.hasNext()) {
+
+            final BOp op = itr.next();
+
+            if (!(op instanceof StatementPatternNode))
+                continue;
+
+            final TermNode p = ((StatementPatternNode) op).p();
+
+            final IV<?, ?> iv = p.isConstant() ? ((IConstant<IV>) p
+                    .getValueExpression()).get() : null;
+
+            final BigdataValue val = iv == null || !iv.hasValue() ? null : iv
+                    .getValue();
+
+            if (iv == null || iv.isNullIV() || RDF.TYPE.equals(val)
+                    || OWL.SAMEAS.equals(val)) {
+
+                // Depends on the entire index.
+                ranges.clear();
+
+                ranges.add(new byte[][] { null, null });
+
+                return ranges;
+
+            }
+
+            keyBuilder.reset();
+
+            final byte[] fromKey = iv.encode(keyBuilder).getKey();
+
+            byte[] toKey;
+            try {
+                toKey = SuccessorUtil.successor(fromKey.clone());
+            } catch (NoSuccessorException ex) {
+                toKey = null;
+            }
+
+            ranges.add(new byte[][] { fromKey, toKey });
+
+        }
+
+        return ranges;
+
+    }
+
+    /*
+     * Entries.
+     */
+
+    /**
+     * An entry in the cache.
+     */
+    private static class Entry {
+
+        final String key;
+
+        /**
+         * The allocation context on which the {@link #stream} is stored.
+         */
+        final MemStore context;
+
+        final SolutionSetStream stream;
+
+        /**
+         * The name of the statement index whose key ranges were read.
+         */
+        final String indexName;
+
+        final List<byte[][]> dependencies;
+
+        final long bytes;
+
+        /**
+         * The commit point against which the solutions were computed.
+         */
+        final long firstCommitTime;
+
+        /**
+         * The most recent commit point for which the solutions are known to
+         * be valid.
+         * <p>
+         * Note: Guarded by <code>this</code>.
+         */
+        long lastCommitTime;
+
+        /**
+         * The #of open readers.
+         * <p>
+         * Note: Guarded by the {@link SolutionSetCache}.
+         */
+        int readers = 0;
+
+        /**
+         * Set once the entry has been removed from the cache. The storage is
+         * released once there are no more readers.
+         * <p>
+         * Note: Guarded by the {@link SolutionSetCache}.
+         */
+        boolean removed = false;
+
+        Entry(final String key, final MemStore context,
+                final SolutionSetStream stream, final String indexName,
+                final List<byte[][]> dependencies, final long bytes,
+                final long commitTime) {
+
+            this.key = key;
+            this.context = context;
+            this.stream = stream;
+            this.indexName = indexName;
+            this.dependencies = dependencies;
+            this.bytes = bytes;
+            this.firstCommitTime = commitTime;
+            this.lastCommitTime = commitTime;
+
+        }
+
+    }
+
+    /**
+     * Remove the entry from the cache if it is still mapped under its key.
+     */
+    private synchronized void remove(final Entry e) {
+
+        if (map.get(e.key) == e) {
+
+            map.remove(e.key);
+
+            release(e);
+
+        }
+
+    }
+
+    /**
+     * Mark the entry as removed and release its storage unless there are
+     * open readers. The caller must have removed the entry from the map.
+     */
+    private void release(final Entry e) {
+
+        assert Thread.holdsLock(this);
+
+        if (e.removed)
+            return;
+
+        e.removed = true;
+
+        bytesInUse -= e.bytes;
+
+        if (e.readers == 0) {
+
+            e.context.getMemoryManager().clear();
+
+        }
+
+    }
+
+    private synchronized void insert(final Entry e) {
+
+        final Entry old = map.put(e.key, e);
+
+        if (old != null)
+            release(old);
+
+        bytesInUse += e.bytes;
+
+        // Evict in LRU order.
+        final Iterator<Entry> itr = map.values().iterator();
+
+        while (itr.hasNext() && (map.size() > maxEntries || bytesInUse > maxMemory)) {
+
+            final Entry x = itr.next();
+
+            itr.remove();
+
+            release(x);
+
+            evictionCount.incrementAndGet();
+
+        }
+
+        if (log.isDebugEnabled())
+            log.debug(this);
+
+    }
+
+    private synchronized void closeReader(final Entry e) {
+
+        e.readers--;
+
+        if (e.removed && e.readers == 0) {
+
+            e.context.getMemoryManager().clear();
+
+        }
+
+    }
+
+    /**
+     * A view of the cache reading on a specific commit point.
+     */
+    private class View implements ISolutionSetCache {
+
+        private final AbstractJournal journal;
+
+        private final long commitTime;
+
+        View(final AbstractJournal journal, final long commitTime) {
+
+            this.journal = journal;
+
+            this.commitTime = commitTime;
+
+        }
+
+        @Override
+        public String getCacheKey(final QueryRoot optimizedQuery,
+                final IBindingSet[] bindingSets,
+                final boolean materializeProjectionInQuery) {
+
+            return SolutionSetCache.getCacheKey(optimizedQuery, bindingSets,
+                    materializeProjectionInQuery);
+
+        }
+
+        @Override
+        public ICloseableIterator<IBindingSet[]> get(final String key) {
+
+            final Entry e;
+            synchronized (SolutionSetCache.this) {
+                e = map.get(key);
+            }
+
+            if (e == null || !isValid(e)) {
+
+                missCount.incrementAndGet();
+
+                return null;
+
+            }
+
+            synchronized (SolutionSetCache.this) {
+
+                if (e.removed) {
+
+                    // Concurrently evicted.
+                    missCount.incrementAndGet();
+
+                    return null;
+
+                }
+
+                e.readers++;
+
+            }
+
+            hitCount.incrementAndGet();
+
+            return new CachedSolutionsIterator(e);
+
+        }
+
+        /**
+         * Return <code>true</code> iff the entry is valid for the commit point
+         * of this view. An entry which is no longer valid for a more recent
+         * commit point is removed.
+         */
+        private boolean isValid(final Entry e) {
+
+            synchronized (e) {
+
+                if (commitTime < e.firstCommitTime) {
+
+                    // The entry is from the future of this view.
+                    return false;
+
+                }
+
+                if (commitTime <= e.lastCommitTime) {
+
+                    return true;
+
+                }
+
+                if (isUnchanged(e.indexName, e.dependencies, e.lastCommitTime)) {
+
+                    e.lastCommitTime = commitTime;
+
+                    revalidationCount.incrementAndGet();
+
+                    return true;
+
+                }
+
+            }
+
+            remove(e);
+
+            invalidationCount.incrementAndGet();
+
+            return false;
+
+        }
+
+        /**
+         * Return <code>true</code> iff none of the key ranges of the named
+         * statement index have changed between the given commit point and
+         * the commit point for this view.
+         */
+        private boolean isUnchanged(final String indexName,
+                final List<byte[][]> dependencies, final long fromCommitTime) {
+
+            final AbstractBTree a = getIndex(indexName, fromCommitTime);
+
+            final AbstractBTree b = getIndex(indexName, commitTime);
+
+            if (a == null || b == null) {
+
+                // Not found (or the commit point was released).
+                return false;
+
+            }
+
+            for (byte[][] range : dependencies) {
+
+                if (!BTreeRangeDiff.isUnchanged(a, b, range[0], range[1]))
+                    return false;
+
+            }
+
+            return true;
+
+        }
+
+        private AbstractBTree getIndex(final String name, final long timestamp) {
+
+            final ICheckpointProtocol ndx;
+            try {
+                ndx = journal.getIndexLocal(name, timestamp);
+            } catch (RuntimeException ex) {
+                if (log.isInfoEnabled())
+                    log.info("name=" + name + ", timestamp=" + timestamp
+                            + " : " + ex);
+                return null;
+            }
+
+            return ndx instanceof AbstractBTree ? (AbstractBTree) ndx : null;
+
+        }
+
+        /**
+         * Return the name of the statement index (POCS for quads or POS for
+         * triples) whose leading key component is the predicate.
+         */
+        private String getStatementIndexName() {
+
+            final String prefix = namespace + "."
+                    + SPORelation.NAME_SPO_RELATION + ".";
+
+            for (SPOKeyOrder keyOrder : new SPOKeyOrder[] { SPOKeyOrder.POCS,
+                    SPOKeyOrder.POS }) {
+
+                final String name = prefix + keyOrder.getIndexName();
+
+                if (getIndex(name, commitTime) != null)
+                    return name;
+
+            }
+
+            return null;
+
+        }
+
+        @Override
+        public ICloseableIterator<IBindingSet[]> put(final String key,
+                final QueryRoot optimizedQuery,
+                final IRunningQuery runningQuery,
+                final ICloseableIterator<IBindingSet[]> src) {
+
+            if (key == null)
+                throw new IllegalArgumentException();
+
+            if (runningQuery == null)
+                throw new IllegalArgumentException();
+
+            if (src == null)
+                throw new IllegalArgumentException();
+
+            final String indexName = getStatementIndexName();
+
+            if (indexName == null)
+                return src;
+
+            return new CacheUpdaterIterator(key, indexName,
+                    getDependencies(optimizedQuery), runningQuery, src);
+
+        }
+
+        @Override
+        public void destroy() {
+
+            clear();
+
+        }
+
+        /**
+         * Passes through the solutions for a query, buffering them until the
+         * iterator is exhausted by normal means. At that point, the solutions
+         * are written onto the cache iff the query ran to completion without
+         * error.
+         */
+        private class CacheUpdaterIterator implements
+                ICloseableIterator<IBindingSet[]> {
+
+            private final String key;
+
+            private final String indexName;
+
+            private final List<byte[][]> dependencies;
+
+            private final IRunningQuery runningQuery;
+
+            private final ICloseableIterator<IBindingSet[]> src;
+
+            /**
+             * The buffered solutions -or- <code>null</code> if the solutions
+             * will not be cached.
+             */
+            private List<IBindingSet[]> chunks = new LinkedList<IBindingSet[]>();
+
+            private int nsolutions = 0;
+
+            CacheUpdaterIterator(final String key, final String indexName,
+                    final List<byte[][]> dependencies,
+                    final IRunningQuery runningQuery,
+                    final ICloseableIterator<IBindingSet[]> src) {
+
+                this.key = key;
+                this.indexName = indexName;
+                this.dependencies = dependencies;
+                this.runningQuery = runningQuery;
+                this.src = src;
+
+            }
+
+            @Override
+            public boolean hasNext() {
+
+                if (src.hasNext())
+                    return true;
+
+                if (chunks != null) {
+
+                    try {
+
+                        if (runningQuery.isDone()
+                                && runningQuery.getCause() == null) {
+
+                            /*
+                             * Update the cache IFF the iterator is exhausted
+                             * by normal means and the query did not fail.
+                             */
+
+                            updateCache();
+
+                        }
+
+                    } finally {
+
+                        chunks = null;
+
+                    }
+
+                }
+
+                return false;
+
+            }
+
+            @Override
+            public IBindingSet[] next() {
+
+                final IBindingSet[] chunk = src.next();
+
+                if (chunks != null) {
+
+                    nsolutions += chunk.length;
+
+                    if (nsolutions > maxSolutions) {
+
+                        // Too large to cache.
+                        chunks = null;
+
+                    } else {
+
+                        chunks.add(chunk);
+
+                    }
+
+                }
+
+                return chunk;
+
+            }
+
+            @Override
+            public void remove() {
+
+                throw new UnsupportedOperationException();
+
+            }
+
+            @Override
+            public void close() {
+
+                // Not exhausted, so do not cache.
+                chunks = null;
+
+                src.close();
+
+            }
+
+            private void updateCache() {
+
+                final MemStore context = store.createAllocationContext();
+
+                final SolutionSetStream stream = SolutionSetStream.create(
+                        context, new StreamIndexMetadata(UUID.randomUUID()));
+
+                stream.put(new ThickCloseableIterator<IBindingSet[]>(chunks
+                        .toArray(new IBindingSet[chunks.size()][])));
+
+                insert(new Entry(key, context, stream, indexName,
+                        dependencies, context.getMemoryManager()
+                                .getSlotBytes(), commitTime));
+
+            }
+
+        }
+
+    }
+
+    /**
+     * Visits the solutions for a cache entry, holding a read lock which
+     * prevents the storage for the entry from being released until the
+     * iterator is closed or exhausted.
+     */
+    private class CachedSolutionsIterator implements
+            ICloseableIterator<IBindingSet[]> {
+
+        private final Entry e;
+
+        private final ICloseableIterator<IBindingSet[]> src;
+
+        private boolean open = true;
+
+        CachedSolutionsIterator(final Entry e) {
+
+            this.e = e;
+
+            this.src = e.stream.get();
+
+        }
+
+        @Override
+        public boolean hasNext() {
+
+            if (open && src.hasNext())
+                return true;
+
+            close();
+
+            return false;
+
+        }
+
+        @Override
+        public IBindingSet[] next() {
+
+            if (!hasNext())
+                throw new NoSuchElementException();
+
+            return src.next();
+
+        }
+
+        @Override
+        public void remove() {
+
+            throw new UnsupportedOperationException();
+
+        }
+
+        @Override
+        public void close() {
+
+            if (open) {
+
+                open = false;
+
+                src.close();
+
+                closeReader(e);
+
+            }
+
+        }
+
+    }
+
+}
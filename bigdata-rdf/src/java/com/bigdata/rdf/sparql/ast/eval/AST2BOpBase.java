@@ -40,6 +40,7 @@ import com.bigdata.bop.IPredicate;
 import com.bigdata.bop.PipelineOp;
 import com.bigdata.bop.cost.SubqueryCostReport;
 import com.bigdata.rdf.sparql.ast.ASTBase;
+import com.bigdata.rdf.sparql.ast.QueryOptimizerEnum;
 import com.bigdata.rdf.sparql.ast.StatementPatternNode;
 
 /**
@@ -138,6 +139,16 @@ public class AST2BOpBase {
         String ESTIMATED_CARDINALITY = AST2BOpBase.class.getName()
                 + ".estimatedCardinality";
 
+        /**
+         * The estimated cardinality of the join of a node with the nodes which
+         * precede it in its join group as determined during static query
+         * optimization. This is only attached when the join group uses the
+         * {@link QueryOptimizerEnum#Adaptive} optimizer, which compares it
+         * with the actual cardinality of the join at runtime.
+         */
+        String ESTIMATED_JOIN_CARDINALITY = AST2BOpBase.class.getName()
+                + ".estimatedJoinCardinality";
+
         /**
          * The estimated cost of a SCAN + FILTER approach to a default graph or
          * named graph query.
@@ -47,6 +47,7 @@ import com.bigdata.bop.fed.QueryEngineFactory;
 import com.bigdata.bop.join.HTreeSolutionSetHashJoinOp;
 import com.bigdata.bop.join.JVMSolutionSetHashJoinOp;
 import com.bigdata.bop.rdf.join.ChunkedMaterializationOp;
+import com.bigdata.bop.solutions.ParallelSortOp;
 import com.bigdata.htree.HTree;
 import com.bigdata.journal.IBTreeManager;
 import com.bigdata.journal.IIndexManager;
@@ -65,6 +66,8 @@ import com.bigdata.rdf.sparql.ast.StaticAnalysis;
 import com.bigdata.rdf.sparql.ast.cache.CacheConnectionFactory;
 import com.bigdata.rdf.sparql.ast.cache.ICacheConnection;
 import com.bigdata.rdf.sparql.ast.cache.IDescribeCache;
+import com.bigdata.rdf.sparql.ast.cache.ISolutionSetCache;
+import com.bigdata.rdf.sparql.ast.cache.PlanCache;
 import com.bigdata.rdf.sparql.ast.hints.IQueryHint;
 import com.bigdata.rdf.sparql.ast.hints.QueryHintRegistry;
 import com.bigdata.rdf.sparql.ast.optimizers.ASTBottomUpOptimizer;
@@ -118,6 +121,18 @@ public class AST2BOpContext implements IdFactory, IEvaluationContext {
      */
     public final IDescribeCache describeCache;
 
+    /**
+     * The {@link ISolutionSetCache} -or- <code>null</code> iff that cache is
+     * not enabled.
+     */
+    private final ISolutionSetCache sparqlCache;
+
+    /**
+     * The {@link PlanCache} -or- <code>null</code> iff that cache is not
+     * enabled.
+     */
+    private final PlanCache planCache;
+
     /**
      * The query hints from the original {@link #query}.
      * <p>
@@ -191,6 +206,30 @@ public class AST2BOpContext implements IdFactory, IEvaluationContext {
      * @see QueryHints#NATIVE_HASH_JOINS
      */
     public boolean nativeHashJoins = QueryHints.DEFAULT_NATIVE_HASH_JOINS;
+
+    /**
+     * When <code>true</code>, ORDER BY is evaluated using the
+     * {@link ParallelSortOp}.
+     * 
+     * @see QueryHints#PARALLEL_SORT
+     */
+    public boolean parallelSort = QueryHints.DEFAULT_PARALLEL_SORT;
+
+    /**
+     * When <code>true</code>, the projected IVs are materialized one
+     * chunk at a time as the solutions are consumed.
+     * 
+     * @see QueryHints#LATE_MATERIALIZATION
+     */
+    public boolean lateMaterialization = QueryHints.DEFAULT_LATE_MATERIALIZATION;
+
+    /**
+     * When <code>true</code>, arbitrary length paths whose ends are both known
+     * are evaluated by a bidirectional search.
+     * 
+     * @see QueryHints#BIDIRECTIONAL_PATHS
+     */
+    public boolean bidirectionalPaths = QueryHints.DEFAULT_BIDIRECTIONAL_PATHS;
     
     /**
      * When <code>true</code>, a merge-join pattern will be recognized if it
@@ -200,6 +239,14 @@ public class AST2BOpContext implements IdFactory, IEvaluationContext {
      * @see QueryHints#MERGE_JOIN
      */
     public boolean mergeJoin = QueryHints.DEFAULT_MERGE_JOIN;
+
+    /**
+     * When <code>false</code>, the solution set cache will not be used for
+     * this query (it must also be enabled by default for the cache to exist).
+     * 
+     * @see QueryHints#SOLUTION_SET_CACHE
+     */
+    public boolean solutionSetCache = QueryHints.DEFAULT_SOLUTION_SET_CACHE;
     
     /**
      * The maximum parallelism for a solution set hash join when the join is
@@ -484,18 +531,24 @@ public class AST2BOpContext implements IdFactory, IEvaluationContext {
 
             final long timestamp = db.getTimestamp();
             
-//            // SOLUTIONS cache (if enabled)
-//            this.sparqlCache = cacheConn.getSparqlCache(namespace, timestamp);
+            // SOLUTIONS cache (if enabled)
+            this.sparqlCache = cacheConn.getSolutionSetCache(namespace,
+                    timestamp);
 
             // DESCRIBE cache (if enabled)
             this.describeCache = cacheConn.getDescribeCache(namespace,
                     timestamp);
 
+            // PLAN cache (if enabled)
+            this.planCache = cacheConn.getPlanCache(namespace);
+
         } else {
             
-//            this.sparqlCache = null;
+            this.sparqlCache = null;
             
             this.describeCache = null;
+
+            this.planCache = null;
             
         }
 
@@ -556,6 +609,28 @@ public class AST2BOpContext implements IdFactory, IEvaluationContext {
 
     }
 
+    /**
+     * Advance the identifier factory such that the next identifier assigned
+     * by {@link #nextId()} is at least <i>nextId</i>. This is used when the
+     * query plan is generated from an AST which was optimized by another
+     * context, so the identifiers which appear in that AST are not reused.
+     * 
+     * @param nextId
+     *            The minimum value for the next identifier.
+     * 
+     * @throws UnsupportedOperationException
+     *             if the context was not created with a
+     *             {@link SimpleIdFactory}.
+     */
+    public void setNextId(final int nextId) {
+
+        if (!(idFactory instanceof SimpleIdFactory))
+            throw new UnsupportedOperationException();
+
+        ((SimpleIdFactory) idFactory).setNextId(nextId);
+
+    }
+
     @Override
     public boolean isCluster() {
 
@@ -656,6 +731,25 @@ public class AST2BOpContext implements IdFactory, IEvaluationContext {
 
     }
 
+    @Override
+    public ISolutionSetCache getSolutionSetCache() {
+
+        return solutionSetCache ? sparqlCache : null;
+
+    }
+
+    /**
+     * Return the {@link PlanCache} -or- <code>null</code> if that cache is not
+     * enabled.
+     * 
+     * @see QueryHints#PLAN_CACHE
+     */
+    public PlanCache getPlanCache() {
+
+        return planCache;
+
+    }
+
     /**
      * Return the effective {@link DescribeModeEnum}.
      * 
@@ -81,6 +81,7 @@ import com.bigdata.rdf.sparql.ast.ASTContainer;
 import com.bigdata.rdf.sparql.ast.IGroupMemberNode;
 import com.bigdata.rdf.sparql.ast.JoinGroupNode;
 import com.bigdata.rdf.sparql.ast.QueryHints;
+import com.bigdata.rdf.sparql.ast.QueryOptimizerEnum;
 import com.bigdata.rdf.sparql.ast.StatementPatternNode;
 import com.bigdata.rdf.store.AbstractTripleStore;
 import com.bigdata.striterator.Dechunkerator;
@@ -299,6 +300,8 @@ public class AST2BOpRTO extends AST2BOpJoins {
         final LinkedList<Predicate> preds = new LinkedList<Predicate>();
         // The constraints for the join graph.
         final List<IConstraint> constraints = new LinkedList<IConstraint>();
+        // The static estimates of the join cardinalities (adaptive only).
+        final List<Long> estimates = new LinkedList<Long>();
         // The #of JOINs accepted into the RTO's join group.
         int naccepted = 0;
         {
@@ -357,6 +360,9 @@ public class AST2BOpRTO extends AST2BOpJoins {
                     final Predicate<?> pred = AST2BOpUtility.toPredicate(sp,
                             ctx);
                     preds.add(pred);
+                    final Long estimate = (Long) sp
+                            .getProperty(Annotations.ESTIMATED_JOIN_CARDINALITY);
+                    estimates.add(estimate == null ? -1L : estimate);
                     // tag the SP with predicate's ID.
                     sp.setProperty(Annotations.PREDICATE_ID, pred.getId());
                     if (attachedConstraints != null) {
@@ -406,6 +412,25 @@ public class AST2BOpRTO extends AST2BOpJoins {
         
         final int nedges = joinGroup.getProperty(QueryHints.RTO_NEDGES,
                 QueryHints.DEFAULT_RTO_NEDGES);
+
+        final boolean adaptive = QueryOptimizerEnum.Adaptive.equals(joinGroup
+                .getQueryOptimizer());
+
+        final long[] estimatedCardinalities = new long[estimates.size()];
+        {
+            int i = 0;
+            for (Long estimate : estimates) {
+                estimatedCardinalities[i++] = estimate;
+            }
+        }
+
+        final double adaptiveThreshold = joinGroup.getProperty(
+                QueryHints.RTO_ADAPTIVE_THRESHOLD,
+                QueryHints.DEFAULT_RTO_ADAPTIVE_THRESHOLD);
+
+        final int adaptiveLimit = joinGroup.getProperty(
+                QueryHints.RTO_ADAPTIVE_LIMIT,
+                QueryHints.DEFAULT_RTO_ADAPTIVE_LIMIT);
         
         left = new JoinGraph(leftOrEmpty(left),//
                 new NV(BOp.Annotations.BOP_ID, ctx.nextId()),//
@@ -426,7 +451,13 @@ public class AST2BOpRTO extends AST2BOpJoins {
                 new NV(JoinGraph.Annotations.SAMPLE_TYPE, sampleType.name()),//
                 new NV(JoinGraph.Annotations.DONE_SET, doneSetIn),//
                 new NV(JoinGraph.Annotations.NT, new NT(ctx.getNamespace(),
-                        ctx.getTimestamp()))//
+                        ctx.getTimestamp())),//
+                new NV(JoinGraph.Annotations.ADAPTIVE, adaptive),//
+                new NV(JoinGraph.Annotations.ESTIMATED_CARDINALITIES,
+                        estimatedCardinalities),//
+                new NV(JoinGraph.Annotations.ADAPTIVE_THRESHOLD,
+                        adaptiveThreshold),//
+                new NV(JoinGraph.Annotations.ADAPTIVE_LIMIT, adaptiveLimit)//
         );
 
         // These joins were consumed.
@@ -461,19 +492,42 @@ public class AST2BOpRTO extends AST2BOpJoins {
     public static PipelineOp compileJoinGraph(final QueryEngine queryEngine,
             final JoinGraph joinGraph, final Path path) {
 
+        if (path == null)
+            throw new IllegalArgumentException();
+
+        return compileJoinGraph(queryEngine, joinGraph, path.getPredicates());
+
+    }
+
+    /**
+     * Compile a join graph into a query plan which evaluates the vertices of
+     * the join graph in the given order.
+     * 
+     * @param queryEngine
+     *            The {@link QueryEngine} on which the query plan may be
+     *            executed.
+     * @param joinGraph
+     *            The operator that executed the RTO.
+     * @param predicates
+     *            The vertices of the join graph in the order in which they
+     *            will be evaluated.
+     * 
+     * @return The query plan to fully execute that join graph.
+     */
+    public static PipelineOp compileJoinGraph(final QueryEngine queryEngine,
+            final JoinGraph joinGraph, final IPredicate<?>[] predicates) {
+
         if (queryEngine == null)
             throw new IllegalArgumentException();
         
         if (joinGraph == null)
             throw new IllegalArgumentException();
 
-        if (path == null)
+        if (predicates == null)
             throw new IllegalArgumentException();
 
 //        final IVariable<?>[] selected = joinGraph.getSelected();
 
-        final IPredicate<?>[] predicates = path.getPredicates();
-
         final IConstraint[] constraints = joinGraph.getConstraints();
 
         final Set<IVariable<?>> doneSet = new LinkedHashSet<IVariable<?>>(
@@ -66,6 +66,7 @@ import com.bigdata.bop.paths.ZeroLengthPathOp;
 import com.bigdata.bop.rdf.join.ChunkedMaterializationOp;
 import com.bigdata.bop.rdf.join.DataSetJoin;
 import com.bigdata.bop.rdf.join.MockTermResolverOp;
+import com.bigdata.bop.rdf.join.TransitiveClosureScanOp;
 import com.bigdata.bop.rdf.join.VariableUnificationOp;
 import com.bigdata.bop.solutions.DropOp;
 import com.bigdata.bop.solutions.GroupByOp;
@@ -79,10 +80,12 @@ import com.bigdata.bop.solutions.IVComparator;
 import com.bigdata.bop.solutions.JVMDistinctBindingSetsOp;
 import com.bigdata.bop.solutions.MemoryGroupByOp;
 import com.bigdata.bop.solutions.MemorySortOp;
+import com.bigdata.bop.solutions.ParallelSortOp;
 import com.bigdata.bop.solutions.PipelinedAggregationOp;
 import com.bigdata.bop.solutions.ProjectionOp;
 import com.bigdata.bop.solutions.SliceOp;
 import com.bigdata.bop.solutions.SortOrder;
+import com.bigdata.bop.solutions.TopKSortOp;
 import com.bigdata.btree.IRangeQuery;
 import com.bigdata.rdf.error.SparqlTypeErrorException;
 import com.bigdata.rdf.internal.IV;
@@ -147,9 +150,11 @@ import com.bigdata.rdf.sparql.ast.UnionNode;
 import com.bigdata.rdf.sparql.ast.ValueExpressionNode;
 import com.bigdata.rdf.sparql.ast.VarNode;
 import com.bigdata.rdf.sparql.ast.ZeroLengthPathNode;
+import com.bigdata.rdf.sparql.ast.cache.PlanCache;
 import com.bigdata.rdf.sparql.ast.optimizers.ASTExistsOptimizer;
 import com.bigdata.rdf.sparql.ast.optimizers.ASTJoinOrderByTypeOptimizer;
 import com.bigdata.rdf.sparql.ast.optimizers.ASTNamedSubqueryOptimizer;
+import com.bigdata.rdf.sparql.ast.optimizers.ASTPropertyPathOptimizer;
 import com.bigdata.rdf.sparql.ast.optimizers.ASTSetValueExpressionsOptimizer;
 import com.bigdata.rdf.sparql.ast.service.ServiceCall;
 import com.bigdata.rdf.sparql.ast.service.ServiceCallUtility;
@@ -225,9 +230,40 @@ public class AST2BOpUtility extends AST2BOpRTO {
         // Compute some summary statistics about the exogenous bindings.
         ctx.setSolutionSetStats(SolutionSetStatserator.get(bindingSets));
         
-        // Run the AST query rewrites / query optimizers.
-        final QueryRoot optimizedQuery = (QueryRoot) ctx.optimizers.optimize(ctx,
-                originalQuery, bindingSets);
+        // The plan cache (if enabled).
+        final PlanCache planCache = ctx.getPlanCache();
+
+        // A previously optimized AST for the same query (if any).
+        final PlanCache.OptimizedAST cached = planCache == null ? null
+                : planCache.getOptimizedAST(ctx.getAbstractTripleStore(),
+                        astContainer, bindingSets);
+
+        final QueryRoot optimizedQuery;
+        if (cached != null) {
+
+            optimizedQuery = cached.getOptimizedAST();
+
+            /*
+             * Do not reuse any identifiers which were assigned while the
+             * cached AST was optimized.
+             */
+            ctx.setNextId(cached.getNextId());
+
+        } else {
+
+            // Run the AST query rewrites / query optimizers.
+            optimizedQuery = (QueryRoot) ctx.optimizers.optimize(ctx,
+                    originalQuery, bindingSets);
+
+            if (planCache != null) {
+
+                planCache.putOptimizedAST(ctx.getAbstractTripleStore(),
+                        astContainer, bindingSets, optimizedQuery,
+                        ctx.nextId());
+
+            }
+
+        }
         
         // Set the optimized AST model on the container.
         astContainer.setOptimizedAST(optimizedQuery);
@@ -650,6 +686,20 @@ public class AST2BOpUtility extends AST2BOpRTO {
 
         left = addEndOp(left, ctx);
 
+        if (orderBy != null && orderBy.isIndexOrder()) {
+
+            /*
+             * The ORDER BY was elided since the access path produces the
+             * solutions in the ORDER BY order (see ASTTopKOptimizer). There is
+             * no sort to restore that order, so the join and every operator
+             * downstream of it must neither reorder the solutions nor run
+             * concurrent tasks (this also overrides any query hints).
+             */
+
+            left = preserveOrder(left);
+
+        }
+
         /*
          * Set a timeout on a query or subquery.
          */
@@ -2595,70 +2645,109 @@ public class AST2BOpUtility extends AST2BOpRTO {
         left = addHashIndexOp(left, ctx, alpNode, JoinTypeEnum.Normal, 
               joinVars, null, projectInVarsArr, namedSolutionSet);       
         
-        
-        /**
-         * Next, convert the child join group into a subquery
-         */
         final JoinGroupNode subgroup = (JoinGroupNode) alpNode.subgroup();
 
-        PipelineOp subquery = convertJoinGroup(null/*left*/,
-                subgroup, doneSet, ctx, false/* needsEndOp */);
+        final IVariableOrConstant<?> leftTerm = 
+                (IVariableOrConstant<?>) alpNode.left().getValueExpression();
+        
+        final IVariableOrConstant<?> rightTerm = 
+                (IVariableOrConstant<?>) alpNode.right().getValueExpression();
+        
+        if (alpNode.transitiveClosurePredicate() != null
+                && subgroup.arity() == 1
+                && subgroup.get(0) instanceof StatementPatternNode) {
 
-        if (ctx.isCluster()) {
-            
             /**
-             * Note: This is necessary if the first operator in the query plan
-             * is a sharded join and we want it to run using a sharded index
-             * view. Without this, the operator will actually run against the
-             * global index view.
-             * <p>
-             * Note: There may be other ways to "fix" this. See the ticket for
-             * more information.
+             * The path is a single predicate whose transitive closure is
+             * maintained by the database, so we can read the solutions off
+             * of the closure index rather than running the path to a fixed
+             * point.
              * 
-             * @see <a href="http://trac.blazegraph.com/ticket/478" > Cluster does
-             *      not map input solution(s) across shards </a>
-             * @see <a href="http://trac.blazegraph.com/ticket/942" > Property path
-             *      errors in scale-out </a>
+             * @see ASTPropertyPathOptimizer
              */
-            
-            subquery = applyQueryHints(
-                    new StartOp(BOp.NOARGS, NV.asMap(new NV[] {//
-                                    new NV(Predicate.Annotations.BOP_ID, ctx
-                                            .nextId()),
-                                    new NV(SliceOp.Annotations.EVALUATION_CONTEXT,
-                                            BOpEvaluationContext.CONTROLLER), })),
-                    alpNode, ctx);
-            
-        }
+            left = applyQueryHints(new TransitiveClosureScanOp(leftOrEmpty(left),//
+                    new NV(TransitiveClosureScanOp.Annotations.LEFT_TERM, leftTerm),
+                    new NV(TransitiveClosureScanOp.Annotations.RIGHT_TERM, rightTerm),
+                    new NV(TransitiveClosureScanOp.Annotations.LOWER_BOUND, alpNode.lowerBound()),
+                    new NV(TransitiveClosureScanOp.Annotations.PREDICATE,
+                            alpNode.transitiveClosurePredicate().getValueExpression()),
+                    new NV(TransitiveClosureScanOp.Annotations.RELATION_NAME,
+                            new String[] { ctx.getSPONamespace() }),
+                    new NV(TransitiveClosureScanOp.Annotations.TIMESTAMP, ctx.getTimestamp()),
+                    new NV(Predicate.Annotations.BOP_ID, ctx.nextId()),//
+                    new NV(BOp.Annotations.EVALUATION_CONTEXT,
+                           BOpEvaluationContext.CONTROLLER)//
+                    ), alpNode, ctx);
 
-        /**
-         * Now, we're ready to set up the ALPOp at the core. 
-         */
-        final IVariableOrConstant<?> leftTerm = 
-        		(IVariableOrConstant<?>) alpNode.left().getValueExpression();
-        
-        final IVariableOrConstant<?> rightTerm = 
-        		(IVariableOrConstant<?>) alpNode.right().getValueExpression();
-        
-        final IVariable<?> tVarLeft = 
-        		(IVariable<?>) alpNode.tVarLeft().getValueExpression();
-        
-        final IVariable<?> tVarRight = 
-        		(IVariable<?>) alpNode.tVarRight().getValueExpression();
-           	
-        left = applyQueryHints(new ArbitraryLengthPathOp(leftOrEmpty(left),//
-    			new NV(ArbitraryLengthPathOp.Annotations.SUBQUERY, subquery),
-    			new NV(ArbitraryLengthPathOp.Annotations.LEFT_TERM, leftTerm),
-    			new NV(ArbitraryLengthPathOp.Annotations.RIGHT_TERM, rightTerm),
-    			new NV(ArbitraryLengthPathOp.Annotations.TRANSITIVITY_VAR_LEFT, tVarLeft),
-    			new NV(ArbitraryLengthPathOp.Annotations.TRANSITIVITY_VAR_RIGHT, tVarRight),
-    			new NV(ArbitraryLengthPathOp.Annotations.LOWER_BOUND, alpNode.lowerBound()),
-    			new NV(ArbitraryLengthPathOp.Annotations.UPPER_BOUND, alpNode.upperBound()),
-    			new NV(Predicate.Annotations.BOP_ID, ctx.nextId()),//
-    			new NV(BOp.Annotations.EVALUATION_CONTEXT,
-    			       BOpEvaluationContext.CONTROLLER)//
-            ), alpNode, ctx);
-        
+        } else {
+
+            /**
+             * Next, convert the child join group into a subquery
+             */
+
+            PipelineOp subquery = convertJoinGroup(null/*left*/,
+                    subgroup, doneSet, ctx, false/* needsEndOp */);
+
+            if (ctx.isCluster()) {
+
+                /**
+                 * Note: This is necessary if the first operator in the query plan
+                 * is a sharded join and we want it to run using a sharded index
+                 * view. Without this, the operator will actually run against the
+                 * global index view.
+                 * <p>
+                 * Note: There may be other ways to "fix" this. See the ticket for
+                 * more information.
+                 * 
+                 * @see <a href="http://trac.blazegraph.com/ticket/478" > Cluster does
+                 *      not map input solution(s) across shards </a>
+                 * @see <a href="http://trac.blazegraph.com/ticket/942" > Property path
+                 *      errors in scale-out </a>
+                 */
+
+                subquery = applyQueryHints(
+                        new StartOp(BOp.NOARGS, NV.asMap(new NV[] {//
+                                        new NV(Predicate.Annotations.BOP_ID, ctx
+                                                .nextId()),
+                                        new NV(SliceOp.Annotations.EVALUATION_CONTEXT,
+                                                BOpEvaluationContext.CONTROLLER), })),
+                        alpNode, ctx);
+
+            }
+
+            /**
+             * Now, we're ready to set up the ALPOp at the core. 
+             */
+            final IVariable<?> tVarLeft = 
+            		(IVariable<?>) alpNode.tVarLeft().getValueExpression();
+
+            final IVariable<?> tVarRight = 
+            		(IVariable<?>) alpNode.tVarRight().getValueExpression();
+
+            /**
+             * The bidirectional search does not carry the bindings produced by
+             * one step into the next, so it would not keep the path within the
+             * named graph of a GRAPH ?g pattern. Do not use it in that case.
+             */
+            final boolean bidirectional = ctx.bidirectionalPaths
+                    && !hasContextVar(subgroup);
+
+            left = applyQueryHints(new ArbitraryLengthPathOp(leftOrEmpty(left),//
+        			new NV(ArbitraryLengthPathOp.Annotations.SUBQUERY, subquery),
+        			new NV(ArbitraryLengthPathOp.Annotations.LEFT_TERM, leftTerm),
+        			new NV(ArbitraryLengthPathOp.Annotations.RIGHT_TERM, rightTerm),
+        			new NV(ArbitraryLengthPathOp.Annotations.TRANSITIVITY_VAR_LEFT, tVarLeft),
+        			new NV(ArbitraryLengthPathOp.Annotations.TRANSITIVITY_VAR_RIGHT, tVarRight),
+        			new NV(ArbitraryLengthPathOp.Annotations.LOWER_BOUND, alpNode.lowerBound()),
+        			new NV(ArbitraryLengthPathOp.Annotations.UPPER_BOUND, alpNode.upperBound()),
+        			new NV(ArbitraryLengthPathOp.Annotations.NATIVE, ctx.nativeHashJoins),
+        			new NV(ArbitraryLengthPathOp.Annotations.BIDIRECTIONAL, bidirectional),
+        			new NV(Predicate.Annotations.BOP_ID, ctx.nextId()),//
+        			new NV(BOp.Annotations.EVALUATION_CONTEXT,
+        			       BOpEvaluationContext.CONTROLLER)//
+                ), alpNode, ctx);
+
+        }
 
         /**
          * Finally, re-join the inner result with the hash index.
@@ -2695,6 +2784,28 @@ public class AST2BOpUtility extends AST2BOpRTO {
 
     }
 
+    /**
+     * Return <code>true</code> iff some statement pattern in the group has a
+     * variable in the context position.
+     */
+    private static boolean hasContextVar(final JoinGroupNode group) {
+
+        final Iterator<StatementPatternNode> itr = BOpUtility.visitAll(group,
+                StatementPatternNode.class);
+
+        while (itr.hasNext()) {
+
+            final TermNode c = itr.next().c();
+
+            if (c != null && c.isVariable())
+                return true;
+
+        }
+
+        return false;
+
+    }
+
     /**
      * Generate the query plan for a zero length path.
      */
@@ -2862,14 +2973,18 @@ public class AST2BOpUtility extends AST2BOpRTO {
             
         }
 
-        if (QueryOptimizerEnum.Runtime.equals(joinGroup.getQueryOptimizer())) {
+        if (QueryOptimizerEnum.Runtime.equals(joinGroup.getQueryOptimizer())
+                || QueryOptimizerEnum.Adaptive.equals(joinGroup
+                        .getQueryOptimizer())) {
 
             /*
              * Inspect the remainder of the join group. If we can isolate a join
              * graph and filters, then we will push them down into an RTO
              * JoinGroup. Since the joins have already been ordered by the
              * static optimizer, we can accept them in sequence along with any
-             * attachable filters.
+             * attachable filters. For the adaptive optimizer, the RTO JoinGroup
+             * first runs the joins in that order and only re-plans them if the
+             * static estimates turn out to be wrong.
              */
             
             left = convertRTOJoinGraph(left, joinGroup, doneSet, ctx, start);
@@ -4366,6 +4481,42 @@ public class AST2BOpUtility extends AST2BOpRTO {
 
     }
 
+    /**
+     * Return a copy of the pipeline in which each operator is annotated to
+     * preserve the order of the solutions ({@link PipelineOp.Annotations#MAX_PARALLEL}
+     * is ONE and {@link PipelineOp.Annotations#REORDER_SOLUTIONS} is
+     * <code>false</code>).
+     * 
+     * @param op
+     *            The last operator in the pipeline.
+     */
+    private static final PipelineOp preserveOrder(final PipelineOp op) {
+
+        PipelineOp tmp = op;
+
+        for (int i = 0; i < op.arity(); i++) {
+
+            final BOp arg = op.get(i);
+
+            if (arg instanceof PipelineOp) {
+
+                tmp = (PipelineOp) tmp.setArg(i,
+                        preserveOrder((PipelineOp) arg));
+
+            }
+
+        }
+
+        tmp = (PipelineOp) tmp.setProperty(PipelineOp.Annotations.MAX_PARALLEL,
+                1);
+
+        tmp = (PipelineOp) tmp.setProperty(
+                PipelineOp.Annotations.REORDER_SOLUTIONS, false);
+
+        return tmp;
+
+    }
+
     /**
      * Add an ORDER BY operator.
      */
@@ -4374,6 +4525,17 @@ public class AST2BOpUtility extends AST2BOpRTO {
             final QueryBase queryBase, final OrderByNode orderBy,
             final AST2BOpContext ctx) {
 
+        if (orderBy.isIndexOrder()) {
+
+            /*
+             * The solutions are produced in the ORDER BY order by the access
+             * path (see ASTTopKOptimizer). The pipeline is annotated to
+             * preserve that order once it is complete (see preserveOrder()).
+             */
+            return left;
+
+        }
+
         // The query hints are taken from the QueryBase
         final Properties queryHints = queryBase.getQueryHints();
 
@@ -4418,6 +4580,65 @@ public class AST2BOpUtility extends AST2BOpRTO {
 
         left = addMaterializationSteps2(left, sortId, vars, queryHints, ctx);
 
+        /*
+         * When the ORDER BY is followed directly by a SLICE, only the first
+         * OFFSET+LIMIT solutions will be consumed, so the sort only needs to
+         * retain those (see ASTTopKOptimizer).
+         */
+        final long limit = orderBy.getTopK();
+
+        if (ctx.parallelSort) {
+
+            left = applyQueryHints(
+                    new ParallelSortOp(
+                            leftOrEmpty(left),
+                            NV.asMap(new NV[] {//
+                                    new NV(ParallelSortOp.Annotations.BOP_ID, sortId),//
+                                    new NV(ParallelSortOp.Annotations.SORT_ORDER,
+                                            sortOrders),//
+                                    new NV(
+                                            ParallelSortOp.Annotations.VALUE_COMPARATOR,
+                                            new IVComparator()),//
+                                    new NV(
+                                            ParallelSortOp.Annotations.EVALUATION_CONTEXT,
+                                            BOpEvaluationContext.CONTROLLER),//
+                                    new NV(ParallelSortOp.Annotations.PIPELINED, true),//
+                                    new NV(ParallelSortOp.Annotations.MAX_PARALLEL, 1),//
+                                    new NV(ParallelSortOp.Annotations.REORDER_SOLUTIONS, false),//
+                                    new NV(ParallelSortOp.Annotations.LAST_PASS, true),//
+                                    new NV(ParallelSortOp.Annotations.LIMIT, limit),//
+                            })), queryHints, ctx);
+
+            return left;
+
+        }
+
+        if (limit < Integer.MAX_VALUE) {
+
+            left = applyQueryHints(
+                    new TopKSortOp(
+                            leftOrEmpty(left),
+                            NV.asMap(new NV[] {//
+                                    new NV(TopKSortOp.Annotations.BOP_ID, sortId),//
+                                    new NV(TopKSortOp.Annotations.SORT_ORDER,
+                                            sortOrders),//
+                                    new NV(
+                                            TopKSortOp.Annotations.VALUE_COMPARATOR,
+                                            new IVComparator()),//
+                                    new NV(
+                                            TopKSortOp.Annotations.EVALUATION_CONTEXT,
+                                            BOpEvaluationContext.CONTROLLER),//
+                                    new NV(TopKSortOp.Annotations.PIPELINED, true),//
+                                    new NV(TopKSortOp.Annotations.MAX_PARALLEL, 1),//
+                                    new NV(TopKSortOp.Annotations.REORDER_SOLUTIONS, false),//
+                                    new NV(TopKSortOp.Annotations.LAST_PASS, true),//
+                                    new NV(TopKSortOp.Annotations.LIMIT, limit),//
+                            })), queryHints, ctx);
+
+            return left;
+
+        }
+
         left = applyQueryHints(
                 new MemorySortOp(
                         leftOrEmpty(left),
@@ -4841,8 +5062,13 @@ public class AST2BOpUtility extends AST2BOpRTO {
          */
         {
          
-            final int flags = IRangeQuery.DEFAULT | IRangeQuery.PARALLEL
+            int flags = IRangeQuery.DEFAULT | IRangeQuery.PARALLEL
                     | IRangeQuery.READONLY;
+
+            if (sp.isReverseScan()) {
+                // Key order imposes a descending ORDER BY (ASTTopKOptimizer).
+                flags |= IRangeQuery.REVERSE;
+            }
             
             anns.add(new NV(IPredicate.Annotations.FLAGS, flags));
             
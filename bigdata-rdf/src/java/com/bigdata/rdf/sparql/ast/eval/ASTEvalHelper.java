@@ -38,6 +38,7 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.log4j.Logger;
@@ -75,6 +76,7 @@ import com.bigdata.rdf.model.BigdataValue;
 import com.bigdata.rdf.sail.Bigdata2Sesame2BindingSetIterator;
 import com.bigdata.rdf.sail.BigdataSailRepositoryConnection;
 import com.bigdata.rdf.sail.BigdataValueReplacer;
+import com.bigdata.rdf.sail.LateMaterializationBindingSetIterator;
 import com.bigdata.rdf.sail.RunningQueryCloseableIterator;
 import com.bigdata.rdf.sparql.ast.ASTContainer;
 import com.bigdata.rdf.sparql.ast.BindingsClause;
@@ -94,6 +96,7 @@ import com.bigdata.rdf.sparql.ast.UpdateRoot;
 import com.bigdata.rdf.sparql.ast.cache.DescribeBindingsCollector;
 import com.bigdata.rdf.sparql.ast.cache.DescribeCacheUpdater;
 import com.bigdata.rdf.sparql.ast.cache.IDescribeCache;
+import com.bigdata.rdf.sparql.ast.cache.ISolutionSetCache;
 import com.bigdata.rdf.store.AbstractTripleStore;
 import com.bigdata.rdf.store.BigdataBindingSetResolverator;
 import com.bigdata.striterator.ChunkedWrappedIterator;
@@ -785,6 +788,34 @@ public class ASTEvalHelper {
         
         final PipelineOp queryPlan = astContainer.getQueryPlan();
         
+        // The solution set cache (if enabled).
+        final ISolutionSetCache sparqlCache = ctx.getSolutionSetCache();
+
+        // The key for the solutions -or- null if they can not be cached.
+        final String cacheKey = sparqlCache == null ? null : sparqlCache
+                .getCacheKey(astContainer.getOptimizedAST(), bindingSets,
+                        materializeProjectionInQuery);
+
+        if (cacheKey != null) {
+
+            final ICloseableIterator<IBindingSet[]> cached = sparqlCache
+                    .get(cacheKey);
+
+            if (cached != null) {
+
+                /*
+                 * Replay the cached solutions through the same materialization
+                 * logic that would have been applied to the query solutions.
+                 */
+                return iterator(new Dechunkerator<IBindingSet>(cached),
+                        queryPlan, ctx.queryId, ctx.db,
+                        materializeProjectionInQuery,
+                        ctx.lateMaterialization, required);
+
+            }
+
+        }
+
         IRunningQuery runningQuery = null;
         try {
 
@@ -796,12 +827,24 @@ public class ASTEvalHelper {
             runningQuery = ctx.queryEngine.eval(queryPlan, bindingSets,
                     queryAttributes);
 
+            // The iterator draining the query solutions.
+            ICloseableIterator<IBindingSet[]> src = runningQuery.iterator();
+
+            if (cacheKey != null) {
+
+                // Enter the solutions into the cache once drained.
+                src = sparqlCache.put(cacheKey, astContainer.getOptimizedAST(),
+                        runningQuery, src);
+
+            }
+
             /*
              * Wrap up the native bigdata query solution iterator as Sesame
              * compatible iteration with materialized RDF Values.
              */
-            return iterator(runningQuery, ctx.db,
-                    materializeProjectionInQuery, required);
+            return iterator(runningQuery, src, ctx.db,
+                    materializeProjectionInQuery, ctx.lateMaterialization,
+                    required);
 
         } catch (Throwable t) {
             if (runningQuery != null) {
@@ -1048,6 +1091,8 @@ public class ASTEvalHelper {
      * 
      * @param runningQuery
      *            The {@link IRunningQuery}.
+     * @param src
+     *            The iterator draining the solutions for that query.
      * @param db
      *            The view of the {@link AbstractTripleStore} against which the
      *            query is running.
@@ -1055,6 +1100,11 @@ public class ASTEvalHelper {
      *            When <code>true</code>, the projection was materialized within
      *            query plan. When <code>false</code>, this method will take
      *            responsibility for that materialization step.
+     * @param lateMaterialization
+     *            When <code>true</code> and the materialization step is not
+     *            done by the query plan, the {@link IV}s for the
+     *            <i>required</i> variables are materialized one chunk at a
+     *            time as the solutions are consumed.
      * @param required
      *            The variables which must be materialized (optional).
      * 
@@ -1062,8 +1112,11 @@ public class ASTEvalHelper {
      *         {@link BindingSet}s of materialized RDF {@link Value}s.
      */
     private static CloseableIteration<BindingSet, QueryEvaluationException> iterator(
-            final IRunningQuery runningQuery, final AbstractTripleStore db,
+            final IRunningQuery runningQuery,
+            final ICloseableIterator<IBindingSet[]> src,
+            final AbstractTripleStore db,
             final boolean materializeProjectionInQuery,
+            final boolean lateMaterialization,
             final IVariable<?>[] required) {
     
         /*
@@ -1093,10 +1146,49 @@ public class ASTEvalHelper {
          */
         
         // Dechunkify the running query and monitor the Sesame iterator.
-        final ICloseableIterator<IBindingSet> it1 = iterator(runningQuery);
-        
-        final BOp query = runningQuery.getQuery();
+        final ICloseableIterator<IBindingSet> it1 = iterator(runningQuery, src);
         
+        return iterator(it1, runningQuery.getQuery(),
+                runningQuery.getQueryId(), db, materializeProjectionInQuery,
+                lateMaterialization, required);
+
+    }
+
+    /**
+     * Wrap the solutions for a query with the logic to materialize {@link IV}s
+     * as RDF {@link Value}s.
+     * 
+     * @param it1
+     *            The dechunked solutions.
+     * @param query
+     *            The query plan (used to resolve the chunk capacity, etc).
+     * @param queryId
+     *            The query identifier.
+     * @param db
+     *            The view of the {@link AbstractTripleStore} against which the
+     *            query is running.
+     * @param materializeProjectionInQuery
+     *            When <code>true</code>, the projection was materialized within
+     *            query plan. When <code>false</code>, this method will take
+     *            responsibility for that materialization step.
+     * @param lateMaterialization
+     *            When <code>true</code> and the materialization step is not
+     *            done by the query plan, the {@link IV}s for the
+     *            <i>required</i> variables are materialized one chunk at a
+     *            time as the solutions are consumed.
+     * @param required
+     *            The variables which must be materialized (optional).
+     * 
+     * @return A Sesame {@link CloseableIteration} which will drain
+     *         {@link BindingSet}s of materialized RDF {@link Value}s.
+     */
+    private static CloseableIteration<BindingSet, QueryEvaluationException> iterator(
+            final ICloseableIterator<IBindingSet> it1, final BOp query,
+            final UUID queryId, final AbstractTripleStore db,
+            final boolean materializeProjectionInQuery,
+            final boolean lateMaterialization,
+            final IVariable<?>[] required) {
+
         final int chunkCapacity = query.getProperty(
                 PipelineOp.Annotations.CHUNK_CAPACITY,
                 PipelineOp.Annotations.DEFAULT_CHUNK_CAPACITY);
@@ -1119,6 +1211,20 @@ public class ASTEvalHelper {
             // Convert IVs in IBindingSets to Sesame BindingSets with Values.
             it3 = new Bigdata2Sesame2BindingSetIterator(it2);
 
+        } else if (lateMaterialization && required != null) {
+
+            /*
+             * The IVs are left unmaterialized until the solutions are
+             * consumed. Each chunk is materialized by a single batch request
+             * against the lexicon in the caller's thread and converted
+             * directly into Sesame BindingSets over the projected variables.
+             */
+
+            it3 = new LateMaterializationBindingSetIterator(it2,
+                    db.getLexiconRelation(), required,
+                    chunkCapacity/* termsChunkSize */,
+                    chunkCapacity/* blobsChunkSize */);
+
         } else {
         
             /*
@@ -1182,7 +1288,7 @@ public class ASTEvalHelper {
             it3 = new Bigdata2Sesame2BindingSetIterator(
                     // Materialize IVs as RDF Values.
                     new BigdataBindingSetResolverator(db, it2,
-                            runningQuery.getQueryId(), required, chunkCapacity,
+                            queryId, required, chunkCapacity,
                             chunkOfChunksCapacity, chunkTimeout,
                             termsChunkSize, blobsChunkSize).start(db
                             .getExecutorService()));
@@ -1198,15 +1304,14 @@ public class ASTEvalHelper {
      * 
      * @param runningQuery
      *            The {@link IRunningQuery}.
+     * @param it1
+     *            The iterator draining the query solutions.
      *            
      * @return An {@link ICloseableIterator} which has been dechunkified.
      */
     private static ICloseableIterator<IBindingSet> iterator(
-            final IRunningQuery runningQuery) {
-
-        // The iterator draining the query solutions.
-        final ICloseableIterator<IBindingSet[]> it1 = runningQuery
-                .iterator();
+            final IRunningQuery runningQuery,
+            final ICloseableIterator<IBindingSet[]> it1) {
 
         // Dechunkify the original iterator
         final ICloseableIterator<IBindingSet> it2 = 
@@ -32,6 +32,7 @@ import com.bigdata.rdf.lexicon.LexiconRelation;
 import com.bigdata.rdf.sparql.ast.ISolutionSetStats;
 import com.bigdata.rdf.sparql.ast.QueryHints;
 import com.bigdata.rdf.sparql.ast.cache.IDescribeCache;
+import com.bigdata.rdf.sparql.ast.cache.ISolutionSetCache;
 import com.bigdata.rdf.sparql.ast.optimizers.IASTOptimizer;
 import com.bigdata.rdf.sparql.ast.ssets.ISolutionSetManager;
 import com.bigdata.rdf.spo.SPORelation;
@@ -127,6 +128,15 @@ public interface IEvaluationContext {
      */
     IDescribeCache getDescribeCache();
 
+    /**
+     * Return the cache for query solutions (experimental feature).
+     * 
+     * @return The cache -or- <code>null</code>.
+     * 
+     * @see QueryHints#SOLUTION_SET_CACHE
+     */
+    ISolutionSetCache getSolutionSetCache();
+
     /**
      * Resolve the pre-existing named solution set returning its
      * {@link ISolutionSetStats}.
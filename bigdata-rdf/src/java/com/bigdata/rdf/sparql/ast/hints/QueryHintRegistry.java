@@ -101,6 +101,8 @@ public class QueryHintRegistry {
         add(new RTOSampleTypeQueryHint());
         add(new RTOLimitQueryHint());
         add(new RTONEdgesQueryHint());
+        add(new RTOAdaptiveThresholdQueryHint());
+        add(new RTOAdaptiveLimitQueryHint());
         add(new OptimisticQueryHint());
 
         // Analytic query mode.
@@ -109,9 +111,13 @@ public class QueryHintRegistry {
         add(new NativeDistinctSPOHint());
         add(new NativeDistinctSPOThresholdHint());
         add(new NativeHashJoinsHint());
+        add(new ParallelSortHint());
+        add(new LateMaterializationHint());
+        add(new BidirectionalPathsHint());
         
         // JOIN hints.
         add(new MergeJoinHint());
+        add(new SolutionSetCacheHint());
         add(new HashJoinHint());
         add(new KeyOrderHint());
         add(new RemoteAPHint());
@@ -35,6 +35,8 @@ import org.openrdf.query.algebra.StatementPattern.Scope;
 
 import com.bigdata.bop.BOp;
 import com.bigdata.bop.IBindingSet;
+import com.bigdata.journal.TimestampUtility;
+import com.bigdata.rdf.internal.IV;
 import com.bigdata.rdf.sparql.ast.ArbitraryLengthPathNode;
 import com.bigdata.rdf.sparql.ast.ConstantNode;
 import com.bigdata.rdf.sparql.ast.FilterNode;
@@ -58,6 +60,8 @@ import com.bigdata.rdf.sparql.ast.UnionNode;
 import com.bigdata.rdf.sparql.ast.VarNode;
 import com.bigdata.rdf.sparql.ast.ZeroLengthPathNode;
 import com.bigdata.rdf.sparql.ast.eval.AST2BOpContext;
+import com.bigdata.rdf.spo.SPORelation;
+import com.bigdata.rdf.store.AbstractTripleStore;
 
 public class ASTPropertyPathOptimizer extends AbstractJoinGroupOptimizer
 		implements IASTOptimizer {
@@ -377,6 +381,14 @@ public class ASTPropertyPathOptimizer extends AbstractJoinGroupOptimizer
 			
 			group.addArg(alpNode);
 			
+			if (isTransitiveClosurePath(ctx, ppInfo, pathElt)) {
+				
+				alpNode.setProperty(
+						ArbitraryLengthPathNode.Annotations.TRANSITIVE_CLOSURE_PREDICATE,
+						pathElt.get(0));
+				
+			}
+			
 			ppInfo = new PropertyPathInfo(tVarLeft, tVarRight, ppInfo);
 			
 			group = alpNode.subgroup();
@@ -411,6 +423,46 @@ public class ASTPropertyPathOptimizer extends AbstractJoinGroupOptimizer
     	
     }
     
+	/**
+	 * Return <code>true</code> iff the path element is <code>p*</code> or
+	 * <code>p+</code> for a single predicate whose transitive closure is
+	 * maintained by the database. The closure index is brought up to date when
+	 * the database commits, so it may only be used for reads against a commit
+	 * point and not for the unisolated view. Paths within a named graph are
+	 * not supported.
+	 * 
+	 * @see AbstractTripleStore.Options#TRANSITIVE_CLOSURE_PREDICATES
+	 */
+	protected boolean isTransitiveClosurePath(final AST2BOpContext ctx,
+			final PropertyPathInfo ppInfo, final PathElt pathElt) {
+
+		final PathMod mod = pathElt.getMod();
+
+		if (mod != PathMod.ZERO_OR_MORE && mod != PathMod.ONE_OR_MORE)
+			return false;
+
+		if (pathElt.isNestedPath() || pathElt.isNegatedPropertySet()
+				|| pathElt.isZeroLengthPath())
+			return false;
+
+		if (ppInfo.c != null)
+			return false;
+
+		if (!TimestampUtility.isReadOnly(ctx.getTimestamp()))
+			return false;
+
+		final SPORelation spo = ctx.getAbstractTripleStore().getSPORelation();
+
+		if (!spo.isTransitiveClosure())
+			return false;
+
+		final IV<?, ?> p = ((ConstantNode) pathElt.get(0)).getValueExpression()
+				.get();
+
+		return spo.getTransitiveClosureIndex().isTransitiveClosurePredicate(p);
+
+	}
+
 	/**
 	 * Optimize a TermNode (add a statement pattern to the group).
 	 */
@@ -238,7 +238,10 @@ public class ASTStaticJoinOptimizer implements IASTOptimizer {
     static boolean isStaticOptimizer(final IEvaluationContext context,
             final JoinGroupNode joinGroup) {
 
-        return QueryOptimizerEnum.Static.equals(joinGroup.getQueryOptimizer());
+        final QueryOptimizerEnum optimizer = joinGroup.getQueryOptimizer();
+
+        return QueryOptimizerEnum.Static.equals(optimizer)
+                || QueryOptimizerEnum.Adaptive.equals(optimizer);
 
 //        QueryOptimizerEnum optimizer = null;
 //
@@ -524,6 +527,14 @@ public class ASTStaticJoinOptimizer implements IASTOptimizer {
 
 		    final int[] order = opt.getOrder();
 
+		    /*
+		     * The adaptive optimizer compares the estimated join
+		     * cardinalities with the actual cardinalities at runtime.
+		     */
+		    final long[] joinCardinality = QueryOptimizerEnum.Adaptive
+		            .equals(joinGroup.getQueryOptimizer()) ? opt
+		            .getJoinCardinalities() : null;
+
 		    /*
 		     * Reorder the statement pattern nodes within the join
 		     * group.
@@ -533,6 +544,13 @@ public class ASTStaticJoinOptimizer implements IASTOptimizer {
 
 		        final IReorderableNode sp = required.get(order[j]);
 
+		        if (joinCardinality != null) {
+
+		            sp.setProperty(Annotations.ESTIMATED_JOIN_CARDINALITY,
+		                    joinCardinality[j]);
+
+		        }
+
 		        joinGroup.setArg(slots[i++], sp);
 
 		    }
@@ -0,0 +1,379 @@
+/**
+
+Copyright (C) SYSTAP, LLC 2006-2015.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@systap.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+/*
+ * Created on Oct 17, 2026
+ */
+
+package com.bigdata.rdf.sparql.ast.optimizers;
+
+import java.util.List;
+
+import com.bigdata.bop.BOp;
+import com.bigdata.bop.BOpUtility;
+import com.bigdata.bop.IBindingSet;
+import com.bigdata.bop.IPredicate;
+import com.bigdata.btree.IIndex;
+import com.bigdata.btree.IRangeQuery;
+import com.bigdata.btree.ITuple;
+import com.bigdata.btree.ITupleIterator;
+import com.bigdata.btree.keys.IKeyBuilder;
+import com.bigdata.btree.keys.KeyBuilder;
+import com.bigdata.btree.keys.SuccessorUtil;
+import com.bigdata.rdf.internal.IV;
+import com.bigdata.rdf.internal.IVUtility;
+import com.bigdata.rdf.sparql.ast.ConstantNode;
+import com.bigdata.rdf.sparql.ast.GraphPatternGroup;
+import com.bigdata.rdf.sparql.ast.IGroupMemberNode;
+import com.bigdata.rdf.sparql.ast.IQueryNode;
+import com.bigdata.rdf.sparql.ast.NamedSubqueriesNode;
+import com.bigdata.rdf.sparql.ast.NamedSubqueryRoot;
+import com.bigdata.rdf.sparql.ast.OrderByExpr;
+import com.bigdata.rdf.sparql.ast.OrderByNode;
+import com.bigdata.rdf.sparql.ast.ProjectionNode;
+import com.bigdata.rdf.sparql.ast.QueryBase;
+import com.bigdata.rdf.sparql.ast.QueryHints;
+import com.bigdata.rdf.sparql.ast.QueryRoot;
+import com.bigdata.rdf.sparql.ast.QueryType;
+import com.bigdata.rdf.sparql.ast.SliceNode;
+import com.bigdata.rdf.sparql.ast.StatementPatternNode;
+import com.bigdata.rdf.sparql.ast.StaticAnalysis;
+import com.bigdata.rdf.sparql.ast.SubqueryRoot;
+import com.bigdata.rdf.sparql.ast.VarNode;
+import com.bigdata.rdf.sparql.ast.eval.AST2BOpContext;
+import com.bigdata.rdf.sparql.ast.service.ServiceNode;
+import com.bigdata.rdf.spo.ISPO;
+import com.bigdata.rdf.spo.SPOKeyOrder;
+import com.bigdata.rdf.spo.SPORelation;
+
+/**
+ * Pushes the OFFSET and LIMIT of a query into its ORDER BY.
+ * <p>
+ * When an ORDER BY is followed directly by a SLICE (there is no DISTINCT or
+ * REDUCED in between), only the first OFFSET+LIMIT solutions in the ORDER BY
+ * order will be consumed. This is recorded as {@link OrderByNode#getTopK()},
+ * which allows the ORDER BY to be evaluated by a bounded heap rather than a
+ * full sort.
+ * <p>
+ * In addition, the following top-level pattern
+ * 
+ * <pre>
+ * SELECT ... { ?s :p ?o } ORDER BY (ASC|DESC)(?o) LIMIT k
+ * </pre>
+ * 
+ * is evaluated without any sort when the objects of <code>:p</code> are all
+ * inline numeric values of the same fixed width datatype. The key order of the
+ * {@link SPOKeyOrder#POS} index is then the ORDER BY order, so the access path
+ * is forced onto that index (scanned in reverse for DESC) and the SLICE halts
+ * the scan as soon as the LIMIT is satisfied. The datatype test is cheap: the
+ * keys for the objects of <code>:p</code> form a contiguous key range, so if
+ * the first and the last objects in that range share the same flags byte,
+ * then all objects in that range share it.
+ */
+public class ASTTopKOptimizer implements IASTOptimizer {
+
+    public ASTTopKOptimizer() {
+    }
+
+    @Override
+    public IQueryNode optimize(final AST2BOpContext context,
+            final IQueryNode queryNode, final IBindingSet[] bindingSets) {
+
+        final QueryRoot queryRoot = (QueryRoot) queryNode;
+
+        // First, process any pre-existing named subqueries.
+        {
+
+            final NamedSubqueriesNode namedSubqueries = queryRoot
+                    .getNamedSubqueries();
+
+            if (namedSubqueries != null) {
+
+                // Note: works around concurrent modification error.
+                final List<NamedSubqueryRoot> list = BOpUtility.toList(
+                        namedSubqueries, NamedSubqueryRoot.class);
+
+                for (NamedSubqueryRoot namedSubquery : list) {
+
+                    doQuery(namedSubquery);
+
+                }
+
+            }
+
+        }
+
+        doQuery(queryRoot);
+
+        if (queryRoot.getNamedSubqueries() == null
+                || queryRoot.getNamedSubqueries().isEmpty()) {
+
+            doIndexOrder(context, queryRoot, bindingSets);
+
+        }
+
+        return queryNode;
+
+    }
+
+    private void doRecursiveRewrite(
+            final GraphPatternGroup<IGroupMemberNode> group) {
+
+        if (group == null)
+            return;
+
+        final int arity = group.arity();
+
+        for (int i = 0; i < arity; i++) {
+
+            final BOp child = (BOp) group.get(i);
+
+            if (child instanceof GraphPatternGroup<?>) {
+
+                // Recursion into groups.
+                doRecursiveRewrite((GraphPatternGroup<IGroupMemberNode>) child);
+
+            } else if (child instanceof SubqueryRoot) {
+
+                // Recursion into subqueries.
+                doQuery((SubqueryRoot) child);
+
+            } else if (child instanceof ServiceNode) {
+
+                // Do not rewrite things inside of a SERVICE node.
+                continue;
+
+            }
+
+        }
+
+    }
+
+    /**
+     * Annotate the ORDER BY of the query (and any sub-selects) with the #of
+     * solutions that will be consumed.
+     */
+    private void doQuery(final QueryBase queryBase) {
+
+        // recursion first.
+        doRecursiveRewrite(queryBase.getWhereClause());
+
+        final long topK = getTopK(queryBase);
+
+        if (topK != Long.MAX_VALUE) {
+
+            queryBase.getOrderBy().setTopK(topK);
+
+        }
+
+    }
+
+    /**
+     * Return the #of solutions in the ORDER BY order which will be consumed
+     * -or- {@link Long#MAX_VALUE} if they will all be consumed.
+     */
+    static long getTopK(final QueryBase queryBase) {
+
+        final OrderByNode orderBy = queryBase.getOrderBy();
+
+        if (orderBy == null || orderBy.isEmpty())
+            return Long.MAX_VALUE;
+
+        final SliceNode slice = queryBase.getSlice();
+
+        if (slice == null || slice.getLimit() == Long.MAX_VALUE)
+            return Long.MAX_VALUE;
+
+        final ProjectionNode projection = queryBase.getProjection();
+
+        if (projection != null
+                && (projection.isDistinct() || projection.isReduced())) {
+            /*
+             * DISTINCT runs after the ORDER BY and could drop solutions before
+             * the SLICE.
+             */
+            return Long.MAX_VALUE;
+        }
+
+        final long topK = slice.getOffset() + slice.getLimit();
+
+        if (topK < 0) {
+            // overflow.
+            return Long.MAX_VALUE;
+        }
+
+        return topK;
+
+    }
+
+    /**
+     * Recognize <code>SELECT ... { ?s :p ?o } ORDER BY ?o LIMIT k</code> and
+     * replace the sort by the key order of the POS index.
+     */
+    private void doIndexOrder(final AST2BOpContext context,
+            final QueryRoot queryRoot, final IBindingSet[] bindingSets) {
+
+        if (queryRoot.getQueryType() != QueryType.SELECT)
+            return;
+
+        final OrderByNode orderBy = queryRoot.getOrderBy();
+
+        if (orderBy == null || orderBy.size() != 1)
+            return;
+
+        if (orderBy.getTopK() == Long.MAX_VALUE) {
+            // Only when a SLICE will halt the scan.
+            return;
+        }
+
+        if (StaticAnalysis.isAggregate(queryRoot))
+            return;
+
+        if (bindingSets != null
+                && (bindingSets.length > 1 || (bindingSets.length == 1 && !bindingSets[0]
+                        .isEmpty()))) {
+            // Exogenous solutions.
+            return;
+        }
+
+        if (context.isQuads() || queryRoot.getDataset() != null)
+            return;
+
+        final OrderByExpr orderByExpr = orderBy.iterator().next();
+
+        if (!(orderByExpr.getValueExpressionNode() instanceof VarNode))
+            return;
+
+        final VarNode orderByVar = (VarNode) orderByExpr
+                .getValueExpressionNode();
+
+        final GraphPatternGroup<IGroupMemberNode> whereClause = queryRoot
+                .getWhereClause();
+
+        if (whereClause == null || whereClause.arity() != 1
+                || !(whereClause.get(0) instanceof StatementPatternNode))
+            return;
+
+        final StatementPatternNode sp = (StatementPatternNode) whereClause
+                .get(0);
+
+        if (sp.isOptional())
+            return;
+
+        if (!(sp.s() instanceof VarNode) || !(sp.p() instanceof ConstantNode)
+                || !(sp.o() instanceof VarNode))
+            return;
+
+        if (!sp.o().equals(orderByVar) || sp.s().equals(sp.o()))
+            return;
+
+        final String keyOrder = sp.getQueryHint(IPredicate.Annotations.KEY_ORDER);
+
+        if (keyOrder != null && !SPOKeyOrder.POS.toString().equals(keyOrder)) {
+            // Some other index was requested.
+            return;
+        }
+
+        final IV<?, ?> p = ((ConstantNode) sp.p()).getValueExpression().get();
+
+        if (p == null || p.isNullIV())
+            return;
+
+        final SPORelation spoRelation = context.getAbstractTripleStore()
+                .getSPORelation();
+
+        if (spoRelation.oneAccessPath)
+            return;
+
+        if (!isOrderPreserving(spoRelation.getIndex(SPOKeyOrder.POS), p))
+            return;
+
+        sp.setQueryHint(IPredicate.Annotations.KEY_ORDER,
+                SPOKeyOrder.POS.toString());
+
+        sp.setReverseScan(!orderByExpr.isAscending());
+
+        orderBy.setIndexOrder(true);
+
+    }
+
+    /**
+     * Return <code>true</code> iff all objects of the predicate in the POS
+     * index are inline numeric values of the same fixed width datatype, in
+     * which case the key order is the value order.
+     */
+    private static boolean isOrderPreserving(final IIndex ndx, final IV<?, ?> p) {
+
+        final IKeyBuilder keyBuilder = KeyBuilder.newInstance();
+
+        IVUtility.encode(keyBuilder, p);
+
+        final byte[] fromKey = keyBuilder.getKey();
+
+        final byte[] toKey = SuccessorUtil.successor(fromKey.clone());
+
+        final IV<?, ?> first = firstObject(ndx, fromKey, toKey, false/* reverse */);
+
+        if (first == null) {
+            // Nothing to scan.
+            return false;
+        }
+
+        if (!first.isInline() || !first.isLiteral() || first.isExtension())
+            return false;
+
+        switch (first.getDTE()) {
+        case XSDByte:
+        case XSDShort:
+        case XSDInt:
+        case XSDLong:
+        case XSDFloat:
+        case XSDDouble:
+            break;
+        default:
+            return false;
+        }
+
+        final IV<?, ?> last = firstObject(ndx, fromKey, toKey, true/* reverse */);
+
+        return last != null && last.flags() == first.flags();
+
+    }
+
+    private static IV<?, ?> firstObject(final IIndex ndx, final byte[] fromKey,
+            final byte[] toKey, final boolean reverse) {
+
+        final ITupleIterator<?> itr = ndx.rangeIterator(fromKey, toKey,
+                1/* capacity */, IRangeQuery.KEYS | IRangeQuery.VALS
+                        | (reverse ? IRangeQuery.REVERSE : 0), null/* filter */);
+
+        if (!itr.hasNext())
+            return null;
+
+        final ITuple<?> tuple = itr.next();
+
+        return ((ISPO) tuple.getObject()).o();
+
+    }
+
+}
@@ -534,6 +534,18 @@ public class DefaultOptimizerList extends ASTOptimizerList {
 		 */
 		if (QueryHints.DEFAULT_DISTINCT_TERM_SCAN_OPTIMIZER)
 			add(new ASTDistinctTermScanOptimizer());
+
+        /**
+         * Push the OFFSET+LIMIT into the ORDER BY so that it may be evaluated
+         * with a bounded heap, and replace the sort by the key order of the
+         * POS index for <code>{ ?s :p ?o } ORDER BY ?o LIMIT k</code> when
+         * the objects of <code>:p</code> are inline numerics of one datatype.
+         * 
+         * Note: This must run after the ASTDistinctTermScanOptimizer, which
+         * can clear the DISTINCT on the projection.
+         */
+        if (QueryHints.DEFAULT_TOP_K_OPTIMIZER)
+            add(new ASTTopKOptimizer());
         
         /**
          * Run the static join order optimizer. This attaches the estimated
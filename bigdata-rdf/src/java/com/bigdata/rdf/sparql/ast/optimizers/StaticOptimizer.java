@@ -1,5 +1,6 @@
 package com.bigdata.rdf.sparql.ast.optimizers;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
@@ -7,9 +8,11 @@ import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
 
+import com.bigdata.bop.IConstant;
 import com.bigdata.bop.IVariable;
 import com.bigdata.bop.joinGraph.fast.DefaultEvaluationPlan2;
 import com.bigdata.journal.ITx;
+import com.bigdata.rdf.internal.IV;
 import com.bigdata.rdf.sparql.ast.IBindingProducerNode;
 import com.bigdata.rdf.sparql.ast.IReorderableNode;
 import com.bigdata.rdf.sparql.ast.QueryHints;
@@ -19,6 +22,9 @@ import com.bigdata.rdf.sparql.ast.StaticAnalysis;
 import com.bigdata.rdf.sparql.ast.VarNode;
 import com.bigdata.rdf.sparql.ast.eval.AST2BOpContext;
 import com.bigdata.rdf.sparql.ast.optimizers.ASTStaticJoinOptimizer.Annotations;
+import com.bigdata.rdf.spo.CharacteristicSetIndex;
+import com.bigdata.rdf.spo.SPORelation;
+import com.bigdata.rdf.store.AbstractTripleStore;
 
 /**
  * This is the old static optimizer code, taken directly from
@@ -54,6 +60,12 @@ public final class StaticOptimizer {
 	 */
 	private int[/* order */] order;
 
+	/**
+	 * The estimated cardinality of the join of the first <code>i+1</code>
+	 * tails in the computed evaluation order.
+	 */
+	private long[/* order */] joinCardinality;
+
 	public int[] getOrder() {
 
 		if (order == null) {
@@ -71,6 +83,21 @@ public final class StaticOptimizer {
 
 	}
 
+	/**
+	 * Return the estimated cardinality after each step of the computed
+	 * evaluation order. The element at index <code>i</code> is the estimated
+	 * cardinality of the join of the tails <code>order[0]</code> through
+	 * <code>order[i]</code>.
+	 */
+	public long[] getJoinCardinalities() {
+
+		if (joinCardinality == null)
+			throw new IllegalStateException();
+
+		return joinCardinality;
+
+	}
+
 	/**
 	 * Cache of the computed range counts for the predicates in the tail. The
 	 * elements of this array are initialized to -1L, which indicates that the
@@ -99,18 +126,26 @@ public final class StaticOptimizer {
 	 */
 	private final double optimistic;
 
+	/**
+	 * The join cardinality statistics for the database (optional).
+	 * 
+	 * @see AbstractTripleStore.Options#CHARACTERISTIC_SETS
+	 */
+	private final CharacteristicSetIndex cs;
+
 	public StaticOptimizer(StaticOptimizer parent, List<IReorderableNode> nodes) {
-		this(parent.sa, parent.ancestry, nodes, parent.optimistic);
+		this(parent.sa, parent.cs, parent.ancestry, nodes, parent.optimistic);
 	}
 
 	StaticOptimizer(final QueryRoot queryRoot, final AST2BOpContext context,
 			final IBindingProducerNode[] ancestry,
 			final List<IReorderableNode> nodes, final double optimistic) {
-		this(new StaticAnalysis(queryRoot, context), ancestry, nodes,
-				optimistic);
+		this(new StaticAnalysis(queryRoot, context),
+				getCharacteristicSetIndex(context), ancestry, nodes, optimistic);
 	}
 
 	private StaticOptimizer(final StaticAnalysis sa,
+			final CharacteristicSetIndex cs,
 			final IBindingProducerNode[] ancestry,
 			final List<IReorderableNode> nodes, final double optimistic) {
 
@@ -122,6 +157,8 @@ public final class StaticOptimizer {
 
 		this.sa = sa;
 
+		this.cs = cs;
+
 		this.ancestry = ancestry;
 
 		this.ancestryVars = new LinkedHashSet<IVariable<?>>();
@@ -146,6 +183,31 @@ public final class StaticOptimizer {
 
 	}
 
+	/**
+	 * Return the join cardinality statistics for the database -or-
+	 * <code>null</code> if they are not maintained or have not yet been
+	 * computed.
+	 */
+	private static CharacteristicSetIndex getCharacteristicSetIndex(
+			final AST2BOpContext context) {
+
+		final AbstractTripleStore db = context == null ? null : context
+				.getAbstractTripleStore();
+
+		if (db == null)
+			return null;
+
+		final SPORelation spo = db.getSPORelation();
+
+		if (!spo.isCharacteristicSets())
+			return null;
+
+		final CharacteristicSetIndex cs = spo.getCharacteristicSetIndex();
+
+		return cs.isEmpty() ? null : cs;
+
+	}
+
 	/**
 	 * Computes and sets the evaluation order, and returns an estimated
 	 * cardinality.
@@ -157,6 +219,7 @@ public final class StaticOptimizer {
 					"calc should only be called from the constructor");
 
 		order = new int[arity];
+		joinCardinality = new long[arity];
 		rangeCount = new long[arity];
 		used = new boolean[arity];
 		tail = new Tail[arity];
@@ -174,7 +237,7 @@ public final class StaticOptimizer {
 
 		if (arity == 1) {
 			order[0] = 0;
-			return cardinality(0);
+			return joinCardinality[0] = cardinality(0);
 		}
 
 		/*
@@ -258,7 +321,9 @@ public final class StaticOptimizer {
 					order[1] = cardinality(0) <= cardinality(1) ? 1 : 0;
 				}
 			}
-			return computeJoinCardinality(getTail(0), getTail(1));
+			joinCardinality[0] = cardinality(order[0]);
+			return joinCardinality[1] = computeJoinCardinality(getTail(0),
+					getTail(1));
 		}
 
 		/*
@@ -284,10 +349,13 @@ public final class StaticOptimizer {
 		}
 		used[order[0]] = true;
 		used[order[1]] = true;
+		joinCardinality[0] = cardinality(order[0]);
+		joinCardinality[1] = cardinality;
 		for (int i = 2; i < arity; i++) {
 			join = getNextJoin(join);
 			order[i] = ((Tail) join.getD2()).getTailIndex();
 			used[order[i]] = true;
+			joinCardinality[i] = join.cardinality;
 		}
 		return cardinality;
 	}
@@ -569,6 +637,10 @@ public final class StaticOptimizer {
 	 * variables, then the join cardinality will be the maximum cardinality from
 	 * each join dimension.
 	 * <p>
+	 * When the join cardinality statistics are available and the join is a
+	 * star join, the cardinality is estimated from the characteristic sets
+	 * instead. See {@link #estimateStarCardinality(IJoinDimension, IJoinDimension)}.
+	 * <p>
 	 * TODO: Any join involving an optional will have infinite cardinality, so
 	 * that optionals get placed at the end.
 	 * 
@@ -589,11 +661,16 @@ public final class StaticOptimizer {
 		final boolean sharedVars = hasSharedVars(d1, d2);
 		final boolean unsharedVars = hasUnsharedVars(d1, d2);
 		final long joinCardinality;
+		final long starCardinality;
 		if (sharedVars == false) {
 			// no shared vars - take the sum
 			// joinCardinality = d1.getCardinality() + d2.getCardinality();
 			// different approach - give preference to shared variables
 			joinCardinality = NO_SHARED_VARS;
+		} else if (cs != null
+				&& (starCardinality = estimateStarCardinality(d1, d2)) >= 0) {
+			// a star join - use the characteristic sets.
+			joinCardinality = starCardinality;
 		} else {
 			if (unsharedVars == false) {
 				// shared vars and no unshared vars - take the min
@@ -658,6 +735,80 @@ public final class StaticOptimizer {
 		return joinCardinality;
 	}
 
+	/**
+	 * Estimate the cardinality of a join using the characteristic sets. This
+	 * is only possible when the tails of both join dimensions form a star: the
+	 * tails are required statement patterns having the same subject variable
+	 * and a constant predicate, and the only variable which they share is that
+	 * subject variable. The characteristic sets give the #of solutions for the
+	 * star when the objects are unbound. For a tail whose object is bound or
+	 * range constrained, that estimate is scaled by the fraction of the
+	 * statements for its predicate which are selected by the tail.
+	 * 
+	 * @return The estimated join cardinality -or- <code>-1L</code> if the
+	 *         join is not a star.
+	 */
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	private long estimateStarCardinality(final IJoinDimension d1,
+			final IJoinDimension d2) {
+
+		final List<Integer> tails = new ArrayList<Integer>();
+		getTails(d1, tails);
+		getTails(d2, tails);
+
+		final IV<?, ?>[] star = new IV[tails.size()];
+		final Set<String> objectVars = new HashSet<String>();
+		String subjectVar = null;
+		double selectivity = 1d;
+
+		for (int i = 0; i < star.length; i++) {
+			final int tailIndex = tails.get(i);
+			final IReorderableNode node = nodes.get(tailIndex);
+			if (!(node instanceof StatementPatternNode))
+				return -1L;
+			final StatementPatternNode sp = (StatementPatternNode) node;
+			if (sp.isOptional() || sp.sid() != null || !sp.s().isVariable()
+					|| !sp.p().isConstant())
+				return -1L;
+			final String s = ((VarNode) sp.s()).getValueExpression().getName();
+			if (subjectVar == null)
+				subjectVar = s;
+			else if (!subjectVar.equals(s))
+				return -1L;
+			final IV p = ((IConstant<IV>) sp.p().getValueExpression()).get();
+			if (p == null)
+				return -1L;
+			star[i] = p;
+			if (sp.o().isVariable() && sp.getRange() == null) {
+				final String o = ((VarNode) sp.o()).getValueExpression()
+						.getName();
+				if (o.equals(subjectVar) || !objectVars.add(o))
+					return -1L;
+			} else {
+				final long n = cs.getStatementCount(p);
+				if (n > 0)
+					selectivity *= Math.min(1d, rangeCount(tailIndex)
+							/ (double) n);
+			}
+		}
+
+		return Math.round(cs.estimateStarCardinality(star) * selectivity);
+
+	}
+
+	/**
+	 * Collect the indices of the tails in a join dimension.
+	 */
+	private static void getTails(final IJoinDimension d,
+			final List<Integer> tails) {
+		if (d instanceof Tail) {
+			tails.add(((Tail) d).getTailIndex());
+		} else {
+			getTails(((Join) d).getD1(), tails);
+			getTails(((Join) d).getD2(), tails);
+		}
+	}
+
 	/**
 	 * Get the named variables for a given tail. Is there a better way to do
 	 * this?
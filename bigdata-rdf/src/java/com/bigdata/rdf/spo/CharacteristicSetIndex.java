@@ -0,0 +1,575 @@
+/**
+
+Copyright (C) SYSTAP, LLC 2006-2015.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@systap.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+/*
+ * Created on Oct 17, 2026
+ */
+package com.bigdata.rdf.spo;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.log4j.Logger;
+
+import com.bigdata.btree.IIndex;
+import com.bigdata.btree.IRangeQuery;
+import com.bigdata.btree.ITuple;
+import com.bigdata.btree.ITupleIterator;
+import com.bigdata.btree.keys.IKeyBuilder;
+import com.bigdata.btree.keys.KeyBuilder;
+import com.bigdata.rawstore.Bytes;
+import com.bigdata.rdf.internal.IV;
+import com.bigdata.rdf.internal.IVUtility;
+import com.bigdata.rdf.store.AbstractTripleStore;
+import com.bigdata.striterator.IChunkedIterator;
+
+/**
+ * A persistent index of join cardinality statistics for the statement
+ * indices. Two kinds of statistics are maintained:
+ * <dl>
+ * <dt>{@value SPORelation#NAME_CS_PREDICATES}</dt>
+ * <dd>For each predicate <code>p</code>, the #of statements using
+ * <code>p</code> and the #of distinct subjects and objects of those
+ * statements. The key is the encoded {@link IV} of the predicate.</dd>
+ * <dt>{@value SPORelation#NAME_CS_SETS}</dt>
+ * <dd>The <em>characteristic sets</em> of the data. The characteristic set of
+ * a subject is the set of the distinct predicates used by the statements
+ * having that subject. For each distinct characteristic set, the index records
+ * the #of subjects having that characteristic set and, for each predicate in
+ * the set, the #of statements using that predicate for those subjects. The key
+ * is the concatenation of the encoded {@link IV}s of the predicates in the
+ * order in which they appear in the statement index.</dd>
+ * </dl>
+ * The characteristic sets capture the correlation between the predicates used
+ * to describe the same subject. This makes it possible to estimate the
+ * cardinality of a star join (a set of statement patterns sharing the same
+ * subject variable) without assuming that the predicates are independent. See
+ * Neumann and Moerkotte, "Characteristic Sets: Accurate Cardinality Estimation
+ * for RDF Queries with Multiple Joins", ICDE 2011.
+ * <p>
+ * The statistics are computed by {@link #rebuild()} from one scan of the
+ * subject major statement index and a distinct term scan of the predicate
+ * major statement index. {@link #update()} is invoked by
+ * {@link AbstractTripleStore#commit()} and rebuilds the statistics once the
+ * #of statements has drifted from the #of statements as of the last rebuild by
+ * more than
+ * {@link AbstractTripleStore.Options#CHARACTERISTIC_SETS_REFRESH_THRESHOLD}.
+ * This bounds the amortized cost of the maintenance while keeping the
+ * statistics within a known distance of the data. The statistics are only used
+ * to order joins, so stale statistics can lead to a poor join order but never
+ * to a wrong answer.
+ * 
+ * @see AbstractTripleStore.Options#CHARACTERISTIC_SETS
+ */
+public class CharacteristicSetIndex {
+
+    private static final transient Logger log = Logger
+            .getLogger(CharacteristicSetIndex.class);
+
+    private final SPORelation relation;
+
+    private final IIndex predicates;
+
+    private final IIndex sets;
+
+    /**
+     * Used to form the keys for the indices.
+     */
+    private final IKeyBuilder keyBuilder;
+
+    /**
+     * Star join estimates which have already been computed against this view,
+     * keyed by the sorted predicates of the star.
+     */
+    private final Map<List<IV<?, ?>>, Double> starCache = new HashMap<List<IV<?, ?>>, Double>();
+
+    /**
+     * 
+     * @param relation
+     *            The {@link SPORelation}.
+     * @param predicates
+     *            The {@value SPORelation#NAME_CS_PREDICATES} index.
+     * @param sets
+     *            The {@value SPORelation#NAME_CS_SETS} index.
+     */
+    CharacteristicSetIndex(final SPORelation relation,
+            final IIndex predicates, final IIndex sets) {
+
+        if (relation == null)
+            throw new IllegalArgumentException();
+
+        if (predicates == null)
+            throw new IllegalArgumentException();
+
+        if (sets == null)
+            throw new IllegalArgumentException();
+
+        this.relation = relation;
+
+        this.predicates = predicates;
+
+        this.sets = sets;
+
+        this.keyBuilder = KeyBuilder.newInstance(Bytes.SIZEOF_LONG);
+
+    }
+
+    /*
+     * Read.
+     */
+
+    /**
+     * Return the #of statements using the predicate as of the last rebuild.
+     */
+    public long getStatementCount(final IV<?, ?> p) {
+
+        return getPredicateStats(p)[0];
+
+    }
+
+    /**
+     * Return the #of distinct subjects of the statements using the predicate
+     * as of the last rebuild.
+     */
+    public long getDistinctSubjectCount(final IV<?, ?> p) {
+
+        return getPredicateStats(p)[1];
+
+    }
+
+    /**
+     * Return the #of distinct objects of the statements using the predicate as
+     * of the last rebuild.
+     */
+    public long getDistinctObjectCount(final IV<?, ?> p) {
+
+        return getPredicateStats(p)[2];
+
+    }
+
+    /**
+     * Return the #of statements as of the last rebuild.
+     */
+    public long getStatementCount() {
+
+        long n = 0L;
+
+        final ITupleIterator<?> itr = predicates.rangeIterator();
+
+        while (itr.hasNext()) {
+
+            n += decode(itr.next().getValue())[0];
+
+        }
+
+        return n;
+
+    }
+
+    /**
+     * Return the #of distinct characteristic sets as of the last rebuild.
+     */
+    public long getCharacteristicSetCount() {
+
+        return sets.rangeCount();
+
+    }
+
+    /**
+     * Return <code>true</code> iff the statistics have been computed.
+     */
+    public boolean isEmpty() {
+
+        return predicates.rangeCount() == 0L;
+
+    }
+
+    /**
+     * Return <code>[statements, distinctSubjects, distinctObjects]</code> for
+     * the predicate (zeros if the predicate was not in use).
+     */
+    private long[] getPredicateStats(final IV<?, ?> p) {
+
+        final byte[] val = predicates.lookup(key(p));
+
+        return val == null ? new long[3] : decode(val);
+
+    }
+
+    /**
+     * Estimate the #of solutions for a star join whose statement patterns
+     * share the same subject variable and have the given constant predicates
+     * and distinct unbound objects. The estimate is summed over each
+     * characteristic set <code>S</code> which contains all of the predicates
+     * of the star:
+     * 
+     * <pre>
+     * |S| * PRODUCT(p in star : occurrences(S,p) / |S|)
+     * </pre>
+     * 
+     * where <code>|S|</code> is the #of subjects having that characteristic
+     * set. A predicate may appear more than once in the star, in which case its
+     * factor is applied once for each appearance.
+     * <p>
+     * Note: This scans the characteristic sets. The estimates are cached for
+     * the life of this object, which is normally the planning of one query.
+     * 
+     * @param star
+     *            The predicates of the star.
+     * 
+     * @return The estimated #of solutions.
+     */
+    public double estimateStarCardinality(final IV<?, ?>[] star) {
+
+        if (star == null || star.length == 0)
+            throw new IllegalArgumentException();
+
+        final List<IV<?, ?>> sorted = new ArrayList<IV<?, ?>>(
+                Arrays.asList(star));
+
+        Collections.sort(sorted);
+
+        Double estimate = starCache.get(sorted);
+
+        if (estimate == null) {
+
+            starCache.put(sorted, estimate = computeStarCardinality(sorted));
+
+        }
+
+        return estimate;
+
+    }
+
+    private double computeStarCardinality(final List<IV<?, ?>> star) {
+
+        double estimate = 0d;
+
+        final ITupleIterator<?> itr = sets.rangeIterator();
+
+        while (itr.hasNext()) {
+
+            final ITuple<?> tuple = itr.next();
+
+            final List<?> set = Arrays.asList(IVUtility.decodeAll(tuple
+                    .getKey()));
+
+            if (!set.containsAll(star))
+                continue;
+
+            final long[] counts = decode(tuple.getValue());
+
+            // The #of subjects having this characteristic set.
+            final double nsubjects = counts[0];
+
+            double card = nsubjects;
+
+            for (IV<?, ?> p : star) {
+
+                card *= counts[1 + set.indexOf(p)] / nsubjects;
+
+            }
+
+            estimate += card;
+
+        }
+
+        return estimate;
+
+    }
+
+    /*
+     * Maintenance.
+     */
+
+    /**
+     * Rebuild the statistics if the #of statements has drifted from the #of
+     * statements as of the last rebuild by more than the given fraction. This
+     * must be invoked against the unisolated view of the relation.
+     * 
+     * @param threshold
+     *            The fraction of the #of statements as of the last rebuild.
+     * 
+     * @return <code>true</code> iff the statistics were rebuilt.
+     */
+    public boolean update(final double threshold) {
+
+        // Fast range count of the statement index.
+        final long nnow = relation.getPrimaryIndex().rangeCount();
+
+        // The #of statements as of the last rebuild.
+        final long nlast = getStatementCount();
+
+        if (nlast == 0L ? nnow == 0L : Math.abs(nnow - nlast) <= threshold
+                * nlast) {
+
+            return false;
+
+        }
+
+        rebuild();
+
+        return true;
+
+    }
+
+    /**
+     * Drop the statistics and recompute them from the statement indices. This
+     * must be invoked against the unisolated view of the relation.
+     */
+    public void rebuild() {
+
+        final long begin = System.currentTimeMillis();
+
+        removeAll(predicates);
+
+        removeAll(sets);
+
+        // [statements, distinctSubjects, distinctObjects] for each predicate.
+        final Map<IV<?, ?>, long[]> stats = new LinkedHashMap<IV<?, ?>, long[]>();
+
+        /*
+         * Scan the subject major index. The statements for a given subject are
+         * clustered and are in predicate order, so the characteristic set of
+         * each subject is formed as its statements are visited.
+         */
+        {
+
+            final ITupleIterator<?> itr = relation.getPrimaryIndex()
+                    .rangeIterator(null/* fromKey */, null/* toKey */,
+                            0/* capacity */, IRangeQuery.KEYS, null/* filter */);
+
+            IV<?, ?> lastS = null;
+
+            // The predicates of the current subject and their #of statements.
+            final List<IV<?, ?>> preds = new ArrayList<IV<?, ?>>();
+            final List<long[]> occurrences = new ArrayList<long[]>();
+
+            while (itr.hasNext()) {
+
+                final IV<?, ?>[] ivs = IVUtility.decode(itr.next().getKey(),
+                        2/* numTerms */);
+
+                final IV<?, ?> s = ivs[0];
+
+                final IV<?, ?> p = ivs[1];
+
+                if (lastS != null && !s.equals(lastS)) {
+
+                    addSubject(preds, occurrences);
+
+                    preds.clear();
+
+                    occurrences.clear();
+
+                }
+
+                lastS = s;
+
+                long[] a = stats.get(p);
+
+                if (a == null) {
+
+                    stats.put(p, a = new long[3]);
+
+                }
+
+                // #of statements for the predicate.
+                a[0]++;
+
+                final int n = preds.size();
+
+                if (n > 0 && preds.get(n - 1).equals(p)) {
+
+                    occurrences.get(n - 1)[0]++;
+
+                } else {
+
+                    preds.add(p);
+
+                    occurrences.add(new long[] { 1L });
+
+                    // #of distinct subjects for the predicate.
+                    a[1]++;
+
+                }
+
+            }
+
+            if (lastS != null) {
+
+                addSubject(preds, occurrences);
+
+            }
+
+        }
+
+        /*
+         * The #of distinct objects for each predicate using a distinct term
+         * scan on the predicate major index.
+         */
+        final SPOKeyOrder objectKeyOrder = relation.getKeyArity() == 3 ? SPOKeyOrder.POS
+                : SPOKeyOrder.POCS;
+
+        for (Map.Entry<IV<?, ?>, long[]> e : stats.entrySet()) {
+
+            final IChunkedIterator<IV> itr = relation.distinctMultiTermScan(
+                    objectKeyOrder, new IV[] { e.getKey() });
+
+            try {
+
+                long n = 0L;
+
+                while (itr.hasNext()) {
+
+                    itr.next();
+
+                    n++;
+
+                }
+
+                e.getValue()[2] = n;
+
+            } finally {
+
+                itr.close();
+
+            }
+
+            predicates.insert(key(e.getKey()), encode(e.getValue()));
+
+        }
+
+        starCache.clear();
+
+        if (log.isInfoEnabled())
+            log.info("predicates=" + stats.size() + ", characteristicSets="
+                    + sets.rangeCount() + ", elapsed="
+                    + (System.currentTimeMillis() - begin) + "ms");
+
+    }
+
+    /**
+     * Add a subject to the characteristic set formed by its predicates.
+     * 
+     * @param preds
+     *            The distinct predicates of the subject in index order.
+     * @param occurrences
+     *            The #of statements for each of those predicates.
+     */
+    private void addSubject(final List<IV<?, ?>> preds,
+            final List<long[]> occurrences) {
+
+        keyBuilder.reset();
+
+        for (IV<?, ?> p : preds) {
+
+            IVUtility.encode(keyBuilder, p);
+
+        }
+
+        final byte[] key = keyBuilder.getKey();
+
+        final byte[] val = sets.lookup(key);
+
+        final long[] counts = val == null ? new long[1 + preds.size()]
+                : decode(val);
+
+        // #of subjects having this characteristic set.
+        counts[0]++;
+
+        for (int i = 0; i < preds.size(); i++) {
+
+            counts[1 + i] += occurrences.get(i)[0];
+
+        }
+
+        sets.insert(key, encode(counts));
+
+    }
+
+    private static void removeAll(final IIndex ndx) {
+
+        final ITupleIterator<?> itr = ndx.rangeIterator(null/* fromKey */,
+                null/* toKey */, 0/* capacity */, IRangeQuery.REMOVEALL,
+                null/* filter */);
+
+        while (itr.hasNext()) {
+
+            itr.next();
+
+        }
+
+    }
+
+    /*
+     * Keys and values.
+     */
+
+    private byte[] key(final IV<?, ?> p) {
+
+        keyBuilder.reset();
+
+        IVUtility.encode(keyBuilder, p);
+
+        return keyBuilder.getKey();
+
+    }
+
+    private static byte[] encode(final long[] a) {
+
+        final ByteBuffer b = ByteBuffer.allocate(a.length * Bytes.SIZEOF_LONG);
+
+        for (long x : a) {
+
+            b.putLong(x);
+
+        }
+
+        return b.array();
+
+    }
+
+    private static long[] decode(final byte[] val) {
+
+        final ByteBuffer b = ByteBuffer.wrap(val);
+
+        final long[] a = new long[val.length / Bytes.SIZEOF_LONG];
+
+        for (int i = 0; i < a.length; i++) {
+
+            a[i] = b.getLong();
+
+        }
+
+        return a;
+
+    }
+
+}
@@ -0,0 +1,611 @@
+/**
+
+Copyright (C) SYSTAP, LLC 2006-2015.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@systap.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+/*
+ * Created on Oct 17, 2026
+ */
+
+package com.bigdata.rdf.spo;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import org.apache.log4j.Logger;
+
+import com.bigdata.btree.BTree;
+import com.bigdata.btree.BTreeBulkBuilder;
+import com.bigdata.btree.BytesUtil;
+import com.bigdata.btree.IIndex;
+import com.bigdata.btree.IndexMetadata;
+import com.bigdata.journal.AbstractJournal;
+import com.bigdata.journal.IIndexManager;
+
+/**
+ * Bulk builds the statement indices of an empty {@link SPORelation} on a
+ * {@link AbstractJournal}. Statements are encoded for each statement index,
+ * sorted in bounded runs which are spilled onto temporary files, and finally
+ * merged and written bottom-up using a {@link BTreeBulkBuilder}. The empty
+ * statement indices are then replaced by the generated indices. The caller is
+ * responsible for the commit.
+ * <p>
+ * Each leaf is written exactly once, so the cost of an initial import is
+ * dominated by the sort rather than by copy-on-write of the leaves of the
+ * statement indices.
+ * <p>
+ * Note: The statement indices MUST be empty and the statements MUST NOT be
+ * read back until {@link #build()} returns. Statements are de-duplicated on
+ * their key and the first value seen for a key is retained, so this class is
+ * only suitable for loading explicit statements.
+ * <p>
+ * Note: This class is NOT thread-safe.
+ */
+public class SPOBulkIndexBuilder {
+
+    private static final Logger log = Logger
+            .getLogger(SPOBulkIndexBuilder.class);
+
+    /**
+     * Orders the records by their keys.
+     */
+    private static final Comparator<byte[][]> KEY_COMPARATOR = new Comparator<byte[][]>() {
+
+        @Override
+        public int compare(final byte[][] o1, final byte[][] o2) {
+
+            return BytesUtil.compareBytes(o1[0], o2[0]);
+
+        }
+
+    };
+
+    private final SPORelation spoRelation;
+
+    private final AbstractJournal journal;
+
+    /**
+     * The maximum #of statements buffered in memory for each statement index
+     * before a sorted run is spilled onto a temporary file.
+     */
+    private final int runCapacity;
+
+    /**
+     * The directory for the temporary files.
+     */
+    private final File tmpDir;
+
+    /**
+     * The statement index orders.
+     */
+    private final SPOKeyOrder[] keyOrders;
+
+    /**
+     * The tuple serializer for each statement index.
+     */
+    private final SPOTupleSerializer[] tupleSers;
+
+    /**
+     * The buffered records (key,val) for each statement index.
+     */
+    private final List<byte[][]>[] buffers;
+
+    /**
+     * The sorted runs for each statement index.
+     */
+    private final List<File>[] runs;
+
+    /**
+     * @param spoRelation
+     *            The relation whose statement indices will be built.
+     * @param runCapacity
+     *            The maximum #of statements buffered in memory for each
+     *            statement index before a sorted run is written onto a
+     *            temporary file.
+     * @param tmpDir
+     *            The directory for the temporary files (optional).
+     * 
+     * @throws UnsupportedOperationException
+     *             unless the relation is backed by an {@link AbstractJournal}.
+     * @throws IllegalStateException
+     *             unless the statement indices are empty.
+     */
+    @SuppressWarnings("unchecked")
+    public SPOBulkIndexBuilder(final SPORelation spoRelation,
+            final int runCapacity, final File tmpDir) {
+
+        if (spoRelation == null)
+            throw new IllegalArgumentException();
+
+        if (runCapacity <= 0)
+            throw new IllegalArgumentException();
+
+        final IIndexManager indexManager = spoRelation.getIndexManager();
+
+        if (!(indexManager instanceof AbstractJournal))
+            throw new UnsupportedOperationException(indexManager.getClass()
+                    .getName());
+
+        this.spoRelation = spoRelation;
+
+        this.journal = (AbstractJournal) indexManager;
+
+        this.runCapacity = runCapacity;
+
+        this.tmpDir = tmpDir;
+
+        final List<SPOKeyOrder> tmp = new LinkedList<SPOKeyOrder>();
+
+        final Iterator<SPOKeyOrder> itr = spoRelation
+                .statementKeyOrderIterator();
+
+        while (itr.hasNext()) {
+
+            tmp.add(itr.next());
+
+        }
+
+        final int n = tmp.size();
+
+        this.keyOrders = tmp.toArray(new SPOKeyOrder[n]);
+
+        this.tupleSers = new SPOTupleSerializer[n];
+
+        this.buffers = new List[n];
+
+        this.runs = new List[n];
+
+        for (int i = 0; i < n; i++) {
+
+            final IIndex ndx = spoRelation.getIndex(keyOrders[i]);
+
+            if (ndx.rangeCount() != 0L)
+                throw new IllegalStateException("Index not empty: "
+                        + keyOrders[i]);
+
+            tupleSers[i] = (SPOTupleSerializer) ndx.getIndexMetadata()
+                    .getTupleSerializer();
+
+            buffers[i] = new ArrayList<byte[][]>(runCapacity);
+
+            runs[i] = new LinkedList<File>();
+
+        }
+
+    }
+
+    /**
+     * Buffer statements for the bulk build.
+     * 
+     * @param a
+     *            The statements.
+     * @param n
+     *            The #of statements in <i>a</i>.
+     */
+    public void add(final ISPO[] a, final int n) throws IOException {
+
+        for (int i = 0; i < keyOrders.length; i++) {
+
+            final SPOTupleSerializer tupleSer = tupleSers[i];
+
+            final List<byte[][]> buffer = buffers[i];
+
+            for (int j = 0; j < n; j++) {
+
+                buffer.add(new byte[][] { tupleSer.serializeKey(a[j]),
+                        tupleSer.serializeVal(a[j]) });
+
+                if (buffer.size() == runCapacity) {
+
+                    runs[i].add(spill(buffer));
+
+                }
+
+            }
+
+        }
+
+    }
+
+    /**
+     * Sort the buffer, write it onto a temporary file, and clear the buffer.
+     * 
+     * @return The temporary file.
+     */
+    private File spill(final List<byte[][]> buffer) throws IOException {
+
+        Collections.sort(buffer, KEY_COMPARATOR);
+
+        final File file = File.createTempFile("spo", ".run", tmpDir);
+
+        final DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(file)));
+
+        try {
+
+            for (byte[][] r : buffer) {
+
+                writeRecord(out, r);
+
+            }
+
+        } finally {
+
+            out.close();
+
+        }
+
+        if (log.isInfoEnabled())
+            log.info("Wrote run: n=" + buffer.size() + ", file=" + file);
+
+        buffer.clear();
+
+        return file;
+
+    }
+
+    private static void writeRecord(final DataOutputStream out,
+            final byte[][] r) throws IOException {
+
+        out.writeInt(r[0].length);
+
+        out.write(r[0]);
+
+        if (r[1] == null) {
+
+            out.writeInt(-1);
+
+        } else {
+
+            out.writeInt(r[1].length);
+
+            out.write(r[1]);
+
+        }
+
+    }
+
+    /**
+     * Build each statement index bottom-up from the buffered statements and
+     * replace the empty statement index on the journal with the generated
+     * index.
+     * 
+     * @return The #of distinct statements written on each statement index.
+     */
+    public long build() throws IOException {
+
+        long nstmts = 0L;
+
+        try {
+
+            for (int i = 0; i < keyOrders.length; i++) {
+
+                nstmts = build(i);
+
+            }
+
+        } finally {
+
+            spoRelation.clearIndexCache();
+
+            abort();
+
+        }
+
+        return nstmts;
+
+    }
+
+    private long build(final int i) throws IOException {
+
+        final long begin = System.currentTimeMillis();
+
+        final List<byte[][]> buffer = buffers[i];
+
+        Collections.sort(buffer, KEY_COMPARATOR);
+
+        // Pass 1 : count the distinct keys.
+        long ndistinct = 0L;
+        {
+            final MergeIterator itr = new MergeIterator(buffer, runs[i]);
+
+            try {
+
+                while (itr.next() != null) {
+
+                    ndistinct++;
+
+                }
+
+            } finally {
+
+                itr.close();
+
+            }
+
+        }
+
+        final IIndex oldIndex = spoRelation.getIndex(keyOrders[i]);
+
+        final IndexMetadata metadata = oldIndex.getIndexMetadata().clone();
+
+        final BTreeBulkBuilder builder = new BTreeBulkBuilder(journal,
+                metadata, ndistinct);
+
+        // Pass 2 : write the tuples.
+        {
+            final MergeIterator itr = new MergeIterator(buffer, runs[i]);
+
+            try {
+
+                byte[][] r;
+
+                while ((r = itr.next()) != null) {
+
+                    builder.add(r[0], r[1]);
+
+                }
+
+            } finally {
+
+                itr.close();
+
+            }
+
+        }
+
+        final BTree btree = builder.build();
+
+        final String name = spoRelation.getFQN(keyOrders[i]);
+
+        journal.dropIndex(name);
+
+        journal.registerIndex(name, btree);
+
+        if (log.isInfoEnabled())
+            log.info("Built " + name + ": nstmts=" + ndistinct + ", elapsed="
+                    + (System.currentTimeMillis() - begin) + "ms");
+
+        return ndistinct;
+
+    }
+
+    /**
+     * Discard the buffered statements and delete any temporary files.
+     */
+    public void abort() {
+
+        for (int i = 0; i < keyOrders.length; i++) {
+
+            buffers[i].clear();
+
+            for (File file : runs[i]) {
+
+                if (!file.delete())
+                    log.warn("Could not delete: " + file);
+
+            }
+
+            runs[i].clear();
+
+        }
+
+    }
+
+    /**
+     * A source of records in key order.
+     */
+    private static abstract class Cursor {
+
+        /** The current record. */
+        byte[][] current;
+
+        /**
+         * Advance to the next record.
+         * 
+         * @return <code>false</code> iff the cursor is exhausted.
+         */
+        abstract boolean advance() throws IOException;
+
+        void close() throws IOException {
+        }
+
+    }
+
+    private static class ListCursor extends Cursor {
+
+        private final Iterator<byte[][]> itr;
+
+        ListCursor(final List<byte[][]> list) {
+
+            this.itr = list.iterator();
+
+        }
+
+        @Override
+        boolean advance() {
+
+            current = itr.hasNext() ? itr.next() : null;
+
+            return current != null;
+
+        }
+
+    }
+
+    private static class FileCursor extends Cursor {
+
+        private final DataInputStream in;
+
+        FileCursor(final File file) throws IOException {
+
+            this.in = new DataInputStream(new BufferedInputStream(
+                    new FileInputStream(file)));
+
+        }
+
+        @Override
+        boolean advance() throws IOException {
+
+            final int klen;
+            try {
+                klen = in.readInt();
+            } catch (EOFException ex) {
+                current = null;
+                return false;
+            }
+
+            final byte[] key = new byte[klen];
+
+            in.readFully(key);
+
+            final int vlen = in.readInt();
+
+            final byte[] val;
+
+            if (vlen == -1) {
+
+                val = null;
+
+            } else {
+
+                val = new byte[vlen];
+
+                in.readFully(val);
+
+            }
+
+            current = new byte[][] { key, val };
+
+            return true;
+
+        }
+
+        @Override
+        void close() throws IOException {
+
+            in.close();
+
+        }
+
+    }
+
+    /**
+     * An n-way merge of the sorted in-memory buffer and the sorted runs which
+     * drops duplicate keys.
+     */
+    private static class MergeIterator {
+
+        private final List<Cursor> cursors = new LinkedList<Cursor>();
+
+        private final PriorityQueue<Cursor> queue;
+
+        private byte[] lastKey = null;
+
+        MergeIterator(final List<byte[][]> buffer, final List<File> runs)
+                throws IOException {
+
+            queue = new PriorityQueue<Cursor>(runs.size() + 1,
+                    new Comparator<Cursor>() {
+                        @Override
+                        public int compare(final Cursor o1, final Cursor o2) {
+                            return KEY_COMPARATOR.compare(o1.current,
+                                    o2.current);
+                        }
+                    });
+
+            cursors.add(new ListCursor(buffer));
+
+            for (File file : runs) {
+
+                cursors.add(new FileCursor(file));
+
+            }
+
+            for (Cursor c : cursors) {
+
+                if (c.advance())
+                    queue.add(c);
+
+            }
+
+        }
+
+        /**
+         * Return the next record having a distinct key.
+         * 
+         * @return The record -or- <code>null</code> if the merge is exhausted.
+         */
+        byte[][] next() throws IOException {
+
+            while (!queue.isEmpty()) {
+
+                final Cursor c = queue.poll();
+
+                final byte[][] r = c.current;
+
+                if (c.advance())
+                    queue.add(c);
+
+                if (lastKey != null && BytesUtil.bytesEqual(lastKey, r[0])) {
+
+                    // duplicate key.
+                    continue;
+
+                }
+
+                lastKey = r[0];
+
+                return r;
+
+            }
+
+            return null;
+
+        }
+
+        void close() throws IOException {
+
+            for (Cursor c : cursors) {
+
+                c.close();
+
+            }
+
+        }
+
+    }
+
+}
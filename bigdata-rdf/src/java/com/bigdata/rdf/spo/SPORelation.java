@@ -45,6 +45,7 @@ import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.log4j.Logger;
+import org.openrdf.model.impl.URIImpl;
 
 import com.bigdata.bop.BOp;
 import com.bigdata.bop.Constant;
@@ -170,6 +171,30 @@ public class SPORelation extends AbstractRelation<ISPO> {
     public static final String NAME_SPO_RELATION = "spo";
     
     private static final transient String NAME_JUST = "JUST";
+
+    /**
+     * The local names of the optional indices maintained by the
+     * {@link TransitiveClosureIndex}.
+     * 
+     * @see AbstractTripleStore.Options#TRANSITIVE_CLOSURE_PREDICATES
+     */
+    static final transient String NAME_TC_FORWARD = "TC.PSO";
+
+    static final transient String NAME_TC_REVERSE = "TC.POS";
+
+    static final transient String NAME_TC_EDGES = "TC.EDGES";
+
+    static final transient String NAME_TC_DELTA = "TC.DELTA";
+
+    /**
+     * The local names of the optional indices maintained by the
+     * {@link CharacteristicSetIndex}.
+     * 
+     * @see AbstractTripleStore.Options#CHARACTERISTIC_SETS
+     */
+    static final transient String NAME_CS_PREDICATES = "CS.PREDICATES";
+
+    static final transient String NAME_CS_SETS = "CS.SETS";
     
     /**
      * This is used to conditionally enable the logic to retract justifications
@@ -195,6 +220,35 @@ public class SPORelation extends AbstractRelation<ISPO> {
      */
     final private boolean historyService;
 
+    /**
+     * The predicates for which a transitive closure index is maintained (may
+     * be empty but never <code>null</code>).
+     * 
+     * @see AbstractTripleStore.Options#TRANSITIVE_CLOSURE_PREDICATES
+     */
+    final private String[] transitiveClosurePredicates;
+
+    /**
+     * The {@link IV}s for the {@link #transitiveClosurePredicates} (lazily
+     * resolved against the lexicon and then cached).
+     */
+    private volatile IV<?, ?>[] transitiveClosurePredicateIVs;
+
+    /**
+     * <code>true</code> iff the join cardinality statistics are maintained.
+     * 
+     * @see AbstractTripleStore.Options#CHARACTERISTIC_SETS
+     */
+    final private boolean characteristicSets;
+
+    /**
+     * The fraction of the #of statements by which the data may drift before
+     * the join cardinality statistics are rebuilt.
+     * 
+     * @see AbstractTripleStore.Options#CHARACTERISTIC_SETS_REFRESH_THRESHOLD
+     */
+    final private double characteristicSetsRefreshThreshold;
+
     /**
      * When <code>true</code> the database will support statement identifiers.
      * A statement identifier is a unique 64-bit integer taken from the same
@@ -264,10 +318,53 @@ public class SPORelation extends AbstractRelation<ISPO> {
                 AbstractTripleStore.Options.HISTORY_SERVICE,
                 AbstractTripleStore.Options.DEFAULT_HISTORY_SERVICE));
 
+        {
+
+            final String s = getProperty(
+                    AbstractTripleStore.Options.TRANSITIVE_CLOSURE_PREDICATES,
+                    AbstractTripleStore.Options.DEFAULT_TRANSITIVE_CLOSURE_PREDICATES)
+                    .trim();
+
+            this.transitiveClosurePredicates = s.length() == 0 ? new String[0]
+                    : s.split("[,\\s]+");
+
+        }
+
+        this.characteristicSets = Boolean.parseBoolean(getProperty(
+                AbstractTripleStore.Options.CHARACTERISTIC_SETS,
+                AbstractTripleStore.Options.DEFAULT_CHARACTERISTIC_SETS));
+
+        this.characteristicSetsRefreshThreshold = Double.parseDouble(getProperty(
+                AbstractTripleStore.Options.CHARACTERISTIC_SETS_REFRESH_THRESHOLD,
+                AbstractTripleStore.Options.DEFAULT_CHARACTERISTIC_SETS_REFRESH_THRESHOLD));
+
+        if (characteristicSetsRefreshThreshold < 0d)
+            throw new IllegalArgumentException(
+                    AbstractTripleStore.Options.CHARACTERISTIC_SETS_REFRESH_THRESHOLD
+                            + "=" + characteristicSetsRefreshThreshold);
+
+        if (characteristicSets && oneAccessPath) {
+
+            throw new UnsupportedOperationException(
+                    AbstractTripleStore.Options.ONE_ACCESS_PATH
+                            + " does not support "
+                            + AbstractTripleStore.Options.CHARACTERISTIC_SETS);
+
+        }
+
         this.keyArity = Boolean.valueOf(getProperty(
                 AbstractTripleStore.Options.QUADS,
                 AbstractTripleStore.Options.DEFAULT_QUADS)) ? 4 : 3;
 
+        if (transitiveClosurePredicates.length > 0 && keyArity == 4) {
+
+            throw new UnsupportedOperationException(
+                    AbstractTripleStore.Options.QUADS
+                            + " does not support "
+                            + AbstractTripleStore.Options.TRANSITIVE_CLOSURE_PREDICATES);
+
+        }
+
         if (statementIdentifiers && keyArity == 4) {
 
             throw new UnsupportedOperationException(
@@ -354,6 +451,26 @@ public class SPORelation extends AbstractRelation<ISPO> {
 
             }
 
+            if (transitiveClosurePredicates.length > 0) {
+
+                set.add(getNamespace() + "." + NAME_TC_FORWARD);
+
+                set.add(getNamespace() + "." + NAME_TC_REVERSE);
+
+                set.add(getNamespace() + "." + NAME_TC_EDGES);
+
+                set.add(getNamespace() + "." + NAME_TC_DELTA);
+
+            }
+
+            if (characteristicSets) {
+
+                set.add(getNamespace() + "." + NAME_CS_PREDICATES);
+
+                set.add(getNamespace() + "." + NAME_CS_SETS);
+
+            }
+
             this.indexNames = Collections.unmodifiableSet(set);
 
         }
@@ -476,6 +593,32 @@ public class SPORelation extends AbstractRelation<ISPO> {
                 indexManager.registerIndex(getHistoryIndexMetadata(keyOrder));
 
             }
+
+            if (transitiveClosurePredicates.length > 0) {
+
+                indexManager.registerIndex(newIndexMetadata(getNamespace()
+                        + "." + NAME_TC_FORWARD));
+
+                indexManager.registerIndex(newIndexMetadata(getNamespace()
+                        + "." + NAME_TC_REVERSE));
+
+                indexManager.registerIndex(newIndexMetadata(getNamespace()
+                        + "." + NAME_TC_EDGES));
+
+                indexManager.registerIndex(newIndexMetadata(getNamespace()
+                        + "." + NAME_TC_DELTA));
+
+            }
+
+            if (characteristicSets) {
+
+                indexManager.registerIndex(newIndexMetadata(getNamespace()
+                        + "." + NAME_CS_PREDICATES));
+
+                indexManager.registerIndex(newIndexMetadata(getNamespace()
+                        + "." + NAME_CS_SETS));
+
+            }
             
 //            lookupIndices();
 
@@ -565,6 +708,25 @@ public class SPORelation extends AbstractRelation<ISPO> {
 
     }
 
+    /**
+     * Clear the cached hard references to the statement indices. This is used
+     * when the indices are replaced on the backing journal, e.g., by the
+     * {@link SPOBulkIndexBuilder}.
+     */
+    void clearIndexCache() {
+
+        synchronized (indices) {
+
+            for (int i = 0; i < indices.length; i++) {
+
+                indices[i] = null;
+
+            }
+
+        }
+
+    }
+
     final public SPOKeyOrder getPrimaryKeyOrder() {
         
         return keyArity == 3 ? SPOKeyOrder.SPO : SPOKeyOrder.SPOC;
@@ -615,6 +777,160 @@ public class SPORelation extends AbstractRelation<ISPO> {
 
     }
 
+    /**
+     * <code>true</code> iff a transitive closure index is maintained for one
+     * or more predicates.
+     * 
+     * @see AbstractTripleStore.Options#TRANSITIVE_CLOSURE_PREDICATES
+     */
+    public boolean isTransitiveClosure() {
+
+        return transitiveClosurePredicates.length > 0;
+
+    }
+
+    /**
+     * The URIs of the predicates for which a transitive closure index is
+     * maintained (may be empty).
+     * 
+     * @see AbstractTripleStore.Options#TRANSITIVE_CLOSURE_PREDICATES
+     */
+    public String[] getTransitiveClosurePredicates() {
+
+        return transitiveClosurePredicates.clone();
+
+    }
+
+    /**
+     * The {@link IV}s of the predicates for which a transitive closure index
+     * is maintained. The predicates are declared in the lexicon when the
+     * database is created, so they are resolved once and then cached.
+     * Predicates which can not be resolved are skipped (and are retried on the
+     * next call).
+     * 
+     * @return The {@link IV}s (may be empty but never <code>null</code>).
+     *         This is always empty if there is no lexicon.
+     * 
+     * @see AbstractTripleStore.Options#TRANSITIVE_CLOSURE_PREDICATES
+     */
+    public IV<?, ?>[] getTransitiveClosurePredicateIVs() {
+
+        IV<?, ?>[] ivs = transitiveClosurePredicateIVs;
+
+        if (ivs != null)
+            return ivs;
+
+        final AbstractTripleStore db = getContainer();
+
+        if (db.getLexiconRelation() == null)
+            return new IV<?, ?>[0];
+
+        final List<IV<?, ?>> tmp = new ArrayList<IV<?, ?>>(
+                transitiveClosurePredicates.length);
+
+        for (String uri : transitiveClosurePredicates) {
+
+            final IV<?, ?> iv = db.getIV(new URIImpl(uri));
+
+            if (iv != null)
+                tmp.add(iv);
+
+        }
+
+        ivs = tmp.toArray(new IV<?, ?>[tmp.size()]);
+
+        if (ivs.length == transitiveClosurePredicates.length) {
+
+            // Cache iff all predicates were resolved.
+            transitiveClosurePredicateIVs = ivs;
+
+        }
+
+        return ivs;
+
+    }
+
+    /**
+     * Return a view of the transitive closure index as of the timestamp of
+     * this relation.
+     * 
+     * @throws IllegalStateException
+     *             unless {@link #isTransitiveClosure()}.
+     */
+    public TransitiveClosureIndex getTransitiveClosureIndex() {
+
+        if (!isTransitiveClosure())
+            throw new IllegalStateException();
+
+        final IIndex forward = super.getIndex(getNamespace() + "."
+                + NAME_TC_FORWARD);
+
+        final IIndex reverse = super.getIndex(getNamespace() + "."
+                + NAME_TC_REVERSE);
+
+        final IIndex edges = super.getIndex(getNamespace() + "."
+                + NAME_TC_EDGES);
+
+        final IIndex delta = super.getIndex(getNamespace() + "."
+                + NAME_TC_DELTA);
+
+        if (forward == null || reverse == null || edges == null
+                || delta == null)
+            throw new IllegalStateException();
+
+        return new TransitiveClosureIndex(this, forward, reverse, edges,
+                delta);
+
+    }
+
+    /**
+     * <code>true</code> iff the join cardinality statistics are maintained.
+     * 
+     * @see AbstractTripleStore.Options#CHARACTERISTIC_SETS
+     */
+    public boolean isCharacteristicSets() {
+
+        return characteristicSets;
+
+    }
+
+    /**
+     * The fraction of the #of statements by which the data may drift before
+     * the join cardinality statistics are rebuilt.
+     * 
+     * @see AbstractTripleStore.Options#CHARACTERISTIC_SETS_REFRESH_THRESHOLD
+     */
+    public double getCharacteristicSetsRefreshThreshold() {
+
+        return characteristicSetsRefreshThreshold;
+
+    }
+
+    /**
+     * Return a view of the join cardinality statistics as of the timestamp of
+     * this relation.
+     * 
+     * @throws IllegalStateException
+     *             unless {@link #isCharacteristicSets()}.
+     */
+    public CharacteristicSetIndex getCharacteristicSetIndex() {
+
+        if (!isCharacteristicSets())
+            throw new IllegalStateException();
+
+        final IIndex predicates = super.getIndex(getNamespace() + "."
+                + NAME_CS_PREDICATES);
+
+        final IIndex sets = super.getIndex(getNamespace() + "."
+                + NAME_CS_SETS);
+
+        if (predicates == null || sets == null)
+            throw new IllegalStateException();
+
+        return new CharacteristicSetIndex(this, predicates, sets);
+
+    }
+
     /**
      * Return an iterator that will visit the distinct (s,p,o) tuples in the
      * source iterator. The context and statement type information will be
@@ -2259,10 +2575,39 @@ public class SPORelation extends AbstractRelation<ISPO> {
 
         }
 
+        if (mutationCount.get() > 0 && isTransitiveClosure()) {
+
+            // Note the edges whose closure must be brought up to date.
+            addTransitiveClosureChanges(a, numStmts);
+
+        }
+
         return mutationCount.get();
         
     }
 
+    /**
+     * Record the statements which were inserted into (or removed from) the
+     * statement indices and which use a predicate for which the transitive
+     * closure is maintained. The closure is brought up to date for those edges
+     * when the database commits.
+     * 
+     * @see TransitiveClosureIndex#update()
+     */
+    private void addTransitiveClosureChanges(final ISPO[] a, final int numStmts) {
+
+        if (getTimestamp() != ITx.UNISOLATED)
+            return;
+
+        final IV<?, ?>[] ivs = getTransitiveClosurePredicateIVs();
+
+        if (ivs.length == 0)
+            return;
+
+        getTransitiveClosureIndex().addChanges(a, numStmts, ivs);
+
+    }
+
     private <T> T logFuture(final Future<T> f) throws ExecutionException,
             InterruptedException {
         try {
@@ -2460,6 +2805,13 @@ public class SPORelation extends AbstractRelation<ISPO> {
 
         }
 
+        if (mutationCount.get() > 0 && isTransitiveClosure()) {
+
+            // Note the edges whose closure must be brought up to date.
+            addTransitiveClosureChanges(stmts, numStmts);
+
+        }
+
         return mutationCount.get();
         
     }
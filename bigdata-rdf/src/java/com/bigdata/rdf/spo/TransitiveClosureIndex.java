@@ -0,0 +1,636 @@
+/**
+
+Copyright (C) SYSTAP, LLC 2006-2015.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@systap.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+/*
+ * Created on Oct 17, 2026
+ */
+package com.bigdata.rdf.spo;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.log4j.Logger;
+
+import com.bigdata.btree.IIndex;
+import com.bigdata.btree.IRangeQuery;
+import com.bigdata.btree.ITuple;
+import com.bigdata.btree.ITupleIterator;
+import com.bigdata.btree.keys.IKeyBuilder;
+import com.bigdata.btree.keys.KeyBuilder;
+import com.bigdata.btree.keys.SuccessorUtil;
+import com.bigdata.rawstore.Bytes;
+import com.bigdata.rdf.internal.IV;
+import com.bigdata.rdf.internal.IVUtility;
+import com.bigdata.rdf.store.AbstractTripleStore;
+
+import cutthecrap.utils.striterators.ICloseableIterator;
+import cutthecrap.utils.striterators.IStriterator;
+import cutthecrap.utils.striterators.Resolver;
+import cutthecrap.utils.striterators.Striterator;
+
+/**
+ * A persistent index of the transitive closure of the statements for a set of
+ * designated predicates. For each such predicate <code>p</code>, the index
+ * records every pair <code>(s,o)</code> such that <code>s p+ o</code> holds in
+ * the statement indices. This allows <code>p*</code> and <code>p+</code>
+ * property paths to be answered with a key range scan rather than by running
+ * the path to a fixed point.
+ * <p>
+ * Four indices are used, all keyed by the encoded {@link IV}s and without
+ * values:
+ * <dl>
+ * <dt>{@value SPORelation#NAME_TC_FORWARD}</dt>
+ * <dd><code>[p][s][o]</code> for each <code>s p+ o</code>.</dd>
+ * <dt>{@value SPORelation#NAME_TC_REVERSE}</dt>
+ * <dd><code>[p][o][s]</code> for each <code>s p+ o</code>.</dd>
+ * <dt>{@value SPORelation#NAME_TC_EDGES}</dt>
+ * <dd><code>[p][s][o]</code> for each statement <code>(s p o)</code> as of the
+ * last time the closure was brought up to date.</dd>
+ * <dt>{@value SPORelation#NAME_TC_DELTA}</dt>
+ * <dd><code>[p][s][o]</code> for each statement which was inserted into or
+ * removed from the statement indices since the last time the closure was
+ * brought up to date.</dd>
+ * </dl>
+ * The {@link SPORelation} notes the changed statements in the delta index as
+ * they are written. Since the delta index is written in the same unisolated
+ * view as the statement indices, the changes are discarded if the write set is
+ * aborted. The closure is brought up to date by {@link #update()}, which is
+ * invoked by {@link AbstractTripleStore#commit()} before the commit point is
+ * melded. Only the edges in the delta are examined:
+ * <ul>
+ * <li>For each removed edge <code>(a,b)</code>, only the paths starting at
+ * <code>a</code> or at a node which reaches <code>a</code> can be affected.
+ * The closure of those nodes is dropped and recomputed from the edges. The
+ * search stops at any node which is not affected and reuses its closure.</li>
+ * <li>For each added edge <code>(a,b)</code>, every node which reaches
+ * <code>a</code> (and <code>a</code> itself) is connected to every node
+ * reachable from <code>b</code> (and <code>b</code> itself).</li>
+ * </ul>
+ * <p>
+ * Note: This is intended for predicates which describe hierarchies (
+ * <code>rdfs:subClassOf</code>, <code>skos:broader</code>, etc.) rather than
+ * for arbitrary graphs whose closure can be quadratic in the #of edges.
+ *
+ * @see AbstractTripleStore.Options#TRANSITIVE_CLOSURE_PREDICATES
+ */
+public class TransitiveClosureIndex {
+
+    private static final transient Logger log = Logger
+            .getLogger(TransitiveClosureIndex.class);
+
+    private final SPORelation relation;
+
+    private final IIndex forward;
+
+    private final IIndex reverse;
+
+    private final IIndex edges;
+
+    private final IIndex delta;
+
+    /**
+     * Used to form the keys for the indices.
+     */
+    private final IKeyBuilder keyBuilder;
+
+    /**
+     *
+     * @param relation
+     *            The {@link SPORelation}.
+     * @param forward
+     *            The {@value SPORelation#NAME_TC_FORWARD} index.
+     * @param reverse
+     *            The {@value SPORelation#NAME_TC_REVERSE} index.
+     * @param edges
+     *            The {@value SPORelation#NAME_TC_EDGES} index.
+     * @param delta
+     *            The {@value SPORelation#NAME_TC_DELTA} index.
+     */
+    TransitiveClosureIndex(final SPORelation relation, final IIndex forward,
+            final IIndex reverse, final IIndex edges, final IIndex delta) {
+
+        if (relation == null)
+            throw new IllegalArgumentException();
+
+        if (forward == null)
+            throw new IllegalArgumentException();
+
+        if (reverse == null)
+            throw new IllegalArgumentException();
+
+        if (edges == null)
+            throw new IllegalArgumentException();
+
+        if (delta == null)
+            throw new IllegalArgumentException();
+
+        this.relation = relation;
+
+        this.forward = forward;
+
+        this.reverse = reverse;
+
+        this.edges = edges;
+
+        this.delta = delta;
+
+        this.keyBuilder = KeyBuilder.newInstance(3 * Bytes.SIZEOF_LONG);
+
+    }
+
+    /**
+     * Return <code>true</code> iff the transitive closure is maintained for
+     * the given predicate.
+     *
+     * @param p
+     *            The predicate.
+     */
+    public boolean isTransitiveClosurePredicate(final IV<?, ?> p) {
+
+        if (p == null || p.isNullIV())
+            return false;
+
+        for (IV<?, ?> iv : relation.getTransitiveClosurePredicateIVs()) {
+
+            if (p.equals(iv))
+                return true;
+
+        }
+
+        return false;
+
+    }
+
+    /*
+     * Read.
+     */
+
+    /**
+     * Return <code>true</code> iff <code>s p+ o</code>.
+     */
+    public boolean contains(final IV<?, ?> p, final IV<?, ?> s,
+            final IV<?, ?> o) {
+
+        return forward.contains(key(p, s, o));
+
+    }
+
+    /**
+     * Visit each <code>o</code> such that <code>s p+ o</code>.
+     */
+    public ICloseableIterator<IV<?, ?>> getReachableFrom(final IV<?, ?> p,
+            final IV<?, ?> s) {
+
+        return scan(forward, key(p, s, null/* o */), 2/* index */);
+
+    }
+
+    /**
+     * Visit each <code>s</code> such that <code>s p+ o</code>.
+     */
+    public ICloseableIterator<IV<?, ?>> getReachableTo(final IV<?, ?> p,
+            final IV<?, ?> o) {
+
+        return scan(reverse, key(p, o, null/* s */), 2/* index */);
+
+    }
+
+    /**
+     * Visit each <code>[s,o]</code> such that <code>s p+ o</code>.
+     */
+    @SuppressWarnings("unchecked")
+    public ICloseableIterator<IV<?, ?>[]> getReachable(final IV<?, ?> p) {
+
+        final IStriterator itr = new Striterator(forward.rangeIterator(
+                key(p, null, null), successor(key(p, null, null))))
+                .addFilter(new Resolver() {
+
+                    private static final long serialVersionUID = 1L;
+
+                    @Override
+                    protected Object resolve(final Object obj) {
+
+                        final IV<?, ?>[] ivs = IVUtility
+                                .decodeAll(((ITuple<?>) obj).getKey());
+
+                        return new IV<?, ?>[] { ivs[1], ivs[2] };
+
+                    }
+
+                });
+
+        return (ICloseableIterator<IV<?, ?>[]>) itr;
+
+    }
+
+    /**
+     * Return the distinct nodes which are the subject or the object of a
+     * statement using the predicate. These are the nodes which a zero length
+     * path connects to themselves when both ends of the path are unbound.
+     * <p>
+     * Note: The nodes are collected on the JVM heap.
+     */
+    public Set<IV<?, ?>> getNodes(final IV<?, ?> p) {
+
+        final Set<IV<?, ?>> nodes = new LinkedHashSet<IV<?, ?>>();
+
+        final ITupleIterator<?> itr = edges.rangeIterator(key(p, null, null),
+                successor(key(p, null, null)));
+
+        while (itr.hasNext()) {
+
+            final IV<?, ?>[] ivs = IVUtility.decodeAll(itr.next().getKey());
+
+            nodes.add(ivs[1]);
+
+            nodes.add(ivs[2]);
+
+        }
+
+        return nodes;
+
+    }
+
+    /*
+     * Maintenance.
+     */
+
+    /**
+     * Note the statements which were inserted into (or removed from) the
+     * statement indices and which use one of the given predicates. This must
+     * be invoked against the unisolated view of the relation.
+     * 
+     * @param a
+     *            The statements. Only those whose {@link ISPO#isModified()}
+     *            flag is set are noted.
+     * @param numStmts
+     *            The #of elements of that array to examine.
+     * @param ivs
+     *            The predicates for which the closure is maintained.
+     */
+    void addChanges(final ISPO[] a, final int numStmts, final IV<?, ?>[] ivs) {
+
+        for (int i = 0; i < numStmts; i++) {
+
+            final ISPO spo = a[i];
+
+            if (!spo.isModified())
+                continue;
+
+            for (IV<?, ?> p : ivs) {
+
+                if (p.equals(spo.p())) {
+
+                    delta.insert(key(p, spo.s(), spo.o()), null/* val */);
+
+                    break;
+
+                }
+
+            }
+
+        }
+
+    }
+
+    /**
+     * Bring the closure up to date for the edges which were noted since the
+     * last update and clear the delta. This must be invoked against the
+     * unisolated view of the relation.
+     */
+    public void update() {
+
+        // The changed edges for each predicate.
+        final Map<IV<?, ?>, List<IV<?, ?>[]>> changed = new LinkedHashMap<IV<?, ?>, List<IV<?, ?>[]>>();
+
+        final ITupleIterator<?> itr = delta.rangeIterator(null/* fromKey */,
+                null/* toKey */, 0/* capacity */, IRangeQuery.KEYS
+                        | IRangeQuery.REMOVEALL, null/* filter */);
+
+        while (itr.hasNext()) {
+
+            final IV<?, ?>[] ivs = IVUtility.decodeAll(itr.next().getKey());
+
+            List<IV<?, ?>[]> tmp = changed.get(ivs[0]);
+
+            if (tmp == null) {
+
+                changed.put(ivs[0], tmp = new LinkedList<IV<?, ?>[]>());
+
+            }
+
+            tmp.add(new IV<?, ?>[] { ivs[1], ivs[2] });
+
+        }
+
+        for (Map.Entry<IV<?, ?>, List<IV<?, ?>[]>> e : changed.entrySet()) {
+
+            update(e.getKey(), e.getValue());
+
+        }
+
+    }
+
+    /**
+     * Bring the closure for one predicate up to date. Each changed edge is
+     * classified by comparing the statement indices against the snapshot of
+     * the edges, so an edge which was removed and then added again (or the
+     * reverse) within the same commit is not a change.
+     */
+    private void update(final IV<?, ?> p, final List<IV<?, ?>[]> changed) {
+
+        final long begin = System.currentTimeMillis();
+
+        final List<IV<?, ?>[]> added = new LinkedList<IV<?, ?>[]>();
+
+        final List<IV<?, ?>[]> removed = new LinkedList<IV<?, ?>[]>();
+
+        for (IV<?, ?>[] e : changed) {
+
+            final boolean exists = !relation.getAccessPath(e[0], p, e[1])
+                    .isEmpty();
+
+            final boolean known = edges.contains(key(p, e[0], e[1]));
+
+            if (exists && !known) {
+
+                added.add(e);
+
+            } else if (!exists && known) {
+
+                removed.add(e);
+
+            }
+
+        }
+
+        if (!removed.isEmpty()) {
+
+            removeEdges(p, removed);
+
+        }
+
+        for (IV<?, ?>[] e : added) {
+
+            addEdge(p, e[0], e[1]);
+
+        }
+
+        if (log.isInfoEnabled())
+            log.info("p=" + p + ", added=" + added.size() + ", removed="
+                    + removed.size() + ", elapsed="
+                    + (System.currentTimeMillis() - begin) + "ms");
+
+    }
+
+    /**
+     * Incrementally extend the closure with the edge <code>(a,b)</code>.
+     */
+    private void addEdge(final IV<?, ?> p, final IV<?, ?> a, final IV<?, ?> b) {
+
+        if (!forward.contains(key(p, a, b))) {
+
+            final List<IV<?, ?>> ancestors = new LinkedList<IV<?, ?>>();
+
+            ancestors.add(a);
+
+            collect(getReachableTo(p, a), ancestors);
+
+            final List<IV<?, ?>> descendants = new LinkedList<IV<?, ?>>();
+
+            descendants.add(b);
+
+            collect(getReachableFrom(p, b), descendants);
+
+            for (IV<?, ?> x : ancestors) {
+
+                for (IV<?, ?> y : descendants) {
+
+                    insertPath(p, x, y);
+
+                }
+
+            }
+
+        }
+
+        edges.insert(key(p, a, b), null/* val */);
+
+    }
+
+    /**
+     * Incrementally retract the edges from the closure. A path can only have
+     * used a removed edge <code>(a,b)</code> if it starts at <code>a</code> or
+     * at a node which reaches <code>a</code>. The closure of each such
+     * (affected) node is dropped and recomputed by a breadth first search over
+     * the remaining edges. When the search reaches a node which is not
+     * affected, the closure of that node is still valid and is used instead of
+     * expanding that node.
+     */
+    private void removeEdges(final IV<?, ?> p, final List<IV<?, ?>[]> removed) {
+
+        // The affected nodes (using the closure before the edges are removed).
+        final Set<IV<?, ?>> affected = new LinkedHashSet<IV<?, ?>>();
+
+        for (IV<?, ?>[] e : removed) {
+
+            if (affected.add(e[0])) {
+
+                collect(getReachableTo(p, e[0]), affected);
+
+            }
+
+            edges.remove(key(p, e[0], e[1]));
+
+        }
+
+        // Drop the closure of the affected nodes.
+        for (IV<?, ?> x : affected) {
+
+            final List<IV<?, ?>> tmp = new LinkedList<IV<?, ?>>();
+
+            collect(getReachableFrom(p, x), tmp);
+
+            for (IV<?, ?> y : tmp) {
+
+                forward.remove(key(p, x, y));
+
+                reverse.remove(key(p, y, x));
+
+            }
+
+        }
+
+        // Recompute the closure of the affected nodes.
+        for (IV<?, ?> x : affected) {
+
+            final Set<IV<?, ?>> visited = new LinkedHashSet<IV<?, ?>>();
+
+            final LinkedList<IV<?, ?>> frontier = new LinkedList<IV<?, ?>>();
+
+            frontier.add(x);
+
+            while (!frontier.isEmpty()) {
+
+                final List<IV<?, ?>> next = new LinkedList<IV<?, ?>>();
+
+                collect(scan(edges, key(p, frontier.removeFirst(), null/* o */),
+                        2/* index */), next);
+
+                for (IV<?, ?> o : next) {
+
+                    if (!visited.add(o))
+                        continue;
+
+                    insertPath(p, x, o);
+
+                    if (affected.contains(o)) {
+
+                        frontier.add(o);
+
+                        continue;
+
+                    }
+
+                    // Not affected : reuse the closure of that node.
+                    final List<IV<?, ?>> reachable = new LinkedList<IV<?, ?>>();
+
+                    collect(getReachableFrom(p, o), reachable);
+
+                    for (IV<?, ?> y : reachable) {
+
+                        if (visited.add(y)) {
+
+                            insertPath(p, x, y);
+
+                        }
+
+                    }
+
+                }
+
+            }
+
+        }
+
+    }
+
+    private void insertPath(final IV<?, ?> p, final IV<?, ?> s,
+            final IV<?, ?> o) {
+
+        forward.insert(key(p, s, o), null/* val */);
+
+        reverse.insert(key(p, o, s), null/* val */);
+
+    }
+
+    /*
+     * Keys.
+     */
+
+    /**
+     * Form a key (or a key prefix when the trailing components are
+     * <code>null</code>).
+     */
+    private byte[] key(final IV<?, ?> p, final IV<?, ?> x, final IV<?, ?> y) {
+
+        keyBuilder.reset();
+
+        IVUtility.encode(keyBuilder, p);
+
+        if (x != null) {
+
+            IVUtility.encode(keyBuilder, x);
+
+            if (y != null) {
+
+                IVUtility.encode(keyBuilder, y);
+
+            }
+
+        }
+
+        return keyBuilder.getKey();
+
+    }
+
+    /**
+     * The exclusive upper bound for a key prefix.
+     */
+    private static byte[] successor(final byte[] prefix) {
+
+        return SuccessorUtil.successor(prefix.clone());
+
+    }
+
+    /**
+     * Visit the {@link IV} at the given index in each key spanned by the
+     * prefix.
+     */
+    @SuppressWarnings("unchecked")
+    private static ICloseableIterator<IV<?, ?>> scan(final IIndex ndx,
+            final byte[] prefix, final int index) {
+
+        final IStriterator itr = new Striterator(ndx.rangeIterator(prefix,
+                successor(prefix))).addFilter(new Resolver() {
+
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected Object resolve(final Object obj) {
+
+                return IVUtility.decodeAll(((ITuple<?>) obj).getKey())[index];
+
+            }
+
+        });
+
+        return (ICloseableIterator<IV<?, ?>>) itr;
+
+    }
+
+    private static void collect(final ICloseableIterator<IV<?, ?>> itr,
+            final Collection<IV<?, ?>> c) {
+
+        try {
+
+            while (itr.hasNext()) {
+
+                c.add(itr.next());
+
+            }
+
+        } finally {
+
+            itr.close();
+
+        }
+
+    }
+
+}
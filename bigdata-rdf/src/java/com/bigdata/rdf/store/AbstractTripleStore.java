@@ -79,6 +79,7 @@ import com.bigdata.btree.keys.SuccessorUtil;
 import com.bigdata.journal.IConcurrencyManager;
 import com.bigdata.journal.IIndexManager;
 import com.bigdata.journal.IResourceLock;
+import com.bigdata.journal.Journal;
 import com.bigdata.journal.ITx;
 import com.bigdata.journal.TimestampUtility;
 import com.bigdata.rdf.ServiceProviderHook;
@@ -109,6 +110,7 @@ import com.bigdata.rdf.lexicon.ITextIndexer;
 import com.bigdata.rdf.lexicon.IValueCentricTextIndexer;
 import com.bigdata.rdf.lexicon.LexiconKeyOrder;
 import com.bigdata.rdf.lexicon.LexiconRelation;
+import com.bigdata.rdf.lexicon.OffHeapTermCache;
 import com.bigdata.rdf.lexicon.TermIdEncoder;
 import com.bigdata.rdf.model.BigdataResource;
 import com.bigdata.rdf.model.BigdataStatement;
@@ -128,6 +130,7 @@ import com.bigdata.rdf.rules.RuleContextEnum;
 import com.bigdata.rdf.sparql.ast.optimizers.ASTBottomUpOptimizer;
 import com.bigdata.rdf.spo.BulkCompleteConverter;
 import com.bigdata.rdf.spo.BulkFilterConverter;
+import com.bigdata.rdf.spo.CharacteristicSetIndex;
 import com.bigdata.rdf.spo.ExplicitSPOFilter;
 import com.bigdata.rdf.spo.ISPO;
 import com.bigdata.rdf.spo.JustificationWriter;
@@ -137,6 +140,7 @@ import com.bigdata.rdf.spo.SPOPredicate;
 import com.bigdata.rdf.spo.SPORelation;
 import com.bigdata.rdf.spo.SPOTupleSerializer;
 import com.bigdata.rdf.spo.StatementWriter;
+import com.bigdata.rdf.spo.TransitiveClosureIndex;
 import com.bigdata.rdf.spo.XXXCShardSplitHandler;
 import com.bigdata.rdf.vocab.BaseVocabulary;
 import com.bigdata.rdf.vocab.NoVocabulary;
@@ -594,6 +598,35 @@ abstract public class AbstractTripleStore extends
         
         String DEFAULT_TERM_CACHE_CAPACITY = "10000";//"50000";
 
+        /**
+         * Long option whose value is the maximum #of bytes in the serialized
+         * RDF {@link Value}s retained by the off-heap term cache (default
+         * {@value #DEFAULT_OFF_HEAP_TERM_CACHE_CAPACITY}). The off-heap term
+         * cache is a second level cache behind the term cache. It stores the
+         * records from the ID2TERM and BLOBS indices on the native heap and is
+         * shared by all read-only views of the lexicon for the same namespace
+         * regardless of their commit time. The off-heap term cache is
+         * disabled when this option is ZERO (0).
+         * 
+         * @see OffHeapTermCache
+         */
+        String OFF_HEAP_TERM_CACHE_CAPACITY = AbstractTripleStore.class
+                .getName() + ".offHeapTermCache.capacity";
+
+        String DEFAULT_OFF_HEAP_TERM_CACHE_CAPACITY = "0";
+
+        /**
+         * Integer option whose value is the #of shards (lock stripes) for the
+         * off-heap term cache (default
+         * {@value #DEFAULT_OFF_HEAP_TERM_CACHE_SHARDS}).
+         * 
+         * @see #OFF_HEAP_TERM_CACHE_CAPACITY
+         */
+        String OFF_HEAP_TERM_CACHE_SHARDS = AbstractTripleStore.class
+                .getName() + ".offHeapTermCache.shards";
+
+        String DEFAULT_OFF_HEAP_TERM_CACHE_SHARDS = "16";
+
         /**
          * The name of the class that will establish the pre-defined
          * {@link Vocabulary} for the database (default
@@ -1211,6 +1244,66 @@ abstract public class AbstractTripleStore extends
 
         public static String DEFAULT_BOTTOM_UP_EVALUATION = "true";
 
+        /**
+         * A comma and/or whitespace delimited list of predicate URIs for which
+         * a persistent transitive closure index will be maintained (default
+         * {@value #DEFAULT_TRANSITIVE_CLOSURE_PREDICATES}). The index is
+         * updated incrementally each time the database commits and is used to
+         * answer <code>p*</code> and <code>p+</code> property paths on these
+         * predicates with a range scan rather than running the path to a
+         * fixed point. This is intended for deep but slowly changing
+         * hierarchies such as <code>rdfs:subClassOf</code> or
+         * <code>skos:broader</code>.
+         * <p>
+         * Note: This option is only supported for triples mode databases on a
+         * {@link Journal}. It may only be specified when the database is
+         * created. Only changes made through the unisolated view of the
+         * database are applied to the index. The option is not inherited by a
+         * {@link TempTripleStore}.
+         *
+         * @see TransitiveClosureIndex
+         */
+        public static String TRANSITIVE_CLOSURE_PREDICATES = AbstractTripleStore.class
+                .getName() + ".transitiveClosurePredicates";
+
+        public static String DEFAULT_TRANSITIVE_CLOSURE_PREDICATES = "";
+
+        /**
+         * When <code>true</code> the database maintains join cardinality
+         * statistics (default {@value #DEFAULT_CHARACTERISTIC_SETS}): the
+         * characteristic sets of the data (the distinct combinations of
+         * predicates used to describe a subject, with their counts) and the
+         * #of statements, distinct subjects and distinct objects for each
+         * predicate. The static join optimizer uses these statistics to
+         * estimate the cardinality of star joins, which are otherwise
+         * estimated as if the predicates were independent.
+         * <p>
+         * Note: This option is not supported with {@link #ONE_ACCESS_PATH}. It
+         * may only be specified when the database is created.
+         * 
+         * @see CharacteristicSetIndex
+         * @see #CHARACTERISTIC_SETS_REFRESH_THRESHOLD
+         */
+        public static String CHARACTERISTIC_SETS = AbstractTripleStore.class
+                .getName() + ".characteristicSets";
+
+        public static String DEFAULT_CHARACTERISTIC_SETS = "false";
+
+        /**
+         * The join cardinality statistics are rebuilt when the database
+         * commits once the #of statements differs from the #of statements as
+         * of the last rebuild by more than this fraction (default
+         * {@value #DEFAULT_CHARACTERISTIC_SETS_REFRESH_THRESHOLD}). A rebuild
+         * scans the statement indices, so this bounds the amortized cost of
+         * maintaining the statistics against the accuracy of the estimates.
+         * 
+         * @see #CHARACTERISTIC_SETS
+         */
+        public static String CHARACTERISTIC_SETS_REFRESH_THRESHOLD = AbstractTripleStore.class
+                .getName() + ".characteristicSetsRefreshThreshold";
+
+        public static String DEFAULT_CHARACTERISTIC_SETS_REFRESH_THRESHOLD = ".1";
+
         /**
          * The name of the {@link IInlineURIFactory} class.
          * 
@@ -1644,6 +1737,28 @@ abstract public class AbstractTripleStore extends
 
             spoRelationRef.get().create();
 
+            if (lexicon && spoRelationRef.get().isTransitiveClosure()) {
+
+                /*
+                 * Declare the predicates for the transitive closure index in
+                 * the lexicon so their IVs may be resolved once and cached.
+                 */
+
+                final String[] uris = spoRelationRef.get()
+                        .getTransitiveClosurePredicates();
+
+                final BigdataValue[] terms = new BigdataValue[uris.length];
+
+                for (int i = 0; i < uris.length; i++) {
+
+                    terms[i] = valueFactory.createURI(uris[i]);
+
+                }
+
+                lexiconRelation.addTerms(terms, terms.length, false/* readOnly */);
+
+            }
+
             /*
              * The axioms require the lexicon to pre-exist. The axioms also
              * requires the SPORelation to pre-exist.
@@ -2210,10 +2325,34 @@ abstract public class AbstractTripleStore extends
         if (isReadOnly())
             throw new IllegalStateException();
 
+        if (getTimestamp() == ITx.UNISOLATED && getLexiconRelation() != null
+                && getSPORelation().isTransitiveClosure()) {
+
+            /*
+             * Bring the transitive closure index up to date with the changes
+             * made to the statement indices so they become visible in the same
+             * commit point.
+             */
+            getSPORelation().getTransitiveClosureIndex().update();
+
+        }
+
+        if (getTimestamp() == ITx.UNISOLATED
+                && getSPORelation().isCharacteristicSets()) {
+
+            /*
+             * Rebuild the join cardinality statistics if the data has drifted
+             * too far from the statistics.
+             */
+            getSPORelation().getCharacteristicSetIndex().update(
+                    getSPORelation().getCharacteristicSetsRefreshThreshold());
+
+        }
+
         return 0L;
 
     }
-    
+
     final public long getJustificationCount() {
 
         if (justify) {
@@ -47,6 +47,7 @@ import java.util.zip.ZipInputStream;
 import org.apache.log4j.Logger;
 import org.openrdf.rio.RDFFormat;
 
+import com.bigdata.journal.AbstractJournal;
 import com.bigdata.journal.IIndexManager;
 import com.bigdata.journal.ITx;
 import com.bigdata.journal.Journal;
@@ -64,6 +65,8 @@ import com.bigdata.rdf.rio.RioLoaderListener;
 import com.bigdata.rdf.rio.StatementBuffer;
 import com.bigdata.rdf.rules.InferenceEngine;
 import com.bigdata.rdf.spo.SPO;
+import com.bigdata.rdf.spo.SPOBulkIndexBuilder;
+import com.bigdata.rdf.spo.SPORelation;
 
 /**
  * A utility class to load RDF data into an {@link AbstractTripleStore} without
@@ -181,6 +184,26 @@ public class DataLoader {
     private final ClosureEnum closureEnum;
     
     private final boolean flush;
+
+    /**
+     * @see Options#PARSER_THREADS
+     */
+    private final int parserThreads;
+
+    /**
+     * @see Options#PIPELINE_QUEUE_CAPACITY
+     */
+    private final int pipelineQueueCapacity;
+
+    /**
+     * @see Options#BULK_BUILD
+     */
+    private final boolean bulkBuild;
+
+    /**
+     * @see Options#BULK_BUILD_RUN_CAPACITY
+     */
+    private final int bulkBuildRunCapacity;
     
 //    public boolean setFlush(boolean newValue) {
 //        
@@ -419,6 +442,69 @@ public class DataLoader {
          * The default value (<code>true</code>) for {@link #FLUSH}.
          */
         String DEFAULT_FLUSH = "true";
+
+        /**
+         * The #of parser threads used to load files -or- ZERO (0) to load the
+         * files one at a time (default {@value #DEFAULT_PARSER_THREADS}).
+         * <p>
+         * When positive, the files are loaded by a {@link DataLoaderPipeline}
+         * in which the parser threads, the resolution of terms against the
+         * lexicon, and the writes on the statement indices run as concurrent
+         * stages. The pipeline is only used when closure is not maintained,
+         * statement identifiers are not in use and the commit is not
+         * {@link CommitEnum#Incremental}. Otherwise the files are loaded one
+         * at a time.
+         */
+        String PARSER_THREADS = DataLoader.class.getName() + ".parserThreads";
+
+        String DEFAULT_PARSER_THREADS = "0";
+
+        /**
+         * The #of batches of up to {@link #BUFFER_CAPACITY} statements which
+         * may be buffered between the stages of the pipelined load (default
+         * {@value #DEFAULT_PIPELINE_QUEUE_CAPACITY}).
+         * 
+         * @see #PARSER_THREADS
+         */
+        String PIPELINE_QUEUE_CAPACITY = DataLoader.class.getName()
+                + ".pipelineQueueCapacity";
+
+        String DEFAULT_PIPELINE_QUEUE_CAPACITY = "4";
+
+        /**
+         * When <code>true</code> and the statement indices are empty, a
+         * pipelined load (see {@link #PARSER_THREADS}) into a {@link Journal}
+         * buffers the statements and builds each statement index bottom-up
+         * once all files have been parsed (default {@value #DEFAULT_BULK_BUILD}
+         * ). The statements are sorted for each statement index in runs of up
+         * to {@link #BULK_BUILD_RUN_CAPACITY} statements which are spilled onto
+         * temporary files and merged, so an initial import is limited by the
+         * sort rather than by copy-on-write of the statement index leaves. The
+         * terms are still resolved against the lexicon incrementally.
+         * <p>
+         * Note: The bulk build is not used when a transitive closure index is
+         * maintained (see
+         * {@link AbstractTripleStore.Options#TRANSITIVE_CLOSURE_PREDICATES}),
+         * since that index is maintained from the statements written through
+         * the {@link SPORelation}.
+         * 
+         * @see SPOBulkIndexBuilder
+         */
+        String BULK_BUILD = DataLoader.class.getName() + ".bulkBuild";
+
+        String DEFAULT_BULK_BUILD = "false";
+
+        /**
+         * The maximum #of statements buffered in memory for each statement
+         * index before a sorted run is written onto a temporary file (default
+         * {@value #DEFAULT_BULK_BUILD_RUN_CAPACITY}).
+         * 
+         * @see #BULK_BUILD
+         */
+        String BULK_BUILD_RUN_CAPACITY = DataLoader.class.getName()
+                + ".bulkBuildRunCapacity";
+
+        String DEFAULT_BULK_BUILD_RUN_CAPACITY = "1000000";
         
     }
 
@@ -522,6 +608,73 @@ public class DataLoader {
         if (log.isInfoEnabled())
             log.info(Options.FLUSH + "=" + flush);
 
+        parserThreads = Integer.parseInt(properties.getProperty(
+                Options.PARSER_THREADS, Options.DEFAULT_PARSER_THREADS));
+
+        pipelineQueueCapacity = Integer.parseInt(properties.getProperty(
+                Options.PIPELINE_QUEUE_CAPACITY,
+                Options.DEFAULT_PIPELINE_QUEUE_CAPACITY));
+
+        bulkBuild = Boolean.parseBoolean(properties.getProperty(
+                Options.BULK_BUILD, Options.DEFAULT_BULK_BUILD));
+
+        bulkBuildRunCapacity = Integer.parseInt(properties.getProperty(
+                Options.BULK_BUILD_RUN_CAPACITY,
+                Options.DEFAULT_BULK_BUILD_RUN_CAPACITY));
+
+        if (log.isInfoEnabled())
+            log.info(Options.PARSER_THREADS + "=" + parserThreads + ", "
+                    + Options.BULK_BUILD + "=" + bulkBuild);
+
+    }
+
+    /**
+     * Return <code>true</code> iff files will be loaded using a
+     * {@link DataLoaderPipeline}.
+     * 
+     * @see Options#PARSER_THREADS
+     */
+    public boolean isPipelined() {
+
+        return parserThreads > 0 && tm == null
+                && commitEnum != CommitEnum.Incremental
+                && !database.getStatementIdentifiers();
+
+    }
+
+    /**
+     * Return a {@link SPOBulkIndexBuilder} iff {@link Options#BULK_BUILD} is
+     * enabled, the database is backed by a {@link Journal}, the statement
+     * indices are empty and no transitive closure index is maintained.
+     * 
+     * @return The {@link SPOBulkIndexBuilder} -or- <code>null</code> if the
+     *         statement indices will be written incrementally.
+     */
+    private SPOBulkIndexBuilder newBulkBuilder() {
+
+        if (!bulkBuild)
+            return null;
+
+        if (!(database.getIndexManager() instanceof AbstractJournal)
+                || database.getStatementCount() != 0L) {
+
+            log.warn("Bulk build disabled: not an empty journal.");
+
+            return null;
+
+        }
+
+        if (database.getSPORelation().isTransitiveClosure()) {
+
+            log.warn("Bulk build disabled: transitive closure index.");
+
+            return null;
+
+        }
+
+        return new SPOBulkIndexBuilder(database.getSPORelation(),
+                bulkBuildRunCapacity, null/* tmpDir */);
+
     }
 
     /**
@@ -866,6 +1019,36 @@ public class DataLoader {
             final boolean endOfBatch)
             throws IOException {
 
+        if (depth == 0 && isPipelined()) {
+
+            // Collect the files and load them using concurrent stages.
+            final List<DataLoaderPipeline.Source> sources = new LinkedList<DataLoaderPipeline.Source>();
+
+            collectFiles(sources, file, baseURI, rdfFormat, defaultGraph,
+                    filter);
+
+            if (log.isInfoEnabled())
+                log.info("Pipelined load of " + sources.size() + " files");
+
+            final long begin = System.currentTimeMillis();
+
+            final LoadStats stats = new LoadStats();
+
+            new DataLoaderPipeline(database, parserOptions, bufferCapacity,
+                    parserThreads, pipelineQueueCapacity, newBulkBuilder())
+                    .load(sources, stats);
+
+            stats.totalTime.add(System.currentTimeMillis() - begin);
+
+            totals.add(stats);
+
+            if (log.isInfoEnabled())
+                log.info("files:: " + stats);
+
+            return;
+
+        }
+
         if (file.isDirectory()) {
 
             if (log.isDebugEnabled())
@@ -892,36 +1075,13 @@ public class DataLoader {
             
         }
         
-        final String n = file.getName();
-        
-        RDFFormat fmt = RDFFormat.forFileName(n);
-
-        if (fmt == null && n.endsWith(".zip")) {
-            fmt = RDFFormat.forFileName(n.substring(0, n.length() - 4));
-        }
-
-        if (fmt == null && n.endsWith(".gz")) {
-            fmt = RDFFormat.forFileName(n.substring(0, n.length() - 3));
-        }
-
-        if (fmt == null) // fallback
-            fmt = rdfFormat;
+        final RDFFormat fmt = getFormat(file, rdfFormat);
                 
         InputStream is = null;
 
         try {
 
-            is = new FileInputStream(file);
-
-            if (n.endsWith(".gz")) {
-
-                is = new GZIPInputStream(is);
-
-            } else if (n.endsWith(".zip")) {
-
-                is = new ZipInputStream(is);
-
-            }
+            is = openStream(file);
 
             /*
              * Obtain a buffered reader on the input stream.
@@ -961,6 +1121,88 @@ public class DataLoader {
 
     }
 
+    /**
+     * Collect the files to be loaded by a pipelined load.
+     */
+    private void collectFiles(final List<DataLoaderPipeline.Source> sources,
+            final File file, final String baseURI, final RDFFormat rdfFormat,
+            final String defaultGraph, final FilenameFilter filter) {
+
+        if (file.isDirectory()) {
+
+            final File[] files = (filter != null ? file.listFiles(filter)
+                    : file.listFiles());
+
+            for (File f : files) {
+
+                collectFiles(sources, f, baseURI, rdfFormat, defaultGraph,
+                        filter);
+
+            }
+
+            return;
+
+        }
+
+        sources.add(new DataLoaderPipeline.Source(file, getFormat(file,
+                rdfFormat), baseURI, defaultGraph));
+
+    }
+
+    /**
+     * Return the {@link RDFFormat} for a file based on its name (ignoring any
+     * <code>.gz</code> or <code>.zip</code> extension).
+     * 
+     * @param file
+     *            The file.
+     * @param rdfFormat
+     *            The fallback format (optional).
+     */
+    static RDFFormat getFormat(final File file, final RDFFormat rdfFormat) {
+
+        final String n = file.getName();
+        
+        RDFFormat fmt = RDFFormat.forFileName(n);
+
+        if (fmt == null && n.endsWith(".zip")) {
+            fmt = RDFFormat.forFileName(n.substring(0, n.length() - 4));
+        }
+
+        if (fmt == null && n.endsWith(".gz")) {
+            fmt = RDFFormat.forFileName(n.substring(0, n.length() - 3));
+        }
+
+        if (fmt == null) // fallback
+            fmt = rdfFormat;
+
+        return fmt;
+
+    }
+
+    /**
+     * Open an input stream on a file, decompressing <code>.gz</code> and
+     * <code>.zip</code> files.
+     */
+    static InputStream openStream(final File file) throws IOException {
+
+        final String n = file.getName();
+
+        InputStream is = new FileInputStream(file);
+
+        if (n.endsWith(".gz")) {
+
+            is = new GZIPInputStream(is);
+
+        } else if (n.endsWith(".zip")) {
+
+            is = new ZipInputStream(is);
+
+        }
+
+        return is;
+
+    }
+
     /**
      * Loads data from the <i>source</i>. The caller is responsible for closing
      * the <i>source</i> if there is an error.
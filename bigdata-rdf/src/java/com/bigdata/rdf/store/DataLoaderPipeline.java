@@ -0,0 +1,777 @@
+/**
+
+Copyright (C) SYSTAP, LLC 2006-2015.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@systap.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+/*
+ * Created on Oct 17, 2026
+ */
+
+package com.bigdata.rdf.store;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.log4j.Logger;
+import org.openrdf.model.BNode;
+import org.openrdf.model.Statement;
+import org.openrdf.rio.RDFFormat;
+
+import com.bigdata.rdf.model.BigdataStatement;
+import com.bigdata.rdf.model.BigdataValue;
+import com.bigdata.rdf.rio.LoadStats;
+import com.bigdata.rdf.rio.PresortRioLoader;
+import com.bigdata.rdf.rio.RDFParserOptions;
+import com.bigdata.rdf.rio.StatementBuffer;
+import com.bigdata.rdf.spo.ISPO;
+import com.bigdata.rdf.spo.SPO;
+import com.bigdata.rdf.spo.SPOBulkIndexBuilder;
+import com.bigdata.striterator.ChunkedArrayIterator;
+import com.bigdata.util.concurrent.DaemonThreadFactory;
+
+/**
+ * A staged, multi-threaded load of a set of files into a standalone database.
+ * The stages are connected by bounded queues:
+ * <ol>
+ * <li>N parser threads. Each parses one file at a time into a
+ * {@link StatementBuffer} which hands off its buffered terms and statements
+ * rather than writing them on the database. Blank nodes are made canonical
+ * per file, exactly as for the serial load.</li>
+ * <li>A term resolution stage which combines the batches from different files
+ * into a single batch of up to the buffer capacity and resolves (and adds) the
+ * terms against the lexicon in one call.</li>
+ * <li>A statement stage which writes each combined batch onto the statement
+ * indices. The statement indices are sorted and written in parallel by
+ * {@link AbstractTripleStore#addStatements(AbstractTripleStore, boolean, com.bigdata.striterator.IChunkedOrderedIterator, com.bigdata.relation.accesspath.IElementFilter)}.
+ * </li>
+ * </ol>
+ * The lexicon writes for one batch thus overlap with the statement index
+ * writes for the previous batch and with the parsing of the next batches.
+ * <p>
+ * Note: This is only used when truth maintenance and statement identifiers
+ * are disabled. The pipeline does not commit. A failure in any stage halts
+ * the pipeline and the caller must discard the writes (abort).
+ */
+public class DataLoaderPipeline {
+
+    private static final Logger log = Logger
+            .getLogger(DataLoaderPipeline.class);
+
+    /**
+     * A file to be loaded.
+     */
+    public static class Source {
+
+        final File file;
+
+        final RDFFormat format;
+
+        final String baseURI;
+
+        final String defaultGraph;
+
+        /**
+         * @param file
+         *            The file.
+         * @param format
+         *            The format of the file.
+         * @param baseURI
+         *            The baseURI for the file.
+         * @param defaultGraph
+         *            The value that will be used for the graph/context
+         *            co-ordinate when loading data represented in a triple
+         *            format into a quad store (optional).
+         */
+        public Source(final File file, final RDFFormat format,
+                final String baseURI, final String defaultGraph) {
+
+            if (file == null)
+                throw new IllegalArgumentException();
+
+            this.file = file;
+            this.format = format;
+            this.baseURI = baseURI;
+            this.defaultGraph = defaultGraph;
+
+        }
+
+        @Override
+        public String toString() {
+
+            return file.toString();
+
+        }
+
+    }
+
+    /**
+     * A batch of distinct terms and the statements using those terms.
+     */
+    private static class Batch {
+
+        final BigdataValue[] values;
+
+        final BigdataStatement[] stmts;
+
+        Batch(final BigdataValue[] values, final BigdataStatement[] stmts) {
+
+            this.values = values;
+            this.stmts = stmts;
+
+        }
+
+    }
+
+    /**
+     * Marks the end of the input for a stage.
+     */
+    private static final Batch EOF = new Batch(new BigdataValue[0],
+            new BigdataStatement[0]);
+
+    private final AbstractTripleStore database;
+
+    private final RDFParserOptions parserOptions;
+
+    private final int bufferCapacity;
+
+    private final int parserThreads;
+
+    /**
+     * When non-<code>null</code>, the statement indices are built bottom-up
+     * once all files have been resolved against the lexicon.
+     */
+    private final SPOBulkIndexBuilder bulkBuilder;
+
+    /**
+     * Batches parsed but not yet resolved against the lexicon.
+     */
+    private final BlockingQueue<Batch> parsedQueue;
+
+    /**
+     * Batches resolved against the lexicon but not yet written on the
+     * statement indices.
+     */
+    private final BlockingQueue<Batch> resolvedQueue;
+
+    /**
+     * The first error reported by any stage.
+     */
+    private final AtomicReference<Throwable> firstCause = new AtomicReference<Throwable>();
+
+    /**
+     * The tasks for all stages (used to halt the pipeline on error).
+     */
+    private final List<Future<?>> futures = Collections
+            .synchronizedList(new LinkedList<Future<?>>());
+
+    /**
+     * @param database
+     *            The database (standalone, no statement identifiers).
+     * @param parserOptions
+     *            The parser options.
+     * @param bufferCapacity
+     *            The #of statements in a batch.
+     * @param parserThreads
+     *            The #of parser threads.
+     * @param queueCapacity
+     *            The #of batches which may be buffered between the stages.
+     * @param bulkBuilder
+     *            When non-<code>null</code>, the statements are buffered by
+     *            the {@link SPOBulkIndexBuilder} and the statement indices are
+     *            built bottom-up at the end of the load rather than written
+     *            incrementally (optional).
+     */
+    public DataLoaderPipeline(final AbstractTripleStore database,
+            final RDFParserOptions parserOptions, final int bufferCapacity,
+            final int parserThreads, final int queueCapacity,
+            final SPOBulkIndexBuilder bulkBuilder) {
+
+        if (database == null)
+            throw new IllegalArgumentException();
+
+        if (database.getStatementIdentifiers())
+            throw new UnsupportedOperationException();
+
+        if (parserOptions == null)
+            throw new IllegalArgumentException();
+
+        if (bufferCapacity <= 0)
+            throw new IllegalArgumentException();
+
+        if (parserThreads <= 0)
+            throw new IllegalArgumentException();
+
+        if (queueCapacity <= 0)
+            throw new IllegalArgumentException();
+
+        this.database = database;
+        this.parserOptions = parserOptions;
+        this.bufferCapacity = bufferCapacity;
+        this.parserThreads = parserThreads;
+        this.bulkBuilder = bulkBuilder;
+        this.parsedQueue = new ArrayBlockingQueue<Batch>(queueCapacity);
+        this.resolvedQueue = new ArrayBlockingQueue<Batch>(queueCapacity);
+
+    }
+
+    /**
+     * Load the files.
+     * 
+     * @param sources
+     *            The files to be loaded.
+     * @param totals
+     *            Used to report out the total {@link LoadStats}.
+     * 
+     * @throws IOException
+     *             if the load fails.
+     */
+    public void load(final List<Source> sources, final LoadStats totals)
+            throws IOException {
+
+        final long begin = System.currentTimeMillis();
+
+        final ExecutorService service = Executors.newFixedThreadPool(
+                parserThreads + 2, new DaemonThreadFactory(getClass()
+                        .getName()));
+
+        try {
+
+            final Future<Void> termFuture = submit(service, new TermTask(
+                    totals));
+
+            final Future<Void> indexFuture = submit(service, new IndexTask(
+                    totals));
+
+            final List<Future<Void>> parserFutures = new ArrayList<Future<Void>>(
+                    sources.size());
+
+            for (Source source : sources) {
+
+                parserFutures.add(submit(service, new ParserTask(source,
+                        totals)));
+
+            }
+
+            for (Future<Void> f : parserFutures) {
+
+                get(f);
+
+            }
+
+            try {
+
+                // Signal the end of the parsed batches.
+                parsedQueue.put(EOF);
+
+            } catch (InterruptedException ex) {
+
+                halt(ex);
+
+                throw launder(ex);
+
+            }
+
+            get(termFuture);
+
+            get(indexFuture);
+
+            totals.loadTime.add(System.currentTimeMillis() - begin);
+
+        } finally {
+
+            service.shutdownNow();
+
+        }
+
+    }
+
+    private Future<Void> submit(final ExecutorService service,
+            final Callable<Void> task) {
+
+        final Future<Void> f = service.submit(new Callable<Void>() {
+
+            @Override
+            public Void call() throws Exception {
+
+                try {
+
+                    return task.call();
+
+                } catch (Throwable t) {
+
+                    halt(t);
+
+                    throw new RuntimeException(t);
+
+                }
+
+            }
+
+        });
+
+        futures.add(f);
+
+        return f;
+
+    }
+
+    /**
+     * Note the first error and cancel all stages.
+     */
+    private void halt(final Throwable t) {
+
+        if (firstCause.compareAndSet(null/* expect */, t)) {
+
+            log.error("Halting pipeline: " + t, t);
+
+        }
+
+        synchronized (futures) {
+
+            for (Future<?> f : futures) {
+
+                f.cancel(true/* mayInterruptIfRunning */);
+
+            }
+
+        }
+
+    }
+
+    /**
+     * Wait for a stage, reporting the first error of any stage.
+     */
+    private void get(final Future<Void> f) throws IOException {
+
+        try {
+
+            f.get();
+
+        } catch (InterruptedException ex) {
+
+            halt(ex);
+
+            throw launder(ex);
+
+        } catch (ExecutionException ex) {
+
+            throw launder(ex);
+
+        } catch (CancellationException ex) {
+
+            throw launder(ex);
+
+        }
+
+    }
+
+    private IOException launder(final Throwable t) {
+
+        final Throwable cause = firstCause.get() != null ? firstCause.get()
+                : t;
+
+        if (cause instanceof IOException)
+            return (IOException) cause;
+
+        final IOException ex = new IOException("Pipelined load failed");
+
+        ex.initCause(cause);
+
+        return ex;
+
+    }
+
+    /**
+     * Parses a file into batches.
+     */
+    private class ParserTask implements Callable<Void> {
+
+        private final Source source;
+
+        private final LoadStats totals;
+
+        ParserTask(final Source source, final LoadStats totals) {
+
+            this.source = source;
+            this.totals = totals;
+
+        }
+
+        @Override
+        public Void call() throws Exception {
+
+            final long begin = System.currentTimeMillis();
+
+            final HandoffStatementBuffer buffer = new HandoffStatementBuffer(
+                    database, bufferCapacity);
+
+            final PresortRioLoader loader = new PresortRioLoader(buffer);
+
+            final InputStream is = DataLoader.openStream(source.file);
+
+            try {
+
+                final Reader reader = new BufferedReader(
+                        new InputStreamReader(is));
+
+                try {
+
+                    final String baseURI = source.baseURI != null ? source.baseURI
+                            : source.file.toURI().toString();
+
+                    loader.loadRdf(reader, baseURI, source.format,
+                            source.defaultGraph, parserOptions);
+
+                } finally {
+
+                    reader.close();
+
+                }
+
+            } catch (Exception ex) {
+
+                throw new RuntimeException("While loading: " + source.file,
+                        ex);
+
+            } finally {
+
+                is.close();
+
+            }
+
+            final LoadStats stats = new LoadStats();
+
+            stats.toldTriples.add(loader.getStatementsAdded());
+
+            stats.parseTime.add(System.currentTimeMillis() - begin);
+
+            totals.add(stats);
+
+            if (log.isInfoEnabled())
+                log.info("parsed: " + source + ", nstmts="
+                        + loader.getStatementsAdded());
+
+            return null;
+
+        }
+
+    }
+
+    /**
+     * Resolves the terms for batches against the lexicon. Batches from
+     * different files are combined up to the buffer capacity.
+     */
+    private class TermTask implements Callable<Void> {
+
+        private final LoadStats totals;
+
+        TermTask(final LoadStats totals) {
+
+            this.totals = totals;
+
+        }
+
+        @Override
+        public Void call() throws Exception {
+
+            try {
+
+                boolean done = false;
+
+                while (!done) {
+
+                    final List<Batch> batches = new LinkedList<Batch>();
+
+                    Batch b = parsedQueue.take();
+
+                    int nvalues = 0, nstmts = 0;
+
+                    while (true) {
+
+                        if (b == EOF) {
+                            done = true;
+                            break;
+                        }
+
+                        batches.add(b);
+
+                        nvalues += b.values.length;
+
+                        nstmts += b.stmts.length;
+
+                        if (nstmts >= bufferCapacity
+                                || (b = parsedQueue.poll()) == null)
+                            break;
+
+                    }
+
+                    if (batches.isEmpty())
+                        continue;
+
+                    final Batch merged = merge(batches, nvalues, nstmts);
+
+                    final long begin = System.currentTimeMillis();
+
+                    database.getLexiconRelation().addTerms(merged.values,
+                            merged.values.length, false/* readOnly */);
+
+                    final LoadStats stats = new LoadStats();
+
+                    stats.termTime.add(System.currentTimeMillis() - begin);
+
+                    stats.termCount.add(merged.values.length);
+
+                    totals.add(stats);
+
+                    resolvedQueue.put(merged);
+
+                }
+
+            } finally {
+
+                if (firstCause.get() == null) {
+
+                    // Signal the end of the resolved batches.
+                    resolvedQueue.put(EOF);
+
+                }
+
+            }
+
+            return null;
+
+        }
+
+        private Batch merge(final List<Batch> batches, final int nvalues,
+                final int nstmts) {
+
+            if (batches.size() == 1)
+                return batches.get(0);
+
+            final BigdataValue[] values = new BigdataValue[nvalues];
+
+            final BigdataStatement[] stmts = new BigdataStatement[nstmts];
+
+            int i = 0, j = 0;
+
+            for (Batch b : batches) {
+
+                System.arraycopy(b.values, 0, values, i, b.values.length);
+
+                System.arraycopy(b.stmts, 0, stmts, j, b.stmts.length);
+
+                i += b.values.length;
+
+                j += b.stmts.length;
+
+            }
+
+            return new Batch(values, stmts);
+
+        }
+
+    }
+
+    /**
+     * Writes resolved batches onto the statement indices.
+     */
+    private class IndexTask implements Callable<Void> {
+
+        private final LoadStats totals;
+
+        IndexTask(final LoadStats totals) {
+
+            this.totals = totals;
+
+        }
+
+        @Override
+        public Void call() throws Exception {
+
+            try {
+
+                Batch b;
+
+                while ((b = resolvedQueue.take()) != EOF) {
+
+                    final long begin = System.currentTimeMillis();
+
+                    final int n = b.stmts.length;
+
+                    final SPO[] a = new SPO[n];
+
+                    for (int i = 0; i < n; i++) {
+
+                        a[i] = new SPO(b.stmts[i]);
+
+                    }
+
+                    if (bulkBuilder != null) {
+
+                        // Buffered for the bottom-up build.
+                        bulkBuilder.add(a, n);
+
+                    } else {
+
+                        database.addStatements(database, false/* copyOnly */,
+                                new ChunkedArrayIterator<ISPO>(n, a, null/* keyOrder */),
+                                null/* filter */);
+
+                    }
+
+                    final LoadStats stats = new LoadStats();
+
+                    stats.indexTime.add(System.currentTimeMillis() - begin);
+
+                    stats.indexCount.add(n);
+
+                    totals.add(stats);
+
+                }
+
+                if (bulkBuilder != null) {
+
+                    final long begin = System.currentTimeMillis();
+
+                    bulkBuilder.build();
+
+                    final LoadStats stats = new LoadStats();
+
+                    stats.indexTime.add(System.currentTimeMillis() - begin);
+
+                    totals.add(stats);
+
+                }
+
+            } catch (Throwable t) {
+
+                if (bulkBuilder != null)
+                    bulkBuilder.abort();
+
+                throw t;
+
+            }
+
+            return null;
+
+        }
+
+    }
+
+    /**
+     * A {@link StatementBuffer} which hands off its buffered terms and
+     * statements to the term resolution stage rather than writing them on the
+     * database.
+     */
+    private class HandoffStatementBuffer extends StatementBuffer<Statement> {
+
+        /**
+         * Blank nodes first seen since the last hand off. The blank nodes are
+         * canonical for the file, so each is resolved exactly once.
+         */
+        private final List<BigdataValue> bnodes = new LinkedList<BigdataValue>();
+
+        HandoffStatementBuffer(final AbstractTripleStore database,
+                final int capacity) {
+
+            super(database, capacity);
+
+        }
+
+        @Override
+        protected void addTerm(final BigdataValue term) {
+
+            super.addTerm(term);
+
+            if (term instanceof BNode)
+                bnodes.add(term);
+
+        }
+
+        @Override
+        protected void incrementalWrite() {
+
+            if (numStmts == 0) {
+
+                /*
+                 * Nothing to hand off. Blank nodes are only used by the
+                 * statements, so they are carried over to the next batch.
+                 */
+
+                _clear();
+
+                return;
+
+            }
+
+            final BigdataValue[] a = new BigdataValue[numValues
+                    + bnodes.size()];
+
+            System.arraycopy(values, 0, a, 0, numValues);
+
+            int i = numValues;
+
+            for (BigdataValue v : bnodes) {
+
+                a[i++] = v;
+
+            }
+
+            bnodes.clear();
+
+            final BigdataStatement[] b = new BigdataStatement[numStmts];
+
+            System.arraycopy(stmts, 0, b, 0, numStmts);
+
+            try {
+
+                parsedQueue.put(new Batch(a, b));
+
+            } catch (InterruptedException ex) {
+
+                throw new RuntimeException(ex);
+
+            }
+
+            _clear();
+
+        }
+
+    }
+
+}
@@ -317,6 +317,10 @@ public class TempTripleStore extends AbstractLocalTripleStore {
      * Stacks the <i>properties</i> on top of the <i>db</i>'s properties so
      * that the databases properties will be treated as defaults and anything in
      * <i>properties</i> will override anything in database's properties.
+     * <p>
+     * Note: The {@link Options#TRANSITIVE_CLOSURE_PREDICATES} are NOT
+     * inherited. A temporary store is a scratch area (often without a lexicon)
+     * and never maintains a transitive closure index.
      * 
      * @param properties
      *            The properties for the {@link TempTripleStore}.
@@ -348,6 +352,9 @@ public class TempTripleStore extends AbstractLocalTripleStore {
 
         }
 
+        tmp.setProperty(Options.TRANSITIVE_CLOSURE_PREDICATES,
+                Options.DEFAULT_TRANSITIVE_CLOSURE_PREDICATES);
+
         return tmp;
 
     }
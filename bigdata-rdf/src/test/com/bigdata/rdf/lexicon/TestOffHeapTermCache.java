@@ -0,0 +1,245 @@
+/**
+
+Copyright (C) SYSTAP, LLC 2006-2015.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@systap.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+/*
+ * Created on Oct 17, 2026
+ */
+
+package com.bigdata.rdf.lexicon;
+
+import java.util.UUID;
+
+import junit.framework.TestCase2;
+
+import com.bigdata.btree.keys.KeyBuilder;
+import com.bigdata.rdf.internal.VTE;
+import com.bigdata.rdf.internal.impl.TermId;
+import com.bigdata.rdf.model.BigdataLiteral;
+import com.bigdata.rdf.model.BigdataValue;
+import com.bigdata.rdf.model.BigdataValueFactory;
+import com.bigdata.rdf.model.BigdataValueFactoryImpl;
+
+/**
+ * Test suite for {@link OffHeapTermCache}.
+ */
+public class TestOffHeapTermCache extends TestCase2 {
+
+    public TestOffHeapTermCache() {
+    }
+
+    public TestOffHeapTermCache(String name) {
+        super(name);
+    }
+
+    private static byte[] key(final long id) {
+
+        return new TermId<BigdataLiteral>(VTE.LITERAL, id).encode(
+                KeyBuilder.newInstance()).getKey();
+
+    }
+
+    private static byte[] record(final int len, final int b) {
+
+        final byte[] a = new byte[len];
+
+        for (int i = 0; i < len; i++)
+            a[i] = (byte) b;
+
+        return a;
+
+    }
+
+    /**
+     * Round trip of a serialized {@link BigdataValue} through the cache.
+     */
+    public void test_roundTrip() {
+
+        final OffHeapTermCache cache = new OffHeapTermCache(
+                1024 * 1024/* capacity */, 4/* nshards */);
+
+        try {
+
+            final BigdataValueFactory f = BigdataValueFactoryImpl
+                    .getInstance(getName()/* namespace */);
+
+            final BigdataLiteral lit = f.createLiteral("abc");
+
+            final byte[] data = f.getValueSerializer().serialize(lit);
+
+            final byte[] key = key(12L);
+
+            assertNull(cache.get(key));
+
+            cache.putIfAbsent(key, data);
+
+            assertEquals(1, cache.size());
+
+            final byte[] actual = cache.get(key(12L));
+
+            assertEquals(data, actual);
+
+            assertEquals(lit, f.getValueSerializer().deserialize(actual));
+
+            // A different key is not found.
+            assertNull(cache.get(key(13L)));
+
+            // putIfAbsent does not replace the existing record.
+            cache.putIfAbsent(key, record(data.length, 1));
+
+            assertEquals(data, cache.get(key));
+
+        } finally {
+
+            cache.clear();
+
+        }
+
+    }
+
+    /**
+     * Verify LRU eviction once the byte budget of a shard is exceeded.
+     */
+    public void test_lruEviction() {
+
+        // Single shard with room for 10 records of 100 bytes.
+        final OffHeapTermCache cache = new OffHeapTermCache(1000/* capacity */,
+                1/* nshards */);
+
+        try {
+
+            for (int i = 0; i < 10; i++) {
+
+                cache.putIfAbsent(key(i), record(100, i));
+
+            }
+
+            assertEquals(10, cache.size());
+
+            assertEquals(1000L, cache.getByteCount());
+
+            // touch the first record.
+            assertNotNull(cache.get(key(0)));
+
+            // insert another record, forcing an eviction.
+            cache.putIfAbsent(key(10), record(100, 10));
+
+            assertEquals(10, cache.size());
+
+            assertEquals(1000L, cache.getByteCount());
+
+            // The first record was touched and is retained.
+            assertEquals(record(100, 0), cache.get(key(0)));
+
+            // The second record was the LRU record and was evicted.
+            assertNull(cache.get(key(1)));
+
+            assertEquals(record(100, 10), cache.get(key(10)));
+
+        } finally {
+
+            cache.clear();
+
+        }
+
+    }
+
+    /**
+     * Records larger than 1/8th of the capacity of a shard are not cached.
+     */
+    public void test_largeRecordNotCached() {
+
+        final OffHeapTermCache cache = new OffHeapTermCache(1000/* capacity */,
+                1/* nshards */);
+
+        try {
+
+            cache.putIfAbsent(key(1L), record(126, 1));
+
+            assertNull(cache.get(key(1L)));
+
+            cache.putIfAbsent(key(2L), record(125, 2));
+
+            assertNotNull(cache.get(key(2L)));
+
+        } finally {
+
+            cache.clear();
+
+        }
+
+    }
+
+    public void test_clear() {
+
+        final OffHeapTermCache cache = new OffHeapTermCache(
+                1024 * 1024/* capacity */, 4/* nshards */);
+
+        for (int i = 0; i < 100; i++) {
+
+            cache.putIfAbsent(key(i), record(20, i));
+
+        }
+
+        assertEquals(100, cache.size());
+
+        cache.clear();
+
+        assertEquals(0, cache.size());
+
+        assertEquals(0L, cache.getByteCount());
+
+        assertNull(cache.get(key(1)));
+
+    }
+
+    /**
+     * The instance is shared for the same namespace and index UUID.
+     */
+    public void test_getInstance() {
+
+        final String key1 = getName() + "/" + UUID.randomUUID();
+
+        final String key2 = getName() + "/" + UUID.randomUUID();
+
+        final OffHeapTermCache a = OffHeapTermCache.getInstance(key1,
+                1024 * 1024/* capacity */, 2/* nshards */);
+
+        try {
+
+            assertTrue(a == OffHeapTermCache.getInstance(key1,
+                    1024 * 1024/* capacity */, 2/* nshards */));
+
+            final OffHeapTermCache b = OffHeapTermCache.getInstance(key2,
+                    1024 * 1024/* capacity */, 2/* nshards */);
+
+            assertTrue(a != b);
+
+        } finally {
+
+            a.clear();
+
+        }
+
+    }
+
+}
@@ -67,6 +67,9 @@ public class TestAll extends TestCase {
          */
         suite.addTestSuite(TestLoadAndVerify.class);
 
+        // Correctness tests for the pipelined DataLoader.
+        suite.addTestSuite(TestDataLoaderPipeline.class);
+
 //        /*
 //         * Correctness tests when SIDs are enabled and for blank node handling
 //         * using StatementBuffer and explicitly inserting specific triples (no
@@ -0,0 +1,343 @@
+/**
+
+Copyright (C) SYSTAP, LLC 2006-2015.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@systap.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+/*
+ * Created on Oct 17, 2026
+ */
+
+package com.bigdata.rdf.rio;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.HashSet;
+import java.util.Properties;
+import java.util.Set;
+
+import org.openrdf.model.Resource;
+import org.openrdf.rio.RDFFormat;
+
+import com.bigdata.rdf.axioms.NoAxioms;
+import com.bigdata.rdf.internal.IV;
+import com.bigdata.rdf.model.BigdataStatement;
+import com.bigdata.rdf.model.BigdataURI;
+import com.bigdata.rdf.model.BigdataValueFactory;
+import com.bigdata.rdf.store.AbstractTripleStore;
+import com.bigdata.rdf.store.AbstractTripleStoreTestCase;
+import com.bigdata.rdf.store.BigdataStatementIterator;
+import com.bigdata.rdf.store.DataLoader;
+import com.bigdata.rdf.store.DataLoader.ClosureEnum;
+import com.bigdata.rdf.store.DataLoaderPipeline;
+
+/**
+ * Test suite for the pipelined load of files using a
+ * {@link DataLoaderPipeline}.
+ */
+public class TestDataLoaderPipeline extends AbstractTripleStoreTestCase {
+
+    public TestDataLoaderPipeline() {
+    }
+
+    public TestDataLoaderPipeline(String name) {
+        super(name);
+    }
+
+    private Properties getLoaderProperties(final int parserThreads,
+            final int bufferCapacity) {
+
+        final Properties properties = new Properties(getProperties());
+
+        // turn off entailments.
+        properties.setProperty(AbstractTripleStore.Options.AXIOMS_CLASS,
+                NoAxioms.class.getName());
+
+        properties.setProperty(DataLoader.Options.CLOSURE,
+                ClosureEnum.None.toString());
+
+        properties.setProperty(DataLoader.Options.PARSER_THREADS,
+                Integer.toString(parserThreads));
+
+        properties.setProperty(DataLoader.Options.BUFFER_CAPACITY,
+                Integer.toString(bufferCapacity));
+
+        properties.setProperty(DataLoader.Options.PIPELINE_QUEUE_CAPACITY,
+                "2");
+
+        return properties;
+
+    }
+
+    /**
+     * Load LUBM U(1) serially and using the pipeline and verify that the same
+     * statements and terms are found in both stores.
+     */
+    public void test_pipelined_U1() throws IOException {
+
+        final File dir = new File("bigdata-rdf/src/resources/data/lehigh/U1");
+
+        final Properties serialProperties = getLoaderProperties(0/* parserThreads */,
+                1000/* bufferCapacity */);
+
+        final Properties pipelinedProperties = getLoaderProperties(
+                4/* parserThreads */, 1000/* bufferCapacity */);
+
+        final AbstractTripleStore serial = getStore(serialProperties);
+
+        try {
+
+            final AbstractTripleStore pipelined = getStore(pipelinedProperties);
+
+            try {
+
+                final DataLoader serialLoader = new DataLoader(
+                        serialProperties, serial);
+
+                final DataLoader pipelinedLoader = new DataLoader(
+                        pipelinedProperties, pipelined);
+
+                if (pipelined.getStatementIdentifiers()) {
+
+                    // The pipeline is not used with statement identifiers.
+                    assertFalse(pipelinedLoader.isPipelined());
+
+                    return;
+
+                }
+
+                assertFalse(serialLoader.isPipelined());
+
+                assertTrue(pipelinedLoader.isPipelined());
+
+                final LoadStats serialStats = serialLoader.loadFiles(dir,
+                        null/* baseURI */, RDFFormat.RDFXML,
+                        null/* defaultGraph */, null/* filter */);
+
+                final LoadStats pipelinedStats = pipelinedLoader.loadFiles(
+                        dir, null/* baseURI */, RDFFormat.RDFXML,
+                        null/* defaultGraph */, null/* filter */);
+
+                if (log.isInfoEnabled()) {
+                    log.info("serial   : " + serialStats);
+                    log.info("pipelined: " + pipelinedStats);
+                }
+
+                assertEquals("toldTriples", serialStats.toldTriples.get(),
+                        pipelinedStats.toldTriples.get());
+
+                assertEquals("statementCount", serial.getStatementCount(),
+                        pipelined.getStatementCount());
+
+                assertEquals("termCount", serial.getTermCount(),
+                        pipelined.getTermCount());
+
+                // Per-stage statistics are reported for the pipelined load.
+                assertTrue(pipelinedStats.parseTime.get() > 0L);
+                assertTrue(pipelinedStats.termCount.get() > 0L);
+                assertEquals(pipelinedStats.toldTriples.get(),
+                        pipelinedStats.indexCount.get());
+
+                // But not for the serial load.
+                assertEquals(0L, serialStats.indexCount.get());
+
+            } finally {
+
+                pipelined.__tearDownUnitTest();
+
+            }
+
+        } finally {
+
+            serial.__tearDownUnitTest();
+
+        }
+
+    }
+
+    /**
+     * Blank nodes are co-referenced within a file, even across batches, but
+     * not across files.
+     */
+    public void test_pipelined_bnodes() throws IOException {
+
+        final File dir = File.createTempFile(getName(), "");
+
+        if (!dir.delete() || !dir.mkdir())
+            fail("Could not create directory: " + dir);
+
+        final Properties properties = getLoaderProperties(2/* parserThreads */,
+                2/* bufferCapacity */);
+
+        final AbstractTripleStore store = getStore(properties);
+
+        try {
+
+            write(new File(dir, "a.nt"), ""
+                    + "_:a <http://example.com/p> <http://example.com/o1> .\n"
+                    + "_:a <http://example.com/p> <http://example.com/o2> .\n"
+                    + "_:a <http://example.com/p> <http://example.com/o3> .\n");
+
+            write(new File(dir, "b.nt"), ""
+                    + "_:a <http://example.com/p> <http://example.com/o1> .\n");
+
+            final DataLoader loader = new DataLoader(properties, store);
+
+            if (!loader.isPipelined())
+                return;
+
+            final LoadStats stats = loader.loadFiles(dir, null/* baseURI */,
+                    RDFFormat.NTRIPLES, null/* defaultGraph */, null/* filter */);
+
+            assertEquals("toldTriples", 4L, stats.toldTriples.get());
+
+            assertEquals("statementCount", 4L, store.getStatementCount());
+
+            final BigdataURI p = store.getValueFactory().createURI(
+                    "http://example.com/p");
+
+            final Set<Resource> subjects = new HashSet<Resource>();
+
+            final BigdataStatementIterator itr = store.getStatements(
+                    null/* s */, p, null/* o */);
+
+            try {
+
+                while (itr.hasNext()) {
+
+                    final BigdataStatement stmt = itr.next();
+
+                    subjects.add(stmt.getSubject());
+
+                }
+
+            } finally {
+
+                itr.close();
+
+            }
+
+            // One blank node per file.
+            assertEquals(2, subjects.size());
+
+        } finally {
+
+            store.__tearDownUnitTest();
+
+            for (File f : dir.listFiles())
+                f.delete();
+
+            dir.delete();
+
+        }
+
+    }
+
+    /**
+     * A bulk build is requested for a KB which maintains a transitive closure
+     * index. The bulk build would bypass the maintenance of that index, so
+     * the statements must be written incrementally and the closure must be
+     * complete once the load commits.
+     */
+    public void test_bulkBuild_transitiveClosure() throws IOException {
+
+        final String broader = "http://example.com/broader";
+
+        final File dir = File.createTempFile(getName(), "");
+
+        if (!dir.delete() || !dir.mkdir())
+            fail("Could not create directory: " + dir);
+
+        final Properties properties = getLoaderProperties(2/* parserThreads */,
+                2/* bufferCapacity */);
+
+        properties.setProperty(AbstractTripleStore.Options.QUADS, "false");
+
+        properties.setProperty(
+                AbstractTripleStore.Options.TRANSITIVE_CLOSURE_PREDICATES,
+                broader);
+
+        properties.setProperty(DataLoader.Options.BULK_BUILD, "true");
+
+        final AbstractTripleStore store = getStore(properties);
+
+        try {
+
+            write(new File(dir, "a.nt"), ""
+                    + "<http://example.com/a> <" + broader
+                    + "> <http://example.com/b> .\n"
+                    + "<http://example.com/b> <" + broader
+                    + "> <http://example.com/c> .\n");
+
+            final DataLoader loader = new DataLoader(properties, store);
+
+            if (!loader.isPipelined())
+                return;
+
+            loader.loadFiles(dir, null/* baseURI */, RDFFormat.NTRIPLES,
+                    null/* defaultGraph */, null/* filter */);
+
+            // The pipeline does not commit.
+            store.commit();
+
+            assertEquals("statementCount", 2L, store.getStatementCount());
+
+            final BigdataValueFactory f = store.getValueFactory();
+
+            final IV<?, ?> p = store.getIV(f.createURI(broader));
+            final IV<?, ?> a = store.getIV(f.createURI("http://example.com/a"));
+            final IV<?, ?> c = store.getIV(f.createURI("http://example.com/c"));
+
+            assertTrue(store.getSPORelation().getTransitiveClosureIndex()
+                    .contains(p, a, c));
+
+        } finally {
+
+            store.__tearDownUnitTest();
+
+            for (File f : dir.listFiles())
+                f.delete();
+
+            dir.delete();
+
+        }
+
+    }
+
+    private static void write(final File file, final String data)
+            throws IOException {
+
+        final Writer w = new FileWriter(file);
+
+        try {
+
+            w.write(data);
+
+        } finally {
+
+            w.close();
+
+        }
+
+    }
+
+}
@@ -59,6 +59,10 @@ public class TestAll extends TestCase {
 
         final TestSuite suite = new TestSuite("Describe/Sparql Cache");
 
+        suite.addTestSuite(TestSolutionSetCache.class);
+
+        suite.addTestSuite(TestPlanCache.class);
+
         if (QueryHints.CACHE_ENABLED) {
 
             suite.addTestSuite(TestCacheConnectionFactory.class);
@@ -0,0 +1,183 @@
+/**
+
+Copyright (C) SYSTAP, LLC 2006-2015.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@systap.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+/*
+ * Created on Oct 17, 2026
+ */
+
+package com.bigdata.rdf.sparql.ast.cache;
+
+import junit.framework.TestCase2;
+
+import com.bigdata.rdf.internal.IV;
+import com.bigdata.rdf.internal.VTE;
+import com.bigdata.rdf.internal.impl.TermId;
+import com.bigdata.rdf.sparql.ast.ASTContainer;
+import com.bigdata.rdf.sparql.ast.ConstantNode;
+import com.bigdata.rdf.sparql.ast.JoinGroupNode;
+import com.bigdata.rdf.sparql.ast.NamedSubqueryInclude;
+import com.bigdata.rdf.sparql.ast.OrderByExpr;
+import com.bigdata.rdf.sparql.ast.OrderByNode;
+import com.bigdata.rdf.sparql.ast.QueryHints;
+import com.bigdata.rdf.sparql.ast.QueryRoot;
+import com.bigdata.rdf.sparql.ast.QueryType;
+import com.bigdata.rdf.sparql.ast.StatementPatternNode;
+import com.bigdata.rdf.sparql.ast.VarNode;
+
+/**
+ * Test suite for the policy which decides which queries may be cached by the
+ * {@link PlanCache}.
+ */
+public class TestPlanCache extends TestCase2 {
+
+    public TestPlanCache() {
+    }
+
+    public TestPlanCache(String name) {
+        super(name);
+    }
+
+    private static final String QUERY = "select * { ?s <http://example.org/p> ?o }";
+
+    @SuppressWarnings("rawtypes")
+    private static ASTContainer newQuery(final IV p, final String queryStr) {
+
+        final QueryRoot queryRoot = new QueryRoot(QueryType.SELECT);
+
+        final JoinGroupNode whereClause = new JoinGroupNode();
+
+        whereClause.addChild(new StatementPatternNode(new VarNode("s"),
+                new ConstantNode(p), new VarNode("o")));
+
+        queryRoot.setWhereClause(whereClause);
+
+        final ASTContainer astContainer = new ASTContainer(queryRoot);
+
+        astContainer.setQueryString(queryStr);
+
+        return astContainer;
+
+    }
+
+    /**
+     * A query whose constants were resolved is cacheable.
+     */
+    public void test_cacheable() {
+
+        assertTrue(PlanCache.isCacheable(newQuery(new TermId(VTE.URI, 12L),
+                QUERY)));
+
+    }
+
+    /**
+     * A query without a query string is not cacheable.
+     */
+    public void test_notCacheable_noQueryString() {
+
+        assertFalse(PlanCache.isCacheable(newQuery(new TermId(VTE.URI, 12L),
+                null/* queryStr */)));
+
+    }
+
+    /**
+     * A query using a term which is not in the lexicon is not cacheable since
+     * the term could be added later.
+     */
+    public void test_notCacheable_unknownTerm() {
+
+        assertFalse(PlanCache.isCacheable(newQuery(TermId.mockIV(VTE.URI),
+                QUERY)));
+
+    }
+
+    /**
+     * A query using query hints is not cacheable, except for the QUERYID
+     * which is assigned to each query by the NSS.
+     */
+    public void test_queryHints() {
+
+        final ASTContainer a = newQuery(new TermId(VTE.URI, 12L), QUERY);
+
+        a.setQueryHint(QueryHints.QUERYID,
+                "8f7b5a0c-4f1a-4a3b-9b55-7a8f0f2f6c11");
+
+        assertTrue(PlanCache.isCacheable(a));
+
+        a.setQueryHint(QueryHints.ANALYTIC, "true");
+
+        assertFalse(PlanCache.isCacheable(a));
+
+        assertFalse(PlanCache.isCacheable(newQuery(new TermId(VTE.URI, 12L),
+                "prefix hint: <" + QueryHints.NAMESPACE + "> " + QUERY)));
+
+    }
+
+    /**
+     * A query which INCLUDEs a named solution set which it does not declare
+     * is not cacheable.
+     */
+    public void test_notCacheable_include() {
+
+        final ASTContainer a = newQuery(new TermId(VTE.URI, 12L), QUERY);
+
+        a.getOriginalAST().getWhereClause()
+                .addChild(new NamedSubqueryInclude("%set"));
+
+        assertFalse(PlanCache.isCacheable(a));
+
+    }
+
+    /**
+     * An optimized AST which relies on the index order of the data, either to
+     * elide the ORDER BY or to read an access path in reverse, may not be
+     * reused.
+     */
+    public void test_notReusable_indexOrder() {
+
+        final QueryRoot queryRoot = newQuery(new TermId(VTE.URI, 12L), QUERY)
+                .getOriginalAST();
+
+        assertTrue(PlanCache.isReusable(queryRoot));
+
+        final OrderByNode orderBy = new OrderByNode();
+
+        orderBy.addExpr(new OrderByExpr(new VarNode("o"), true/* ascending */));
+
+        queryRoot.setOrderBy(orderBy);
+
+        assertTrue(PlanCache.isReusable(queryRoot));
+
+        orderBy.setIndexOrder(true);
+
+        assertFalse(PlanCache.isReusable(queryRoot));
+
+        orderBy.setIndexOrder(false);
+
+        ((StatementPatternNode) queryRoot.getWhereClause().get(0))
+                .setReverseScan(true);
+
+        assertFalse(PlanCache.isReusable(queryRoot));
+
+    }
+
+}
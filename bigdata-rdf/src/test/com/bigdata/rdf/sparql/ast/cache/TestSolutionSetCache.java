@@ -0,0 +1,340 @@
+/**
+
+Copyright (C) SYSTAP, LLC 2006-2015.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@systap.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+/*
+ * Created on Oct 17, 2026
+ */
+
+package com.bigdata.rdf.sparql.ast.cache;
+
+import java.util.List;
+import java.util.Properties;
+
+import junit.framework.TestCase2;
+
+import org.openrdf.query.algebra.evaluation.QueryBindingSet;
+
+import com.bigdata.bop.IBindingSet;
+import com.bigdata.bop.bindingSet.ListBindingSet;
+import com.bigdata.bop.engine.IRunningQuery;
+import com.bigdata.bop.fed.QueryEngineFactory;
+import com.bigdata.btree.BytesUtil;
+import com.bigdata.btree.keys.KeyBuilder;
+import com.bigdata.io.DirectBufferPool;
+import com.bigdata.journal.BufferMode;
+import com.bigdata.journal.ITx;
+import com.bigdata.journal.Journal;
+import com.bigdata.rdf.axioms.NoAxioms;
+import com.bigdata.rdf.internal.IV;
+import com.bigdata.rdf.internal.VTE;
+import com.bigdata.rdf.internal.impl.TermId;
+import com.bigdata.rdf.model.BigdataURI;
+import com.bigdata.rdf.model.BigdataValueFactory;
+import com.bigdata.rdf.sail.sparql.Bigdata2ASTSPARQLParser;
+import com.bigdata.rdf.sparql.ast.ASTContainer;
+import com.bigdata.rdf.sparql.ast.ConstantNode;
+import com.bigdata.rdf.sparql.ast.FilterNode;
+import com.bigdata.rdf.sparql.ast.FunctionNode;
+import com.bigdata.rdf.sparql.ast.FunctionRegistry;
+import com.bigdata.rdf.sparql.ast.JoinGroupNode;
+import com.bigdata.rdf.sparql.ast.QueryRoot;
+import com.bigdata.rdf.sparql.ast.QueryType;
+import com.bigdata.rdf.sparql.ast.StatementPatternNode;
+import com.bigdata.rdf.sparql.ast.ValueExpressionNode;
+import com.bigdata.rdf.sparql.ast.VarNode;
+import com.bigdata.rdf.sparql.ast.eval.AST2BOpBase;
+import com.bigdata.rdf.sparql.ast.eval.ASTEvalHelper;
+import com.bigdata.rdf.store.AbstractTripleStore;
+import com.bigdata.rdf.store.LocalTripleStore;
+import com.bigdata.rwstore.sector.MemoryManager;
+
+import cutthecrap.utils.striterators.ICloseableIterator;
+
+/**
+ * Test suite for the keys and the statement index dependencies used by the
+ * {@link SolutionSetCache}.
+ */
+public class TestSolutionSetCache extends TestCase2 {
+
+    public TestSolutionSetCache() {
+    }
+
+    public TestSolutionSetCache(String name) {
+        super(name);
+    }
+
+    @SuppressWarnings("rawtypes")
+    private static QueryRoot newQuery(final IV p, final long rangeCount) {
+
+        final QueryRoot queryRoot = new QueryRoot(QueryType.SELECT);
+
+        final JoinGroupNode whereClause = new JoinGroupNode();
+
+        final StatementPatternNode sp = new StatementPatternNode(new VarNode(
+                "s"), p == null ? new VarNode("p") : new ConstantNode(p),
+                new VarNode("o"));
+
+        sp.setProperty(AST2BOpBase.Annotations.ESTIMATED_CARDINALITY,
+                rangeCount);
+
+        whereClause.addChild(sp);
+
+        queryRoot.setWhereClause(whereClause);
+
+        return queryRoot;
+
+    }
+
+    /**
+     * The key does not depend on the statistics attached to the optimized AST
+     * but does depend on the query and the exogenous solutions.
+     */
+    @SuppressWarnings("rawtypes")
+    public void test_cacheKey() {
+
+        final IV p = new TermId(VTE.URI, 12L);
+
+        final IBindingSet[] bindingSets = new IBindingSet[0];
+
+        final String k1 = SolutionSetCache.getCacheKey(newQuery(p, 10L),
+                bindingSets, false/* materializeProjectionInQuery */);
+
+        final String k2 = SolutionSetCache.getCacheKey(newQuery(p, 20L),
+                bindingSets, false/* materializeProjectionInQuery */);
+
+        assertNotNull(k1);
+
+        assertEquals(k1, k2);
+
+        assertFalse(k1.equals(SolutionSetCache.getCacheKey(newQuery(p, 10L),
+                bindingSets, true/* materializeProjectionInQuery */)));
+
+        assertFalse(k1.equals(SolutionSetCache.getCacheKey(newQuery(
+                new TermId(VTE.URI, 13L), 10L), bindingSets, false/* materializeProjectionInQuery */)));
+
+    }
+
+    /**
+     * A query using a non-deterministic function is not cached.
+     */
+    @SuppressWarnings("rawtypes")
+    public void test_cacheKey_nonDeterministic() {
+
+        final QueryRoot queryRoot = newQuery(new TermId(VTE.URI, 12L), 10L);
+
+        ((JoinGroupNode) queryRoot.getWhereClause()).addChild(new FilterNode(
+                new FunctionNode(FunctionRegistry.RAND, null/* scalarValues */,
+                        new ValueExpressionNode[] {})));
+
+        assertNull(SolutionSetCache.getCacheKey(queryRoot,
+                new IBindingSet[0], false/* materializeProjectionInQuery */));
+
+    }
+
+    /**
+     * A constant predicate narrows the dependency to the key range for that
+     * predicate. A variable predicate depends on the entire index.
+     */
+    @SuppressWarnings("rawtypes")
+    public void test_dependencies() {
+
+        final IV p = new TermId(VTE.URI, 12L);
+
+        final List<byte[][]> deps = SolutionSetCache
+                .getDependencies(newQuery(p, 10L));
+
+        assertEquals(1, deps.size());
+
+        final byte[] expected = p.encode(KeyBuilder.newInstance()).getKey();
+
+        assertTrue(BytesUtil.bytesEqual(expected, deps.get(0)[0]));
+
+        assertTrue(BytesUtil.compareBytes(deps.get(0)[0], deps.get(0)[1]) < 0);
+
+        final List<byte[][]> all = SolutionSetCache
+                .getDependencies(newQuery(null, 10L));
+
+        assertEquals(1, all.size());
+
+        assertNull(all.get(0)[0]);
+
+        assertNull(all.get(0)[1]);
+
+    }
+
+    /**
+     * A query is answered from the cache on a later commit point as long as
+     * no statement was written into the key range of its predicate. A write
+     * into that key range invalidates the entry and the query is evaluated
+     * again against the new commit point.
+     */
+    public void test_hit_and_invalidation() throws Exception {
+
+        final Properties properties = new Properties();
+
+        properties.setProperty(Journal.Options.BUFFER_MODE,
+                BufferMode.Transient.toString());
+
+        properties.setProperty(AbstractTripleStore.Options.AXIOMS_CLASS,
+                NoAxioms.class.getName());
+
+        final Journal jnl = new Journal(properties);
+
+        final MemoryManager mmgr = new MemoryManager(DirectBufferPool.INSTANCE);
+
+        try {
+
+            final AbstractTripleStore kb = new LocalTripleStore(jnl, "test",
+                    ITx.UNISOLATED, properties);
+
+            kb.create();
+
+            final BigdataValueFactory f = kb.getValueFactory();
+
+            final BigdataURI p = f.createURI("http://example.com/p");
+            final BigdataURI q = f.createURI("http://example.com/q");
+            final BigdataURI a = f.createURI("http://example.com/a");
+            final BigdataURI b = f.createURI("http://example.com/b");
+            final BigdataURI c = f.createURI("http://example.com/c");
+
+            kb.addStatement(a, p, b);
+            kb.addStatement(a, q, b);
+            kb.commit();
+
+            final SolutionSetCache cache = new SolutionSetCache(
+                    kb.getNamespace(), mmgr, new Properties());
+
+            final String queryStr = "select ?s ?o { ?s <http://example.com/p> ?o }";
+
+            // Evaluated and entered into the cache.
+            assertEquals(1, evaluate(jnl, cache, kb.getNamespace(), queryStr));
+            assertEquals(0L, cache.getHitCount());
+            assertEquals(1L, cache.getMissCount());
+            assertEquals(1, cache.getEntryCount());
+
+            // Answered from the cache.
+            assertEquals(1, evaluate(jnl, cache, kb.getNamespace(), queryStr));
+            assertEquals(1L, cache.getHitCount());
+            assertEquals(1L, cache.getMissCount());
+
+            // A write outside of the key range : the entry survives.
+            kb.addStatement(b, q, c);
+            kb.commit();
+
+            assertEquals(1, evaluate(jnl, cache, kb.getNamespace(), queryStr));
+            assertEquals(2L, cache.getHitCount());
+            assertEquals(1L, cache.getMissCount());
+            assertEquals(1L, cache.getRevalidationCount());
+            assertEquals(0L, cache.getInvalidationCount());
+
+            // A write inside of the key range : the entry is invalidated.
+            kb.addStatement(b, p, c);
+            kb.commit();
+
+            assertEquals(2, evaluate(jnl, cache, kb.getNamespace(), queryStr));
+            assertEquals(2L, cache.getHitCount());
+            assertEquals(2L, cache.getMissCount());
+            assertEquals(1L, cache.getInvalidationCount());
+            assertEquals(1, cache.getEntryCount());
+
+            // The fresh solutions were entered into the cache.
+            assertEquals(2, evaluate(jnl, cache, kb.getNamespace(), queryStr));
+            assertEquals(3L, cache.getHitCount());
+
+        } finally {
+
+            mmgr.close();
+
+            jnl.destroy();
+
+        }
+
+    }
+
+    /**
+     * Evaluate a SELECT query against the last commit point, reading the
+     * solutions from the cache when possible and entering them into the cache
+     * otherwise (this mirrors {@link ASTEvalHelper}).
+     * 
+     * @return The #of solutions.
+     */
+    private static int evaluate(final Journal jnl,
+            final SolutionSetCache cache, final String namespace,
+            final String queryStr) throws Exception {
+
+        final long commitTime = jnl.getLastCommitTime();
+
+        final AbstractTripleStore view = (AbstractTripleStore) jnl
+                .getResourceLocator().locate(namespace, commitTime);
+
+        final ISolutionSetCache cacheView = cache.getView(jnl, commitTime);
+
+        assertNotNull(cacheView);
+
+        final ASTContainer astContainer = new Bigdata2ASTSPARQLParser(view)
+                .parseQuery2(queryStr, null/* baseURI */);
+
+        final QueryRoot optimizedQuery = ASTEvalHelper.optimizeQuery(view,
+                astContainer, new QueryBindingSet());
+
+        final IBindingSet[] bindingSets = new IBindingSet[] { new ListBindingSet() };
+
+        final String key = cacheView.getCacheKey(optimizedQuery, bindingSets,
+                false/* materializeProjectionInQuery */);
+
+        assertNotNull(key);
+
+        ICloseableIterator<IBindingSet[]> itr = cacheView.get(key);
+
+        if (itr == null) {
+
+            final IRunningQuery runningQuery = QueryEngineFactory
+                    .getQueryController(jnl).eval(
+                            astContainer.getQueryPlan(), bindingSets);
+
+            itr = cacheView.put(key, optimizedQuery, runningQuery,
+                    runningQuery.iterator());
+
+        }
+
+        int n = 0;
+
+        try {
+
+            while (itr.hasNext()) {
+
+                n += itr.next().length;
+
+            }
+
+        } finally {
+
+            itr.close();
+
+        }
+
+        return n;
+
+    }
+
+}
@@ -192,6 +192,9 @@ public class TestAll extends TestCase {
         // @see #1035 (distinct-term-scan optimizer)
         suite.addTest(TestDistinctTermScanOptimizer.suite());
 
+        // SELECT ... ORDER BY ?o LIMIT k answered in index order.
+        suite.addTestSuite(TestTopKOptimizer.class);
+
         // SELECT (COUNT(*) as ?count) ?z WHERE {  ?x rdf:type ?z  } GROUP BY ?z
         // @see #1059 (combination of fast-range-count and distinct-term-scan)
         suite.addTest(TestSimpleGroupByAndCountOptimizer.suite());
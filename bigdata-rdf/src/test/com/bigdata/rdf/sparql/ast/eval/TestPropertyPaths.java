@@ -24,7 +24,11 @@ Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
 
 package com.bigdata.rdf.sparql.ast.eval;
 
+import java.util.Iterator;
 
+import com.bigdata.bop.BOpUtility;
+import com.bigdata.bop.paths.ArbitraryLengthPathOp;
+import com.bigdata.rdf.sparql.ast.ASTContainer;
 
 public class TestPropertyPaths extends AbstractDataDrivenSPARQLTestCase {
 
@@ -171,5 +175,156 @@ public class TestPropertyPaths extends AbstractDataDrivenSPARQLTestCase {
 
     }
     
+    /**
+     * Both ends of a <code>p+</code> path are bound (bidirectional search),
+     * including a cycle and a term without any outgoing edges.
+     */
+    public void test_inVar_outVar_bothBound_bidirectional_plus() throws Exception {
+
+       final ASTContainer astContainer = new TestHelper(
+             "property-paths10",           // testURI,
+             "property-paths-10.rq",       // queryFileURL
+             "property-paths-10.ttl",      // dataFileURL
+             "property-paths-10.srx"       // resultFileURL,
+             ).runTest();
+
+       assertPathMode(astContainer,
+             ArbitraryLengthPathOp.Annotations.BIDIRECTIONAL,
+             ArbitraryLengthPathOp.Annotations.DEFAULT_BIDIRECTIONAL);
+
+    }
+    
+    /**
+     * Both ends of a <code>p*</code> path are bound (bidirectional search).
+     */
+    public void test_inVar_outVar_bothBound_bidirectional_star() throws Exception {
+
+       final ASTContainer astContainer = new TestHelper(
+             "property-paths11",           // testURI,
+             "property-paths-11.rq",       // queryFileURL
+             "property-paths-10.ttl",      // dataFileURL
+             "property-paths-11.srx"       // resultFileURL,
+             ).runTest();
+
+       assertPathMode(astContainer,
+             ArbitraryLengthPathOp.Annotations.BIDIRECTIONAL,
+             ArbitraryLengthPathOp.Annotations.DEFAULT_BIDIRECTIONAL);
+
+    }
+    
+    /**
+     * ASK for a <code>p*</code> path between two constants (bidirectional
+     * search).
+     */
+    public void test_inConst_outConst_bidirectional_ask() throws Exception {
+
+       final ASTContainer astContainer = new TestHelper(
+             "property-paths12",           // testURI,
+             "property-paths-12.rq",       // queryFileURL
+             "property-paths-10.ttl",      // dataFileURL
+             "property-paths-12.srx"       // resultFileURL,
+             ).runTest();
+
+       assertPathMode(astContainer,
+             ArbitraryLengthPathOp.Annotations.BIDIRECTIONAL,
+             ArbitraryLengthPathOp.Annotations.DEFAULT_BIDIRECTIONAL);
+
+    }
+
+    /**
+     * {@link #test_cycle()} with the visited set, the frontier and the
+     * DISTINCT filter on the native heap.
+     * 
+     * @see ArbitraryLengthPathOp.Annotations#NATIVE
+     */
+    public void test_cycle_native() throws Exception {
+
+       final ASTContainer astContainer = new TestHelper(
+             "property-paths13",           // testURI,
+             "property-paths-13.rq",       // queryFileURL
+             "property-paths-8.ttl",       // dataFileURL
+             "property-paths-8.srx"        // resultFileURL,
+             ).runTest();
+
+       assertPathMode(astContainer, ArbitraryLengthPathOp.Annotations.NATIVE,
+             ArbitraryLengthPathOp.Annotations.DEFAULT_NATIVE);
+
+    }
+
+    /**
+     * {@link #test_multiplicity()} with the visited set, the frontier and the
+     * DISTINCT filter on the native heap.
+     * 
+     * @see ArbitraryLengthPathOp.Annotations#NATIVE
+     */
+    public void test_multiplicity_native() throws Exception {
+
+       final ASTContainer astContainer = new TestHelper(
+             "property-paths14",           // testURI,
+             "property-paths-14.rq",       // queryFileURL
+             "property-paths-9.ttl",       // dataFileURL
+             "property-paths-9.srx"        // resultFileURL,
+             ).runTest();
+
+       assertPathMode(astContainer, ArbitraryLengthPathOp.Annotations.NATIVE,
+             ArbitraryLengthPathOp.Annotations.DEFAULT_NATIVE);
+
+    }
+
+    /**
+     * Both ends of a <code>p+</code> path within a <code>GRAPH ?g</code> group
+     * are bound and the bidirectional search was requested. Some of the paths
+     * only exist when the edges of both named graphs are combined. The
+     * bidirectional search does not keep the path within the named graph, so
+     * it must not be used for a path having a context variable.
+     */
+    public void test_namedGraph_bothBound_bidirectional() throws Exception {
+
+       final ASTContainer astContainer = new TestHelper(
+             "property-paths15",           // testURI,
+             "property-paths-15.rq",       // queryFileURL
+             "property-paths-15.trig",     // dataFileURL
+             "property-paths-15.srx"       // resultFileURL,
+             ).runTest();
+
+       final Iterator<ArbitraryLengthPathOp> itr = BOpUtility.visitAll(
+             astContainer.getQueryPlan(), ArbitraryLengthPathOp.class);
+
+       assertTrue(itr.hasNext());
+
+       while (itr.hasNext()) {
+
+          final ArbitraryLengthPathOp op = itr.next();
+
+          assertFalse(op.toString(), op.getProperty(
+                ArbitraryLengthPathOp.Annotations.BIDIRECTIONAL,
+                ArbitraryLengthPathOp.Annotations.DEFAULT_BIDIRECTIONAL));
+
+       }
+
+    }
+
+    /**
+     * Verify that the {@link ArbitraryLengthPathOp}s in the query plan were
+     * run with the given boolean annotation enabled.
+     */
+    private void assertPathMode(final ASTContainer astContainer,
+          final String name, final boolean defaultValue) {
+
+       final Iterator<ArbitraryLengthPathOp> itr = BOpUtility.visitAll(
+             astContainer.getQueryPlan(), ArbitraryLengthPathOp.class);
+
+       assertTrue(itr.hasNext());
+
+       while (itr.hasNext()) {
+
+          final ArbitraryLengthPathOp op = itr.next();
+
+          assertTrue(op.toString(), op.getProperty(name, defaultValue));
+
+       }
+
+    }
+    
     
 }
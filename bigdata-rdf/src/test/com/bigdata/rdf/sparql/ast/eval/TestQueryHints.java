@@ -1551,4 +1551,30 @@ public class TestQueryHints extends AbstractDataDrivenSPARQLTestCase {
 
     }
 
+    /**
+     * Unit test for the {@link QueryHints#LATE_MATERIALIZATION} query hint.
+     * The projected variables include URIs, plain and language tagged
+     * literals, inline literals and a variable which is not bound in all
+     * solutions.
+     * 
+     * <pre>
+     * SELECT ?x ?o ?age ?mbox
+     * WHERE {
+     * 
+     *   hint:Query hint:lateMaterialization "true" .
+     * 
+     *   ?x rdf:type foaf:Person .
+     *   ?x rdfs:label ?o .
+     *   ?x foaf:age ?age .
+     *   OPTIONAL { ?x foaf:mbox ?mbox . }
+     * 
+     * }
+     * </pre>
+     */
+    public void test_query_hints_11() throws Exception {
+
+        new TestHelper("query-hints-11").runTest();
+
+    }
+
 }
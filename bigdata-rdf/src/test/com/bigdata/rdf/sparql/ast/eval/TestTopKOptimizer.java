@@ -0,0 +1,188 @@
+/**
+
+Copyright (C) SYSTAP, LLC 2006-2015.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@systap.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+/*
+ * Created on Oct 17, 2026
+ */
+
+package com.bigdata.rdf.sparql.ast.eval;
+
+import java.util.Iterator;
+import java.util.Properties;
+
+import com.bigdata.bop.BOpUtility;
+import com.bigdata.bop.PipelineOp;
+import com.bigdata.bop.solutions.MemorySortOp;
+import com.bigdata.bop.solutions.TopKSortOp;
+import com.bigdata.rdf.sparql.ast.ASTContainer;
+import com.bigdata.rdf.sparql.ast.OrderByNode;
+import com.bigdata.rdf.sparql.ast.QueryRoot;
+import com.bigdata.rdf.sparql.ast.StatementPatternNode;
+import com.bigdata.rdf.sparql.ast.optimizers.ASTTopKOptimizer;
+import com.bigdata.rdf.store.AbstractTripleStore;
+
+/**
+ * Data driven test suite for <code>ORDER BY ... LIMIT</code> queries which are
+ * answered in index order (see {@link ASTTopKOptimizer}). The results are
+ * compared in order.
+ */
+public class TestTopKOptimizer extends AbstractDataDrivenSPARQLTestCase {
+
+    public TestTopKOptimizer() {
+    }
+
+    public TestTopKOptimizer(final String name) {
+        super(name);
+    }
+
+    @Override
+    public Properties getProperties() {
+
+        final Properties properties = new Properties(super.getProperties());
+
+        // turn off quads.
+        properties.setProperty(AbstractTripleStore.Options.QUADS, "false");
+
+        // turn on triples
+        properties.setProperty(AbstractTripleStore.Options.TRIPLES_MODE,
+                "true");
+
+        return properties;
+
+    }
+
+    /**
+     * <pre>
+     * SELECT ?s ?o { ?s :p ?o } ORDER BY ?o LIMIT 3
+     * </pre>
+     * 
+     * The objects are all <code>xsd:int</code>, so the sort is elided and the
+     * POS index is scanned in key order.
+     */
+    public void test_topK_indexOrder_asc() throws Exception {
+
+        final TestHelper h = new TestHelper("topK_01", // testURI,
+                "topK_01.rq",// queryFileURL
+                "topK_01.ttl",// dataFileURL
+                "topK_01.srx",// resultFileURL
+                true // checkOrder
+        );
+
+        h.runTest();
+
+        assertIndexOrder(h.getASTContainer(), false/* reverseScan */);
+
+    }
+
+    /**
+     * <pre>
+     * SELECT ?s ?o { ?s :p ?o } ORDER BY DESC(?o) LIMIT 3
+     * </pre>
+     * 
+     * The objects are all <code>xsd:int</code>, so the sort is elided and the
+     * POS index is scanned in reverse key order.
+     */
+    public void test_topK_indexOrder_desc() throws Exception {
+
+        final TestHelper h = new TestHelper("topK_02", // testURI,
+                "topK_02.rq",// queryFileURL
+                "topK_01.ttl",// dataFileURL
+                "topK_02.srx",// resultFileURL
+                true // checkOrder
+        );
+
+        h.runTest();
+
+        assertIndexOrder(h.getASTContainer(), true/* reverseScan */);
+
+    }
+
+    /**
+     * <pre>
+     * SELECT ?s ?o { ?s :p ?o } ORDER BY ?o LIMIT 3
+     * </pre>
+     * 
+     * The objects mix <code>xsd:int</code> and <code>xsd:double</code>, whose
+     * key order is not the value order, so the solutions must be sorted.
+     */
+    public void test_topK_mixedDatatypes() throws Exception {
+
+        final TestHelper h = new TestHelper("topK_03", // testURI,
+                "topK_03.rq",// queryFileURL
+                "topK_02.ttl",// dataFileURL
+                "topK_03.srx",// resultFileURL
+                true // checkOrder
+        );
+
+        h.runTest();
+
+        final QueryRoot optimizedQuery = h.getASTContainer()
+                .getOptimizedAST();
+
+        assertFalse(optimizedQuery.getOrderBy().isIndexOrder());
+
+        assertEquals(1, BOpUtility.toList(h.getASTContainer().getQueryPlan(),
+                TopKSortOp.class).size());
+
+    }
+
+    /**
+     * Verify that the sort was elided in favor of the index order and that
+     * each operator in the query plan preserves the order of the solutions.
+     */
+    private void assertIndexOrder(final ASTContainer astContainer,
+            final boolean reverseScan) {
+
+        final QueryRoot optimizedQuery = astContainer.getOptimizedAST();
+
+        final OrderByNode orderBy = optimizedQuery.getOrderBy();
+
+        assertTrue(orderBy.isIndexOrder());
+
+        final StatementPatternNode sp = (StatementPatternNode) optimizedQuery
+                .getWhereClause().get(0);
+
+        assertEquals(reverseScan, sp.isReverseScan());
+
+        final PipelineOp queryPlan = astContainer.getQueryPlan();
+
+        assertEquals(0, BOpUtility.toList(queryPlan, TopKSortOp.class).size());
+
+        assertEquals(0, BOpUtility.toList(queryPlan, MemorySortOp.class).size());
+
+        final Iterator<PipelineOp> itr = BOpUtility.visitAll(queryPlan,
+                PipelineOp.class);
+
+        while (itr.hasNext()) {
+
+            final PipelineOp op = itr.next();
+
+            assertEquals(op.toString(), 1, op.getMaxParallel());
+
+            assertFalse(op.toString(), op.isReorderSolutions());
+
+        }
+
+    }
+
+}
@@ -70,6 +70,9 @@ public class TestAll extends TestCase {
         // 'barData' test suite (quads mode).
         suite.addTestSuite(TestRTO_BAR.class);
 
+        // Adaptive join ordering with re-planning by the RTO.
+        suite.addTestSuite(TestRTO_Adaptive.class);
+
         /*
          * FOAF test suite (quads mode).
          * 
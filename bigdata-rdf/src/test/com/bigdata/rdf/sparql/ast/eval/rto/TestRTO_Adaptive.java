@@ -0,0 +1,197 @@
+/**
+
+Copyright (C) SYSTAP, LLC 2006-2015.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@systap.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+/*
+ * Created on Oct 17, 2026
+ */
+
+package com.bigdata.rdf.sparql.ast.eval.rto;
+
+import java.util.Properties;
+import java.util.Set;
+import java.util.UUID;
+
+import com.bigdata.bop.BOpUtility;
+import com.bigdata.bop.engine.IRunningQuery;
+import com.bigdata.bop.engine.QueryEngine;
+import com.bigdata.bop.fed.QueryEngineFactory;
+import com.bigdata.bop.joinGraph.rto.JoinGraph;
+import com.bigdata.journal.IBTreeManager;
+import com.bigdata.rdf.axioms.NoAxioms;
+import com.bigdata.rdf.sail.BigdataSail;
+import com.bigdata.rdf.sparql.ast.ASTContainer;
+import com.bigdata.rdf.sparql.ast.QueryHints;
+import com.bigdata.rdf.sparql.ast.QueryOptimizerEnum;
+
+/**
+ * Data driven test suite for the {@link QueryOptimizerEnum#Adaptive}
+ * optimizer. The same query is run against data for which the static join
+ * cardinality estimates are badly wrong (every <code>?a</code> reaches every
+ * <code>?b</code> through a hub) and against data for which they hold (every
+ * <code>?a</code> reaches exactly one <code>?b</code>).
+ * 
+ * <pre>
+ * SELECT (COUNT(*) as ?count)
+ * WHERE {
+ *   ?a :p ?x .
+ *   ?x :q ?b .
+ *   ?b :r ?c .
+ * }
+ * </pre>
+ */
+public class TestRTO_Adaptive extends AbstractRTOTestCase {
+
+    public TestRTO_Adaptive() {
+    }
+
+    public TestRTO_Adaptive(final String name) {
+        super(name);
+    }
+
+    @Override
+    public Properties getProperties() {
+
+        // Note: clone to avoid modifying!!!
+        final Properties properties = (Properties) super.getProperties().clone();
+
+        properties.setProperty(BigdataSail.Options.TRIPLES_MODE, "true");
+
+        properties.setProperty(BigdataSail.Options.AXIOMS_CLASS,
+                NoAxioms.class.getName());
+
+        return properties;
+        
+    }
+
+    /**
+     * The static plan for the hub data. This establishes the result which the
+     * adaptive evaluation must reproduce.
+     */
+    public void test_ADAPTIVE_replan_static() throws Exception {
+
+        new TestHelper(//
+                "rto/ADAPTIVE-replan-static", // testURI,
+                "rto/ADAPTIVE-Q1-static.rq",// queryFileURL
+                "rto/ADAPTIVE-replan.ttl",// dataFileURL
+                "rto/ADAPTIVE-replan.srx"// resultFileURL
+        ).runTest();
+
+    }
+
+    /**
+     * Each join through the hub produces 144 solutions against an estimate of
+     * 12, so the static join order is abandoned and the RTO re-plans the join
+     * group. The solutions buffered before the re-plan must be discarded, so
+     * the count is the same as for the static plan.
+     */
+    public void test_ADAPTIVE_replan() throws Exception {
+
+        final TestHelper helper = new TestHelper(//
+                "rto/ADAPTIVE-replan", // testURI,
+                "rto/ADAPTIVE-Q1.rq",// queryFileURL
+                "rto/ADAPTIVE-replan.ttl",// dataFileURL
+                "rto/ADAPTIVE-replan.srx"// resultFileURL
+        );
+
+        final JoinGraph joinGraph = runAdaptive(helper);
+
+        // Verify that the RTO attached a join path to the query.
+        boolean replanned = false;
+        for (IRunningQuery q : runningQueries) {
+            if (joinGraph.getPath(q) != null)
+                replanned = true;
+        }
+        assertTrue("RTO did not run", replanned);
+
+    }
+
+    /**
+     * The joins produce the estimated number of solutions, so the static join
+     * order is kept and the RTO does not run.
+     */
+    public void test_ADAPTIVE_kept() throws Exception {
+
+        final TestHelper helper = new TestHelper(//
+                "rto/ADAPTIVE-kept", // testURI,
+                "rto/ADAPTIVE-Q1.rq",// queryFileURL
+                "rto/ADAPTIVE-kept.ttl",// dataFileURL
+                "rto/ADAPTIVE-kept.srx"// resultFileURL
+        );
+
+        final JoinGraph joinGraph = runAdaptive(helper);
+
+        // Verify that the static plan was kept without running the RTO.
+        boolean kept = false;
+        for (IRunningQuery q : runningQueries) {
+            assertNull("RTO ran", joinGraph.getPath(q));
+            if (joinGraph.getQueryPlan(q) != null)
+                kept = true;
+        }
+        assertTrue("No query plan", kept);
+
+    }
+
+    /**
+     * The queries observed by {@link #runAdaptive(TestHelper)}.
+     */
+    private Set<IRunningQuery> runningQueries;
+
+    /**
+     * Run the test while collecting the running queries.
+     * 
+     * @return The {@link JoinGraph} in the query plan.
+     */
+    private JoinGraph runAdaptive(final TestHelper helper) throws Exception {
+
+        final UUID queryId = UUID.randomUUID();
+
+        helper.getASTContainer().setQueryHint(QueryHints.QUERYID,
+                queryId.toString());
+
+        final QueryEngine queryEngine = QueryEngineFactory
+                .getExistingQueryController((IBTreeManager) helper
+                        .getTripleStore().getIndexManager());
+
+        final ASTContainer astContainer;
+        final MyQueryListener l = new MyQueryListener(queryId);
+        try {
+            queryEngine.addListener(l);
+            astContainer = helper.runTest();
+        } finally {
+            queryEngine.removeListener(l);
+        }
+
+        runningQueries = l.getRunningQueries();
+
+        final JoinGraph joinGraph = BOpUtility.getOnly(
+                astContainer.getQueryPlan(), JoinGraph.class);
+
+        assertNotNull(joinGraph);
+
+        assertTrue(joinGraph.isAdaptive());
+
+        return joinGraph;
+
+    }
+
+}
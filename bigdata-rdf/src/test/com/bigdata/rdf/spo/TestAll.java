@@ -91,6 +91,12 @@ public class TestAll extends TestCase {
 
         // test for shard split handler for the xxxC indices.
         suite.addTestSuite(TestXXXCShardSplitHandler.class);
+
+        // test for the transitive closure index.
+        suite.addTestSuite(TestTransitiveClosureIndex.class);
+
+        // test for the join cardinality statistics.
+        suite.addTestSuite(TestCharacteristicSetIndex.class);
         
         return suite;
         
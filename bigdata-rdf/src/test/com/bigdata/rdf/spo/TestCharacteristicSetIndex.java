@@ -0,0 +1,189 @@
+/**
+
+Copyright (C) SYSTAP, LLC 2006-2015.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@systap.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+/*
+ * Created on Oct 17, 2026
+ */
+
+package com.bigdata.rdf.spo;
+
+import java.util.Properties;
+
+import com.bigdata.rdf.axioms.NoAxioms;
+import com.bigdata.rdf.internal.IV;
+import com.bigdata.rdf.model.BigdataLiteral;
+import com.bigdata.rdf.model.BigdataURI;
+import com.bigdata.rdf.model.BigdataValueFactory;
+import com.bigdata.rdf.store.AbstractTripleStore;
+import com.bigdata.rdf.store.AbstractTripleStoreTestCase;
+
+/**
+ * Test suite for the {@link CharacteristicSetIndex}.
+ */
+public class TestCharacteristicSetIndex extends AbstractTripleStoreTestCase {
+
+    /**
+     *
+     */
+    public TestCharacteristicSetIndex() {
+    }
+
+    /**
+     * @param name
+     */
+    public TestCharacteristicSetIndex(final String name) {
+
+        super(name);
+
+    }
+
+    @Override
+    public Properties getProperties() {
+
+        final Properties properties = new Properties(super.getProperties());
+
+        properties.setProperty(AbstractTripleStore.Options.AXIOMS_CLASS,
+                NoAxioms.class.getName());
+
+        properties.setProperty(AbstractTripleStore.Options.ONE_ACCESS_PATH,
+                "false");
+
+        properties.setProperty(AbstractTripleStore.Options.CHARACTERISTIC_SETS,
+                "true");
+
+        properties.setProperty(
+                AbstractTripleStore.Options.CHARACTERISTIC_SETS_REFRESH_THRESHOLD,
+                ".5");
+
+        return properties;
+
+    }
+
+    /**
+     * Verify the statistics computed when the database commits, that they are
+     * not rebuilt while the drift is within the threshold and that they are
+     * rebuilt once it is not.
+     */
+    public void test_characteristicSets() {
+
+        final AbstractTripleStore store = getStore(getProperties());
+
+        try {
+
+            final SPORelation spo = store.getSPORelation();
+
+            assertTrue(spo.isCharacteristicSets());
+
+            assertTrue(spo.getCharacteristicSetIndex().isEmpty());
+
+            final BigdataValueFactory f = store.getValueFactory();
+
+            final BigdataURI type = f.createURI("http://www.bigdata.com/type");
+            final BigdataURI name = f.createURI("http://www.bigdata.com/name");
+            final BigdataURI age = f.createURI("http://www.bigdata.com/age");
+            final BigdataURI person = f.createURI("http://www.bigdata.com/Person");
+            final BigdataURI s1 = f.createURI("http://www.bigdata.com/s1");
+            final BigdataURI s2 = f.createURI("http://www.bigdata.com/s2");
+            final BigdataURI s3 = f.createURI("http://www.bigdata.com/s3");
+            final BigdataLiteral a = f.createLiteral("a");
+            final BigdataLiteral b = f.createLiteral("b");
+            final BigdataLiteral c = f.createLiteral("c");
+
+            /*
+             * {type,name} : s1 (1 name), s2 (2 names)
+             * 
+             * {type} : s3
+             */
+            store.addStatement(s1, type, person);
+            store.addStatement(s1, name, a);
+            store.addStatement(s2, type, person);
+            store.addStatement(s2, name, b);
+            store.addStatement(s2, name, c);
+            store.addStatement(s3, type, person);
+            store.commit();
+
+            final IV<?, ?> TYPE = store.getIV(type);
+            final IV<?, ?> NAME = store.getIV(name);
+
+            CharacteristicSetIndex ndx = spo.getCharacteristicSetIndex();
+
+            assertFalse(ndx.isEmpty());
+            assertEquals(6L, ndx.getStatementCount());
+            assertEquals(2L, ndx.getCharacteristicSetCount());
+
+            assertEquals(3L, ndx.getStatementCount(TYPE));
+            assertEquals(3L, ndx.getDistinctSubjectCount(TYPE));
+            assertEquals(1L, ndx.getDistinctObjectCount(TYPE));
+
+            assertEquals(3L, ndx.getStatementCount(NAME));
+            assertEquals(2L, ndx.getDistinctSubjectCount(NAME));
+            assertEquals(3L, ndx.getDistinctObjectCount(NAME));
+
+            // ?s type ?t : 3 solutions.
+            assertEquals(3d, ndx.estimateStarCardinality(new IV[] { TYPE }));
+
+            // ?s type ?t . ?s name ?n : 1 (s1) + 2 (s2) solutions.
+            assertEquals(3d, ndx.estimateStarCardinality(new IV[] { NAME,
+                    TYPE }));
+
+            /*
+             * ?s name ?n1 . ?s name ?n2 : 1 (s1) + 4 (s2) solutions, estimated
+             * from the average of 1.5 names per subject in {type,name}.
+             */
+            assertEquals(4.5d, ndx.estimateStarCardinality(new IV[] { NAME,
+                    NAME }));
+
+            // Drift within the threshold : the statistics are not rebuilt.
+            store.addStatement(s3, age, a);
+            store.commit();
+
+            ndx = spo.getCharacteristicSetIndex();
+
+            assertEquals(6L, ndx.getStatementCount());
+            assertEquals(2L, ndx.getCharacteristicSetCount());
+
+            // Drift beyond the threshold : the statistics are rebuilt.
+            store.addStatement(s1, age, b);
+            store.addStatement(s2, age, c);
+            store.addStatement(s1, age, c);
+            store.commit();
+
+            ndx = spo.getCharacteristicSetIndex();
+
+            final IV<?, ?> AGE = store.getIV(age);
+
+            assertEquals(10L, ndx.getStatementCount());
+            assertEquals(2L, ndx.getCharacteristicSetCount());
+            assertEquals(3L, ndx.getDistinctSubjectCount(AGE));
+            assertEquals(0d, ndx.estimateStarCardinality(new IV[] {
+                    store.getIV(person) }));
+
+        } finally {
+
+            store.__tearDownUnitTest();
+
+        }
+
+    }
+
+}
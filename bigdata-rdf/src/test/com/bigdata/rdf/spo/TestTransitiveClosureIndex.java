@@ -0,0 +1,351 @@
+/*
+
+Copyright (C) SYSTAP, LLC 2006-2015.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@systap.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+
+*/
+/*
+ * Created on Oct 17, 2026
+ */
+
+package com.bigdata.rdf.spo;
+
+import java.util.HashSet;
+import java.util.Properties;
+import java.util.Set;
+
+import com.bigdata.rdf.axioms.NoAxioms;
+import com.bigdata.rdf.internal.IV;
+import com.bigdata.rdf.model.BigdataURI;
+import com.bigdata.rdf.model.BigdataValueFactory;
+import com.bigdata.rdf.store.AbstractTripleStore;
+import com.bigdata.rdf.store.AbstractTripleStoreTestCase;
+import com.bigdata.rdf.store.TempTripleStore;
+
+import cutthecrap.utils.striterators.ICloseableIterator;
+
+/**
+ * Test suite for the {@link TransitiveClosureIndex}.
+ */
+public class TestTransitiveClosureIndex extends AbstractTripleStoreTestCase {
+
+    /**
+     *
+     */
+    public TestTransitiveClosureIndex() {
+    }
+
+    /**
+     * @param name
+     */
+    public TestTransitiveClosureIndex(final String name) {
+
+        super(name);
+
+    }
+
+    private static final String BROADER = "http://www.bigdata.com/broader";
+
+    @Override
+    public Properties getProperties() {
+
+        final Properties properties = new Properties(super.getProperties());
+
+        properties.setProperty(AbstractTripleStore.Options.QUADS, "false");
+
+        properties.setProperty(AbstractTripleStore.Options.AXIOMS_CLASS,
+                NoAxioms.class.getName());
+
+        properties.setProperty(
+                AbstractTripleStore.Options.TRANSITIVE_CLOSURE_PREDICATES,
+                BROADER);
+
+        return properties;
+
+    }
+
+    /**
+     * Verify that the closure is maintained incrementally as edges are added
+     * and removed.
+     */
+    public void test_transitiveClosure() {
+
+        final AbstractTripleStore store = getStore(getProperties());
+
+        try {
+
+            final SPORelation spo = store.getSPORelation();
+
+            assertTrue(spo.isTransitiveClosure());
+
+            final BigdataValueFactory f = store.getValueFactory();
+
+            final BigdataURI broader = f.createURI(BROADER);
+            final BigdataURI a = f.createURI("http://www.bigdata.com/a");
+            final BigdataURI b = f.createURI("http://www.bigdata.com/b");
+            final BigdataURI c = f.createURI("http://www.bigdata.com/c");
+            final BigdataURI d = f.createURI("http://www.bigdata.com/d");
+
+            store.addStatement(a, broader, b);
+            store.addStatement(b, broader, c);
+            store.commit();
+
+            final IV<?, ?> p = store.getIV(broader);
+            final IV<?, ?> A = store.getIV(a);
+            final IV<?, ?> B = store.getIV(b);
+            final IV<?, ?> C = store.getIV(c);
+
+            TransitiveClosureIndex ndx = spo.getTransitiveClosureIndex();
+
+            assertTrue(ndx.isTransitiveClosurePredicate(p));
+            assertFalse(ndx.isTransitiveClosurePredicate(A));
+
+            assertTrue(ndx.contains(p, A, B));
+            assertTrue(ndx.contains(p, B, C));
+            assertTrue(ndx.contains(p, A, C));
+            assertFalse(ndx.contains(p, C, A));
+            assertFalse(ndx.contains(p, A, A));
+
+            assertSameIVs(new IV[] { B, C }, ndx.getReachableFrom(p, A));
+            assertSameIVs(new IV[] { A, B }, ndx.getReachableTo(p, C));
+
+            // add an edge : the closure is extended incrementally.
+            store.addStatement(c, broader, d);
+            store.commit();
+
+            final IV<?, ?> D = store.getIV(d);
+
+            ndx = spo.getTransitiveClosureIndex();
+
+            assertTrue(ndx.contains(p, A, D));
+            assertTrue(ndx.contains(p, B, D));
+            assertSameIVs(new IV[] { B, C, D }, ndx.getReachableFrom(p, A));
+            assertEquals(4, ndx.getNodes(p).size());
+
+            // remove an edge : the closure is retracted incrementally.
+            store.removeStatements(b, broader, c);
+            store.commit();
+
+            ndx = spo.getTransitiveClosureIndex();
+
+            assertTrue(ndx.contains(p, A, B));
+            assertTrue(ndx.contains(p, C, D));
+            assertFalse(ndx.contains(p, A, C));
+            assertFalse(ndx.contains(p, A, D));
+            assertFalse(ndx.contains(p, B, C));
+            assertSameIVs(new IV[] { B }, ndx.getReachableFrom(p, A));
+
+            // add a cycle.
+            store.addStatement(d, broader, c);
+            store.commit();
+
+            ndx = spo.getTransitiveClosureIndex();
+
+            assertTrue(ndx.contains(p, C, C));
+            assertTrue(ndx.contains(p, D, D));
+            assertTrue(ndx.contains(p, D, C));
+
+        } finally {
+
+            store.__tearDownUnitTest();
+
+        }
+
+    }
+
+    /**
+     * Removing one of two paths between the same nodes must not retract the
+     * pairs which are still connected by the other path. Removing an edge and
+     * adding it back before the commit is not a change.
+     */
+    public void test_removeEdge_alternatePath() {
+
+        final AbstractTripleStore store = getStore(getProperties());
+
+        try {
+
+            final SPORelation spo = store.getSPORelation();
+
+            final BigdataValueFactory f = store.getValueFactory();
+
+            final BigdataURI broader = f.createURI(BROADER);
+            final BigdataURI a = f.createURI("http://www.bigdata.com/a");
+            final BigdataURI b = f.createURI("http://www.bigdata.com/b");
+            final BigdataURI c = f.createURI("http://www.bigdata.com/c");
+            final BigdataURI d = f.createURI("http://www.bigdata.com/d");
+            final BigdataURI e = f.createURI("http://www.bigdata.com/e");
+
+            // a diamond (a -> b -> d, a -> c -> d) with a tail (d -> e).
+            store.addStatement(a, broader, b);
+            store.addStatement(a, broader, c);
+            store.addStatement(b, broader, d);
+            store.addStatement(c, broader, d);
+            store.addStatement(d, broader, e);
+            store.commit();
+
+            final IV<?, ?> p = store.getIV(broader);
+            final IV<?, ?> A = store.getIV(a);
+            final IV<?, ?> B = store.getIV(b);
+            final IV<?, ?> C = store.getIV(c);
+            final IV<?, ?> D = store.getIV(d);
+            final IV<?, ?> E = store.getIV(e);
+
+            TransitiveClosureIndex ndx = spo.getTransitiveClosureIndex();
+
+            assertSameIVs(new IV[] { B, C, D, E }, ndx.getReachableFrom(p, A));
+
+            // remove one side of the diamond.
+            store.removeStatements(b, broader, d);
+            store.commit();
+
+            ndx = spo.getTransitiveClosureIndex();
+
+            assertSameIVs(new IV[] { B, C, D, E }, ndx.getReachableFrom(p, A));
+            assertSameIVs(new IV[] {}, ndx.getReachableFrom(p, B));
+            assertSameIVs(new IV[] { D, E }, ndx.getReachableFrom(p, C));
+            assertSameIVs(new IV[] { A, C }, ndx.getReachableTo(p, D));
+            assertSameIVs(new IV[] { A, C, D }, ndx.getReachableTo(p, E));
+
+            // remove and add back an edge within the same commit.
+            store.removeStatements(c, broader, d);
+            store.addStatement(c, broader, d);
+            store.commit();
+
+            ndx = spo.getTransitiveClosureIndex();
+
+            assertSameIVs(new IV[] { B, C, D, E }, ndx.getReachableFrom(p, A));
+            assertSameIVs(new IV[] { D, E }, ndx.getReachableFrom(p, C));
+
+        } finally {
+
+            store.__tearDownUnitTest();
+
+        }
+
+    }
+
+    /**
+     * Verify that changes which are discarded by an abort are not applied to
+     * the closure by the next commit.
+     */
+    public void test_abort() {
+
+        final AbstractTripleStore store = getStore(getProperties());
+
+        try {
+
+            final BigdataValueFactory f = store.getValueFactory();
+
+            final BigdataURI broader = f.createURI(BROADER);
+            final BigdataURI a = f.createURI("http://www.bigdata.com/a");
+            final BigdataURI b = f.createURI("http://www.bigdata.com/b");
+            final BigdataURI c = f.createURI("http://www.bigdata.com/c");
+
+            store.addStatement(a, broader, b);
+            store.commit();
+
+            store.addStatement(b, broader, c);
+            store.abort();
+
+            store.commit();
+
+            final IV<?, ?> p = store.getIV(broader);
+            final IV<?, ?> A = store.getIV(a);
+            final IV<?, ?> B = store.getIV(b);
+
+            assertSameIVs(new IV[] { B }, store.getSPORelation()
+                    .getTransitiveClosureIndex().getReachableFrom(p, A));
+
+        } finally {
+
+            store.__tearDownUnitTest();
+
+        }
+
+    }
+
+    /**
+     * A {@link TempTripleStore} does not inherit the option (it may not have a
+     * lexicon against which the predicates could be resolved).
+     */
+    public void test_tempTripleStore() {
+
+        final AbstractTripleStore store = getStore(getProperties());
+
+        try {
+
+            final Properties properties = new Properties();
+
+            properties.setProperty(AbstractTripleStore.Options.LEXICON,
+                    "false");
+
+            final TempTripleStore tmp = new TempTripleStore(store
+                    .getIndexManager().getTempStore(), properties, store);
+
+            try {
+
+                assertFalse(tmp.getSPORelation().isTransitiveClosure());
+
+                tmp.commit();
+
+            } finally {
+
+                tmp.close();
+
+            }
+
+        } finally {
+
+            store.__tearDownUnitTest();
+
+        }
+
+    }
+
+    private static void assertSameIVs(final IV<?, ?>[] expected,
+            final ICloseableIterator<IV<?, ?>> actual) {
+
+        final Set<IV<?, ?>> tmp = new HashSet<IV<?, ?>>();
+
+        try {
+
+            while (actual.hasNext()) {
+
+                tmp.add(actual.next());
+
+            }
+
+        } finally {
+
+            actual.close();
+
+        }
+
+        final Set<IV<?, ?>> exp = new HashSet<IV<?, ?>>();
+
+        for (IV<?, ?> iv : expected)
+            exp.add(iv);
+
+        assertEquals(exp, tmp);
+
+    }
+
+}
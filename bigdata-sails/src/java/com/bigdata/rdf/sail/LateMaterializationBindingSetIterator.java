@@ -0,0 +1,374 @@
+/**
+
+Copyright (C) SYSTAP, LLC 2006-2015.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@systap.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+/*
+ * Created on Oct 17, 2026
+ */
+
+package com.bigdata.rdf.sail;
+
+import info.aduna.iteration.CloseableIteration;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import org.apache.log4j.Logger;
+import org.openrdf.model.Value;
+import org.openrdf.query.BindingSet;
+import org.openrdf.query.QueryEvaluationException;
+import org.openrdf.query.QueryInterruptedException;
+import org.openrdf.query.impl.ListBindingSet;
+
+import com.bigdata.bop.IBindingSet;
+import com.bigdata.bop.IConstant;
+import com.bigdata.bop.IVariable;
+import com.bigdata.bop.engine.QueryTimeoutException;
+import com.bigdata.rdf.internal.IV;
+import com.bigdata.rdf.lexicon.LexiconRelation;
+import com.bigdata.rdf.model.BigdataValue;
+import com.bigdata.rdf.store.BigdataBindingSetResolverator;
+import com.bigdata.striterator.IChunkedIterator;
+import com.bigdata.util.InnerCause;
+
+/**
+ * Converts chunks of bigdata {@link IBindingSet}s whose projected variables are
+ * bound to {@link IV}s which have not been materialized into a Sesame 2
+ * {@link CloseableIteration} visiting {@link BindingSet}s containing
+ * {@link BigdataValue}s. The {@link IV}s are left unmaterialized until the
+ * solutions are consumed, at which point the distinct {@link IV}s for the
+ * projected variables in each chunk are resolved using a single batch request
+ * against the lexicon (the ID2TERM and BLOBS indices and the term caches).
+ * <p>
+ * This replaces the combination of the {@link BigdataBindingSetResolverator}
+ * and the {@link Bigdata2Sesame2BindingSetIterator} for SELECT queries. Unlike
+ * that combination, the source solutions are not copied, no {@link IConstant}s
+ * are allocated for the materialized values, and there is no producer thread
+ * or buffer between the resolution step and the consumer. Each output
+ * solution is a {@link ListBindingSet} over the shared list of projected
+ * variable names.
+ * 
+ * @see com.bigdata.rdf.sparql.ast.QueryHints#LATE_MATERIALIZATION
+ */
+public class LateMaterializationBindingSetIterator implements
+        CloseableIteration<BindingSet, QueryEvaluationException> {
+
+    private static final Logger log = Logger
+            .getLogger(LateMaterializationBindingSetIterator.class);
+
+    /**
+     * The source iterator (will be closed when this iterator is closed).
+     */
+    private final IChunkedIterator<IBindingSet> src;
+
+    /**
+     * The lexicon used to resolve the {@link IV}s.
+     */
+    private final LexiconRelation lex;
+
+    /**
+     * The projected variables.
+     */
+    private final IVariable<?>[] vars;
+
+    /**
+     * The names of the projected variables (shared by the output solutions).
+     */
+    private final List<String> names;
+
+    private final int termsChunkSize;
+
+    private final int blobsChunkSize;
+
+    private volatile boolean open = true;
+
+    /**
+     * The current chunk of source solutions.
+     */
+    private IBindingSet[] chunk = null;
+
+    /**
+     * The index of the next solution in {@link #chunk}.
+     */
+    private int index = 0;
+
+    /**
+     * The materialized values for the {@link IV}s in {@link #chunk}.
+     */
+    private Map<IV<?, ?>, BigdataValue> terms = null;
+
+    /**
+     * @param src
+     *            The source iterator (will be closed when this iterator is
+     *            closed).
+     * @param lex
+     *            The lexicon used to resolve the {@link IV}s.
+     * @param vars
+     *            The projected variables. Only these variables will appear in
+     *            the output solutions.
+     * @param termsChunkSize
+     *            The chunk size for materialization from the ID2TERM index.
+     * @param blobsChunkSize
+     *            The chunk size for materialization from the BLOBS index.
+     */
+    public LateMaterializationBindingSetIterator(
+            final IChunkedIterator<IBindingSet> src,
+            final LexiconRelation lex, final IVariable<?>[] vars,
+            final int termsChunkSize, final int blobsChunkSize) {
+
+        if (src == null)
+            throw new IllegalArgumentException();
+
+        if (lex == null)
+            throw new IllegalArgumentException();
+
+        if (vars == null)
+            throw new IllegalArgumentException();
+
+        this.src = src;
+
+        this.lex = lex;
+
+        this.vars = vars;
+
+        final String[] a = new String[vars.length];
+
+        for (int i = 0; i < vars.length; i++) {
+
+            a[i] = vars[i].getName();
+
+        }
+
+        this.names = Collections.unmodifiableList(Arrays.asList(a));
+
+        this.termsChunkSize = termsChunkSize;
+
+        this.blobsChunkSize = blobsChunkSize;
+
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Note: As for the {@link Bigdata2Sesame2BindingSetIterator}, all of the
+     * work to fetch and resolve the next chunk is done here rather than in
+     * {@link #next()} so an asynchronous close is noticed.
+     */
+    public boolean hasNext() throws QueryEvaluationException {
+
+        try {
+
+            if (!open) {
+                return false;
+            }
+
+            while (chunk == null || index == chunk.length) {
+
+                if (!src.hasNext()) {
+                    // Exhausted.
+                    close();
+                    return false;
+                }
+
+                // fetch and resolve the next chunk.
+                final IBindingSet[] tmp = src.nextChunk();
+
+                terms = resolveChunk(tmp);
+
+                chunk = tmp;
+
+                index = 0;
+
+            }
+
+            return true;
+
+        } catch (Throwable t) {
+
+            if (!open) {
+                // Ignore errors after an asynchronous close.
+                return false;
+            }
+
+            // Ensure closed.
+            try {
+                close();
+            } catch (Throwable t2) {
+                // Ignore.
+            }
+
+            // Wrap and rethrow.
+            if (InnerCause.isInnerCause(t, QueryTimeoutException.class)) {
+
+                /*
+                 * Align with the openrdf API.
+                 */
+
+                throw new QueryInterruptedException(t);
+
+            } else {
+
+                throw new QueryEvaluationException(t);
+
+            }
+
+        }
+
+    }
+
+    public BindingSet next() throws QueryEvaluationException {
+
+        if (!hasNext())
+            throw new NoSuchElementException();
+
+        final IBindingSet solution = chunk[index];
+
+        // release the reference to the source solution.
+        chunk[index++] = null;
+
+        final Value[] values = new Value[vars.length];
+
+        for (int i = 0; i < vars.length; i++) {
+
+            final IConstant<?> c = solution.get(vars[i]);
+
+            if (c == null) {
+                // not bound.
+                continue;
+            }
+
+            values[i] = getValue(c.get());
+
+        }
+
+        return new ListBindingSet(names, values);
+
+    }
+
+    /**
+     * Batch resolve the distinct {@link IV}s which are bound to the projected
+     * variables in the chunk.
+     */
+    private Map<IV<?, ?>, BigdataValue> resolveChunk(final IBindingSet[] chunk) {
+
+        final long begin = System.currentTimeMillis();
+
+        final Set<IV<?, ?>> ivs = new HashSet<IV<?, ?>>(chunk.length
+                * Math.max(1, vars.length));
+
+        for (IBindingSet solution : chunk) {
+
+            for (IVariable<?> v : vars) {
+
+                final IConstant<?> c = solution.get(v);
+
+                if (c == null)
+                    continue;
+
+                final Object val = c.get();
+
+                if (!(val instanceof IV<?, ?>))
+                    continue;
+
+                final IV<?, ?> iv = (IV<?, ?>) val;
+
+                if (iv.hasValue())
+                    continue;
+
+                ivs.add(iv);
+
+            }
+
+        }
+
+        if (ivs.isEmpty())
+            return Collections.emptyMap();
+
+        final Map<IV<?, ?>, BigdataValue> terms = lex.getTerms(ivs,
+                termsChunkSize, blobsChunkSize);
+
+        if (log.isInfoEnabled())
+            log.info("Resolved chunk: size=" + chunk.length + ", nterms="
+                    + ivs.size() + ", elapsed="
+                    + (System.currentTimeMillis() - begin));
+
+        return terms;
+
+    }
+
+    /**
+     * Return the materialized value for a bound value.
+     */
+    private Value getValue(final Object val) {
+
+        if (val instanceof IV<?, ?>) {
+
+            final IV<?, ?> iv = (IV<?, ?>) val;
+
+            if (iv.hasValue())
+                return iv.getValue();
+
+            final BigdataValue value = terms.get(iv);
+
+            if (value == null)
+                throw new RuntimeException("Could not resolve: iv=" + iv);
+
+            return value;
+
+        }
+
+        // Otherwise the bound value must be a BigdataValue.
+        return (BigdataValue) val;
+
+    }
+
+    /**
+     * @throws UnsupportedOperationException
+     */
+    public void remove() throws QueryEvaluationException {
+
+        throw new UnsupportedOperationException();
+
+    }
+
+    public void close() throws QueryEvaluationException {
+
+        if (open) {
+
+            open = false;
+
+            chunk = null;
+
+            terms = null;
+
+            src.close();
+
+        }
+
+    }
+
+}
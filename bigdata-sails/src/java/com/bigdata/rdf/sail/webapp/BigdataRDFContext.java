@@ -102,6 +102,9 @@ import com.bigdata.rdf.sparql.ast.QueryOptimizerEnum;
 import com.bigdata.rdf.sparql.ast.QueryRoot;
 import com.bigdata.rdf.sparql.ast.QueryType;
 import com.bigdata.rdf.sparql.ast.Update;
+import com.bigdata.rdf.sparql.ast.cache.CacheConnectionFactory;
+import com.bigdata.rdf.sparql.ast.cache.ICacheConnection;
+import com.bigdata.rdf.sparql.ast.cache.PlanCache;
 import com.bigdata.rdf.store.AbstractTripleStore;
 import com.bigdata.relation.RelationSchema;
 import com.bigdata.service.IBigdataFederation;
@@ -2084,8 +2087,30 @@ public class BigdataRDFContext extends BigdataBaseContext {
          * the query parser.
          */
         final AbstractTripleStore tripleStore = cxn.getTripleStore();
-        final ASTContainer astContainer = new Bigdata2ASTSPARQLParser(
-                tripleStore).parseQuery2(queryStr, baseURI);
+
+        /*
+         * Reuse the parse of the same query string (if the plan cache is
+         * enabled and the query was parsed before).
+         */
+        final ICacheConnection cacheConn = CacheConnectionFactory
+                .getExistingCacheConnection((QueryEngine) QueryEngineFactory
+                        .getQueryController(getIndexManager()));
+
+        final PlanCache planCache = cacheConn == null ? null : cacheConn
+                .getPlanCache(tripleStore.getNamespace());
+
+        ASTContainer astContainer = planCache == null ? null : planCache
+                .getParsedQuery(tripleStore, queryStr, baseURI);
+
+        if (astContainer == null) {
+
+            astContainer = new Bigdata2ASTSPARQLParser(tripleStore)
+                    .parseQuery2(queryStr, baseURI);
+
+            if (planCache != null)
+                planCache.putParsedQuery(tripleStore, baseURI, astContainer);
+
+        }
 
         if (log.isDebugEnabled())
             log.debug(astContainer.toString());
@@ -71,6 +71,8 @@ import com.bigdata.rdf.sail.webapp.BigdataRDFContext.UpdateTask;
 import com.bigdata.rdf.sparql.ast.ASTContainer;
 import com.bigdata.rdf.sparql.ast.QueryRoot;
 import com.bigdata.rdf.sparql.ast.UpdateRoot;
+import com.bigdata.rdf.sparql.ast.cache.CacheConnectionFactory;
+import com.bigdata.rdf.sparql.ast.cache.ICacheConnection;
 import com.bigdata.rdf.store.AbstractTripleStore;
 import com.bigdata.util.InnerCause;
 
@@ -645,6 +647,17 @@ public class StatusServlet extends BigdataRDFServlet {
 
                 }
 
+                // Performance counters for the plan cache (if enabled).
+                final ICacheConnection cacheConn = CacheConnectionFactory
+                        .getExistingCacheConnection(queryEngine);
+
+                if (cacheConn != null) {
+
+                    counterSet.makePath("planCache").attach(
+                            cacheConn.getCounters());
+
+                }
+
                 // @SuppressWarnings("rawtypes")
                 // final Iterator<ICounter> itr = counterSet
                 // .getCounters(null/* filter */);
@@ -45,6 +45,7 @@ import com.bigdata.cache.HardReferenceGlobalLRU;
 import com.bigdata.cache.HardReferenceGlobalLRURecycler;
 import com.bigdata.cache.HardReferenceGlobalLRURecyclerExplicitDeleteRequired;
 import com.bigdata.cache.IGlobalLRU;
+import com.bigdata.cache.WTinyLFUGlobalLRU;
 import com.bigdata.cache.WeakReferenceGlobalLRU;
 import com.bigdata.cache.IGlobalLRU.ILRUCache;
 import com.bigdata.journal.AbstractJournal;
@@ -253,6 +254,10 @@ public class LRUNexus {
          * The recently written {@link BCHMGlobalLRU2} implementation should be
          * ideal for both scale-out and scale-up once it has been tested more
          * throughly. Even better would be a LIRS access policy for that class.
+         * <p>
+         * The {@link WTinyLFUGlobalLRU} uses a frequency based admission
+         * policy which protects the hot upper levels of the indices from being
+         * displaced by large range scans.
          */
         String DEFAULT_CLASS = HardReferenceGlobalLRURecycler.class.getName();
 //        String DEFAULT_CLASS = BCHMGlobalLRU2.class.getName();
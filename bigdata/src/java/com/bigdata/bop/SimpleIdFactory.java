@@ -44,4 +44,28 @@ public class SimpleIdFactory implements IdFactory {
         
     }
 
+    /**
+     * Advance the factory such that the next id which it assigns is at least
+     * <i>nextId</i>. This is a NOP if the factory has already gone past that
+     * id.
+     * 
+     * @param nextId
+     *            The minimum value for the next id to be assigned.
+     */
+    public void setNextId(final int nextId) {
+
+        while (true) {
+
+            final int lastId = this.nextId.get();
+
+            if (lastId >= nextId - 1)
+                return;
+
+            if (this.nextId.compareAndSet(lastId, nextId - 1))
+                return;
+
+        }
+
+    }
+
 }
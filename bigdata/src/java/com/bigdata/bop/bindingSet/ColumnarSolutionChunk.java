@@ -0,0 +1,721 @@
+/**
+
+Copyright (C) SYSTAP, LLC 2006-2015.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@systap.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+/*
+ * Created on Oct 17, 2026
+ */
+
+package com.bigdata.bop.bindingSet;
+
+import java.io.ObjectStreamException;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.bigdata.bop.IBindingSet;
+import com.bigdata.bop.IConstant;
+import com.bigdata.bop.IVariable;
+
+/**
+ * A columnar representation of a chunk of solutions. There is one
+ * {@link IConstant}[] column per variable (a <code>null</code> entry is an
+ * unbound variable) and a selection vector which gives the physical rows of
+ * the column arrays in the logical order of the chunk.
+ * <p>
+ * Chunks are still exchanged between operators as {@link IBindingSet}[]s.
+ * {@link #toBindingSets()} returns lightweight {@link IBindingSet} views for
+ * the selected rows. A row view is a single object which references the shared
+ * columns, versus a {@link ListBindingSet} which allocates a list node and an
+ * entry for each bound variable. An operator which understands the columnar
+ * form uses {@link #getChunk(IBindingSet[])} to recover the chunk from such an
+ * array and then operates on the columns and the selection vector directly
+ * (project, filter, slice) without allocating per solution. Operators which do
+ * not understand the columnar form see ordinary {@link IBindingSet}s.
+ * <p>
+ * The columns are never modified once the chunk has been built, so projected,
+ * filtered and sliced chunks share them. A row view is copy-on-write: the
+ * first mutation copies its bindings into a private {@link ListBindingSet}
+ * which is used from then on.
+ */
+public class ColumnarSolutionChunk {
+
+    private static final IVariable<?>[] EMPTY_VARS = new IVariable<?>[0];
+
+    /**
+     * The variables (one per column).
+     */
+    private final IVariable<?>[] vars;
+
+    /**
+     * The columns. <code>columns[j][i]</code> is the binding of
+     * <code>vars[j]</code> for the physical row <code>i</code>.
+     */
+    private final IConstant<?>[][] columns;
+
+    /**
+     * The selection vector. Only the first {@link #size} entries are used.
+     */
+    private final int[] sel;
+
+    /**
+     * The #of selected rows.
+     */
+    private final int size;
+
+    private ColumnarSolutionChunk(final IVariable<?>[] vars,
+            final IConstant<?>[][] columns, final int[] sel, final int size) {
+
+        this.vars = vars;
+
+        this.columns = columns;
+
+        this.sel = sel;
+
+        this.size = size;
+
+    }
+
+    /**
+     * Return a columnar chunk for the solutions. If the solutions are the
+     * unmodified row views of a single columnar chunk, then the columns of that
+     * chunk are reused. Otherwise the bindings are copied into new columns.
+     * 
+     * @param a
+     *            The solutions.
+     * @param variablesToKeep
+     *            When non-<code>null</code>, only the listed variables are
+     *            retained.
+     */
+    @SuppressWarnings("rawtypes")
+    public static ColumnarSolutionChunk valueOf(final IBindingSet[] a,
+            final IVariable[] variablesToKeep) {
+
+        if (a == null)
+            throw new IllegalArgumentException();
+
+        final ColumnarSolutionChunk src = getChunk(a);
+
+        if (src != null) {
+
+            final ColumnarSolutionChunk c = src.select(a);
+
+            return variablesToKeep == null ? c : c.project(variablesToKeep);
+
+        }
+
+        if (variablesToKeep != null) {
+
+            final IConstant<?>[][] columns = new IConstant<?>[variablesToKeep.length][];
+
+            for (int j = 0; j < variablesToKeep.length; j++) {
+
+                final IConstant<?>[] col = columns[j] = new IConstant<?>[a.length];
+
+                for (int i = 0; i < a.length; i++) {
+
+                    col[i] = a[i].get(variablesToKeep[j]);
+
+                }
+
+            }
+
+            return new ColumnarSolutionChunk(variablesToKeep.clone(), columns,
+                    identity(a.length), a.length);
+
+        }
+
+        // Discover the variables and fill the columns in a single pass.
+        final Map<IVariable<?>, IConstant<?>[]> map = new LinkedHashMap<IVariable<?>, IConstant<?>[]>();
+
+        for (int i = 0; i < a.length; i++) {
+
+            final Iterator<Map.Entry<IVariable, IConstant>> itr = a[i]
+                    .iterator();
+
+            while (itr.hasNext()) {
+
+                final Map.Entry<IVariable, IConstant> e = itr.next();
+
+                IConstant<?>[] col = map.get(e.getKey());
+
+                if (col == null) {
+
+                    map.put(e.getKey(), col = new IConstant<?>[a.length]);
+
+                }
+
+                col[i] = e.getValue();
+
+            }
+
+        }
+
+        return new ColumnarSolutionChunk(map.keySet().toArray(EMPTY_VARS), map
+                .values().toArray(new IConstant<?>[map.size()][]),
+                identity(a.length), a.length);
+
+    }
+
+    /**
+     * Return the columnar chunk backing the solutions -or- <code>null</code>
+     * unless every solution is an unmodified row view of the same chunk.
+     */
+    public static ColumnarSolutionChunk getChunk(final IBindingSet[] a) {
+
+        if (a.length == 0 || !(a[0] instanceof Row))
+            return null;
+
+        final ColumnarSolutionChunk c = ((Row) a[0]).chunk;
+
+        for (int i = 0; i < a.length; i++) {
+
+            if (!(a[i] instanceof Row))
+                return null;
+
+            final Row r = (Row) a[i];
+
+            if (r.chunk != c || r.delegate != null)
+                return null;
+
+        }
+
+        return c;
+
+    }
+
+    /**
+     * Return <code>true</code> iff the solution is a row view of some
+     * {@link ColumnarSolutionChunk} which has not been modified.
+     */
+    public static boolean isUnmodifiedRow(final IBindingSet bset) {
+
+        return bset instanceof Row && ((Row) bset).delegate == null;
+
+    }
+
+    private static int[] identity(final int n) {
+
+        final int[] sel = new int[n];
+
+        for (int i = 0; i < n; i++) {
+
+            sel[i] = i;
+
+        }
+
+        return sel;
+
+    }
+
+    /**
+     * The #of selected rows.
+     */
+    public int size() {
+
+        return size;
+
+    }
+
+    /**
+     * The variables for the columns.
+     */
+    public IVariable<?>[] getVariables() {
+
+        return vars.clone();
+
+    }
+
+    /**
+     * Return the column for the variable -or- <code>null</code> if the
+     * variable is not bound in any row of this chunk. The column is indexed by
+     * the physical row.
+     * 
+     * @see #getRow(int)
+     */
+    public IConstant<?>[] getColumn(final IVariable<?> var) {
+
+        final int j = indexOf(var);
+
+        return j == -1 ? null : columns[j];
+
+    }
+
+    /**
+     * Return the physical row for the given logical row.
+     * 
+     * @param index
+     *            The logical row in <code>[0:size)</code>.
+     */
+    public int getRow(final int index) {
+
+        if (index < 0 || index >= size)
+            throw new IndexOutOfBoundsException();
+
+        return sel[index];
+
+    }
+
+    private int indexOf(final IVariable<?> var) {
+
+        for (int j = 0; j < vars.length; j++) {
+
+            if (vars[j] == var)
+                return j;
+
+        }
+
+        // Note: Var is canonical, but other IVariable impls might not be.
+        for (int j = 0; j < vars.length; j++) {
+
+            if (vars[j].equals(var))
+                return j;
+
+        }
+
+        return -1;
+
+    }
+
+    /**
+     * Return a chunk having only the given columns. The columns and the
+     * selection vector are shared with this chunk.
+     */
+    @SuppressWarnings("rawtypes")
+    public ColumnarSolutionChunk project(final IVariable[] variablesToKeep) {
+
+        final List<IVariable<?>> v = new ArrayList<IVariable<?>>(
+                variablesToKeep.length);
+
+        final List<IConstant<?>[]> c = new ArrayList<IConstant<?>[]>(
+                variablesToKeep.length);
+
+        for (IVariable<?> var : variablesToKeep) {
+
+            final int j = indexOf(var);
+
+            if (j == -1)
+                continue; // not bound in this chunk.
+
+            v.add(vars[j]);
+
+            c.add(columns[j]);
+
+        }
+
+        return new ColumnarSolutionChunk(v.toArray(EMPTY_VARS),
+                c.toArray(new IConstant<?>[c.size()][]), sel, size);
+
+    }
+
+    /**
+     * Return a chunk having the same columns with the given selection vector.
+     * 
+     * @param sel
+     *            The physical rows to be selected (in order).
+     * @param n
+     *            The #of entries of <i>sel</i> which are used.
+     */
+    public ColumnarSolutionChunk select(final int[] sel, final int n) {
+
+        if (n < 0 || n > sel.length)
+            throw new IllegalArgumentException();
+
+        return new ColumnarSolutionChunk(vars, columns, sel, n);
+
+    }
+
+    /**
+     * Return a chunk having the same columns which selects the given row views
+     * of this chunk.
+     */
+    private ColumnarSolutionChunk select(final IBindingSet[] a) {
+
+        final int[] tmp = new int[a.length];
+
+        for (int i = 0; i < a.length; i++) {
+
+            tmp[i] = ((Row) a[i]).row;
+
+        }
+
+        return select(tmp, tmp.length);
+
+    }
+
+    /**
+     * Return a chunk having the same columns which selects the logical rows
+     * <code>[offset:offset+n)</code> of this chunk.
+     */
+    public ColumnarSolutionChunk slice(final int offset, final int n) {
+
+        if (offset < 0 || n < 0 || offset + n > size)
+            throw new IllegalArgumentException();
+
+        return new ColumnarSolutionChunk(vars, columns, Arrays.copyOfRange(
+                sel, offset, offset + n), n);
+
+    }
+
+    /**
+     * Return the selected rows as {@link IBindingSet} views onto this chunk.
+     */
+    public IBindingSet[] toBindingSets() {
+
+        final IBindingSet[] a = new IBindingSet[size];
+
+        for (int i = 0; i < size; i++) {
+
+            a[i] = new Row(this, sel[i]);
+
+        }
+
+        return a;
+
+    }
+
+    @Override
+    public String toString() {
+
+        return getClass().getSimpleName() + "{vars=" + Arrays.toString(vars)
+                + ",size=" + size + "}";
+
+    }
+
+    /**
+     * An {@link IBindingSet} view of a row of a {@link ColumnarSolutionChunk}.
+     */
+    @SuppressWarnings("rawtypes")
+    private static class Row implements IBindingSet {
+
+        private static final long serialVersionUID = 1L;
+
+        private final ColumnarSolutionChunk chunk;
+
+        /**
+         * The physical row.
+         */
+        private final int row;
+
+        /**
+         * The bindings once the row has been modified.
+         */
+        private ListBindingSet delegate;
+
+        Row(final ColumnarSolutionChunk chunk, final int row) {
+
+            this.chunk = chunk;
+
+            this.row = row;
+
+        }
+
+        /**
+         * Copy the bindings into a {@link ListBindingSet}.
+         */
+        private ListBindingSet materialize() {
+
+            final ListBindingSet b = new ListBindingSet();
+
+            final IVariable<?>[] vars = chunk.vars;
+
+            for (int j = 0; j < vars.length; j++) {
+
+                final IConstant<?> val = chunk.columns[j][row];
+
+                if (val != null)
+                    b.set(vars[j], val);
+
+            }
+
+            return b;
+
+        }
+
+        /**
+         * Return the {@link ListBindingSet} to be modified.
+         */
+        private ListBindingSet delegate() {
+
+            if (delegate == null) {
+
+                delegate = materialize();
+
+            }
+
+            return delegate;
+
+        }
+
+        @Override
+        public boolean isBound(final IVariable var) {
+
+            return get(var) != null;
+
+        }
+
+        @Override
+        public void set(final IVariable var, final IConstant val) {
+
+            delegate().set(var, val);
+
+        }
+
+        @Override
+        public IConstant get(final IVariable var) {
+
+            if (var == null)
+                throw new IllegalArgumentException();
+
+            if (delegate != null)
+                return delegate.get(var);
+
+            final int j = chunk.indexOf(var);
+
+            return j == -1 ? null : chunk.columns[j][row];
+
+        }
+
+        @Override
+        public void clear(final IVariable var) {
+
+            delegate().clear(var);
+
+        }
+
+        @Override
+        public void clearAll() {
+
+            delegate().clearAll();
+
+        }
+
+        @Override
+        public boolean isEmpty() {
+
+            return size() == 0;
+
+        }
+
+        @Override
+        public int size() {
+
+            if (delegate != null)
+                return delegate.size();
+
+            int n = 0;
+
+            for (int j = 0; j < chunk.vars.length; j++) {
+
+                if (chunk.columns[j][row] != null)
+                    n++;
+
+            }
+
+            return n;
+
+        }
+
+        @Override
+        public Iterator<Map.Entry<IVariable, IConstant>> iterator() {
+
+            if (delegate != null)
+                return delegate.iterator();
+
+            final List<Map.Entry<IVariable, IConstant>> tmp = new ArrayList<Map.Entry<IVariable, IConstant>>(
+                    chunk.vars.length);
+
+            for (int j = 0; j < chunk.vars.length; j++) {
+
+                final IConstant<?> val = chunk.columns[j][row];
+
+                if (val != null)
+                    tmp.add(new AbstractMap.SimpleImmutableEntry<IVariable, IConstant>(
+                            chunk.vars[j], val));
+
+            }
+
+            final Iterator<Map.Entry<IVariable, IConstant>> itr = tmp
+                    .iterator();
+
+            return new Iterator<Map.Entry<IVariable, IConstant>>() {
+
+                private IVariable last = null;
+
+                @Override
+                public boolean hasNext() {
+                    return itr.hasNext();
+                }
+
+                @Override
+                public Map.Entry<IVariable, IConstant> next() {
+                    final Map.Entry<IVariable, IConstant> e = itr.next();
+                    last = e.getKey();
+                    return e;
+                }
+
+                @Override
+                public void remove() {
+                    if (last == null)
+                        throw new IllegalStateException();
+                    clear(last);
+                    last = null;
+                }
+
+            };
+
+        }
+
+        @Override
+        public Iterator<IVariable> vars() {
+
+            if (delegate != null)
+                return delegate.vars();
+
+            final List<IVariable> tmp = new ArrayList<IVariable>(
+                    chunk.vars.length);
+
+            for (int j = 0; j < chunk.vars.length; j++) {
+
+                if (chunk.columns[j][row] != null)
+                    tmp.add(chunk.vars[j]);
+
+            }
+
+            return Collections.unmodifiableList(tmp).iterator();
+
+        }
+
+        @Override
+        public IBindingSet clone() {
+
+            if (delegate != null)
+                return delegate.clone();
+
+            return new Row(chunk, row);
+
+        }
+
+        @Override
+        public IBindingSet copy(final IVariable[] variablesToKeep) {
+
+            if (delegate != null)
+                return delegate.copy(variablesToKeep);
+
+            if (variablesToKeep == null)
+                return new Row(chunk, row);
+
+            final ListBindingSet b = new ListBindingSet();
+
+            for (IVariable<?> var : variablesToKeep) {
+
+                final IConstant<?> val = get(var);
+
+                if (val != null)
+                    b.set(var, val);
+
+            }
+
+            return b;
+
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+
+            if (this == o)
+                return true;
+
+            if (!(o instanceof IBindingSet))
+                return false;
+
+            if (delegate != null)
+                return delegate.equals(o);
+
+            final IBindingSet t = (IBindingSet) o;
+
+            if (size() != t.size())
+                return false;
+
+            for (int j = 0; j < chunk.vars.length; j++) {
+
+                final IConstant<?> val = chunk.columns[j][row];
+
+                if (val == null)
+                    continue;
+
+                final IConstant<?> o_val = t.get(chunk.vars[j]);
+
+                if (o_val == null || !val.equals(o_val))
+                    return false;
+
+            }
+
+            return true;
+
+        }
+
+        @Override
+        public int hashCode() {
+
+            if (delegate != null)
+                return delegate.hashCode();
+
+            int h = 0;
+
+            for (int j = 0; j < chunk.vars.length; j++) {
+
+                final IConstant<?> val = chunk.columns[j][row];
+
+                if (val != null)
+                    h ^= val.hashCode();
+
+            }
+
+            return h;
+
+        }
+
+        @Override
+        public String toString() {
+
+            return (delegate != null ? delegate : materialize()).toString();
+
+        }
+
+        /**
+         * Serialize the bindings rather than the backing chunk.
+         */
+        private Object writeReplace() throws ObjectStreamException {
+
+            return delegate != null ? delegate : materialize();
+
+        }
+
+    }
+
+}
@@ -38,6 +38,7 @@ import com.bigdata.bop.IBindingSet;
 import com.bigdata.bop.IConstraint;
 import com.bigdata.bop.NV;
 import com.bigdata.bop.PipelineOp;
+import com.bigdata.bop.bindingSet.ColumnarSolutionChunk;
 import com.bigdata.bop.engine.BOpStats;
 import com.bigdata.relation.accesspath.IBlockingBuffer;
 
@@ -58,6 +59,10 @@ import cutthecrap.utils.striterators.ICloseableIterator;
  * Conditional routing will cause reordering of solutions when the alternate
  * sink is specified as some solutions will flow to the primary sink while
  * others flow to the alterate sink.
+ * <p>
+ * When the source chunk is a {@link ColumnarSolutionChunk}, the condition is
+ * evaluated against the rows of that chunk and the outputs are selection
+ * vectors over the same columns rather than copies of the solutions.
  * 
  * @author <a href="mailto:thompsonbry@users.sourceforge.net">Bryan Thompson</a>
  * @version $Id: ConditionalRoutingOp.java 7773 2014-01-11 12:49:05Z thompsonbry
@@ -178,6 +183,15 @@ public class ConditionalRoutingOp extends PipelineOp {
                     stats.chunksIn.increment();
                     stats.unitsIn.add(chunk.length);
 
+                    final ColumnarSolutionChunk columnar = ColumnarSolutionChunk
+                            .getChunk(chunk);
+
+                    if (columnar != null && routeColumnar(columnar)) {
+
+                        continue;
+
+                    }
+
                     final IBindingSet[] def = new IBindingSet[chunk.length];
                     final IBindingSet[] alt = sink2 == null ? null
                             : new IBindingSet[chunk.length];
@@ -246,6 +260,67 @@ public class ConditionalRoutingOp extends PipelineOp {
 
         } // call()
 
+        /**
+         * Route a columnar chunk by splitting its selection vector.
+         * 
+         * @return <code>false</code> if the condition modified a solution, in
+         *         which case nothing was routed and the caller must handle the
+         *         chunk.
+         */
+        private boolean routeColumnar(final ColumnarSolutionChunk chunk) {
+
+            final IBindingSet[] rows = chunk.toBindingSets();
+
+            final int[] def = new int[rows.length];
+            final int[] alt = sink2 == null ? null : new int[rows.length];
+
+            int ndef = 0, nalt = 0;
+
+            for (int i = 0; i < rows.length; i++) {
+
+                if (i % 20 == 0 && Thread.interrupted()) {
+
+                    // Eagerly notice if the operator is interrupted.
+                    throw new RuntimeException(new InterruptedException());
+
+                }
+
+                final boolean accept = condition.accept(rows[i]);
+
+                if (!ColumnarSolutionChunk.isUnmodifiedRow(rows[i])) {
+
+                    /*
+                     * The condition bound a variable. The selection vectors
+                     * can not carry that binding.
+                     */
+                    return false;
+
+                }
+
+                if (accept) {
+
+                    def[ndef++] = chunk.getRow(i);
+
+                } else if (sink2 != null) {
+
+                    alt[nalt++] = chunk.getRow(i);
+
+                }
+
+            }
+
+            if (ndef > 0) {
+                sink.add(chunk.select(def, ndef).toBindingSets());
+            }
+
+            if (nalt > 0) {
+                sink2.add(chunk.select(alt, nalt).toBindingSets());
+            }
+
+            return true;
+
+        }
+
     } // ConditionalRoutingTask.
 
 }
@@ -1717,6 +1717,29 @@ abstract public class AbstractRunningQuery implements IRunningQuery {
 
     }
 
+    @Override
+    public QueryMemoryGovernor getMemoryGovernor() {
+        QueryMemoryGovernor memoryGovernor = this.memoryGovernor.get();
+        if (memoryGovernor == null) {
+            long maxBytes = QueryHints.DEFAULT_MAX_HEAP_MEMORY_PER_QUERY;
+            if (maxBytes < 0) {
+                // Ignore illegal values.
+                maxBytes = 0L;
+            }
+            this.memoryGovernor.compareAndSet(null/* expect */,
+                    new QueryMemoryGovernor(maxBytes));
+            memoryGovernor = this.memoryGovernor.get();
+        }
+        return memoryGovernor;
+    }
+
+    /**
+     * The governor for the JVM heap retained by this query.
+     * 
+     * @see QueryHints#MAX_HEAP_MEMORY_PER_QUERY
+     */
+    private final AtomicReference<QueryMemoryGovernor> memoryGovernor = new AtomicReference<QueryMemoryGovernor>();
+
     @Override
     final public IQueryAttributes getAttributes() {
         
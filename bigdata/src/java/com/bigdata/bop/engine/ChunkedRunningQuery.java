@@ -842,6 +842,11 @@ public class ChunkedRunningQuery extends AbstractRunningQuery {
 
         private final ChunkTask t;
 
+        /**
+         * The time (nanos) at which the task was handed off for execution.
+         */
+        private final long readyNanos;
+
         public ChunkTaskWrapper(final ChunkTask chunkTask) {
 
             if (chunkTask == null)
@@ -849,6 +854,8 @@ public class ChunkedRunningQuery extends AbstractRunningQuery {
             
             this.t = chunkTask;
             
+            this.readyNanos = System.nanoTime();
+            
         }
         
         @Override
@@ -857,6 +864,8 @@ public class ChunkedRunningQuery extends AbstractRunningQuery {
             final QueryEngine queryEngine = getQueryEngine();
             final UUID serviceId = queryEngine.getServiceUUID();
             final QueryEngineCounters c = queryEngine.counters;
+            // time spent waiting for a thread.
+            c.addQueueingDelay(t.bop, System.nanoTime() - readyNanos);
             try {
 
                 /*
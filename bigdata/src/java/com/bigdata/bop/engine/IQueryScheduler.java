@@ -0,0 +1,76 @@
+/**
+
+Copyright (C) SYSTAP, LLC 2006-2015.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@systap.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+/*
+ * Created on Oct 17, 2026
+ */
+
+package com.bigdata.bop.engine;
+
+/**
+ * Interface for a pluggable dispatcher which decides when a running query will
+ * consume the chunks which are available for its operators. By default, the
+ * {@link QueryEngine} uses a single thread to drain a FIFO of queries which
+ * have work available. When an {@link IQueryScheduler} is configured, that
+ * dispatcher is bypassed and the scheduler is responsible for invoking
+ * {@link AbstractRunningQuery#consumeChunk()} for each query which it has been
+ * asked to {@link #schedule(AbstractRunningQuery)}.
+ * <p>
+ * Implementations MUST declare a public constructor accepting the
+ * {@link QueryEngineCounters} for the {@link QueryEngine}.
+ * 
+ * @see QueryEngine.Annotations#QUERY_SCHEDULER_CLASS
+ */
+public interface IQueryScheduler {
+
+    /**
+     * Notify the scheduler that one or more chunks are available for the
+     * query. The scheduler must eventually invoke
+     * {@link AbstractRunningQuery#consumeChunk()} unless the query is done.
+     * This method MUST NOT block.
+     * 
+     * @param q
+     *            The query.
+     */
+    void schedule(AbstractRunningQuery q);
+
+    /**
+     * Notify the scheduler that the query is done. Any state retained by the
+     * scheduler for that query should be released.
+     * 
+     * @param q
+     *            The query.
+     */
+    void halt(AbstractRunningQuery q);
+
+    /**
+     * Return the #of dispatch requests which are waiting to run.
+     */
+    int getQueueSize();
+
+    /**
+     * Terminate the scheduler. Pending dispatch requests are discarded.
+     */
+    void shutdownNow();
+
+}
@@ -139,6 +139,12 @@ public interface IRunningQuery extends IHaltable<Void>, IQueryContext {
      */
     long getElapsed();
 
+    /**
+     * Return the {@link QueryMemoryGovernor} which bounds the amount of JVM
+     * heap which may be retained by the operators of this query.
+     */
+    QueryMemoryGovernor getMemoryGovernor();
+
 //	/**
 //	 * Return <code>true</code> if there are no operators which could
 //	 * (re-)trigger the specified operator.
@@ -255,6 +255,42 @@ public class QueryEngine implements IQueryPeer, IQueryClient, ICounterSetAccess
 //        String DEFAULT_RUNNING_QUERY_CLASS = StandaloneChainedRunningQuery.class.getName();
         String DEFAULT_RUNNING_QUERY_CLASS = ChunkedRunningQuery.class.getName();
 
+        /**
+         * The name of the {@link IQueryScheduler} implementation class which
+         * will be used to dispatch queries having chunks available for
+         * evaluation (optional). This is an engine wide option and is read from
+         * the environment (<code>-D</code>) when the {@link QueryEngine} is
+         * {@link QueryEngine#init() initialized}. When not specified, a single
+         * thread drains a FIFO queue of the queries with available chunks.
+         * 
+         * @see IQueryScheduler
+         * @see WorkStealingQueryScheduler
+         * @see QueryEngine#newQueryScheduler()
+         */
+        String QUERY_SCHEDULER_CLASS = QueryEngine.class.getName()
+                + ".querySchedulerClass";
+
+        /**
+         * The #of worker threads for the {@link WorkStealingQueryScheduler}
+         * (read from the environment). When ZERO (0), there is one worker per
+         * core.
+         */
+        String QUERY_SCHEDULER_THREADS = QueryEngine.class.getName()
+                + ".querySchedulerThreads";
+
+        int DEFAULT_QUERY_SCHEDULER_THREADS = 0;
+
+        /**
+         * The priority of the query (optional). Queries with a higher priority
+         * are dispatched ahead of queries with a lower priority by schedulers
+         * which support priority.
+         * 
+         * @see WorkStealingQueryScheduler
+         */
+        String QUERY_PRIORITY = QueryEngine.class.getName() + ".queryPriority";
+
+        int DEFAULT_QUERY_PRIORITY = 0;
+
     }
 
     /**
@@ -268,6 +304,11 @@ public class QueryEngine implements IQueryPeer, IQueryClient, ICounterSetAccess
 
         // Note: This counter is not otherwise tracked.
         counters.deadlineQueueSize.set(deadlineQueue.size());
+
+        // Note: This counter is not otherwise tracked.
+        final IQueryScheduler scheduler = this.scheduler.get();
+        counters.schedulerQueueSize.set(scheduler == null ? priorityQueue
+                .size() : scheduler.getQueueSize());
         
         // global counters.
         root.attach(counters.getCounters());
@@ -911,6 +952,13 @@ public class QueryEngine implements IQueryPeer, IQueryClient, ICounterSetAccess
 
         if (engineFuture.compareAndSet(null/* expect */, ft)) {
         
+            /*
+             * Note: The QueryEngineTask is always started since it also checks
+             * the deadlines of the running queries. When there is a scheduler,
+             * nothing is ever added to the priorityQueue.
+             */
+            scheduler.set(newQueryScheduler());
+
             engineService.set(Executors
                     .newSingleThreadExecutor(new DaemonThreadFactory(
                             QueryEngine.class + ".engineService")));
@@ -925,6 +973,52 @@ public class QueryEngine implements IQueryPeer, IQueryClient, ICounterSetAccess
 
     }
 
+    /**
+     * Factory for the {@link IQueryScheduler}. The default implementation
+     * returns <code>null</code> unless
+     * {@link Annotations#QUERY_SCHEDULER_CLASS} was specified, in which case
+     * the {@link QueryEngineTask} dispatches the queries.
+     * 
+     * @return The {@link IQueryScheduler} -or- <code>null</code>.
+     * 
+     * @see Annotations#QUERY_SCHEDULER_CLASS
+     */
+    protected IQueryScheduler newQueryScheduler() {
+
+        final String className = System
+                .getProperty(Annotations.QUERY_SCHEDULER_CLASS);
+
+        if (className == null || className.trim().length() == 0)
+            return null;
+
+        final Class<?> cls;
+        try {
+            cls = Class.forName(className.trim());
+        } catch (ClassNotFoundException e) {
+            throw new RuntimeException("Bad option: "
+                    + Annotations.QUERY_SCHEDULER_CLASS, e);
+        }
+
+        if (!IQueryScheduler.class.isAssignableFrom(cls)) {
+            throw new RuntimeException(Annotations.QUERY_SCHEDULER_CLASS
+                    + ": Must implement: " + IQueryScheduler.class.getName());
+        }
+
+        try {
+
+            final Constructor<?> ctor = cls
+                    .getConstructor(new Class[] { QueryEngineCounters.class });
+
+            return (IQueryScheduler) ctor.newInstance(new Object[] { counters });
+
+        } catch (Exception ex) {
+
+            throw new RuntimeException(ex);
+
+        }
+
+    }
+
     /**
      * {@link QueryEngine}s are used with a singleton pattern managed by the
      * {@link QueryEngineFactory}. They are torn down automatically once they
@@ -949,6 +1043,15 @@ public class QueryEngine implements IQueryPeer, IQueryClient, ICounterSetAccess
      * The {@link Future} for the query engine.  This is set by {@link #init()}.
      */
     private final AtomicReference<FutureTask<Void>> engineFuture = new AtomicReference<FutureTask<Void>>();
+
+    /**
+     * The {@link IQueryScheduler} (optional). When set, queries with chunks
+     * available for evaluation are handed to the scheduler rather than the
+     * {@link #priorityQueue}. This is set by {@link #init()}.
+     * 
+     * @see Annotations#QUERY_SCHEDULER_CLASS
+     */
+    private final AtomicReference<IQueryScheduler> scheduler = new AtomicReference<IQueryScheduler>();
     
     /**
      * Volatile flag is set for normal termination.  When set, no new queries
@@ -1133,8 +1236,19 @@ public class QueryEngine implements IQueryPeer, IQueryClient, ICounterSetAccess
             
         }
 
-        // add query to the engine's task queue.
-        priorityQueue.add(q);
+        final IQueryScheduler scheduler = this.scheduler.get();
+
+        if (scheduler != null) {
+
+            // hand the query to the scheduler.
+            scheduler.schedule(q);
+
+        } else {
+
+            // add query to the engine's task queue.
+            priorityQueue.add(q);
+
+        }
 
         return true;
 
@@ -1181,6 +1295,14 @@ public class QueryEngine implements IQueryPeer, IQueryClient, ICounterSetAccess
             s.shutdownNow();
         }
         
+        // stop the scheduler (if any).
+        final IQueryScheduler qs = scheduler.get();
+        if (qs != null) {
+            if (log.isInfoEnabled())
+                log.info("Terminating scheduler: " + this);
+            qs.shutdownNow();
+        }
+        
         final HttpClient cm = clientConnectionManagerRef.get();
         if (cm != null) {
             if (log.isInfoEnabled())
@@ -1199,6 +1321,7 @@ public class QueryEngine implements IQueryPeer, IQueryClient, ICounterSetAccess
         // clear references.
         engineFuture.set(null);
         engineService.set(null);
+        scheduler.set(null);
         clientConnectionManagerRef.set(null);
         
     }
@@ -1238,6 +1361,14 @@ public class QueryEngine implements IQueryPeer, IQueryClient, ICounterSetAccess
             s.shutdownNow();
         }
         
+        // stop the scheduler (if any).
+        final IQueryScheduler qs = scheduler.get();
+        if (qs != null) {
+            if (log.isInfoEnabled())
+                log.info("Terminating scheduler: " + this);
+            qs.shutdownNow();
+        }
+        
         final HttpClient cm = clientConnectionManagerRef.get();
         if (cm != null) {
             if (log.isInfoEnabled())
@@ -1263,6 +1394,7 @@ public class QueryEngine implements IQueryPeer, IQueryClient, ICounterSetAccess
         // clear references.
         engineFuture.set(null);
         engineService.set(null);
+        scheduler.set(null);
         clientConnectionManagerRef.set(null);
         
     }
@@ -2024,6 +2156,11 @@ public class QueryEngine implements IQueryPeer, IQueryClient, ICounterSetAccess
             // remove from the set of running queries.
             runningQueries.remove(q.getQueryId(), q);
 
+            // release any state retained by the scheduler.
+            final IQueryScheduler scheduler = this.scheduler.get();
+            if (scheduler != null)
+                scheduler.halt(q);
+
             if(runningQueries.isEmpty()) {
 
                 // Signal that no queries are running.
@@ -27,6 +27,11 @@ Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
 
 package com.bigdata.bop.engine;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import com.bigdata.bop.BOp;
 import com.bigdata.counters.CAT;
 import com.bigdata.counters.CounterSet;
 import com.bigdata.counters.ICounterSetAccess;
@@ -107,6 +112,83 @@ public class QueryEngineCounters implements ICounterSetAccess {
      */
     protected final CAT deadlineQueueSize = new CAT();
 
+    /*
+     * Counters for the dispatcher.
+     */
+
+    /**
+     * The #of times that a query was dispatched by the
+     * {@link IQueryScheduler}.
+     */
+    protected final CAT dispatchCount = new CAT();
+
+    /**
+     * The total delay (nanos) between the time a query was submitted to the
+     * {@link IQueryScheduler} and the time it was dispatched.
+     */
+    protected final CAT dispatchDelayNanos = new CAT();
+
+    /**
+     * The #of dispatch requests waiting on the {@link IQueryScheduler}.
+     */
+    protected final CAT schedulerQueueSize = new CAT();
+
+    /**
+     * Counters for the operator evaluation tasks (chunk tasks), by operator.
+     * The key is the simple name of the operator class.
+     */
+    private final ConcurrentHashMap<String, OperatorCounters> operatorCounters = new ConcurrentHashMap<String, OperatorCounters>();
+
+    /**
+     * Counters for the operator evaluation tasks of some operator.
+     */
+    private static class OperatorCounters {
+
+        /**
+         * The #of operator evaluation tasks which have started.
+         */
+        final CAT taskCount = new CAT();
+
+        /**
+         * The total delay (nanos) between the time an operator evaluation task
+         * was ready to run and the time it started to run.
+         */
+        final CAT queueingDelayNanos = new CAT();
+
+    }
+
+    /**
+     * Report the queueing delay for an operator evaluation task (chunk task).
+     * This is the delay between the time the task was handed to the executor
+     * and the time it began to execute.
+     * 
+     * @param op
+     *            The operator.
+     * @param nanos
+     *            The queueing delay (nanos).
+     */
+    public void addQueueingDelay(final BOp op, final long nanos) {
+
+        final String name = op.getClass().getSimpleName();
+
+        OperatorCounters c = operatorCounters.get(name);
+
+        if (c == null) {
+
+            final OperatorCounters t = operatorCounters.putIfAbsent(name,
+                    c = new OperatorCounters());
+
+            if (t != null)
+                c = t;
+
+        }
+
+        c.taskCount.increment();
+
+        c.queueingDelayNanos.add(nanos);
+
+    }
+
     @Override
     public CounterSet getCounters() {
 
@@ -214,6 +296,80 @@ public class QueryEngineCounters implements ICounterSetAccess {
             }
         });
 
+        // #of queries dispatched by the scheduler.
+        root.addCounter("dispatchCount", new Instrument<Long>() {
+            @Override
+            public void sample() {
+                setValue(dispatchCount.get());
+            }
+        });
+
+        // average delay (ms) before a query is dispatched by the scheduler.
+        root.addCounter("averageDispatchDelayMillis", new Instrument<Double>() {
+            @Override
+            public void sample() {
+                final long n = dispatchCount.get();
+                final double d = n == 0 ? 0d : (dispatchDelayNanos.get()
+                        / (double) n / TimeUnit.MILLISECONDS.toNanos(1));
+                setValue(d);
+            }
+        });
+
+        // The #of dispatch requests waiting on the scheduler.
+        root.addCounter("schedulerQueueSize", new Instrument<Long>() {
+            @Override
+            public void sample() {
+                setValue(schedulerQueueSize.get());
+            }
+        });
+
+        // queueing delay per operator.
+        {
+
+            final CounterSet operators = root.makePath("operators");
+
+            for (Map.Entry<String, OperatorCounters> e : operatorCounters
+                    .entrySet()) {
+
+                final OperatorCounters c = e.getValue();
+
+                final CounterSet tmp = operators.makePath(e.getKey());
+
+                // #of operator evaluation tasks which have started.
+                tmp.addCounter("taskCount", new Instrument<Long>() {
+                    @Override
+                    public void sample() {
+                        setValue(c.taskCount.get());
+                    }
+                });
+
+                // total queueing delay (ms) for the operator tasks.
+                tmp.addCounter("queueingDelayMillis", new Instrument<Long>() {
+                    @Override
+                    public void sample() {
+                        setValue(TimeUnit.NANOSECONDS.toMillis(c.queueingDelayNanos
+                                .get()));
+                    }
+                });
+
+                // average queueing delay (ms) per operator task.
+                tmp.addCounter("averageQueueingDelayMillis",
+                        new Instrument<Double>() {
+                            @Override
+                            public void sample() {
+                                final long n = c.taskCount.get();
+                                final double d = n == 0 ? 0d
+                                        : (c.queueingDelayNanos.get()
+                                                / (double) n / TimeUnit.MILLISECONDS
+                                                .toNanos(1));
+                                setValue(d);
+                            }
+                        });
+
+            }
+
+        }
+
         return root;
 
     }
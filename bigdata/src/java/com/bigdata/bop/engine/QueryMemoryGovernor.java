@@ -0,0 +1,329 @@
+/**
+
+Copyright (C) SYSTAP, LLC 2006-2015.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@systap.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+/*
+ * Created on Oct 17, 2026
+ */
+
+package com.bigdata.bop.engine;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.log4j.Logger;
+
+import com.bigdata.bop.IBindingSet;
+import com.bigdata.rwstore.sector.IMemoryManager;
+
+/**
+ * Governs the amount of JVM heap which may be retained by the operators of a
+ * single query. Operators which buffer solutions on the JVM heap (hash
+ * indices, DISTINCT, GROUP BY) {@link #reserve(Object, long) reserve} an
+ * estimate of the bytes they retain before retaining them. When a reservation
+ * is denied the operator either spills its state onto the native heap (the
+ * query's {@link IMemoryManager}) or breaks the query with a
+ * {@link QueryMemoryLimitException}. Either way, a single query is not able to
+ * exhaust the JVM heap of a shared endpoint.
+ * <p>
+ * Reservations are tracked per owner. The owner is an opaque key chosen by the
+ * operator (typically the key of its shared state in the
+ * {@link IQueryAttributes}). {@link #release(Object)} returns all bytes
+ * reserved by an owner, e.g., when the operator releases its state or after
+ * its state was spilled.
+ * <p>
+ * Note: The estimates are deliberately coarse. The governor bounds the order
+ * of magnitude of the heap demand of a query, not its exact footprint.
+ */
+public class QueryMemoryGovernor {
+
+    private static final transient Logger log = Logger
+            .getLogger(QueryMemoryGovernor.class);
+
+    /**
+     * The maximum #of bytes which may be reserved -or- ZERO (0L) if there is
+     * no limit.
+     */
+    private final long maxBytes;
+
+    /**
+     * The #of bytes currently reserved.
+     */
+    private final AtomicLong reserved = new AtomicLong();
+
+    /**
+     * The high water mark for {@link #reserved}.
+     */
+    private final AtomicLong peak = new AtomicLong();
+
+    /**
+     * The #of times an operator spilled its state to the native heap.
+     */
+    private final AtomicLong spillCount = new AtomicLong();
+
+    /**
+     * The #of bytes reserved by each owner.
+     */
+    private final ConcurrentHashMap<Object, AtomicLong> owners = new ConcurrentHashMap<Object, AtomicLong>();
+
+    /**
+     * @param maxBytes
+     *            The maximum #of bytes which may be reserved -or- ZERO (0L)
+     *            if there is no limit.
+     */
+    public QueryMemoryGovernor(final long maxBytes) {
+
+        if (maxBytes < 0L)
+            throw new IllegalArgumentException();
+
+        this.maxBytes = maxBytes;
+
+    }
+
+    /**
+     * The maximum #of bytes which may be reserved -or- ZERO (0L) if there is
+     * no limit.
+     */
+    public long getMaxBytes() {
+
+        return maxBytes;
+
+    }
+
+    /**
+     * The #of bytes which are currently reserved.
+     */
+    public long getReservedBytes() {
+
+        return reserved.get();
+
+    }
+
+    /**
+     * The maximum #of bytes which were reserved at any one time.
+     */
+    public long getPeakBytes() {
+
+        return peak.get();
+
+    }
+
+    /**
+     * The #of times an operator spilled its state to the native heap.
+     */
+    public long getSpillCount() {
+
+        return spillCount.get();
+
+    }
+
+    /**
+     * The #of bytes currently reserved by the owner.
+     */
+    public long getReservedBytes(final Object owner) {
+
+        final AtomicLong n = owners.get(owner);
+
+        return n == null ? 0L : n.get();
+
+    }
+
+    /**
+     * Attempt to reserve some bytes against the budget of the query.
+     * 
+     * @param owner
+     *            The owner of the reservation.
+     * @param nbytes
+     *            The #of bytes to reserve.
+     * 
+     * @return <code>true</code> iff the reservation was granted. When
+     *         <code>false</code> nothing was reserved and the caller must
+     *         either spill its state or fail.
+     */
+    public boolean reserve(final Object owner, final long nbytes) {
+
+        if (owner == null)
+            throw new IllegalArgumentException();
+
+        if (nbytes < 0L)
+            throw new IllegalArgumentException();
+
+        while (true) {
+
+            final long cur = reserved.get();
+
+            final long next = cur + nbytes;
+
+            if (maxBytes != 0L && next > maxBytes) {
+
+                if (log.isInfoEnabled())
+                    log.info("Denied: owner=" + owner + ", nbytes=" + nbytes
+                            + ", reserved=" + cur + ", maxBytes=" + maxBytes);
+
+                return false;
+
+            }
+
+            if (reserved.compareAndSet(cur, next)) {
+
+                AtomicLong n = owners.get(owner);
+
+                if (n == null) {
+
+                    final AtomicLong tmp = owners.putIfAbsent(owner,
+                            n = new AtomicLong());
+
+                    if (tmp != null)
+                        n = tmp;
+
+                }
+
+                n.addAndGet(nbytes);
+
+                // update the high water mark.
+                long p;
+                while (next > (p = peak.get())) {
+                    if (peak.compareAndSet(p, next))
+                        break;
+                }
+
+                return true;
+
+            }
+
+        }
+
+    }
+
+    /**
+     * Reserve some bytes against the budget of the query, breaking the query
+     * if the reservation is denied. This is used by operators which have no
+     * means to spill their state.
+     * 
+     * @param owner
+     *            The owner of the reservation.
+     * @param nbytes
+     *            The #of bytes to reserve.
+     * 
+     * @throws QueryMemoryLimitException
+     *             if the reservation was denied.
+     */
+    public void reserveOrFail(final Object owner, final long nbytes) {
+
+        if (!reserve(owner, nbytes)) {
+
+            throw new QueryMemoryLimitException("owner=" + owner
+                    + ", nbytes=" + nbytes + ", reserved=" + reserved.get()
+                    + ", maxBytes=" + maxBytes);
+
+        }
+
+    }
+
+    /**
+     * Release all bytes reserved by the owner.
+     * 
+     * @param owner
+     *            The owner.
+     * 
+     * @return The #of bytes released.
+     */
+    public long release(final Object owner) {
+
+        final AtomicLong n = owners.remove(owner);
+
+        if (n == null)
+            return 0L;
+
+        /*
+         * Note: A concurrent reserve() may have added to [n] after it was
+         * removed from the map. Those bytes are released here as well since
+         * the owner is being released.
+         */
+        final long nbytes = n.getAndSet(0L);
+
+        reserved.addAndGet(-nbytes);
+
+        return nbytes;
+
+    }
+
+    /**
+     * Note that the owner has spilled its state onto the native heap and
+     * release its reservation.
+     * 
+     * @param owner
+     *            The owner.
+     * 
+     * @return The #of bytes released.
+     */
+    public long spilled(final Object owner) {
+
+        spillCount.incrementAndGet();
+
+        final long nbytes = release(owner);
+
+        if (log.isInfoEnabled())
+            log.info("Spilled: owner=" + owner + ", released=" + nbytes);
+
+        return nbytes;
+
+    }
+
+    /**
+     * Estimate the #of bytes retained on the JVM heap by a solution. This
+     * assumes an object header and array for the solution and a variable,
+     * constant and IV per binding.
+     */
+    public static long estimateSize(final IBindingSet bset) {
+
+        return 64L + 48L * bset.size();
+
+    }
+
+    /**
+     * Estimate the #of bytes retained on the JVM heap by a chunk of solutions.
+     */
+    public static long estimateSize(final IBindingSet[] a) {
+
+        long n = 0L;
+
+        for (IBindingSet bset : a) {
+
+            n += estimateSize(bset);
+
+        }
+
+        return n;
+
+    }
+
+    @Override
+    public String toString() {
+
+        return getClass().getSimpleName() + "{maxBytes=" + maxBytes
+                + ",reserved=" + reserved.get() + ",peak=" + peak.get()
+                + ",spillCount=" + spillCount.get() + "}";
+
+    }
+
+}
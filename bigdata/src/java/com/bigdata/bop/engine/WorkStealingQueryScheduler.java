@@ -0,0 +1,404 @@
+/**
+
+Copyright (C) SYSTAP, LLC 2006-2015.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@systap.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+/*
+ * Created on Oct 17, 2026
+ */
+
+package com.bigdata.bop.engine;
+
+import java.util.Comparator;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.log4j.Logger;
+
+/**
+ * An {@link IQueryScheduler} which dispatches queries onto a work stealing
+ * {@link ForkJoinPool} having one worker (and one deque) per core.
+ * <p>
+ * Each dispatch task runs a single {@link AbstractRunningQuery#consumeChunk()}
+ * pass for a single query. If more chunks arrived for that query while it was
+ * being dispatched, then a new dispatch task is forked onto the tail of the
+ * local deque of the worker. This provides per-query fairness: a query with a
+ * steady stream of chunks can not monopolize a worker while other queries are
+ * waiting, and idle workers steal dispatch tasks from busy workers.
+ * <p>
+ * Wakeups are coalesced per query. At most one dispatch task is outstanding
+ * for a query no matter how many chunks are posted against it, and at most
+ * one thread will run {@link AbstractRunningQuery#consumeChunk()} for a given
+ * query at a time.
+ * <p>
+ * Queries annotated with a positive
+ * {@link QueryEngine.Annotations#QUERY_PRIORITY} are also placed onto a shared
+ * priority lane. Every dispatch task drains that lane (highest priority first)
+ * before it dispatches its own query.
+ * <p>
+ * Note: This replaces only the dispatcher. The operator tasks (chunk tasks)
+ * are still executed on the service of the {@link QueryEngine} since they can
+ * block on IO and must not starve the workers of this pool.
+ * 
+ * @see QueryEngine.Annotations#QUERY_SCHEDULER_CLASS
+ */
+public class WorkStealingQueryScheduler implements IQueryScheduler {
+
+    private static final transient Logger log = Logger
+            .getLogger(WorkStealingQueryScheduler.class);
+
+    private final QueryEngineCounters counters;
+
+    /**
+     * The work stealing pool.
+     */
+    private final ForkJoinPool pool;
+
+    /**
+     * The dispatch state for each query known to the scheduler.
+     */
+    private final ConcurrentHashMap<UUID, DispatchState> queries = new ConcurrentHashMap<UUID, DispatchState>();
+
+    /**
+     * The priority lane. This only contains entries for queries having a
+     * positive priority.
+     */
+    private final PriorityBlockingQueue<PriorityEntry> priorityLane = new PriorityBlockingQueue<PriorityEntry>(
+            16, PriorityEntry.COMPARATOR);
+
+    /**
+     * Used to impose FIFO order among entries with the same priority.
+     */
+    private final AtomicLong sequence = new AtomicLong();
+
+    /**
+     * 
+     * @param counters
+     *            The counters for the {@link QueryEngine}.
+     * 
+     * @see QueryEngine.Annotations#QUERY_SCHEDULER_THREADS
+     */
+    public WorkStealingQueryScheduler(final QueryEngineCounters counters) {
+
+        if (counters == null)
+            throw new IllegalArgumentException();
+
+        this.counters = counters;
+
+        int nthreads = Integer.getInteger(
+                QueryEngine.Annotations.QUERY_SCHEDULER_THREADS,
+                QueryEngine.Annotations.DEFAULT_QUERY_SCHEDULER_THREADS);
+
+        if (nthreads <= 0) {
+
+            // One worker per core.
+            nthreads = Runtime.getRuntime().availableProcessors();
+
+        }
+
+        /*
+         * Note: asyncMode := true gives FIFO order for the local deques. The
+         * dispatch tasks are never joined, so this is the appropriate mode and
+         * it is what provides the round robin over the queries.
+         */
+        this.pool = new ForkJoinPool(nthreads,
+                ForkJoinPool.defaultForkJoinWorkerThreadFactory,
+                null/* handler */, true/* asyncMode */);
+
+        if (log.isInfoEnabled())
+            log.info("nthreads=" + nthreads);
+
+    }
+
+    @Override
+    public void schedule(final AbstractRunningQuery q) {
+
+        if (q.isDone())
+            return;
+
+        DispatchState s = queries.get(q.getQueryId());
+
+        if (s == null) {
+
+            final DispatchState t = queries.putIfAbsent(q.getQueryId(),
+                    s = new DispatchState(q));
+
+            if (t != null)
+                s = t;
+
+        }
+
+        if (s.pending.getAndIncrement() == 0) {
+
+            // Transition from idle : the query must be dispatched.
+            submit(s);
+
+        }
+
+    }
+
+    @Override
+    public void halt(final AbstractRunningQuery q) {
+
+        queries.remove(q.getQueryId());
+
+    }
+
+    @Override
+    public int getQueueSize() {
+
+        return (int) Math.min(Integer.MAX_VALUE, pool.getQueuedTaskCount()
+                + pool.getQueuedSubmissionCount());
+
+    }
+
+    @Override
+    public void shutdownNow() {
+
+        pool.shutdownNow();
+
+        priorityLane.clear();
+
+        queries.clear();
+
+    }
+
+    /**
+     * Submit a dispatch task for the query. If the caller is a worker of this
+     * pool then the task is pushed onto the local deque of that worker (where
+     * it may be stolen by an idle worker). Otherwise it is submitted to the
+     * pool.
+     */
+    private void submit(final DispatchState s) {
+
+        if (pool.isShutdown())
+            return;
+
+        s.readyNanos = System.nanoTime();
+
+        if (s.priority > 0) {
+
+            priorityLane.add(new PriorityEntry(s, sequence.incrementAndGet()));
+
+        }
+
+        final DispatchTask task = new DispatchTask(s);
+
+        if (ForkJoinTask.getPool() == pool) {
+
+            task.fork();
+
+        } else {
+
+            pool.execute(task);
+
+        }
+
+    }
+
+    /**
+     * Run a single {@link AbstractRunningQuery#consumeChunk()} pass for the
+     * query unless it is already being dispatched by another worker or there
+     * is nothing pending. If more work is pending afterwards, then the query
+     * is resubmitted.
+     */
+    private void dispatch(final DispatchState s) {
+
+        if (!s.running.compareAndSet(false/* expect */, true/* update */)) {
+
+            /*
+             * Another worker is running this query. It will observe the
+             * pending work when it is done and resubmit the query.
+             */
+            return;
+
+        }
+
+        try {
+
+            final int n = s.pending.get();
+
+            if (n == 0) {
+
+                // Already dispatched (e.g., from the priority lane).
+                return;
+
+            }
+
+            counters.dispatchCount.increment();
+
+            counters.dispatchDelayNanos.add(System.nanoTime() - s.readyNanos);
+
+            if (!s.query.isDone()) {
+
+                s.query.consumeChunk();
+
+            }
+
+            // Back to idle unless more chunks were posted in the meantime.
+            s.pending.compareAndSet(n, 0);
+
+        } catch (Throwable t) {
+
+            // log and continue
+            log.error(t, t);
+
+        } finally {
+
+            s.running.set(false);
+
+        }
+
+        if (s.pending.get() > 0) {
+
+            if (s.query.isDone()) {
+
+                queries.remove(s.query.getQueryId(), s);
+
+            } else {
+
+                // Round robin : the query goes to the tail of the deque.
+                submit(s);
+
+            }
+
+        }
+
+    }
+
+    /**
+     * Drain the priority lane.
+     */
+    private void drainPriorityLane() {
+
+        PriorityEntry e;
+
+        while ((e = priorityLane.poll()) != null) {
+
+            dispatch(e.state);
+
+        }
+
+    }
+
+    /**
+     * The dispatch state for a query.
+     */
+    private static class DispatchState {
+
+        final AbstractRunningQuery query;
+
+        final int priority;
+
+        /**
+         * The #of times the query has been scheduled since it was last
+         * dispatched. The query is submitted to the pool on the transition
+         * from zero.
+         */
+        final AtomicInteger pending = new AtomicInteger();
+
+        /**
+         * <code>true</code> while a worker is running
+         * {@link AbstractRunningQuery#consumeChunk()} for the query.
+         */
+        final AtomicBoolean running = new AtomicBoolean();
+
+        /**
+         * The time (nanos) at which the query was last submitted.
+         */
+        volatile long readyNanos;
+
+        DispatchState(final AbstractRunningQuery query) {
+
+            this.query = query;
+
+            this.priority = query.getQuery().getProperty(
+                    QueryEngine.Annotations.QUERY_PRIORITY,
+                    QueryEngine.Annotations.DEFAULT_QUERY_PRIORITY);
+
+        }
+
+    }
+
+    /**
+     * An entry on the priority lane.
+     */
+    private static class PriorityEntry {
+
+        static final Comparator<PriorityEntry> COMPARATOR = new Comparator<PriorityEntry>() {
+            @Override
+            public int compare(final PriorityEntry o1, final PriorityEntry o2) {
+                // Higher priority first.
+                if (o1.state.priority != o2.state.priority)
+                    return o1.state.priority > o2.state.priority ? -1 : 1;
+                // Then FIFO.
+                return o1.seq < o2.seq ? -1 : (o1.seq == o2.seq ? 0 : 1);
+            }
+        };
+
+        final DispatchState state;
+
+        final long seq;
+
+        PriorityEntry(final DispatchState state, final long seq) {
+
+            this.state = state;
+
+            this.seq = seq;
+
+        }
+
+    }
+
+    /**
+     * Task dispatches a single query.
+     */
+    private class DispatchTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final DispatchState s;
+
+        DispatchTask(final DispatchState s) {
+
+            this.s = s;
+
+        }
+
+        @Override
+        protected void compute() {
+
+            drainPriorityLane();
+
+            dispatch(s);
+
+        }
+
+    }
+
+}
@@ -0,0 +1,330 @@
+/**
+
+Copyright (C) SYSTAP, LLC 2006-2015.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@systap.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+/*
+ * Created on Oct 17, 2026
+ */
+
+package com.bigdata.bop.join;
+
+import java.util.Iterator;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.apache.log4j.Logger;
+
+import com.bigdata.bop.IBindingSet;
+import com.bigdata.bop.IVariable;
+import com.bigdata.bop.PipelineOp;
+import com.bigdata.bop.engine.BOpStats;
+import com.bigdata.bop.engine.QueryMemoryGovernor;
+import com.bigdata.htree.HTree;
+import com.bigdata.relation.accesspath.IBuffer;
+import com.bigdata.rwstore.sector.IMemoryManager;
+
+import cutthecrap.utils.striterators.ICloseableIterator;
+
+/**
+ * A DISTINCT filter which starts on the JVM heap ({@link JVMDistinctFilter})
+ * and spills onto the native heap ({@link HTreeDistinctFilter}) once the
+ * {@link QueryMemoryGovernor} denies a reservation for the accepted solutions.
+ * <p>
+ * While on the JVM heap the filter has the concurrency of the
+ * {@link JVMDistinctFilter}. Once spilled, access to the {@link HTree} is
+ * serialized since the {@link HTreeDistinctFilter} is not thread-safe.
+ */
+public class GovernedDistinctFilter implements IDistinctFilter {
+
+    private static final Logger log = Logger
+            .getLogger(GovernedDistinctFilter.class);
+
+    private final IVariable<?>[] vars;
+
+    private final QueryMemoryGovernor governor;
+
+    /**
+     * The owner of the reservations made against the {@link #governor}.
+     */
+    private final Object owner;
+
+    private final IMemoryManager mmgr;
+
+    private final PipelineOp op;
+
+    /**
+     * The read lock is held while accepting solutions into the
+     * {@link #jvmFilter}. The write lock is held to spill the filter and while
+     * accepting solutions into the {@link #htreeFilter}.
+     */
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * The filter on the JVM heap and <code>null</code> once spilled.
+     */
+    private JVMDistinctFilter jvmFilter;
+
+    /**
+     * The filter on the native heap and <code>null</code> until spilled.
+     */
+    private HTreeDistinctFilter htreeFilter;
+
+    /**
+     * @param jvmFilter
+     *            The initial filter on the JVM heap.
+     * @param governor
+     *            The governor for the JVM heap of the query.
+     * @param owner
+     *            The owner of the reservations made against the governor.
+     * @param mmgr
+     *            The {@link IMemoryManager} which will back the {@link HTree}
+     *            if the filter is spilled.
+     * @param op
+     *            The operator whose {@link HTreeAnnotations} will inform the
+     *            construction of the {@link HTree}.
+     */
+    public GovernedDistinctFilter(final JVMDistinctFilter jvmFilter,
+            final QueryMemoryGovernor governor, final Object owner,
+            final IMemoryManager mmgr, final PipelineOp op) {
+
+        if (jvmFilter == null)
+            throw new IllegalArgumentException();
+
+        if (governor == null)
+            throw new IllegalArgumentException();
+
+        if (owner == null)
+            throw new IllegalArgumentException();
+
+        if (mmgr == null)
+            throw new IllegalArgumentException();
+
+        if (op == null)
+            throw new IllegalArgumentException();
+
+        this.vars = jvmFilter.getProjectedVars();
+        this.jvmFilter = jvmFilter;
+        this.governor = governor;
+        this.owner = owner;
+        this.mmgr = mmgr;
+        this.op = op;
+
+    }
+
+    @Override
+    public IVariable<?>[] getProjectedVars() {
+
+        return vars;
+
+    }
+
+    /**
+     * Return <code>true</code> iff the filter was spilled onto the native
+     * heap.
+     */
+    public boolean isSpilled() {
+
+        lock.readLock().lock();
+
+        try {
+
+            return htreeFilter != null;
+
+        } finally {
+
+            lock.readLock().unlock();
+
+        }
+
+    }
+
+    @Override
+    public IBindingSet accept(final IBindingSet bset) {
+
+        lock.readLock().lock();
+
+        try {
+
+            if (jvmFilter != null) {
+
+                final IBindingSet tmp = jvmFilter.accept(bset);
+
+                if (tmp == null
+                        || governor.reserve(owner,
+                                QueryMemoryGovernor.estimateSize(tmp)))
+                    return tmp;
+
+                /*
+                 * Reservation denied. The solution was already accepted into
+                 * the JVM filter, so it will be carried over by spill().
+                 */
+                lock.readLock().unlock();
+
+                try {
+
+                    spill();
+
+                } finally {
+
+                    lock.readLock().lock();
+
+                }
+
+                return tmp;
+
+            }
+
+        } finally {
+
+            lock.readLock().unlock();
+
+        }
+
+        lock.writeLock().lock();
+
+        try {
+
+            return htreeFilter.accept(bset);
+
+        } finally {
+
+            lock.writeLock().unlock();
+
+        }
+
+    }
+
+    @Override
+    public long filterSolutions(final ICloseableIterator<IBindingSet[]> itr,
+            final BOpStats stats, final IBuffer<IBindingSet> sink) {
+
+        long n = 0L;
+
+        while (itr.hasNext()) {
+
+            final IBindingSet[] a = itr.next();
+
+            stats.chunksIn.increment();
+            stats.unitsIn.add(a.length);
+
+            for (IBindingSet bset : a) {
+
+                if ((bset = accept(bset)) == null) {
+
+                    // Drop duplicate solution.
+                    continue;
+
+                }
+
+                sink.add(bset);
+
+                n++;
+
+            }
+
+        } // next chunk.
+
+        return n;
+
+    }
+
+    /**
+     * Spill the JVM filter onto the native heap. This is a NOP if the filter
+     * was already spilled.
+     */
+    private void spill() {
+
+        lock.writeLock().lock();
+
+        try {
+
+            if (jvmFilter == null) {
+
+                // Already spilled by another thread.
+                return;
+
+            }
+
+            final HTreeDistinctFilter tmp = new HTreeDistinctFilter(vars,
+                    mmgr, op);
+
+            long n = 0L;
+
+            final Iterator<IBindingSet> itr = jvmFilter.distinctSolutions();
+
+            while (itr.hasNext()) {
+
+                tmp.accept(itr.next());
+
+                n++;
+
+            }
+
+            jvmFilter.release();
+
+            jvmFilter = null;
+
+            htreeFilter = tmp;
+
+            governor.spilled(owner);
+
+            if (log.isInfoEnabled())
+                log.info("Spilled DISTINCT: bopId=" + op.getId()
+                        + ", nsolutions=" + n);
+
+        } finally {
+
+            lock.writeLock().unlock();
+
+        }
+
+    }
+
+    @Override
+    public void release() {
+
+        lock.writeLock().lock();
+
+        try {
+
+            if (jvmFilter != null) {
+
+                jvmFilter.release();
+
+            }
+
+            if (htreeFilter != null) {
+
+                htreeFilter.release();
+
+            }
+
+            governor.release(owner);
+
+        } finally {
+
+            lock.writeLock().unlock();
+
+        }
+
+    }
+
+}
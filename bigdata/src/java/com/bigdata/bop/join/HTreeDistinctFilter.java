@@ -0,0 +1,387 @@
+/**
+
+Copyright (C) SYSTAP, LLC 2006-2015.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@systap.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+/*
+ * Created on Oct 17, 2026
+ */
+package com.bigdata.bop.join;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.log4j.Logger;
+
+import com.bigdata.bop.Constant;
+import com.bigdata.bop.HTreeAnnotations;
+import com.bigdata.bop.IBindingSet;
+import com.bigdata.bop.IConstant;
+import com.bigdata.bop.IVariable;
+import com.bigdata.bop.PipelineOp;
+import com.bigdata.bop.bindingSet.ListBindingSet;
+import com.bigdata.bop.engine.BOpStats;
+import com.bigdata.btree.BytesUtil;
+import com.bigdata.btree.ITuple;
+import com.bigdata.btree.ITupleIterator;
+import com.bigdata.btree.keys.ASCIIKeyBuilderFactory;
+import com.bigdata.btree.keys.IKeyBuilder;
+import com.bigdata.htree.HTree;
+import com.bigdata.io.ByteArrayBuffer;
+import com.bigdata.rdf.internal.IV;
+import com.bigdata.rdf.internal.IVUtility;
+import com.bigdata.rdf.internal.impl.TermId;
+import com.bigdata.relation.accesspath.IBuffer;
+import com.bigdata.rwstore.sector.IMemoryManager;
+import com.bigdata.rwstore.sector.MemStore;
+
+import cutthecrap.utils.striterators.ICloseableIterator;
+import cutthecrap.utils.striterators.IStriterator;
+import cutthecrap.utils.striterators.Resolver;
+import cutthecrap.utils.striterators.Striterator;
+
+/**
+ * Utility class for imposing a DISTINCT filter on {@link IBindingSet}s using
+ * an {@link HTree} on the native heap. This is the native heap counterpart of
+ * the {@link JVMDistinctFilter} and is suitable for very large numbers of
+ * distinct solutions. The filter is specific to the RDF data model (it relies
+ * on encoded {@link IV}s).
+ * <p>
+ * The projected variables are encoded in a fixed order, with unbound variables
+ * represented by a {@link TermId#NullIV}, so two solutions are duplicates iff
+ * their encoded {@link IV}[]s are byte-wise equal. The {@link HTree} is keyed
+ * by the int32 hash code of the as bound projected variables and the encoded
+ * {@link IV}[] is stored as the value.
+ * <p>
+ * Note: Unlike the {@link JVMDistinctFilter}, this class is NOT thread-safe.
+ */
+public class HTreeDistinctFilter implements IDistinctFilter {
+
+    private static final Logger log = Logger
+            .getLogger(HTreeDistinctFilter.class);
+
+    /**
+     * The variables used to impose a distinct constraint.
+     */
+    private final IVariable<?>[] vars;
+
+    /**
+     * <code>true</code> until the state is discarded by {@link #release()}.
+     */
+    private final AtomicBoolean open = new AtomicBoolean(true);
+
+    /**
+     * The backing store (a child allocation context of the memory manager).
+     */
+    private final MemStore store;
+
+    /**
+     * The hash index of the distinct solutions.
+     */
+    private final HTree htree;
+
+    /**
+     * Used to encode the hash code keys for the {@link #htree}.
+     */
+    private final IKeyBuilder keyBuilder;
+
+    /**
+     * Used to encode the as bound projected variables.
+     */
+    private final IKeyBuilder valBuilder;
+
+    /**
+     *
+     * @param vars
+     *            The set of variables on which the DISTINCT filter will be
+     *            imposed. Only these variables will be present in the
+     *            "accepted" solutions. Any variable bindings not specified in
+     *            this array will be dropped.
+     * @param mmgr
+     *            The {@link IMemoryManager} which will back the {@link HTree}.
+     * @param op
+     *            The operator whose {@link HTreeAnnotations} will inform the
+     *            construction of the {@link HTree}.
+     */
+    public HTreeDistinctFilter(final IVariable<?>[] vars,
+            final IMemoryManager mmgr, final PipelineOp op) {
+
+        if (vars == null)
+            throw new IllegalArgumentException();
+
+        if (mmgr == null)
+            throw new IllegalArgumentException();
+
+        if (op == null)
+            throw new IllegalArgumentException();
+
+        this.vars = vars;
+
+        this.store = new MemStore(mmgr.createAllocationContext());
+
+        this.htree = HTree.create(store,
+                HTreeHashJoinUtility.getIndexMetadata(op));
+
+        this.keyBuilder = htree.getIndexMetadata().getKeyBuilder();
+
+        this.valBuilder = new ASCIIKeyBuilderFactory(128).getKeyBuilder();
+
+    }
+
+    @Override
+    public String toString() {
+
+        final StringBuilder sb = new StringBuilder();
+        sb.append(getClass().getSimpleName());
+        sb.append("{open=" + open.get());
+        sb.append(",vars=" + Arrays.toString(vars));
+        if (open.get())
+            sb.append(",size=" + htree.getEntryCount());
+        sb.append("}");
+        return sb.toString();
+
+    }
+
+    @Override
+    public IVariable<?>[] getProjectedVars() {
+
+        return vars;
+
+    }
+
+    /**
+     * The #of distinct solutions accepted by the filter.
+     */
+    public long size() {
+
+        if (!open.get())
+            throw new IllegalStateException();
+
+        return htree.getEntryCount();
+
+    }
+
+    @Override
+    public void release() {
+
+        if (!open.compareAndSet(true/* expect */, false/* update */)) {
+            // Already closed.
+            return;
+        }
+
+        htree.close();
+
+        store.close();
+
+    }
+
+    /**
+     * If the bindings are distinct for the configured variables then return
+     * those bindings.
+     *
+     * @param bset
+     *            The binding set to be filtered.
+     *
+     * @return The distinct as bound values -or- <code>null</code> if the
+     *         binding set duplicates a solution which was already accepted.
+     */
+    private IConstant<?>[] _accept(final IBindingSet bset) {
+
+        if (!open.get())
+            throw new IllegalStateException();
+
+        final IConstant<?>[] r = new IConstant<?>[vars.length];
+
+        int h = 1;
+
+        valBuilder.reset();
+
+        for (int i = 0; i < vars.length; i++) {
+
+            // Note: This allows null's.
+            r[i] = bset.get(vars[i]);
+
+            if (r[i] == null) {
+
+                IVUtility.encode(valBuilder, TermId.NullIV);
+
+                h = 31 * h;
+
+            } else {
+
+                IVUtility.encode(valBuilder, (IV<?, ?>) r[i].get());
+
+                h = 31 * h + r[i].hashCode();
+
+            }
+
+        }
+
+        final byte[] key = keyBuilder.reset().append(h).getKey();
+
+        final byte[] val = valBuilder.getKey();
+
+        final ITupleIterator<?> titr = htree.lookupAll(key);
+
+        while (titr.hasNext()) {
+
+            final ITuple<?> t = titr.next();
+
+            final ByteArrayBuffer tb = t.getValueBuffer();
+
+            if (0 == BytesUtil.compareBytesWithLenAndOffset(0/* aoff */,
+                    val.length/* alen */, val,//
+                    0/* boff */, tb.limit()/* blen */, tb.array()/* b */
+            )) {
+
+                if (log.isTraceEnabled())
+                    log.trace("duplicate: " + Arrays.toString(r));
+
+                return null;
+
+            }
+
+        }
+
+        htree.insert(key, val);
+
+        if (log.isDebugEnabled())
+            log.debug("accepted: " + Arrays.toString(r));
+
+        return r;
+
+    }
+
+    @Override
+    public IBindingSet accept(final IBindingSet bset) {
+
+        final IConstant<?>[] vals = _accept(bset);
+
+        if (vals == null) {
+
+            /*
+             * This is a duplicate solution.
+             */
+
+            return null;
+
+        }
+
+        /*
+         * This is a distinct solution. Copy only the variables used to select
+         * distinct solutions into a new binding set.
+         */
+
+        final ListBindingSet tmp = new ListBindingSet();
+
+        for (int i = 0; i < vars.length; i++) {
+
+            if (vals[i] != null)
+                tmp.set(vars[i], vals[i]);
+
+        }
+
+        return tmp;
+
+    }
+
+    @Override
+    public long filterSolutions(final ICloseableIterator<IBindingSet[]> itr,
+            final BOpStats stats, final IBuffer<IBindingSet> sink) {
+
+        long n = 0L;
+
+        while (itr.hasNext()) {
+
+            final IBindingSet[] a = itr.next();
+
+            stats.chunksIn.increment();
+            stats.unitsIn.add(a.length);
+
+            for (IBindingSet bset : a) {
+
+                if ((bset = accept(bset)) == null) {
+
+                    // Drop duplicate solution.
+                    continue;
+
+                }
+
+                sink.add(bset);
+
+                n++;
+
+            }
+
+        } // next chunk.
+
+        return n;
+
+    }
+
+    /**
+     * Visit the distinct solutions accepted by the filter (in hash code
+     * order). The solutions are decoded from the {@link HTree} and will only
+     * have bindings for the projected variables. Any {@link IV} cache
+     * associations on the original solutions are NOT preserved.
+     * <p>
+     * Note: The caller MUST NOT modify the filter while the iterator is open.
+     */
+    @SuppressWarnings("unchecked")
+    public ICloseableIterator<IBindingSet> indexScan() {
+
+        if (!open.get())
+            throw new IllegalStateException();
+
+        IStriterator itr = new Striterator(htree.rangeIterator());
+
+        itr = itr.addFilter(new Resolver() {
+
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected Object resolve(final Object obj) {
+
+                final ByteArrayBuffer b = ((ITuple<?>) obj).getValueBuffer();
+
+                final IV<?, ?>[] ivs = IVUtility.decodeAll(b.array(), 0,
+                        b.limit());
+
+                final IBindingSet bset = new ListBindingSet();
+
+                for (int i = 0; i < vars.length && i < ivs.length; i++) {
+
+                    if (ivs[i] != null)
+                        bset.set(vars[i], new Constant<IV<?, ?>>(ivs[i]));
+
+                }
+
+                return bset;
+
+            }
+
+        });
+
+        return (ICloseableIterator<IBindingSet>) itr;
+
+    }
+
+}
@@ -453,7 +453,7 @@ public class HTreeHashJoinUtility implements IHashJoinUtility {
      * Setup the {@link IndexMetadata} for {@link #rightSolutions} or
      * {@link #joinSet}.
      */
-    static private HTreeIndexMetadata getIndexMetadata(final PipelineOp op) {
+    static HTreeIndexMetadata getIndexMetadata(final PipelineOp op) {
 
 		final HTreeIndexMetadata metadata = new HTreeIndexMetadata(
 				UUID.randomUUID());
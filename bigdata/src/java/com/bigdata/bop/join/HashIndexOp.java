@@ -47,9 +47,12 @@ import com.bigdata.bop.PipelineOp;
 import com.bigdata.bop.controller.INamedSolutionSetRef;
 import com.bigdata.bop.controller.NamedSetAnnotations;
 import com.bigdata.bop.engine.BOpStats;
+import com.bigdata.bop.engine.QueryMemoryGovernor;
+import com.bigdata.bop.engine.QueryMemoryLimitException;
 import com.bigdata.htree.HTree;
 import com.bigdata.relation.accesspath.IBlockingBuffer;
 import com.bigdata.relation.accesspath.UnsyncLocalOutputBuffer;
+import com.bigdata.striterator.Chunkerator;
 
 import cutthecrap.utils.striterators.ICloseableIterator;
 import cutthecrap.utils.striterators.SingleValueIterator;
@@ -246,6 +249,32 @@ abstract public class HashIndexOp extends PipelineOp implements ISingleThreadedO
             final JoinTypeEnum joinType//
             );
 
+    /**
+     * Return a new {@link IHashJoinUtility} backed by the native heap onto
+     * which the state of this operator will be spilled if the
+     * {@link QueryMemoryGovernor} denies the JVM heap required to buffer the
+     * solutions -or- <code>null</code> if the state of this operator can not
+     * be spilled (default).
+     * 
+     * @param context
+     *            The {@link BOpEvaluationContext}
+     * @param namedSetRef
+     *            Metadata to identify the named solution set.
+     * @param joinType
+     *            The type of join.
+     * 
+     * @see QueryMemoryGovernor
+     */
+    protected IHashJoinUtility newSpillState(//
+            final BOpContext<IBindingSet> context,//
+            final INamedSolutionSetRef namedSetRef, //
+            final JoinTypeEnum joinType//
+            ) {
+
+        return null;
+
+    }
+
     @Override
     public FutureTask<Void> eval(final BOpContext<IBindingSet> context) {
 
@@ -266,7 +295,22 @@ abstract public class HashIndexOp extends PipelineOp implements ISingleThreadedO
         
         private final NamedSolutionSetStats stats;
         
-        private final IHashJoinUtility state;
+        /**
+         * The state of the hash index. This is replaced if the state is
+         * spilled onto the native heap.
+         */
+        private IHashJoinUtility state;
+        
+        /**
+         * Metadata to identify the target named solution set.
+         */
+        private final INamedSolutionSetRef namedSetRef;
+
+        /**
+         * The governor for the JVM heap of the query on which the named
+         * solution set is hung.
+         */
+        private final QueryMemoryGovernor governor;
         
         private final IDistinctFilter distinctJoinVarFilter;
         /**
@@ -302,9 +346,12 @@ abstract public class HashIndexOp extends PipelineOp implements ISingleThreadedO
             this.distinctJoinVarFilter = distinctJoinVarFilter;
 
             // Metadata to identify the target named solution set.
-            final INamedSolutionSetRef namedSetRef = (INamedSolutionSetRef) op
+            this.namedSetRef = (INamedSolutionSetRef) op
                     .getRequiredProperty(Annotations.NAMED_SET_REF);
 
+            this.governor = context.getRunningQuery(namedSetRef.getQueryId())
+                    .getMemoryGovernor();
+
             {
 
                 /*
@@ -458,7 +505,18 @@ abstract public class HashIndexOp extends PipelineOp implements ISingleThreadedO
 
             try {
 
-                state.acceptSolutions(src, stats);
+                if (governor.getMaxBytes() == 0L
+                        || !(state instanceof JVMHashJoinUtility)) {
+
+                    // No bound on the JVM heap or already spilled.
+                    state.acceptSolutions(src, stats);
+
+                } else {
+
+                    // Buffer the solutions on the JVM heap until we spill.
+                    acceptGovernedSolutions(src);
+
+                }
 
             } finally {
 
@@ -468,6 +526,84 @@ abstract public class HashIndexOp extends PipelineOp implements ISingleThreadedO
 
         }
 
+        /**
+         * Add solutions to the hash index one chunk at a time, reserving the
+         * JVM heap for each chunk. If a reservation is denied then the hash
+         * index is spilled onto the native heap (if this operator supports
+         * that) and the remaining solutions are added to the spilled index.
+         * Otherwise the query is broken.
+         */
+        private void acceptGovernedSolutions(
+                final ICloseableIterator<IBindingSet[]> src) {
+
+            while (src.hasNext()) {
+
+                final IBindingSet[] chunk = src.next();
+
+                if (state instanceof JVMHashJoinUtility
+                        && !governor.reserve(namedSetRef,
+                                QueryMemoryGovernor.estimateSize(chunk))) {
+
+                    final JoinTypeEnum joinType = (JoinTypeEnum) op
+                            .getRequiredProperty(Annotations.JOIN_TYPE);
+
+                    final IHashJoinUtility spillState = op.newSpillState(
+                            context, namedSetRef, joinType);
+
+                    if (spillState == null) {
+
+                        throw new QueryMemoryLimitException("Hash index "
+                                + namedSetRef + " exceeds "
+                                + governor.getMaxBytes() + " bytes");
+
+                    }
+
+                    spill(spillState);
+
+                }
+
+                state.acceptSolutions(
+                        new SingleValueIterator<IBindingSet[]>(chunk), stats);
+
+            }
+
+        }
+
+        /**
+         * Copy the solutions buffered on the JVM heap into the new state,
+         * release the old state and replace it in the {@link IQueryAttributes}
+         * with the new state.
+         */
+        private void spill(final IHashJoinUtility spillState) {
+
+            final ICloseableIterator<IBindingSet[]> itr = new Chunkerator<IBindingSet>(
+                    state.indexScan(), op.getChunkCapacity(),
+                    IBindingSet.class);
+
+            try {
+
+                // Note: Not reported since already counted by this operator.
+                spillState.acceptSolutions(itr, new BOpStats());
+
+            } finally {
+
+                itr.close();
+
+            }
+
+            final IQueryAttributes attrs = context
+                    .getQueryAttributes(namedSetRef.getQueryId());
+
+            attrs.put(namedSetRef, spillState);
+
+            state.release();
+
+            state = spillState;
+
+            governor.spilled(namedSetRef);
+
+        }
+
         /**
          * Checkpoint and save the solution set.
          * <p>
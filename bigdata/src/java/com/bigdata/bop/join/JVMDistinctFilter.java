@@ -27,6 +27,7 @@ Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
 package com.bigdata.bop.join;
 
 import java.util.Arrays;
+import java.util.Iterator;
 import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.log4j.Logger;
@@ -266,4 +267,49 @@ public class JVMDistinctFilter implements IDistinctFilter {
 
     }
 
+    /**
+     * Visit the distinct solutions accepted by the filter. The solutions will
+     * only have bindings for the projected variables.
+     * <p>
+     * Note: The iterator is weakly consistent. Solutions accepted while the
+     * iterator is open may or may not be visited.
+     */
+    public Iterator<IBindingSet> distinctSolutions() {
+
+        final Iterator<Solution> itr = map.keySet().iterator();
+
+        return new Iterator<IBindingSet>() {
+
+            @Override
+            public boolean hasNext() {
+                return itr.hasNext();
+            }
+
+            @Override
+            public IBindingSet next() {
+
+                final IConstant<?>[] vals = itr.next().vals;
+
+                final ListBindingSet tmp = new ListBindingSet();
+
+                for (int i = 0; i < vars.length; i++) {
+
+                    if (vals[i] != null)
+                        tmp.set(vars[i], vals[i]);
+
+                }
+
+                return tmp;
+
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+
+        };
+
+    }
+
 }
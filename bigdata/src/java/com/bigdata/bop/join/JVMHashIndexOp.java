@@ -34,6 +34,7 @@ import com.bigdata.bop.BOpContext;
 import com.bigdata.bop.IBindingSet;
 import com.bigdata.bop.NV;
 import com.bigdata.bop.controller.INamedSolutionSetRef;
+import com.bigdata.rwstore.sector.IMemoryManager;
 
 /**
  * Concrete implementation based on the {@link HTreeHashJoinUtility}.
@@ -89,4 +90,21 @@ public class JVMHashIndexOp extends HashIndexOp {
 
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The hash index is spilled onto an {@link HTreeHashJoinUtility} backed by
+     * the {@link IMemoryManager} of the query.
+     */
+    @Override
+    protected HTreeHashJoinUtility newSpillState(
+            final BOpContext<IBindingSet> context,
+            final INamedSolutionSetRef namedSetRef, final JoinTypeEnum joinType) {
+
+        return new HTreeHashJoinUtility(
+                context.getMemoryManager(namedSetRef.getQueryId()), this,
+                joinType);
+
+    }
+
 }
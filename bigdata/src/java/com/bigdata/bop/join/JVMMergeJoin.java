@@ -39,6 +39,7 @@ import com.bigdata.bop.IQueryAttributes;
 import com.bigdata.bop.NV;
 import com.bigdata.bop.controller.INamedSolutionSetRef;
 import com.bigdata.bop.controller.NamedSetAnnotations;
+import com.bigdata.bop.engine.QueryMemoryLimitException;
 import com.bigdata.relation.accesspath.IBlockingBuffer;
 import com.bigdata.relation.accesspath.UnsyncLocalOutputBuffer;
 
@@ -238,9 +239,9 @@ public class JVMMergeJoin extends AbstractMergeJoin  {
                 final IQueryAttributes attrs = context
                         .getQueryAttributes(namedSetRef[i].getQueryId());
 
-                state[i] = (JVMHashJoinUtility) attrs.get(namedSetRef[i]);
+                final Object tmp = attrs.get(namedSetRef[i]);
                 
-                if (state[i] == null) {
+                if (tmp == null) {
 
                     /**
                      * The solution set was not found!
@@ -253,6 +254,20 @@ public class JVMMergeJoin extends AbstractMergeJoin  {
 
                 }
 
+                if (!(tmp instanceof JVMHashJoinUtility)) {
+
+                    /*
+                     * The hash index was spilled onto the native heap by the
+                     * QueryMemoryGovernor. The JVM merge join can not be
+                     * applied to the HTree.
+                     */
+                    throw new QueryMemoryLimitException(
+                            "Merge join source was spilled: " + namedSetRef[i]);
+
+                }
+
+                state[i] = (JVMHashJoinUtility) tmp;
+
             }
             
         }
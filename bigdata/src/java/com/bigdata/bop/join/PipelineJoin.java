@@ -35,6 +35,7 @@ import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executor;
@@ -55,9 +56,17 @@ import com.bigdata.bop.IShardwisePipelineOp;
 import com.bigdata.bop.IVariable;
 import com.bigdata.bop.NV;
 import com.bigdata.bop.PipelineOp;
+import com.bigdata.bop.bindingSet.ListBindingSet;
 import com.bigdata.bop.engine.AbstractRunningQuery;
 import com.bigdata.bop.engine.QueryTimeoutException;
+import com.bigdata.btree.AbstractBTree;
+import com.bigdata.btree.AbstractBTreeTupleCursor;
 import com.bigdata.btree.BytesUtil;
+import com.bigdata.btree.IIndex;
+import com.bigdata.btree.IRangeQuery;
+import com.bigdata.btree.ITuple;
+import com.bigdata.btree.ITupleCursor;
+import com.bigdata.btree.ITupleIterator;
 import com.bigdata.btree.keys.IKeyBuilder;
 import com.bigdata.concurrent.FutureTaskMon;
 import com.bigdata.relation.IRelation;
@@ -221,6 +230,30 @@ public class PipelineJoin<E> extends PipelineOp implements
 
         boolean DEFAULT_REORDER_ACCESS_PATHS = true;
 
+        /**
+         * When <code>true</code>, the distinct as-bound access paths for a
+         * chunk of source solutions are evaluated in a single pass over the
+         * index (default {@value #DEFAULT_SORTED_PROBES}). The probes are
+         * visited in <i>fromKey</i> order using one {@link ITupleCursor}. Each
+         * probe is a seek on that cursor which reuses the current (or next)
+         * leaf when it spans the probe key, so probes which are close together
+         * in the index share the descent and the leaf rather than each opening
+         * its own range iterator. This is useful for large index nested loop
+         * joins against a cold index.
+         * <p>
+         * This option is only applied when {@link #REORDER_ACCESS_PATHS} is
+         * also enabled and every access path for the chunk reads on the same
+         * local B+Tree or index segment, has no filters, and is not a star
+         * join. Otherwise the join falls back to one iterator per access path.
+         * The probes are evaluated in the caller's thread.
+         * 
+         * @see AbstractBTreeTupleCursor#seek(byte[])
+         */
+        String SORTED_PROBES = (PipelineJoin.class.getName() + ".sortedProbes")
+                .intern();
+
+        boolean DEFAULT_SORTED_PROBES = false;
+
 	}
 
 	/**
@@ -441,6 +474,14 @@ public class PipelineJoin<E> extends PipelineOp implements
          */
 		final private boolean reorderAccessPaths;
 
+        /**
+         * When <code>true</code>, the access paths for a chunk will be
+         * evaluated in a single sorted pass over the index when possible.
+         * 
+         * @see Annotations#SORTED_PROBES
+         */
+		final private boolean sortedProbes;
+
 		/**
 		 * Used to enforce the {@link Annotations#LIMIT} iff one is specified.
 		 */
@@ -545,6 +586,9 @@ public class PipelineJoin<E> extends PipelineOp implements
             this.reorderAccessPaths = joinOp.getProperty(
                     Annotations.REORDER_ACCESS_PATHS,
                     Annotations.DEFAULT_REORDER_ACCESS_PATHS);
+            this.sortedProbes = joinOp.getProperty(
+                    Annotations.SORTED_PROBES,
+                    Annotations.DEFAULT_SORTED_PROBES);
 
 			this.threadLocalBufferFactory = new TLBFactory(sink);
 
@@ -970,6 +1014,25 @@ public class PipelineJoin<E> extends PipelineOp implements
                     if (reorderAccessPaths)
                         reorderTasks(tasks);
 
+                    if (sortedProbes && reorderAccessPaths) {
+
+                        final ITupleCursor<E> cursor = newSortedProbeCursor(tasks);
+
+                        if (cursor != null) {
+
+                            // Evaluate all probes in one pass over the index.
+                            for (AccessPathTask task : tasks) {
+
+                                task.callSortedProbe(cursor);
+
+                            }
+
+                            return null;
+
+                        }
+
+                    }
+
 					/*
 					 * Execute the tasks (either in the caller's thread or on
 					 * the supplied service).
@@ -1323,6 +1386,67 @@ public class PipelineJoin<E> extends PipelineOp implements
 
 			}
 
+            /**
+             * Return a cursor which may be used to evaluate all of the tasks
+             * in a single pass over the index -or- <code>null</code> if the
+             * tasks do not qualify.
+             * 
+             * @see Annotations#SORTED_PROBES
+             */
+            @SuppressWarnings("unchecked")
+            protected ITupleCursor<E> newSortedProbeCursor(
+                    final AccessPathTask[] tasks) {
+
+                if (predicate.getProperty(IPredicate.Annotations.CUTOFF_LIMIT,
+                        IPredicate.Annotations.DEFAULT_CUTOFF_LIMIT) != IPredicate.Annotations.DEFAULT_CUTOFF_LIMIT) {
+
+                    // The cutoff limit is applied per access path.
+                    return null;
+
+                }
+
+                IIndex ndx = null;
+
+                for (AccessPathTask task : tasks) {
+
+                    if (!(task.accessPath instanceof AccessPath<?>))
+                        return null;
+
+                    final AccessPath<E> ap = (AccessPath<E>) task.accessPath;
+
+                    if (ap.hasFilter()
+                            || ap.getPredicate() instanceof IStarJoin<?>)
+                        return null;
+
+                    if (ndx == null) {
+
+                        ndx = ap.getIndex();
+
+                    } else if (ndx != ap.getIndex()) {
+
+                        return null;
+
+                    }
+
+                }
+
+                if (!(ndx instanceof AbstractBTree))
+                    return null;
+
+                final ITupleIterator<E> itr = ((AbstractBTree) ndx)
+                        .rangeIterator(null/* fromKey */, null/* toKey */,
+                                0/* capacity */, IRangeQuery.KEYS
+                                        | IRangeQuery.VALS
+                                        | IRangeQuery.CURSOR
+                                        | IRangeQuery.READONLY, null/* filter */);
+
+                if (!(itr instanceof ITupleCursor<?>))
+                    return null;
+
+                return (ITupleCursor<E>) itr;
+
+            }
+
 			/**
 			 * Either execute the tasks in the caller's thread or schedule them
 			 * for execution on the supplied service.
@@ -1763,6 +1887,44 @@ public class PipelineJoin<E> extends PipelineOp implements
 
 			}
 
+            /**
+             * Evaluate the {@link #accessPath} against the
+             * {@link #bindingSets} by positioning a cursor which is shared by
+             * the probes of the same chunk.
+             * 
+             * @param cursor
+             *            The cursor.
+             * 
+             * @see Annotations#SORTED_PROBES
+             */
+            protected void callSortedProbe(final ITupleCursor<E> cursor) {
+
+                halted();
+
+                if (limit != Long.MAX_VALUE && exactOutputCount.get() > limit) {
+                    // break query @ limit.
+                    if (log.isInfoEnabled())
+                        log.info("Breaking query @ limit: limit=" + limit
+                                + ", exactOutputCount="
+                                + exactOutputCount.get());
+                    halt((Void) null);
+                    return;
+                }
+
+                /*
+                 * Note: The range count is not taken since that would be
+                 * another descent for each probe.
+                 */
+                stats.accessPathCount.increment();
+
+                final AccessPath<E> ap = (AccessPath<E>) accessPath;
+
+                handleJoin2(new SortedProbeIterator(cursor, ap.getFromKey(),
+                        ap.getToKey(), ap.getPredicate(), stats, ap
+                                .getChunkCapacity()));
+
+            }
+
             /**
              * A vectored pipeline join (chunk at a time processing) based on
              * the visitation of {@link IBindingSet}s
@@ -1777,6 +1939,20 @@ public class PipelineJoin<E> extends PipelineOp implements
                 final ICloseableIterator<IBindingSet[]> itr = ((IBindingSetAccessPath<?>) accessPath)
                         .solutions(cutoffLimit, stats);
 
+                handleJoin2(itr);
+
+            }
+
+            /**
+             * A vectored pipeline join (chunk at a time processing) based on
+             * the visitation of {@link IBindingSet}s
+             * 
+             * @param itr
+             *            The solutions for the access path (will be closed).
+             */
+            protected void handleJoin2(
+                    final ICloseableIterator<IBindingSet[]> itr) {
+
                 try {
 
                     // Each thread gets its own buffer.
@@ -2419,4 +2595,172 @@ public class PipelineJoin<E> extends PipelineOp implements
 
 	}// class JoinTask
 
+    /**
+     * Visits the solutions for one probe of a sorted probe pass. The key range
+     * of the probe is read from a cursor which is shared by all probes of the
+     * pass. The cursor is not closed when this iterator is closed.
+     * 
+     * @see Annotations#SORTED_PROBES
+     */
+    private static class SortedProbeIterator implements
+            ICloseableIterator<IBindingSet[]> {
+
+        private final ITupleCursor<?> cursor;
+
+        /** The exclusive upper bound (optional). */
+        private final byte[] toKey;
+
+        private final IPredicate<?> pred;
+
+        private final BaseJoinStats stats;
+
+        private final int capacity;
+
+        /** The solution for the tuple found by the seek (if any). */
+        private IBindingSet first;
+
+        /** <code>true</code> once the key range has been consumed. */
+        private boolean exhausted = false;
+
+        /** The next chunk to be returned (if already materialized). */
+        private IBindingSet[] next;
+
+        public SortedProbeIterator(final ITupleCursor<?> cursor,
+                final byte[] fromKey, final byte[] toKey,
+                final IPredicate<?> pred, final BaseJoinStats stats,
+                final int capacity) {
+
+            this.cursor = cursor;
+            this.toKey = toKey;
+            this.pred = pred;
+            this.stats = stats;
+            this.capacity = Math.max(1, capacity);
+
+            final ITuple<?> t = cursor.seek(fromKey == null ? BytesUtil.EMPTY
+                    : fromKey);
+
+            if (t != null) {
+
+                if (inRange(t)) {
+
+                    first = resolve(t);
+
+                } else {
+
+                    exhausted = true;
+
+                }
+
+            }
+
+        }
+
+        private boolean inRange(final ITuple<?> t) {
+
+            return toKey == null
+                    || BytesUtil.compareBytes(t.getKey(), toKey) < 0;
+
+        }
+
+        /**
+         * Resolve the tuple to a solution. This must be done before the cursor
+         * is advanced since the tuple is reused.
+         */
+        private IBindingSet resolve(final ITuple<?> t) {
+
+            final IBindingSet bset = new ListBindingSet();
+
+            BOpContext.copyValues((IElement) t.getObject(), pred, bset);
+
+            return bset;
+
+        }
+
+        @Override
+        public boolean hasNext() {
+
+            if (next != null)
+                return true;
+
+            final List<IBindingSet> tmp = new LinkedList<IBindingSet>();
+
+            if (first != null) {
+
+                tmp.add(first);
+
+                first = null;
+
+            }
+
+            while (!exhausted && tmp.size() < capacity && cursor.hasNext()) {
+
+                final ITuple<?> t = cursor.next();
+
+                if (!inRange(t)) {
+
+                    exhausted = true;
+
+                    break;
+
+                }
+
+                tmp.add(resolve(t));
+
+            }
+
+            if (tmp.size() < capacity) {
+
+                // Nothing more in the key range.
+                exhausted = true;
+
+            }
+
+            if (tmp.isEmpty())
+                return false;
+
+            next = tmp.toArray(new IBindingSet[tmp.size()]);
+
+            stats.accessPathChunksIn.increment();
+
+            stats.accessPathUnitsIn.add(next.length);
+
+            return true;
+
+        }
+
+        @Override
+        public IBindingSet[] next() {
+
+            if (!hasNext())
+                throw new NoSuchElementException();
+
+            final IBindingSet[] a = next;
+
+            next = null;
+
+            return a;
+
+        }
+
+        @Override
+        public void remove() {
+
+            throw new UnsupportedOperationException();
+
+        }
+
+        @Override
+        public void close() {
+
+            // Note: The cursor is shared by the probes.
+            exhausted = true;
+
+            first = null;
+
+            next = null;
+
+        }
+
+    }
+
 }
@@ -294,6 +294,13 @@ abstract public class SolutionSetHashJoinOp extends PipelineOp {
                      */
                     state.release();
 
+                    // Return the JVM heap reserved for the hash index.
+                    final INamedSolutionSetRef namedSetRef = (INamedSolutionSetRef) op
+                            .getRequiredProperty(Annotations.NAMED_SET_REF);
+
+                    context.getRunningQuery(namedSetRef.getQueryId())
+                            .getMemoryGovernor().release(namedSetRef);
+
                 }
                 
                 sink.close();
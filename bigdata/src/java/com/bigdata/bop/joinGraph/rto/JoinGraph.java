@@ -27,11 +27,18 @@ Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
 
 package com.bigdata.bop.joinGraph.rto;
 
+import java.util.Iterator;
 import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
 import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.log4j.Logger;
 
 import com.bigdata.bop.BOp;
 import com.bigdata.bop.BOpContext;
@@ -47,8 +54,11 @@ import com.bigdata.bop.ap.SampleIndex;
 import com.bigdata.bop.ap.SampleIndex.SampleType;
 import com.bigdata.bop.controller.AbstractSubqueryOp;
 import com.bigdata.bop.engine.AbstractRunningQuery;
+import com.bigdata.bop.engine.BOpStats;
 import com.bigdata.bop.engine.IRunningQuery;
 import com.bigdata.bop.engine.QueryEngine;
+import com.bigdata.bop.join.AccessPathJoinAnnotations;
+import com.bigdata.bop.join.PipelineJoinStats;
 import com.bigdata.rdf.sparql.ast.JoinGroupNode;
 import com.bigdata.rdf.sparql.ast.eval.AST2BOpContext;
 import com.bigdata.rdf.sparql.ast.eval.AST2BOpRTO;
@@ -78,6 +88,12 @@ import cutthecrap.utils.striterators.ICloseableIterator;
  * output sink of the {@link JoinGraph} operator. Once the query plan has been
  * identified by the first invocation, subsequent invocations of this operator
  * simply push more data into the sub-query using the pre-identified query plan.
+ * <p>
+ * When {@link Annotations#ADAPTIVE} is specified, the first invocation does
+ * not run the RTO. Instead, it runs the vertices in the given order while
+ * comparing the actual cardinality of each join with the estimate of the
+ * static query optimizer. The RTO is only used if a join turns out to be
+ * badly under-estimated before the first solutions have been released.
  * 
  * TODO This approach amounts to bottom-up evaluation of the {@link JGraph}.
  * Thus, the RTO is not using information from the upstream query when it
@@ -97,13 +113,16 @@ import cutthecrap.utils.striterators.ICloseableIterator;
  */
 public class JoinGraph extends PipelineOp {
 
-//	private static final transient Logger log = Logger
-//			.getLogger(JoinGraph.class);
+	private static final transient Logger log = Logger
+			.getLogger(JoinGraph.class);
 
 	private static final long serialVersionUID = 1L;
 
-//    private static final transient Logger log = Logger
-//            .getLogger(JoinGraph.class);
+    /**
+     * The interval between checks of the actual join cardinalities when the
+     * join graph is evaluated in the adaptive mode.
+     */
+    private static final long ADAPTIVE_POLL_MILLIS = 10;
 
     /**
 	 * Known annotations.
@@ -179,6 +198,53 @@ public class JoinGraph extends PipelineOp {
          * the selected join path.
          */
         String NT = JoinGraph.class.getName() + ".nt";
+
+        /**
+         * When <code>true</code>, the vertices are first evaluated in the
+         * given order (the order assigned by the static query optimizer). The
+         * actual cardinality of each join is compared with the
+         * {@link #ESTIMATED_CARDINALITIES} while the solutions produced by the
+         * join graph are buffered. If the actual cardinality of a join exceeds
+         * its estimate by more than the {@link #ADAPTIVE_THRESHOLD} before
+         * {@link #ADAPTIVE_LIMIT} solutions have been buffered, then that
+         * evaluation is cancelled and the RTO is used to find a better join
+         * path (default {@value #DEFAULT_ADAPTIVE}).
+         */
+        String ADAPTIVE = JoinGraph.class.getName() + ".adaptive";
+
+        boolean DEFAULT_ADAPTIVE = false;
+
+        /**
+         * The estimated cardinality of the join of each vertex with the
+         * vertices which precede it, expressed as a <code>long[]</code> having
+         * the same order as the {@link #VERTICES}. A negative value indicates
+         * that there is no estimate for that join (required iff
+         * {@link #ADAPTIVE}).
+         */
+        String ESTIMATED_CARDINALITIES = JoinGraph.class.getName()
+                + ".estimatedCardinalities";
+
+        /**
+         * The factor by which the actual cardinality of a join may exceed its
+         * estimated cardinality before the join graph is re-planned (default
+         * {@value #DEFAULT_ADAPTIVE_THRESHOLD}).
+         * 
+         * @see #ADAPTIVE
+         */
+        String ADAPTIVE_THRESHOLD = JoinGraph.class.getName()
+                + ".adaptiveThreshold";
+
+        double DEFAULT_ADAPTIVE_THRESHOLD = 10d;
+
+        /**
+         * The #of solutions which are buffered before the join graph commits
+         * to the given join order (default {@value #DEFAULT_ADAPTIVE_LIMIT}).
+         * 
+         * @see #ADAPTIVE
+         */
+        String ADAPTIVE_LIMIT = JoinGraph.class.getName() + ".adaptiveLimit";
+
+        int DEFAULT_ADAPTIVE_LIMIT = 1000;
         
 	}
 
@@ -284,6 +350,44 @@ public class JoinGraph extends PipelineOp {
 	    return (Set<IVariable<?>>) getRequiredProperty(Annotations.DONE_SET);
 	    
 	}
+
+    /**
+     * @see Annotations#ADAPTIVE
+     */
+    public boolean isAdaptive() {
+
+        return getProperty(Annotations.ADAPTIVE, Annotations.DEFAULT_ADAPTIVE);
+
+    }
+
+    /**
+     * @see Annotations#ESTIMATED_CARDINALITIES
+     */
+    public long[] getEstimatedCardinalities() {
+
+        return (long[]) getRequiredProperty(Annotations.ESTIMATED_CARDINALITIES);
+
+    }
+
+    /**
+     * @see Annotations#ADAPTIVE_THRESHOLD
+     */
+    public double getAdaptiveThreshold() {
+
+        return getProperty(Annotations.ADAPTIVE_THRESHOLD,
+                Annotations.DEFAULT_ADAPTIVE_THRESHOLD);
+
+    }
+
+    /**
+     * @see Annotations#ADAPTIVE_LIMIT
+     */
+    public int getAdaptiveLimit() {
+
+        return getProperty(Annotations.ADAPTIVE_LIMIT,
+                Annotations.DEFAULT_ADAPTIVE_LIMIT);
+
+    }
 	
 	/*
 	 * IQueryAttributes
@@ -444,6 +548,27 @@ public class JoinGraph extends PipelineOp {
 
 	    @Override
 	    public Void call() throws Exception {
+
+            // Fully materialize the upstream solutions.
+            final IBindingSet[] bindingSets = BOpUtility.toArray(
+                    context.getSource(), context.getStats());
+
+            if (getQueryPlan(context.getRunningQuery()) == null
+                    && isAdaptive()) {
+
+                /*
+                 * Run the join graph in the given order unless the actual join
+                 * cardinalities show that the estimates were wrong.
+                 */
+
+                if (runAdaptive(context, bindingSets)) {
+
+                    // Done.
+                    return null;
+
+                }
+
+            }
 	        
             if (getQueryPlan(context.getRunningQuery()) == null) {
                 
@@ -524,7 +649,7 @@ public class JoinGraph extends PipelineOp {
             final PipelineOp queryOp = getQueryPlan(context.getRunningQuery());
             
             // Run the query, blocking until it is done.
-	        JoinGraph.runSubquery(context, queryOp);
+	        JoinGraph.runSubquery(context, queryOp, bindingSets);
 
 //	        final long elapsed_queryExecution = System.nanoTime() - mark;
 //	        
@@ -540,6 +665,325 @@ public class JoinGraph extends PipelineOp {
 
 	} // class JoinGraphTask
 
+    /*
+     * The states for the adaptive evaluation of the join graph.
+     */
+    private static final int MONITORING = 0;
+    private static final int COMMITTED = 1;
+    private static final int REPLAN = 2;
+
+    /**
+     * Evaluate the vertices in the given order while monitoring the actual
+     * join cardinalities.
+     * <p>
+     * The solutions are buffered until either {@link #getAdaptiveLimit()}
+     * solutions have been produced or the evaluation is done. Until then, a
+     * monitor compares the solutions produced by each join with the estimated
+     * cardinality of that join. If a join exceeds its estimate by more than
+     * {@link #getAdaptiveThreshold()}, the evaluation is cancelled and the
+     * buffered solutions are discarded. Once the buffered solutions have been
+     * released, the join order is no longer subject to change.
+     * <p>
+     * Note: Only an under-estimate can be detected before a join is done.
+     * Joins which produce fewer solutions than estimated do not cause the
+     * join graph to be re-planned.
+     * 
+     * @return <code>true</code> if the join graph was evaluated in the given
+     *         order and <code>false</code> if it must be re-planned.
+     */
+    private boolean runAdaptive(final BOpContext<IBindingSet> context,
+            final IBindingSet[] bindingSets) throws Exception {
+
+        final IRunningQuery parentQuery = context.getRunningQuery();
+
+        final QueryEngine queryEngine = parentQuery.getQueryEngine();
+
+        final IPredicate<?>[] vertices = getVertices();
+
+        final long[] estimates = getEstimatedCardinalities();
+
+        // The query plan for the given join order.
+        final PipelineOp queryOp = AST2BOpRTO.compileJoinGraph(queryEngine,
+                this, vertices);
+
+        // The bopId of the join for each vertex.
+        final int[] joinIds = getJoinIds(queryOp, vertices);
+
+        /*
+         * The estimates are for a single source solution, but each source
+         * solution is flowed through the joins.
+         */
+        final double threshold = getAdaptiveThreshold()
+                * Math.max(1, bindingSets.length);
+
+        final int limit = getAdaptiveLimit();
+
+        final AtomicInteger state = new AtomicInteger(MONITORING);
+
+        final IRunningQuery runningSubquery = queryEngine.eval(queryOp,
+                bindingSets);
+
+        ICloseableIterator<IBindingSet[]> subquerySolutionItr = null;
+
+        Future<Void> monitor = null;
+
+        try {
+
+            // Declare the child query to the parent.
+            ((AbstractRunningQuery) parentQuery).addChild(runningSubquery);
+
+            // Compare the actual and estimated join cardinalities.
+            monitor = queryEngine.getIndexManager().getExecutorService()
+                    .submit(new Callable<Void>() {
+                        @Override
+                        public Void call() throws Exception {
+                            while (state.get() == MONITORING
+                                    && !runningSubquery.isDone()) {
+                                final int i = getMisestimatedJoin(
+                                        runningSubquery.getStats(), joinIds,
+                                        estimates, threshold);
+                                if (i != -1
+                                        && state.compareAndSet(MONITORING,
+                                                REPLAN)) {
+                                    if (log.isInfoEnabled())
+                                        log.info("Re-planning: vertex="
+                                                + vertices[i] + ", estimate="
+                                                + estimates[i]);
+                                    runningSubquery.cancel(true/* mayInterruptIfRunning */);
+                                    break;
+                                }
+                                Thread.sleep(ADAPTIVE_POLL_MILLIS);
+                            }
+                            return null;
+                        }
+                    });
+
+            // The solutions which have not yet been released.
+            final List<IBindingSet[]> buffer = new LinkedList<IBindingSet[]>();
+
+            long nbuffered = 0L;
+
+            subquerySolutionItr = runningSubquery.iterator();
+
+            while (subquerySolutionItr.hasNext()) {
+
+                final IBindingSet[] chunk = subquerySolutionItr.next();
+
+                if (state.get() == COMMITTED) {
+
+                    context.getSink().add(chunk);
+
+                    continue;
+
+                }
+
+                buffer.add(chunk);
+
+                nbuffered += chunk.length;
+
+                if (nbuffered >= limit) {
+
+                    /*
+                     * Check the estimates once more before committing to the
+                     * join order since the monitor only polls them.
+                     */
+                    if (getMisestimatedJoin(runningSubquery.getStats(),
+                            joinIds, estimates, threshold) != -1
+                            && state.compareAndSet(MONITORING, REPLAN)) {
+
+                        runningSubquery.cancel(true/* mayInterruptIfRunning */);
+
+                        return false;
+
+                    }
+
+                    if (state.compareAndSet(MONITORING, COMMITTED)) {
+
+                        release(context, buffer);
+
+                    }
+
+                }
+
+            }
+
+            /*
+             * The subquery is done and its statistics are final, so this check
+             * does not depend on whether the monitor got to run.
+             */
+            if (state.get() == MONITORING
+                    && getMisestimatedJoin(runningSubquery.getStats(), joinIds,
+                            estimates, threshold) != -1) {
+
+                state.compareAndSet(MONITORING, REPLAN);
+
+            }
+
+            if (state.compareAndSet(MONITORING, COMMITTED)) {
+
+                release(context, buffer);
+
+            }
+
+            if (state.get() == REPLAN) {
+
+                return false;
+
+            }
+
+            // verify no problems.
+            runningSubquery.get();
+
+        } catch (Throwable t) {
+
+            if (state.get() == REPLAN) {
+
+                // The evaluation was cancelled by the monitor.
+                return false;
+
+            }
+
+            if (Haltable.isTerminationByInterrupt(t)) {
+
+                // normal termination.
+                return true;
+
+            }
+
+            /*
+             * Propagate the error to the parent and rethrow the first cause
+             * error out of the subquery.
+             */
+            throw new RuntimeException(parentQuery.halt(t));
+
+        } finally {
+
+            if (monitor != null)
+                monitor.cancel(true/* mayInterruptIfRunning */);
+
+            runningSubquery.cancel(true/* mayInterruptIfRunning */);
+
+            if (subquerySolutionItr != null)
+                subquerySolutionItr.close();
+
+        }
+
+        // Use the same join order for any subsequent source solutions.
+        setQueryPlan(parentQuery, queryOp);
+
+        return true;
+
+    }
+
+    /**
+     * Copy the buffered solutions to the sink.
+     */
+    private static void release(final BOpContext<IBindingSet> context,
+            final List<IBindingSet[]> buffer) {
+
+        for (IBindingSet[] chunk : buffer) {
+
+            context.getSink().add(chunk);
+
+        }
+
+        buffer.clear();
+
+    }
+
+    /**
+     * Return the bopId of the join operator for each vertex in the query plan
+     * generated for the join graph.
+     * 
+     * @param queryOp
+     *            The query plan.
+     * @param vertices
+     *            The vertices.
+     * 
+     * @return The bopIds of the joins, in the same order as the vertices. The
+     *         bopId is <code>-1</code> if the join for a vertex was not found.
+     */
+    static int[] getJoinIds(final PipelineOp queryOp,
+            final IPredicate<?>[] vertices) {
+
+        final int[] joinIds = new int[vertices.length];
+
+        for (int i = 0; i < vertices.length; i++) {
+
+            joinIds[i] = -1;
+
+        }
+
+        final Iterator<BOp> itr = BOpUtility.preOrderIterator(queryOp);
+
+        while (itr.hasNext()) {
+
+            final BOp op = itr.next();
+
+            final IPredicate<?> pred = (IPredicate<?>) op
+                    .getProperty(AccessPathJoinAnnotations.PREDICATE);
+
+            if (pred == null)
+                continue;
+
+            for (int i = 0; i < vertices.length; i++) {
+
+                if (vertices[i].getId() == pred.getId()) {
+
+                    joinIds[i] = op.getId();
+
+                }
+
+            }
+
+        }
+
+        return joinIds;
+
+    }
+
+    /**
+     * Return the index of the first join whose actual cardinality exceeds its
+     * estimated cardinality by more than the threshold.
+     * 
+     * @param stats
+     *            The statistics for the operators in the query plan.
+     * @param joinIds
+     *            The bopId of the join for each vertex.
+     * @param estimates
+     *            The estimated cardinality of the join for each vertex.
+     * @param threshold
+     *            The factor by which the actual cardinality may exceed the
+     *            estimated cardinality.
+     * 
+     * @return The index of that join -or- <code>-1</code> if there is no such
+     *         join.
+     */
+    static int getMisestimatedJoin(final Map<Integer, BOpStats> stats,
+            final int[] joinIds, final long[] estimates, final double threshold) {
+
+        for (int i = 0; i < joinIds.length; i++) {
+
+            if (joinIds[i] == -1 || estimates[i] < 0L)
+                continue;
+
+            final BOpStats s = stats.get(joinIds[i]);
+
+            if (s == null)
+                continue;
+
+            final long actual = s instanceof PipelineJoinStats ? ((PipelineJoinStats) s).outputSolutions
+                    .get() : s.unitsOut.get();
+
+            if (actual > threshold * Math.max(1L, estimates[i]))
+                return i;
+
+        }
+
+        return -1;
+
+    }
+
     /**
      * Execute the selected join path.
      * <p>
@@ -550,7 +994,8 @@ public class JoinGraph extends PipelineOp {
      */
     static private void runSubquery(
             final BOpContext<IBindingSet> parentContext,
-            final PipelineOp queryOp) throws Exception {
+            final PipelineOp queryOp, final IBindingSet[] bindingSets)
+            throws Exception {
 
         if(parentContext==null)
             throw new IllegalArgumentException();
@@ -567,10 +1012,6 @@ public class JoinGraph extends PipelineOp {
 
         ICloseableIterator<IBindingSet[]> subquerySolutionItr = null;
 
-        // Fully materialize the upstream solutions.
-        final IBindingSet[] bindingSets = BOpUtility.toArray(
-                parentContext.getSource(), parentContext.getStats());
-
         /*
          * Run on all available upstream solutions.
          * 
@@ -27,6 +27,7 @@ Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
 
 package com.bigdata.bop.paths;
 
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
@@ -43,6 +44,7 @@ import org.apache.log4j.Logger;
 import com.bigdata.bop.BOp;
 import com.bigdata.bop.BOpContext;
 import com.bigdata.bop.ConcurrentHashMapAnnotations;
+import com.bigdata.bop.HTreeAnnotations;
 import com.bigdata.bop.HashMapAnnotations;
 import com.bigdata.bop.IBindingSet;
 import com.bigdata.bop.IConstant;
@@ -54,10 +56,14 @@ import com.bigdata.bop.bindingSet.EmptyBindingSet;
 import com.bigdata.bop.engine.AbstractRunningQuery;
 import com.bigdata.bop.engine.IRunningQuery;
 import com.bigdata.bop.engine.QueryEngine;
+import com.bigdata.bop.join.HTreeDistinctFilter;
 import com.bigdata.bop.join.IDistinctFilter;
 import com.bigdata.bop.join.JVMDistinctFilter;
 import com.bigdata.bop.solutions.JVMDistinctBindingSetsOp;
+import com.bigdata.htree.HTree;
+import com.bigdata.rdf.internal.IV;
 import com.bigdata.relation.accesspath.UnsynchronizedArrayBuffer;
+import com.bigdata.rwstore.sector.IMemoryManager;
 
 import cutthecrap.utils.striterators.ICloseableIterator;
 
@@ -98,9 +104,10 @@ import cutthecrap.utils.striterators.ICloseableIterator;
  * @author <a href="mailto:mpersonick@users.sourceforge.net">Mike Personick</a>
  * @author <a href="mailto:ms@metaphacts.com">Michael Schmidt</a>
  * 
- *         TODO There should be two version of this operator. One for the JVM
- *         heap and another for the native heap. This will help when large
- *         amounts of data are materialized by the internal collections.
+ *         Note: The internal collections live on the JVM heap by default.
+ *         See {@link Annotations#NATIVE} for a mode which keeps them on the
+ *         native heap instead. This helps when large amounts of data are
+ *         materialized by the rounds.
  *         
  *         TODO think about whether the whole SolutionKey mechanism is required
  *         at all, now that we have a distinct projection at the end. It might
@@ -121,7 +128,8 @@ public class ArbitraryLengthPathOp extends PipelineOp {
      */
     private static final long serialVersionUID = 1L;
 
-    public interface Annotations extends com.bigdata.bop.PipelineOp.Annotations {
+    public interface Annotations extends com.bigdata.bop.PipelineOp.Annotations,
+            HTreeAnnotations {
 
     	/**
     	 * The subquery representing the path between left and right.
@@ -184,7 +192,63 @@ public class ArbitraryLengthPathOp extends PipelineOp {
 
         float DEFAULT_LOAD_FACTOR = .75f;      
 
-        
+        /**
+         * When <code>true</code>, the visited set, the frontier for each round
+         * and the DISTINCT filter on the output solutions are maintained as
+         * {@link IV} keyed {@link HTree}s on the native heap (backed by the
+         * {@link IMemoryManager} of the query) rather than as collections on
+         * the JVM heap (default {@value #DEFAULT_NATIVE}). Each round is
+         * driven by reading the frontier in chunks of at most
+         * {@link #FRONTIER_CHUNK_SIZE} solutions, so the JVM heap demand is
+         * bounded by the chunk size rather than by the #of visited nodes.
+         * <p>
+         * Note: This mode is specific to the RDF data model (it relies on
+         * encoded {@link IV}s). The frontier is projected onto the variables
+         * which are bound by the incoming solutions and by the transitivity
+         * variables, and only solutions which are new to the visited set are
+         * expanded in the next round.
+         */
+        String NATIVE = Annotations.class.getName() + ".native";
+
+        boolean DEFAULT_NATIVE = false;
+
+        /**
+         * The maximum #of frontier solutions which are fed into a single
+         * evaluation of the {@link #SUBQUERY} when {@link #NATIVE} is
+         * <code>true</code> (default {@value #DEFAULT_FRONTIER_CHUNK_SIZE}).
+         */
+        String FRONTIER_CHUNK_SIZE = Annotations.class.getName()
+                + ".frontierChunkSize";
+
+        int DEFAULT_FRONTIER_CHUNK_SIZE = 10000;
+
+        /**
+         * When <code>true</code>, solutions for which both ends of the path
+         * are known (each end is either a constant or a variable which is
+         * bound by the incoming solution) are evaluated by a bidirectional,
+         * meet-in-the-middle search which alternately expands the smaller of
+         * the frontiers from the left and the right end of the path and stops
+         * as soon as they intersect (default {@value #DEFAULT_BIDIRECTIONAL}).
+         * Otherwise the path is expanded from one end until the frontier is
+         * exhausted.
+         * <p>
+         * Each step of the bidirectional search is evaluated against a copy of
+         * the incoming solution. The bindings produced by a step (other than
+         * the transitivity variables) are not carried into the next step, and
+         * the frontiers only retain the nodes on the path. In particular, the
+         * context variable of a <code>GRAPH ?g</code> pattern does not
+         * constrain the search, so the query plan does not use this mode for
+         * a path whose statement patterns have a context variable.
+         * <p>
+         * Note: The visited sets of the bidirectional search are on the JVM
+         * heap (regardless of {@link #NATIVE}). They are bounded by the nodes
+         * reachable within the smaller frontiers rather than by the nodes
+         * reachable from one end.
+         */
+        String BIDIRECTIONAL = Annotations.class.getName() + ".bidirectional";
+
+        boolean DEFAULT_BIDIRECTIONAL = false;
+
     }
 
     /**
@@ -242,6 +306,10 @@ public class ArbitraryLengthPathOp extends PipelineOp {
       private final long lowerBound, upperBound;
       private final UnsynchronizedArrayBuffer<IBindingSet> out;
       private IDistinctFilter distinctVarFilter;
+      private final ArbitraryLengthPathOp controllerOp;
+      private final boolean nativeMode;
+      private final boolean bidirectional;
+      private final int frontierChunkSize;
 
       public ArbitraryLengthPathTask(final ArbitraryLengthPathOp controllerOp,
             final BOpContext<IBindingSet> context) {
@@ -254,6 +322,18 @@ public class ArbitraryLengthPathOp extends PipelineOp {
 
          this.context = context;
 
+         this.controllerOp = controllerOp;
+
+         this.nativeMode = controllerOp.getProperty(Annotations.NATIVE,
+               Annotations.DEFAULT_NATIVE);
+
+         this.bidirectional = controllerOp.getProperty(
+               Annotations.BIDIRECTIONAL, Annotations.DEFAULT_BIDIRECTIONAL);
+
+         this.frontierChunkSize = controllerOp.getProperty(
+               Annotations.FRONTIER_CHUNK_SIZE,
+               Annotations.DEFAULT_FRONTIER_CHUNK_SIZE);
+
          this.subquery = (PipelineOp) controllerOp
                .getRequiredProperty(Annotations.SUBQUERY);
 
@@ -317,15 +397,20 @@ public class ArbitraryLengthPathOp extends PipelineOp {
           * The distinct var filter is responsible for removing duplicate
           * solutions.
           */
-         distinctVarFilter = new JVMDistinctFilter(
-               varsToRetainList, //
-               controllerOp.getProperty(
-                     Annotations.INITIAL_CAPACITY,
-                     Annotations.DEFAULT_INITIAL_CAPACITY),//
-               controllerOp.getProperty(
-                     Annotations.LOAD_FACTOR,
-                     Annotations.DEFAULT_LOAD_FACTOR),//
-               ConcurrentHashMapAnnotations.DEFAULT_CONCURRENCY_LEVEL);
+         if (nativeMode) {
+            distinctVarFilter = new HTreeDistinctFilter(varsToRetainList,
+                  context.getRunningQuery().getMemoryManager(), controllerOp);
+         } else {
+            distinctVarFilter = new JVMDistinctFilter(
+                  varsToRetainList, //
+                  controllerOp.getProperty(
+                        Annotations.INITIAL_CAPACITY,
+                        Annotations.DEFAULT_INITIAL_CAPACITY),//
+                  controllerOp.getProperty(
+                        Annotations.LOAD_FACTOR,
+                        Annotations.DEFAULT_LOAD_FACTOR),//
+                  ConcurrentHashMapAnnotations.DEFAULT_CONCURRENCY_LEVEL);
+         }
         }
 
       
@@ -365,6 +450,8 @@ public class ArbitraryLengthPathOp extends PipelineOp {
 
             } finally {
                 
+                distinctVarFilter.release();
+
                 context.getSource().close();
 
                 context.getSink().close();
@@ -376,7 +463,28 @@ public class ArbitraryLengthPathOp extends PipelineOp {
             
         }
         
-      private void processChunk(final IBindingSet[] chunkIn) throws Exception {
+      private void processChunk(IBindingSet[] chunkIn) throws Exception {
+
+         if (bidirectional && chunkIn.length > 0) {
+
+            /*
+             * Solutions for which both ends of the path are known are handled
+             * by a bidirectional search.
+             */
+            chunkIn = processChunkBidirectional(chunkIn);
+
+            if (chunkIn.length == 0)
+               return;
+
+         }
+
+         if (nativeMode) {
+
+            processChunkNative(chunkIn);
+
+            return;
+
+         }
 
          final Map<SolutionKey, IBindingSet> solutions = new LinkedHashMap<SolutionKey, IBindingSet>();
 
@@ -775,6 +883,777 @@ public class ArbitraryLengthPathOp extends PipelineOp {
       }
       
 
+      /**
+       * Run a bidirectional (meet-in-the-middle) search for each solution in
+       * the chunk for which both ends of the path are known, i.e., the left
+       * and right terms are either constants or variables which are bound by
+       * the solution. The search alternately expands the smaller of the
+       * forward and reverse frontiers by one step, using the subquery in
+       * forward gear (left transitivity variable bound) or reverse gear (right
+       * transitivity variable bound) so the joins in the subquery will use
+       * the SPO or the OSP access paths respectively. The search halts as
+       * soon as the frontiers intersect, when either frontier is exhausted,
+       * or when the upper bound on the path length is reached.
+       * 
+       * @param chunkIn
+       *           the incoming solutions
+       * 
+       * @return the solutions which were not handled (one of the ends of the
+       *         path is not known)
+       * 
+       * @see Annotations#BIDIRECTIONAL
+       */
+      private IBindingSet[] processChunkBidirectional(
+            final IBindingSet[] chunkIn) throws Exception {
+
+         final List<IBindingSet> remaining = new LinkedList<IBindingSet>();
+
+         final QueryEngine queryEngine = this.context.getRunningQuery()
+               .getQueryEngine();
+
+         for (IBindingSet parentSolutionIn : chunkIn) {
+
+            final IConstant<?> leftVal = forwardGearing.inConst != null ? forwardGearing.inConst
+                  : parentSolutionIn.get(forwardGearing.inVar);
+
+            final IConstant<?> rightVal = forwardGearing.outConst != null ? forwardGearing.outConst
+                  : parentSolutionIn.get(forwardGearing.outVar);
+
+            if (leftVal == null || rightVal == null) {
+
+               remaining.add(parentSolutionIn);
+
+               continue;
+
+            }
+
+            if (log.isDebugEnabled())
+               log.debug("bidirectional: left=" + leftVal + ", right="
+                     + rightVal);
+
+            if (isReachable(queryEngine, parentSolutionIn, leftVal, rightVal)) {
+
+               final IBindingSet bs = parentSolutionIn.clone();
+
+               bs.set(forwardGearing.tVarIn, leftVal);
+
+               bs.set(forwardGearing.tVarOut, rightVal);
+
+               emitSolutions(bs, forwardGearing);
+
+            }
+
+         }
+
+         return remaining.toArray(new IBindingSet[remaining.size()]);
+
+      }
+
+      /**
+       * Return <code>true</code> iff there is a path whose length is within
+       * the lower and upper bounds from the left value to the right value.
+       * 
+       * @param queryEngine
+       *           the query engine to execute the driver subquery
+       * @param parentSolutionIn
+       *           the incoming solution whose bindings constrain the path
+       * @param leftVal
+       *           the value on the left end of the path
+       * @param rightVal
+       *           the value on the right end of the path
+       */
+      private boolean isReachable(final QueryEngine queryEngine,
+            final IBindingSet parentSolutionIn, final IConstant<?> leftVal,
+            final IConstant<?> rightVal)
+            throws Exception {
+
+         if (lowerBound == 0 && leftVal.equals(rightVal)) {
+
+            // zero length path.
+            return true;
+
+         }
+
+         final Set<IConstant<?>> forwardVisited = new LinkedHashSet<IConstant<?>>();
+         final Set<IConstant<?>> reverseVisited = new LinkedHashSet<IConstant<?>>();
+
+         Set<IConstant<?>> forwardFrontier = new LinkedHashSet<IConstant<?>>();
+         Set<IConstant<?>> reverseFrontier = new LinkedHashSet<IConstant<?>>();
+
+         forwardVisited.add(leftVal);
+         forwardFrontier.add(leftVal);
+
+         reverseVisited.add(rightVal);
+         reverseFrontier.add(rightVal);
+
+         /*
+          * Note: Each step extends the path by (at least) one hop, so any
+          * intersection discovered by a step is a path of length GTE one.
+          */
+         for (long hops = 0; hops < upperBound; hops++) {
+
+            if (forwardFrontier.isEmpty() || reverseFrontier.isEmpty()) {
+
+               // One side was exhausted without meeting the other side.
+               return false;
+
+            }
+
+            final boolean forward = forwardFrontier.size() <= reverseFrontier
+                  .size();
+
+            final Gearing gearing = forward ? forwardGearing : reverseGearing;
+
+            final Set<IConstant<?>> visited = forward ? forwardVisited
+                  : reverseVisited;
+
+            final Set<IConstant<?>> other = forward ? reverseVisited
+                  : forwardVisited;
+
+            final Set<IConstant<?>> next = new LinkedHashSet<IConstant<?>>();
+
+            for (IConstant<?> c : expand(queryEngine, gearing,
+                  parentSolutionIn, forward ? forwardFrontier
+                        : reverseFrontier)) {
+
+               if (other.contains(c)) {
+
+                  if (log.isDebugEnabled())
+                     log.debug("frontiers met after " + (hops + 1)
+                           + " steps: " + c);
+
+                  return true;
+
+               }
+
+               if (visited.add(c)) {
+
+                  next.add(c);
+
+               }
+
+            }
+
+            if (forward) {
+               forwardFrontier = next;
+            } else {
+               reverseFrontier = next;
+            }
+
+         }
+
+         return false;
+
+      }
+
+      /**
+       * Evaluate the subquery for a frontier and return the distinct bindings
+       * which it produced for the output transitivity variable of the gearing.
+       * 
+       * @param queryEngine
+       *           the query engine to execute the driver subquery
+       * @param gearing
+       *           the gearing in which the subquery is run
+       * @param parentSolutionIn
+       *           the incoming solution which is cloned for each member of
+       *           the frontier (as in {@link #doIterate(Map, QueryEngine, Set, Gearing)})
+       * @param frontier
+       *           the bindings for the input transitivity variable
+       */
+      private Set<IConstant<?>> expand(final QueryEngine queryEngine,
+            final Gearing gearing, final IBindingSet parentSolutionIn,
+            final Set<IConstant<?>> frontier) throws Exception {
+
+         final IBindingSet[] in = new IBindingSet[frontier.size()];
+
+         int i = 0;
+
+         for (IConstant<?> c : frontier) {
+
+            final IBindingSet bs = parentSolutionIn.clone();
+
+            bs.set(gearing.tVarIn, c);
+
+            bs.clear(gearing.tVarOut);
+
+            in[i++] = bs;
+
+         }
+
+         final Set<IConstant<?>> out = new LinkedHashSet<IConstant<?>>();
+
+         // The subquery
+         IRunningQuery runningSubquery = null;
+
+         // The iterator draining the subquery
+         ICloseableIterator<IBindingSet[]> subquerySolutionItr = null;
+
+         try {
+
+            runningSubquery = queryEngine.eval(subquery, in);
+
+            long subqueryChunksOut = 0L; // #of chunks read from subquery
+
+            try {
+
+               // Declare the child query to the parent.
+               ((AbstractRunningQuery) context.getRunningQuery())
+                     .addChild(runningSubquery);
+
+               // Iterator visiting the subquery solutions.
+               subquerySolutionItr = runningSubquery.iterator();
+
+               while (subquerySolutionItr.hasNext()) {
+
+                  final IBindingSet[] chunk = subquerySolutionItr.next();
+
+                  for (IBindingSet bs : chunk) {
+
+                     if (subqueryChunksOut++ % 10 == 0
+                           && Thread.interrupted()) {
+                        throw new InterruptedException();
+                     }
+
+                     final IConstant<?> c = bs.get(gearing.tVarOut);
+
+                     if (c != null)
+                        out.add(c);
+
+                  }
+
+               }
+
+               // finished with the iterator
+               subquerySolutionItr.close();
+
+               // wait for the subquery to halt / test for errors.
+               runningSubquery.get();
+
+            } catch (InterruptedException ex) {
+
+               // this thread was interrupted, so cancel the subquery.
+               runningSubquery.cancel(true/* mayInterruptIfRunning */);
+
+               // rethrow the exception.
+               throw ex;
+
+            }
+
+         } catch (Throwable t) {
+
+            if (runningSubquery == null
+                  || runningSubquery.getCause() != null) {
+               /*
+                * Propagate the error to the parent and rethrow the first cause
+                * error out of the subquery (see doIterate()).
+                */
+               throw new RuntimeException(
+                     ArbitraryLengthPathTask.this.context.getRunningQuery()
+                           .halt(runningSubquery == null ? t
+                                 : runningSubquery.getCause()));
+            }
+
+         } finally {
+
+            try {
+
+               // ensure subquery is halted.
+               if (runningSubquery != null)
+                  runningSubquery.cancel(true/* mayInterruptIfRunning */);
+
+            } finally {
+
+               // ensure the subquery solution iterator is closed.
+               if (subquerySolutionItr != null)
+                  subquerySolutionItr.close();
+
+            }
+
+         }
+
+         return out;
+
+      }
+
+      /**
+       * Native heap version of {@link #processChunk(IBindingSet[])}. The
+       * visited set and the frontier of each round are {@link IV} keyed
+       * {@link HTreeDistinctFilter}s backed by the {@link IMemoryManager} of
+       * the query, so the JVM heap is not used to retain the solutions
+       * discovered by the rounds.
+       * 
+       * @see Annotations#NATIVE
+       */
+      private void processChunkNative(final IBindingSet[] chunkIn)
+            throws Exception {
+
+         final QueryEngine queryEngine = this.context.getRunningQuery()
+               .getQueryEngine();
+
+         final IMemoryManager mmgr = this.context.getRunningQuery()
+               .getMemoryManager();
+
+         final Gearing gearing = chooseGearing(chunkIn);
+
+         if (log.isDebugEnabled()) {
+            log.debug("gearing: " + gearing);
+         }
+
+         /*
+          * The visited set is DISTINCT on the same variables as the
+          * SolutionKey used by the JVM version of this operator.
+          */
+         final HTreeDistinctFilter visited = new HTreeDistinctFilter(
+               getVisitedVars(gearing), mmgr, controllerOp);
+
+         final IVariable<?>[] frontierVars = getFrontierVars(gearing, chunkIn);
+
+         /*
+          * The input to the first round of transitive chaining.
+          */
+         final HTreeDistinctFilter frontier = new HTreeDistinctFilter(
+               frontierVars, mmgr, controllerOp);
+
+         try {
+
+            for (IBindingSet parentSolutionIn : chunkIn) {
+
+               final IBindingSet childSolutionIn = parentSolutionIn.clone();
+
+               final IConstant<?> seed = gearing.inConst != null ? gearing.inConst
+                     : childSolutionIn.get(gearing.inVar);
+
+               if (seed != null) {
+
+                  childSolutionIn.set(gearing.tVarIn, seed);
+
+                  // Add a zero length path from the seed to itself.
+                  if (lowerBound == 0
+                        && canBind(gearing, childSolutionIn, seed)) {
+
+                     final IBindingSet bs = parentSolutionIn.clone();
+
+                     bs.set(gearing.tVarIn, seed);
+
+                     bs.set(gearing.tVarOut, seed);
+
+                     if (visited.accept(bs) != null) {
+
+                        emitSolutions(bs, gearing);
+
+                     }
+
+                  }
+
+               }
+
+               frontier.accept(childSolutionIn);
+
+            }
+
+            // go into iteration
+            doIterateNative(visited, queryEngine, frontier, frontierVars,
+                  gearing);
+
+         } finally {
+
+            frontier.release();
+
+            visited.release();
+
+         }
+
+      }
+
+      /**
+       * Native heap version of {@link #doIterate(Map, QueryEngine, Set, Gearing)}.
+       * Each round reads the frontier in chunks of at most
+       * {@link #frontierChunkSize} solutions and evaluates the subquery once
+       * per chunk. Only those subquery solutions which are new to the visited
+       * set are emitted and remapped onto the frontier for the next round, so
+       * the rounds reach a fixed point when the frontier is empty.
+       * 
+       * @param visited
+       *           the visited set
+       * @param queryEngine
+       *           the query engine to execute the driver subquery
+       * @param firstRoundInput
+       *           the input for the first round (released by the caller)
+       * @param frontierVars
+       *           the variables onto which the frontier is projected
+       * @param gearing
+       *           the given gearing
+       */
+      private void doIterateNative(final HTreeDistinctFilter visited,
+            final QueryEngine queryEngine,
+            final HTreeDistinctFilter firstRoundInput,
+            final IVariable<?>[] frontierVars, final Gearing gearing)
+            throws Exception {
+
+         final IMemoryManager mmgr = this.context.getRunningQuery()
+               .getMemoryManager();
+
+         HTreeDistinctFilter frontier = firstRoundInput;
+
+         try {
+
+            for (int i = 0; i < upperBound; i++) {
+
+               final long sizeBefore = visited.size();
+
+               final HTreeDistinctFilter nextFrontier = new HTreeDistinctFilter(
+                     frontierVars, mmgr, controllerOp);
+
+               try {
+
+                  final ICloseableIterator<IBindingSet> fitr = frontier
+                        .indexScan();
+
+                  try {
+
+                     /*
+                      * Note: The subquery is evaluated at least once per round
+                      * (the first round may not have any input).
+                      */
+                     do {
+
+                        final List<IBindingSet> chunk = new ArrayList<IBindingSet>();
+
+                        while (fitr.hasNext() && chunk.size() < frontierChunkSize) {
+
+                           chunk.add(fitr.next());
+
+                        }
+
+                        runRoundNative(i,
+                              chunk.toArray(new IBindingSet[chunk.size()]),
+                              visited, nextFrontier, queryEngine, gearing);
+
+                     } while (fitr.hasNext());
+
+                  } finally {
+
+                     fitr.close();
+
+                  }
+
+               } catch (Throwable t) {
+
+                  nextFrontier.release();
+
+                  if (t instanceof Exception)
+                     throw (Exception) t;
+
+                  throw new RuntimeException(t);
+
+               }
+
+               if (frontier != firstRoundInput)
+                  frontier.release();
+
+               frontier = nextFrontier;
+
+               if (log.isDebugEnabled()) {
+                  log.debug("done with round " + i + ", totalBefore="
+                        + sizeBefore + ", totalAfter=" + visited.size()
+                        + ", frontier=" + frontier.size());
+               }
+
+               // we've reached fixed point
+               if (frontier.size() == 0) {
+
+                  break;
+
+               }
+
+            } // fixed point for loop
+
+         } finally {
+
+            if (frontier != firstRoundInput)
+               frontier.release();
+
+         }
+
+         /*
+          * Note: The JVM version of this operator drops the solutions whose
+          * transitive output does not match the output constant from the
+          * solutions map at this point, but that map is only consulted again
+          * when there are variables on both sides of the operator. The visited
+          * set is therefore left as is.
+          */
+
+         /*
+          * Add the necessary zero-length path solutions for the case where
+          * there are variables on both side of the operator. The zero-length
+          * path solutions which duplicate solutions that were already emitted
+          * are dropped by the distinct var filter.
+          */
+         if (lowerBound == 0
+               && (gearing.inVar != null && gearing.outVar != null)) {
+
+            final ICloseableIterator<IBindingSet> vitr = visited.indexScan();
+
+            try {
+
+               while (vitr.hasNext()) {
+
+                  final IBindingSet bs = vitr.next();
+
+                  /*
+                   * Do not handle the case where the out var is bound by the
+                   * incoming solutions.
+                   */
+                  if (bs.isBound(gearing.outVar)) {
+
+                     continue;
+
+                  }
+
+                  { // left to right
+
+                     final IBindingSet zlp = bs.clone();
+
+                     zlp.set(gearing.tVarOut, zlp.get(gearing.inVar));
+
+                     emitSolutions(zlp, gearing);
+
+                  }
+
+                  { // right to left
+
+                     final IBindingSet zlp = bs.clone();
+
+                     zlp.set(gearing.inVar, zlp.get(gearing.tVarOut));
+
+                     emitSolutions(zlp, gearing);
+
+                  }
+
+               }
+
+            } finally {
+
+               vitr.close();
+
+            }
+
+         }
+
+      }
+
+      /**
+       * Evaluate the subquery for one chunk of the frontier of a round.
+       * Solutions which are new to the visited set are emitted and remapped as
+       * input for the next round.
+       * 
+       * @param round
+       *           the index of the round
+       * @param chunk
+       *           the chunk of the frontier
+       * @param visited
+       *           the visited set
+       * @param nextFrontier
+       *           the frontier for the next round
+       * @param queryEngine
+       *           the query engine to execute the driver subquery
+       * @param gearing
+       *           the given gearing
+       */
+      private void runRoundNative(final int round, final IBindingSet[] chunk,
+            final HTreeDistinctFilter visited,
+            final HTreeDistinctFilter nextFrontier,
+            final QueryEngine queryEngine, final Gearing gearing) {
+
+         // The subquery
+         IRunningQuery runningSubquery = null;
+
+         // The iterator draining the subquery
+         ICloseableIterator<IBindingSet[]> subquerySolutionItr = null;
+
+         try {
+
+            runningSubquery = queryEngine.eval(subquery, chunk);
+
+            long subqueryChunksOut = 0L; // #of chunks read from subquery
+
+            try {
+
+               // Declare the child query to the parent.
+               ((AbstractRunningQuery) context.getRunningQuery())
+                     .addChild(runningSubquery);
+
+               // Iterator visiting the subquery solutions.
+               subquerySolutionItr = runningSubquery.iterator();
+
+               while (subquerySolutionItr.hasNext()) {
+
+                  final IBindingSet[] a = subquerySolutionItr.next();
+
+                  for (IBindingSet bs : a) {
+
+                     /**
+                      * @see <a href="http://trac.blazegraph.com/ticket/865">
+                      *      OutOfMemoryError instead of Timeout for SPARQL
+                      *      Property Paths </a>
+                      */
+                     if (subqueryChunksOut++ % 10 == 0
+                           && Thread.interrupted()) {
+                        throw new InterruptedException();
+                     }
+
+                     if (log.isDebugEnabled()) {
+                        log.debug("round " + round + " solution: " + bs);
+                     }
+
+                     if (gearing.inVar != null && !bs.isBound(gearing.inVar)) {
+
+                        /*
+                         * Must be the first round (see doIterate()).
+                         */
+                        bs.set(gearing.inVar, bs.get(gearing.tVarIn));
+
+                     }
+
+                     if (visited.accept(bs) == null) {
+
+                        /*
+                         * Already visited. The solution was emitted and its
+                         * transitive output was expanded by an earlier round.
+                         */
+                        continue;
+
+                     }
+
+                     emitSolutions(bs, gearing);
+
+                     /*
+                      * Remap as input for next round. Anonymous variables
+                      * introduced in this run are dropped by the projection
+                      * onto the frontier variables.
+                      */
+                     final IBindingSet input = bs.clone();
+
+                     input.set(gearing.tVarIn, bs.get(gearing.tVarOut));
+                     input.clear(gearing.tVarOut);
+
+                     nextFrontier.accept(input);
+
+                  }
+
+               } // end while
+
+               // finished with the iterator
+               subquerySolutionItr.close();
+
+               // wait for the subquery to halt / test for errors.
+               runningSubquery.get();
+
+            } catch (InterruptedException ex) {
+
+               // this thread was interrupted, so cancel the subquery.
+               runningSubquery.cancel(true/* mayInterruptIfRunning */);
+
+               // rethrow the exception.
+               throw ex;
+
+            }
+
+         } catch (Throwable t) {
+
+            if (runningSubquery == null
+                  || runningSubquery.getCause() != null) {
+               /*
+                * If things fail before we start the subquery, or if a
+                * subquery fails (due to abnormal termination), then propagate
+                * the error to the parent and rethrow the first cause error out
+                * of the subquery (see doIterate()).
+                */
+               throw new RuntimeException(
+                     ArbitraryLengthPathTask.this.context.getRunningQuery()
+                           .halt(runningSubquery == null ? t
+                                 : runningSubquery.getCause()));
+            }
+
+         } finally {
+
+            try {
+
+               // ensure subquery is halted.
+               if (runningSubquery != null)
+                  runningSubquery.cancel(true/* mayInterruptIfRunning */);
+
+            } finally {
+
+               // ensure the subquery solution iterator is closed.
+               if (subquerySolutionItr != null)
+                  subquerySolutionItr.close();
+
+            }
+
+         }
+
+      }
+
+      /**
+       * The variables on which the visited set is DISTINCT. These are the
+       * same variables which are used by {@link #newSolutionKey(Gearing, IBindingSet)}.
+       */
+      private IVariable<?>[] getVisitedVars(final Gearing gearing) {
+
+         if (gearing.inVar != null && gearing.outVar != null) {
+            return new IVariable<?>[] { gearing.inVar, gearing.outVar,
+                  gearing.tVarOut };
+         } else if (gearing.inVar != null) {
+            return new IVariable<?>[] { gearing.inVar, gearing.tVarOut };
+         } else if (gearing.outVar != null) {
+            return new IVariable<?>[] { gearing.outVar, gearing.tVarOut };
+         } else {
+            return new IVariable<?>[] { gearing.tVarOut };
+         }
+
+      }
+
+      /**
+       * The variables onto which the frontier is projected. These are the
+       * variables bound by the incoming solutions together with the input
+       * side variables of the gearing. As in the JVM version of this
+       * operator, anonymous variables are dropped unless they drive the
+       * evaluation.
+       */
+      private IVariable<?>[] getFrontierVars(final Gearing gearing,
+            final IBindingSet[] chunkIn) {
+
+         final Set<IVariable<?>> vars = new LinkedHashSet<IVariable<?>>();
+
+         if (gearing.inVar != null)
+            vars.add(gearing.inVar);
+
+         vars.add(gearing.tVarIn);
+
+         if (gearing.outVar != null)
+            vars.add(gearing.outVar);
+
+         for (IBindingSet bs : chunkIn) {
+
+            @SuppressWarnings("rawtypes")
+            final Iterator<IVariable> vit = bs.vars();
+
+            while (vit.hasNext()) {
+
+               final IVariable<?> var = vit.next();
+
+               if (!var.isAnonymous())
+                  vars.add(var);
+
+            }
+
+         }
+
+         return vars.toArray(new IVariable<?>[vars.size()]);
+
+      }
+
       /**
          * Is it possible to bind the out of the gearing to the seed?
          * This may be because it is an unbound variable, or it may be that it is already the seed 
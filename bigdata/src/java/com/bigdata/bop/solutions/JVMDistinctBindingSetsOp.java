@@ -37,6 +37,8 @@ import com.bigdata.bop.IVariable;
 import com.bigdata.bop.NV;
 import com.bigdata.bop.PipelineOp;
 import com.bigdata.bop.engine.BOpStats;
+import com.bigdata.bop.engine.QueryMemoryGovernor;
+import com.bigdata.bop.join.GovernedDistinctFilter;
 import com.bigdata.bop.join.IDistinctFilter;
 import com.bigdata.bop.join.JVMDistinctFilter;
 import com.bigdata.bop.join.JVMHashJoinUtility;
@@ -199,6 +201,23 @@ public class JVMDistinctBindingSetsOp extends PipelineOp {
                             op.getInitialCapacity(), op.getLoadFactor(),
                             op.getConcurrencyLevel());
 
+                    final QueryMemoryGovernor governor = context
+                            .getRunningQuery().getMemoryGovernor();
+
+                    if (governor.getMaxBytes() != 0L) {
+
+                        /*
+                         * The JVM heap is bounded for this query. Spill onto
+                         * the native heap if the distinct solutions would
+                         * exceed that bound.
+                         */
+                        filter = new GovernedDistinctFilter(
+                                (JVMDistinctFilter) filter, governor, key,
+                                context.getRunningQuery().getMemoryManager(),
+                                op);
+
+                    }
+
                     final IDistinctFilter tmp = (IDistinctFilter) attribs
                             .putIfAbsent(key, filter);
 
@@ -52,6 +52,7 @@ import com.bigdata.bop.IVariable;
 import com.bigdata.bop.aggregate.IAggregate;
 import com.bigdata.bop.bindingSet.ListBindingSet;
 import com.bigdata.bop.engine.BOpStats;
+import com.bigdata.bop.engine.QueryMemoryGovernor;
 import com.bigdata.htree.HTree;
 import com.bigdata.rdf.error.SparqlTypeErrorException;
 import com.bigdata.relation.accesspath.IBlockingBuffer;
@@ -305,12 +306,28 @@ public class MemoryGroupByOp extends GroupByOp {
 
         private final BOpStats stats;
 
+        /**
+         * The governor for the JVM heap of the query. The buffered solutions
+         * are reserved against the governor and the query is broken if the
+         * reservation is denied.
+         */
+        private final QueryMemoryGovernor governor;
+
+        /**
+         * The owner of the reservations made against the {@link #governor}.
+         */
+        private final Integer owner;
+
         GroupByTask(final MemoryGroupByOp op,
                 final BOpContext<IBindingSet> context) {
         	
             this.context = context;
 
             this.stats = context.getStats();
+
+            this.governor = context.getRunningQuery().getMemoryGovernor();
+
+            this.owner = op.getId();
             
             this.groupByState = (IGroupByState) op
                     .getRequiredProperty(Annotations.GROUP_BY_STATE);
@@ -401,6 +418,9 @@ public class MemoryGroupByOp extends GroupByOp {
                         stats.chunksIn.increment();
                         stats.unitsIn.add(a.length);
 
+                        governor.reserveOrFail(owner,
+                                QueryMemoryGovernor.estimateSize(a));
+
                         for (IBindingSet bset : a) {
 
                             m.add(bset);
@@ -441,6 +461,9 @@ public class MemoryGroupByOp extends GroupByOp {
                         stats.chunksIn.increment();
                         stats.unitsIn.add(a.length);
 
+                        governor.reserveOrFail(owner,
+                                QueryMemoryGovernor.estimateSize(a));
+
                         for (IBindingSet bset : a) {
 
                             accept(bset);
@@ -502,6 +525,8 @@ public class MemoryGroupByOp extends GroupByOp {
 
             } finally {
 
+                governor.release(owner);
+
                 sink.close();
 
             }
@@ -0,0 +1,1186 @@
+/**
+
+Copyright (C) SYSTAP, LLC 2006-2015.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@systap.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+/*
+ * Created on Oct 17, 2026
+ */
+
+package com.bigdata.bop.solutions;
+
+import java.nio.LongBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RecursiveAction;
+
+import org.apache.log4j.Logger;
+import org.openrdf.model.Literal;
+import org.openrdf.model.URI;
+import org.openrdf.model.datatypes.XMLDatatypeUtil;
+
+import com.bigdata.bop.BOp;
+import com.bigdata.bop.BOpContext;
+import com.bigdata.bop.IBind;
+import com.bigdata.bop.IBindingSet;
+import com.bigdata.bop.IQueryAttributes;
+import com.bigdata.bop.IValueExpression;
+import com.bigdata.bop.IVariableOrConstant;
+import com.bigdata.bop.engine.BOpStats;
+import com.bigdata.bop.engine.IRunningQuery;
+import com.bigdata.io.DirectBufferPool;
+import com.bigdata.io.IBufferAccess;
+import com.bigdata.journal.IIndexStore;
+import com.bigdata.rawstore.IRawStore;
+import com.bigdata.rdf.error.SparqlTypeErrorException;
+import com.bigdata.rdf.internal.IV;
+import com.bigdata.rdf.internal.impl.literal.LiteralExtensionIV;
+import com.bigdata.relation.accesspath.IBlockingBuffer;
+import com.bigdata.relation.accesspath.ThickCloseableIterator;
+import com.bigdata.rwstore.sector.IMemoryManager;
+import com.bigdata.rwstore.sector.MemStore;
+import com.bigdata.stream.Stream.StreamIndexMetadata;
+
+import cutthecrap.utils.striterators.ICloseableIterator;
+
+/**
+ * A multi-threaded external merge sort for binding sets. Like the
+ * {@link MemorySortOp}, the value expressions on which the ordering will be
+ * imposed are evaluated as the solutions arrive and the sort is applied once
+ * the last chunk of source solutions has been observed. Unlike the
+ * {@link MemorySortOp}, the solutions are buffered in bounded <em>runs</em>:
+ * <ul>
+ * <li>For each solution, a fixed width 64-bit prefix of the first ORDER BY
+ * value is computed and written onto a native (direct) buffer. The prefix
+ * ordering is consistent with the {@link IVComparator}, so most comparisons
+ * are decided on the prefix and only ties fall back onto the full
+ * {@link BindingSetComparator}. If any value can not be mapped onto a prefix
+ * (e.g., an {@link IV} which is not materialized), then the prefix is
+ * disabled for the rest of the sort.</li>
+ * <li>A full run is sorted by a parallel merge sort over a permutation vector
+ * using a {@link ForkJoinPool}, and is then spilled as a
+ * {@link SolutionSetStream} onto either an allocation context of the query's
+ * {@link IMemoryManager} (the default) or the {@link IIndexStore#getTempStore()
+ * temporary store}.</li>
+ * <li>On the last pass, the final run is sorted in memory and, if any runs were
+ * spilled, all runs are combined with a k-way merge.</li>
+ * </ul>
+ * When {@link Annotations#LIMIT} is given and is not larger than a run, a
+ * bounded heap retains only the best solutions seen so far and nothing is
+ * spilled (top-K). Otherwise the output is simply truncated after
+ * {@link Annotations#LIMIT} solutions.
+ *
+ * @see MemorySortOp
+ */
+public class ParallelSortOp extends SortOp {
+
+    private static final transient Logger log = Logger
+            .getLogger(ParallelSortOp.class);
+
+    /**
+     *
+     */
+    private static final long serialVersionUID = 1L;
+
+    public interface Annotations extends SortOp.Annotations {
+
+        /**
+         * The maximum #of solutions in a run. The prefix keys for a run are
+         * buffered on a single direct buffer, so the effective run capacity is
+         * also limited to {@link DirectBufferPool#getBufferCapacity()}
+         * <code>/ 8</code>.
+         */
+        String RUN_CAPACITY = ParallelSortOp.class.getName() + ".runCapacity";
+
+        int DEFAULT_RUN_CAPACITY = 131072;
+
+        /**
+         * When <code>true</code>, full runs are spilled onto the temporary
+         * store. Otherwise they are spilled onto an allocation context of the
+         * query's {@link IMemoryManager}.
+         */
+        String SPILL_TO_TEMP_STORE = ParallelSortOp.class.getName()
+                + ".spillToTempStore";
+
+        boolean DEFAULT_SPILL_TO_TEMP_STORE = false;
+
+        /**
+         * The maximum #of solutions which will be consumed downstream (the
+         * OFFSET plus the LIMIT of the query) -or- {@link Long#MAX_VALUE} if
+         * all solutions will be consumed.
+         */
+        String LIMIT = ParallelSortOp.class.getName() + ".limit";
+
+        long DEFAULT_LIMIT = Long.MAX_VALUE;
+
+    }
+
+    /**
+     * Pool used to sort the runs.
+     */
+    private static final ForkJoinPool sortPool = new ForkJoinPool();
+
+    /**
+     * Runs smaller than this are sorted by the calling thread.
+     */
+    private static final int SEQUENTIAL_THRESHOLD = 8192;
+
+    /**
+     * Constructor required for {@link com.bigdata.bop.BOpUtility#deepCopy(FilterNode)}.
+     */
+    public ParallelSortOp(final ParallelSortOp op) {
+        super(op);
+    }
+
+    /**
+     * Required shallow copy constructor.
+     */
+    public ParallelSortOp(final BOp[] args,
+            final Map<String, Object> annotations) {
+
+        super(args, annotations);
+
+        switch (getEvaluationContext()) {
+        case CONTROLLER:
+            break;
+        default:
+            throw new UnsupportedOperationException(
+                    Annotations.EVALUATION_CONTEXT + "="
+                            + getEvaluationContext());
+        }
+
+        if (!isLastPassRequested()) {
+            throw new UnsupportedOperationException(Annotations.LAST_PASS
+                    + "=" + isLastPassRequested());
+        }
+
+        // ORDER_BY must preserve order.
+        if (isReorderSolutions())
+            throw new UnsupportedOperationException(
+                    Annotations.REORDER_SOLUTIONS + "=" + isReorderSolutions());
+
+        // required parameter.
+        getValueComparator();
+
+        // validate required parameter.
+        for (ISortOrder<?> s : getSortOrder()) {
+
+            final IValueExpression<?> expr = s.getExpr();
+
+            if (expr instanceof IVariableOrConstant<?>)
+                continue;
+
+            if (expr instanceof IBind<?>)
+                continue;
+
+            throw new IllegalArgumentException(
+                    "Value expression not wrapped by bind: " + expr);
+
+        }
+
+        if (getRunCapacity() <= 0)
+            throw new IllegalArgumentException(Annotations.RUN_CAPACITY + "="
+                    + getRunCapacity());
+
+        if (getLimit() <= 0)
+            throw new IllegalArgumentException(Annotations.LIMIT + "="
+                    + getLimit());
+
+    }
+
+    /**
+     * @see Annotations#RUN_CAPACITY
+     */
+    public int getRunCapacity() {
+
+        return getProperty(Annotations.RUN_CAPACITY,
+                Annotations.DEFAULT_RUN_CAPACITY);
+
+    }
+
+    /**
+     * @see Annotations#SPILL_TO_TEMP_STORE
+     */
+    public boolean isSpillToTempStore() {
+
+        return getProperty(Annotations.SPILL_TO_TEMP_STORE,
+                Annotations.DEFAULT_SPILL_TO_TEMP_STORE);
+
+    }
+
+    /**
+     * @see Annotations#LIMIT
+     */
+    public long getLimit() {
+
+        return getProperty(Annotations.LIMIT, Annotations.DEFAULT_LIMIT);
+
+    }
+
+    @Override
+    public FutureTask<Void> eval(final BOpContext<IBindingSet> context) {
+
+        return new FutureTask<Void>(new SortTask(this, context));
+
+    }
+
+    /**
+     * Return a signed 64-bit prefix for a value to be ordered by the
+     * {@link IVComparator}. If two prefixes differ, then their order is the
+     * order of the values. If they are equal, then nothing is known. The
+     * prefix is formed from the class of the value (unbound, blank node,
+     * statement, URI, literal) followed by the leading characters of a URI or
+     * plain literal or the leading bits of the double value of a numeric
+     * literal.
+     *
+     * @param val
+     *            The value (may be <code>null</code>).
+     *
+     * @return The prefix.
+     *
+     * @throws UnsupportedOperationException
+     *             if the value can not be mapped onto a prefix.
+     */
+    static long prefixKey(final Object val) {
+
+        final long u; // unsigned prefix.
+
+        if (val == null) {
+
+            u = 0L;
+
+        } else {
+
+            if (!(val instanceof IV))
+                throw new UnsupportedOperationException();
+
+            final IV<?, ?> iv = (IV<?, ?>) val;
+
+            if (iv.isBNode()) {
+                u = 1L << 61;
+            } else if (iv.isStatement()) {
+                u = 2L << 61;
+            } else if (iv.isURI()) {
+                u = (3L << 61) | (chars(((URI) iv).stringValue()) << 13);
+            } else if (iv.isLiteral()) {
+                u = (4L << 61) | literalPrefix(iv);
+            } else {
+                throw new UnsupportedOperationException();
+            }
+
+        }
+
+        // Flip the sign bit so the signed comparison follows the prefix.
+        return u ^ Long.MIN_VALUE;
+
+    }
+
+    /**
+     * The leading three UTF-16 code units of a string (48 bits, zero padded),
+     * which is consistent with {@link String#compareTo(String)}.
+     */
+    private static long chars(final String s) {
+
+        long v = 0L;
+
+        for (int i = 0; i < 3; i++) {
+
+            v = (v << 16) | (i < s.length() ? s.charAt(i) : 0);
+
+        }
+
+        return v;
+
+    }
+
+    /**
+     * A 61-bit prefix for a literal. Plain literals order before language
+     * literals, which order before numeric, calendar and other datatyped
+     * literals (the ordering imposed by the {@link IVComparator}).
+     */
+    private static long literalPrefix(final IV<?, ?> iv) {
+
+        final Literal lit = (Literal) iv;
+
+        final URI dt = lit.getDatatype();
+
+        if (dt == null) {
+
+            if (lit.getLanguage() != null) {
+
+                // Ordered by language and then label. Only the class is used.
+                return 1L << 58;
+
+            }
+
+            return chars(lit.getLabel()) << 10;
+
+        }
+
+        if (XMLDatatypeUtil.isNumericDatatype(dt)) {
+
+            if (iv instanceof LiteralExtensionIV) {
+                /*
+                 * Compared on their natural order by the IVComparator when they
+                 * share an extension datatype.
+                 */
+                throw new UnsupportedOperationException();
+            }
+
+            double d = lit.doubleValue();
+
+            if (d == 0d) {
+                // Collapse -0 onto +0.
+                d = 0d;
+            }
+
+            long bits = Double.doubleToLongBits(d);
+
+            // Signed ordering for the IEEE bits.
+            bits ^= (bits >> 63) & Long.MAX_VALUE;
+
+            return (1L << 59) | ((bits ^ Long.MIN_VALUE) >>> 5);
+
+        }
+
+        if (XMLDatatypeUtil.isCalendarDatatype(dt)) {
+
+            return 2L << 59;
+
+        }
+
+        return 3L << 59;
+
+    }
+
+    /**
+     * The buffered state of the operator. A reference to this object is
+     * stored on the {@link IQueryAttributes}.
+     */
+    private static class SortState {
+
+        /** The solutions in the current run. */
+        final IBindingSet[] rows;
+
+        /** The direct buffer backing {@link #keys}. */
+        IBufferAccess keyBuf;
+
+        /** The prefix keys for the current run. */
+        final LongBuffer keys;
+
+        /** The #of solutions in the current run. */
+        int n = 0;
+
+        /**
+         * <code>false</code> once some value could not be mapped onto a
+         * prefix key.
+         */
+        boolean usePrefix;
+
+        /** The spilled runs. */
+        final List<SolutionSetStream> runs = new ArrayList<SolutionSetStream>();
+
+        /** The store for the spilled runs (lazily allocated). */
+        IRawStore store;
+
+        /**
+         * The bounded max-heap used for top-K (<code>null</code> unless top-K
+         * is used).
+         */
+        PriorityQueue<Row> heap;
+
+        SortState(final int runCapacity, final IBufferAccess keyBuf,
+                final boolean usePrefix) {
+
+            this.rows = new IBindingSet[runCapacity];
+
+            this.keyBuf = keyBuf;
+
+            this.keys = keyBuf.buffer().asLongBuffer();
+
+            this.usePrefix = usePrefix;
+
+        }
+
+    }
+
+    /**
+     * A solution paired with its prefix key.
+     */
+    private static class Row {
+
+        final long key;
+
+        final IBindingSet bset;
+
+        Row(final long key, final IBindingSet bset) {
+            this.key = key;
+            this.bset = bset;
+        }
+
+    }
+
+    /**
+     * Task executing on the node.
+     */
+    static private class SortTask implements Callable<Void> {
+
+        private final ParallelSortOp op;
+
+        private final BOpContext<IBindingSet> context;
+
+        private final BOpStats stats;
+
+        private final ISortOrder<?>[] sortOrder;
+
+        private final Comparator<IBindingSet> comparator;
+
+        private final long limit;
+
+        /**
+         * The {@link IQueryAttributes} for the {@link IRunningQuery} off which
+         * we will hang the {@link SortState}.
+         */
+        private final IQueryAttributes attrs;
+
+        /**
+         * The name of the key under which the {@link #state} is stored in the
+         * {@link IQueryAttributes}.
+         */
+        private final String key;
+
+        private transient SortState state;
+
+        @SuppressWarnings({ "rawtypes", "unchecked" })
+        SortTask(final ParallelSortOp op,
+                final BOpContext<IBindingSet> context) {
+
+            this.op = op;
+
+            this.context = context;
+
+            this.stats = context.getStats();
+
+            this.sortOrder = op.getSortOrder();
+
+            this.comparator = new BindingSetComparator(sortOrder,
+                    op.getValueComparator());
+
+            this.limit = op.getLimit();
+
+            this.attrs = context.getQueryAttributes();
+
+            this.key = Integer.toString(op.getId());
+
+            state = (SortState) attrs.get(key);
+
+            if (state == null) {
+
+                final IBufferAccess keyBuf;
+                try {
+                    keyBuf = DirectBufferPool.INSTANCE.acquire();
+                } catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+
+                final int runCapacity = Math.min(op.getRunCapacity(),
+                        DirectBufferPool.INSTANCE.getBufferCapacity() / 8);
+
+                state = new SortState(runCapacity, keyBuf,
+                        op.getValueComparator() instanceof IVComparator);
+
+                if (limit <= runCapacity) {
+
+                    // top-K : retain the best [limit] solutions.
+                    state.heap = new PriorityQueue<Row>((int) limit + 1,
+                            Collections.reverseOrder(new RowComparator()));
+
+                }
+
+                if (attrs.putIfAbsent(key, state) != null)
+                    throw new AssertionError();
+
+            }
+
+        }
+
+        void release() {
+
+            if (log.isInfoEnabled())
+                log.info("Releasing state");
+
+            attrs.remove(key);
+
+            if (state != null) {
+
+                if (state.keyBuf != null) {
+                    try {
+                        state.keyBuf.release();
+                    } catch (InterruptedException e) {
+                        throw new RuntimeException(e);
+                    } finally {
+                        state.keyBuf = null;
+                    }
+                }
+
+                if (state.store instanceof MemStore) {
+                    /*
+                     * Release the allocation context. Note: Records on the
+                     * temporary store are released when that store is closed.
+                     */
+                    ((MemStore) state.store).getMemoryManager().clear();
+                }
+
+                state = null;
+
+            }
+
+        }
+
+        @Override
+        public Void call() throws Exception {
+
+            final ICloseableIterator<IBindingSet[]> itr = context
+                    .getSource();
+
+            final IBlockingBuffer<IBindingSet[]> sink = context.getSink();
+
+            final boolean lastInvocation = context.isLastInvocation();
+
+            try {
+
+                acceptSolutions(itr);
+
+                if (lastInvocation) {
+
+                    doOrderBy(sink);
+
+                }
+
+            } catch (Throwable t) {
+
+                log.error(t, t);
+
+                throw new RuntimeException(t);
+
+            } finally {
+
+                if (lastInvocation) {
+
+                    // Discard the operator's internal state.
+                    release();
+
+                }
+
+                sink.close();
+
+            }
+
+            // Done.
+            return null;
+
+        }
+
+        /**
+         * Evaluate the value expressions for each input solution and buffer
+         * the as-bound solutions, spilling each run once it is full.
+         *
+         * @param itr
+         *            The source solutions.
+         */
+        private void acceptSolutions(
+                final ICloseableIterator<IBindingSet[]> itr) {
+
+            try {
+
+                while (itr.hasNext()) {
+
+                    final IBindingSet[] a = itr.next();
+
+                    stats.chunksIn.increment();
+                    stats.unitsIn.add(a.length);
+
+                    for (IBindingSet bset : a) {
+
+                        // Note: Necessary scope for type error reporting.
+                        IValueExpression<?> expr = null;
+
+                        try {
+
+                            for (ISortOrder<?> s : sortOrder) {
+
+                                /*
+                                 * Evaluate. A BIND() will have side-effect on
+                                 * [bset].
+                                 */
+                                (expr = s.getExpr()).get(bset);
+
+                            }
+
+                        } catch (SparqlTypeErrorException ex) {
+
+                            // log type error, do not drop solution (see trac 765).
+                            TypeErrorLog.handleTypeError(ex, expr, stats);
+
+                        }
+
+                        add(bset);
+
+                    } // next source solution
+
+                }
+
+            } finally {
+
+                itr.close();
+
+            }
+
+        } // acceptSolutions
+
+        /**
+         * Return the prefix key for the solution, disabling the use of prefix
+         * keys if the first ORDER BY value can not be mapped onto a prefix.
+         */
+        private long prefixKey(final IBindingSet bset) {
+
+            if (!state.usePrefix)
+                return 0L;
+
+            IValueExpression<?> expr = sortOrder[0].getExpr();
+
+            if (expr instanceof IBind<?>)
+                expr = ((IBind<?>) expr).getVar();
+
+            try {
+
+                final long k = ParallelSortOp.prefixKey(expr.get(bset));
+
+                return sortOrder[0].isAscending() ? k : ~k;
+
+            } catch (RuntimeException ex) {
+
+                if (log.isInfoEnabled())
+                    log.info("Prefix keys disabled: " + ex);
+
+                state.usePrefix = false;
+
+                return 0L;
+
+            }
+
+        }
+
+        private void add(final IBindingSet bset) {
+
+            final long k = prefixKey(bset);
+
+            if (state.heap != null) {
+
+                final PriorityQueue<Row> heap = state.heap;
+
+                final Row row = new Row(k, bset);
+
+                if (heap.size() == limit) {
+
+                    if (compare(row, heap.peek()) >= 0) {
+                        // Not better than the worst retained solution.
+                        return;
+                    }
+
+                    heap.poll();
+
+                }
+
+                heap.add(row);
+
+                return;
+
+            }
+
+            if (state.n == state.rows.length) {
+
+                spill();
+
+            }
+
+            state.keys.put(state.n, k);
+
+            state.rows[state.n++] = bset;
+
+        }
+
+        private int compare(final Row a, final Row b) {
+
+            if (state.usePrefix && a.key != b.key)
+                return a.key < b.key ? -1 : 1;
+
+            return comparator.compare(a.bset, b.bset);
+
+        }
+
+        /**
+         * Orders {@link Row}s by their prefix key and then by the full
+         * comparator.
+         */
+        private class RowComparator implements Comparator<Row> {
+
+            @Override
+            public int compare(final Row a, final Row b) {
+
+                return SortTask.this.compare(a, b);
+
+            }
+
+        }
+
+        /**
+         * Sort the current run, returning the solutions in their sort order.
+         */
+        private IBindingSet[] sortRun() {
+
+            final int n = state.n;
+
+            final int[] perm = new int[n];
+
+            for (int i = 0; i < n; i++)
+                perm[i] = i;
+
+            final long begin = System.currentTimeMillis();
+
+            final RunSorter sorter = new RunSorter(perm, new int[n], 0, n,
+                    state.rows, state.usePrefix ? state.keys : null,
+                    comparator);
+
+            if (n <= SEQUENTIAL_THRESHOLD) {
+                sorter.compute();
+            } else {
+                sortPool.invoke(sorter);
+            }
+
+            final IBindingSet[] a = new IBindingSet[n];
+
+            for (int i = 0; i < n; i++) {
+                a[i] = state.rows[perm[i]];
+                state.rows[perm[i]] = null;
+            }
+
+            state.n = 0;
+
+            if (log.isInfoEnabled())
+                log.info("Sorted " + n + " solutions in "
+                        + (System.currentTimeMillis() - begin) + "ms.");
+
+            return a;
+
+        }
+
+        /**
+         * Sort the current run and write it onto a {@link SolutionSetStream}.
+         */
+        private void spill() {
+
+            final IBindingSet[] a = sortRun();
+
+            if (state.store == null) {
+
+                if (op.isSpillToTempStore()) {
+
+                    state.store = context.getIndexManager().getTempStore();
+
+                } else {
+
+                    state.store = new MemStore(context.getRunningQuery()
+                            .getMemoryManager().createAllocationContext());
+
+                }
+
+            }
+
+            final SolutionSetStream run = SolutionSetStream.create(
+                    state.store, new StreamIndexMetadata(UUID.randomUUID()));
+
+            run.put(new ThickCloseableIterator<IBindingSet[]>(
+                    chunk(a, 0, a.length)));
+
+            state.runs.add(run);
+
+            if (log.isInfoEnabled())
+                log.info("Spilled run#" + state.runs.size() + " with "
+                        + a.length + " solutions");
+
+        }
+
+        /**
+         * Break an ordered array into chunks of the operator's chunk capacity.
+         */
+        private IBindingSet[][] chunk(final IBindingSet[] a, final int off,
+                final int len) {
+
+            final int capacity = op.getChunkCapacity();
+
+            final IBindingSet[][] chunks = new IBindingSet[(len + capacity - 1)
+                    / capacity][];
+
+            for (int i = 0; i < chunks.length; i++) {
+
+                final int from = off + i * capacity;
+
+                chunks[i] = Arrays.copyOfRange(a, from,
+                        Math.min(from + capacity, off + len));
+
+            }
+
+            return chunks;
+
+        }
+
+        /**
+         * Sort the solutions based on the as-bound value expressions.
+         *
+         * @param sink
+         *            Where to write the results.
+         */
+        private void doOrderBy(final IBlockingBuffer<IBindingSet[]> sink) {
+
+            if (state.heap != null) {
+
+                final Row[] a = state.heap.toArray(new Row[state.heap.size()]);
+
+                state.heap = null;
+
+                Arrays.sort(a, new RowComparator());
+
+                final IBindingSet[] all = new IBindingSet[a.length];
+
+                for (int i = 0; i < a.length; i++)
+                    all[i] = a[i].bset;
+
+                emit(sink, all);
+
+                return;
+
+            }
+
+            final IBindingSet[] last = sortRun();
+
+            if (state.runs.isEmpty()) {
+
+                final int n = (int) Math.min(last.length, limit);
+
+                emit(sink, n == last.length ? last : Arrays.copyOf(last, n));
+
+                return;
+
+            }
+
+            merge(sink, last);
+
+        }
+
+        /**
+         * Drop the variables for the computed value expressions and write the
+         * solutions onto the sink.
+         */
+        private void emit(final IBlockingBuffer<IBindingSet[]> sink,
+                final IBindingSet[] a) {
+
+            for (IBindingSet bset : a) {
+                for (ISortOrder<?> s : sortOrder) {
+                    final IValueExpression<?> expr = s.getExpr();
+                    if (expr instanceof IBind) {
+                        bset.clear(((IBind<?>) expr).getVar());
+                    }
+                }
+            }
+
+            if (a.length > 0) {
+                sink.add(a);
+            }
+            sink.flush();
+
+        }
+
+        /**
+         * k-way merge of the spilled runs and the final in-memory run.
+         */
+        private void merge(final IBlockingBuffer<IBindingSet[]> sink,
+                final IBindingSet[] last) {
+
+            final long begin = System.currentTimeMillis();
+
+            final PriorityQueue<RunCursor> queue = new PriorityQueue<RunCursor>(
+                    state.runs.size() + 1, new Comparator<RunCursor>() {
+                        @Override
+                        public int compare(final RunCursor a, final RunCursor b) {
+                            return SortTask.this.compare(a.head, b.head);
+                        }
+                    });
+
+            final List<RunCursor> cursors = new ArrayList<RunCursor>();
+
+            try {
+
+                for (SolutionSetStream run : state.runs) {
+
+                    cursors.add(new RunCursor(run.get()));
+
+                }
+
+                cursors.add(new RunCursor(new ThickCloseableIterator<IBindingSet[]>(
+                        new IBindingSet[][] { last })));
+
+                for (RunCursor c : cursors) {
+
+                    if (c.advance())
+                        queue.add(c);
+
+                }
+
+                final int capacity = op.getChunkCapacity();
+
+                IBindingSet[] chunk = new IBindingSet[capacity];
+
+                int n = 0;
+
+                long nout = 0;
+
+                while (!queue.isEmpty() && nout < limit) {
+
+                    final RunCursor c = queue.poll();
+
+                    chunk[n++] = c.head.bset;
+
+                    nout++;
+
+                    if (c.advance())
+                        queue.add(c);
+
+                    if (n == capacity) {
+
+                        emit(sink, chunk);
+
+                        chunk = new IBindingSet[capacity];
+
+                        n = 0;
+
+                    }
+
+                }
+
+                emit(sink, Arrays.copyOf(chunk, n));
+
+                if (log.isInfoEnabled())
+                    log.info("Merged " + cursors.size() + " runs in "
+                            + (System.currentTimeMillis() - begin) + "ms.");
+
+            } finally {
+
+                for (RunCursor c : cursors) {
+
+                    c.src.close();
+
+                }
+
+            }
+
+        }
+
+        /**
+         * A cursor over an ordered run.
+         */
+        private class RunCursor {
+
+            final ICloseableIterator<IBindingSet[]> src;
+
+            private Iterator<IBindingSet> chunk = null;
+
+            Row head = null;
+
+            RunCursor(final ICloseableIterator<IBindingSet[]> src) {
+
+                this.src = src;
+
+            }
+
+            /**
+             * Advance to the next solution.
+             *
+             * @return <code>false</code> iff the run is exhausted.
+             */
+            boolean advance() {
+
+                while (chunk == null || !chunk.hasNext()) {
+
+                    if (!src.hasNext()) {
+
+                        head = null;
+
+                        return false;
+
+                    }
+
+                    chunk = Arrays.asList(src.next()).iterator();
+
+                }
+
+                final IBindingSet bset = chunk.next();
+
+                head = new Row(prefixKey(bset), bset);
+
+                return true;
+
+            }
+
+        }
+
+    } // SortTask
+
+    /**
+     * Parallel merge sort of a permutation vector over a run. The prefix keys
+     * are compared first and ties are broken by the full comparator.
+     */
+    private static class RunSorter extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int[] a, tmp;
+
+        private final int lo, hi;
+
+        private final IBindingSet[] rows;
+
+        private final LongBuffer keys;
+
+        private final Comparator<IBindingSet> comparator;
+
+        RunSorter(final int[] a, final int[] tmp, final int lo, final int hi,
+                final IBindingSet[] rows, final LongBuffer keys,
+                final Comparator<IBindingSet> comparator) {
+            this.a = a;
+            this.tmp = tmp;
+            this.lo = lo;
+            this.hi = hi;
+            this.rows = rows;
+            this.keys = keys;
+            this.comparator = comparator;
+        }
+
+        @Override
+        protected void compute() {
+
+            if (hi - lo <= SEQUENTIAL_THRESHOLD) {
+
+                sort(lo, hi);
+
+                return;
+
+            }
+
+            final int mid = (lo + hi) >>> 1;
+
+            invokeAll(new RunSorter(a, tmp, lo, mid, rows, keys, comparator),
+                    new RunSorter(a, tmp, mid, hi, rows, keys, comparator));
+
+            merge(lo, mid, hi);
+
+        }
+
+        private int compare(final int i, final int j) {
+
+            if (keys != null) {
+
+                final long ki = keys.get(i), kj = keys.get(j);
+
+                if (ki != kj)
+                    return ki < kj ? -1 : 1;
+
+            }
+
+            return comparator.compare(rows[i], rows[j]);
+
+        }
+
+        private void sort(final int from, final int to) {
+
+            if (to - from <= 16) {
+
+                // insertion sort.
+                for (int i = from + 1; i < to; i++) {
+                    final int v = a[i];
+                    int j = i - 1;
+                    while (j >= from && compare(a[j], v) > 0) {
+                        a[j + 1] = a[j];
+                        j--;
+                    }
+                    a[j + 1] = v;
+                }
+
+                return;
+
+            }
+
+            final int mid = (from + to) >>> 1;
+
+            sort(from, mid);
+
+            sort(mid, to);
+
+            merge(from, mid, to);
+
+        }
+
+        private void merge(final int from, final int mid, final int to) {
+
+            if (compare(a[mid - 1], a[mid]) <= 0) {
+                // already ordered.
+                return;
+            }
+
+            System.arraycopy(a, from, tmp, from, to - from);
+
+            int i = from, j = mid, k = from;
+
+            while (i < mid && j < to) {
+                a[k++] = compare(tmp[j], tmp[i]) < 0 ? tmp[j++] : tmp[i++];
+            }
+
+            while (i < mid)
+                a[k++] = tmp[i++];
+
+            while (j < to)
+                a[k++] = tmp[j++];
+
+        }
+
+    }
+
+} // ParallelSortOp
@@ -37,6 +37,7 @@ import com.bigdata.bop.IBindingSet;
 import com.bigdata.bop.IVariable;
 import com.bigdata.bop.NV;
 import com.bigdata.bop.PipelineOp;
+import com.bigdata.bop.bindingSet.ColumnarSolutionChunk;
 import com.bigdata.bop.engine.BOpStats;
 import com.bigdata.bop.join.JoinAnnotations;
 import com.bigdata.relation.accesspath.IBlockingBuffer;
@@ -45,6 +46,10 @@ import cutthecrap.utils.striterators.ICloseableIterator;
 
 /**
  * Operator projects only the identified variables.
+ * <p>
+ * The output chunks are {@link ColumnarSolutionChunk}s. When the source chunk
+ * is already columnar, the projection only selects columns and does not touch
+ * the solutions.
  * 
  * @author <a href="mailto:thompsonbry@users.sourceforge.net">Bryan Thompson</a>
  * @version $Id$
@@ -148,13 +153,8 @@ public class ProjectionOp extends PipelineOp {
                     stats.chunksIn.increment();
                     stats.unitsIn.add(a.length);
 
-                    for (int i = 0; i < a.length; i++) {
-
-                        a[i] = a[i].copy(vars);
-
-                    }
-                    
-                    sink.add(a);
+                    sink.add(ColumnarSolutionChunk.valueOf(a, vars)
+                            .toBindingSets());
 
                 }
 
@@ -39,6 +39,7 @@ import com.bigdata.bop.BOpContext;
 import com.bigdata.bop.IBindingSet;
 import com.bigdata.bop.NV;
 import com.bigdata.bop.PipelineOp;
+import com.bigdata.bop.bindingSet.ColumnarSolutionChunk;
 import com.bigdata.bop.engine.BOpStats;
 import com.bigdata.relation.accesspath.IBlockingBuffer;
 import com.bigdata.relation.accesspath.UnsynchronizedArrayBuffer;
@@ -61,6 +62,10 @@ import cutthecrap.utils.striterators.ICloseableIterator;
  * Note: {@link SliceOp} is safe for concurrent invocations for the same query.
  * Multiple chunks may flow through multiple invocations of the operator so long
  * as they use the same {@link BOpStats} object.
+ * <p>
+ * Note: The accepted solutions are passed through by reference and the output
+ * buffer is flushed for each source chunk, so the row views of a
+ * {@link ColumnarSolutionChunk} remain columnar downstream of the slice.
  * 
  * @author <a href="mailto:thompsonbry@users.sourceforge.net">Bryan Thompson</a>
  * @version $Id$
@@ -0,0 +1,389 @@
+/**
+
+Copyright (C) SYSTAP, LLC 2006-2015.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@systap.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+/*
+ * Created on Oct 17, 2026
+ */
+
+package com.bigdata.bop.solutions;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.FutureTask;
+
+import org.apache.log4j.Logger;
+
+import com.bigdata.bop.BOp;
+import com.bigdata.bop.BOpContext;
+import com.bigdata.bop.IBind;
+import com.bigdata.bop.IBindingSet;
+import com.bigdata.bop.IQueryAttributes;
+import com.bigdata.bop.IValueExpression;
+import com.bigdata.bop.IVariableOrConstant;
+import com.bigdata.bop.engine.BOpStats;
+import com.bigdata.bop.engine.IRunningQuery;
+import com.bigdata.rdf.error.SparqlTypeErrorException;
+import com.bigdata.relation.accesspath.IBlockingBuffer;
+
+import cutthecrap.utils.striterators.ICloseableIterator;
+
+/**
+ * A pipelined top-K operator for <code>ORDER BY ... LIMIT</code>. Each time
+ * it runs, it evaluates the value expressions on which the ordering will be
+ * imposed and offers the as-bound solutions to a bounded max-heap which
+ * retains only the first {@link Annotations#LIMIT} solutions in the ORDER BY
+ * order. The heap is written out in order on the last pass. Unlike the
+ * {@link MemorySortOp}, the memory demand is O(K) rather than O(N) and each
+ * solution costs O(log K) comparisons, and most solutions are rejected with a
+ * single comparison against the root of the heap once the heap is full.
+ * <p>
+ * The {@link Annotations#LIMIT} is the OFFSET plus the LIMIT of the query. The
+ * {@link SliceOp} is still responsible for imposing the OFFSET.
+ * 
+ * @see MemorySortOp
+ */
+public class TopKSortOp extends SortOp {
+
+    private static final transient Logger log = Logger
+            .getLogger(TopKSortOp.class);
+
+    /**
+     * 
+     */
+    private static final long serialVersionUID = 1L;
+
+    public interface Annotations extends SortOp.Annotations {
+
+        /**
+         * The #of solutions to retain (required). This is the OFFSET plus the
+         * LIMIT of the query.
+         */
+        String LIMIT = TopKSortOp.class.getName() + ".limit";
+
+    }
+
+    /**
+     * Constructor required for {@link com.bigdata.bop.BOpUtility#deepCopy(FilterNode)}.
+     */
+    public TopKSortOp(final TopKSortOp op) {
+        super(op);
+    }
+
+    /**
+     * Required shallow copy constructor.
+     */
+    public TopKSortOp(final BOp[] args, final Map<String, Object> annotations) {
+
+        super(args, annotations);
+
+        switch (getEvaluationContext()) {
+        case CONTROLLER:
+            break;
+        default:
+            throw new UnsupportedOperationException(
+                    Annotations.EVALUATION_CONTEXT + "="
+                            + getEvaluationContext());
+        }
+
+        if (!isLastPassRequested()) {
+            throw new UnsupportedOperationException(Annotations.LAST_PASS
+                    + "=" + isLastPassRequested());
+        }
+
+        // ORDER_BY must preserve order.
+        if (isReorderSolutions())
+            throw new UnsupportedOperationException(
+                    Annotations.REORDER_SOLUTIONS + "=" + isReorderSolutions());
+
+        // required parameter.
+        getValueComparator();
+
+        // validate required parameter.
+        for (ISortOrder<?> s : getSortOrder()) {
+
+            final IValueExpression<?> expr = s.getExpr();
+
+            if (expr instanceof IVariableOrConstant<?>)
+                continue;
+
+            if (expr instanceof IBind<?>)
+                continue;
+
+            throw new IllegalArgumentException(
+                    "Value expression not wrapped by bind: " + expr);
+
+        }
+
+        final long limit = getLimit();
+
+        if (limit <= 0 || limit >= Integer.MAX_VALUE)
+            throw new IllegalArgumentException(Annotations.LIMIT + "=" + limit);
+
+    }
+
+    /**
+     * @see Annotations#LIMIT
+     */
+    public long getLimit() {
+
+        return ((Number) getRequiredProperty(Annotations.LIMIT)).longValue();
+
+    }
+
+    @Override
+    public FutureTask<Void> eval(final BOpContext<IBindingSet> context) {
+
+        return new FutureTask<Void>(new TopKTask(this, context));
+
+    }
+
+    /**
+     * Task executing on the node.
+     */
+    static private class TopKTask implements Callable<Void> {
+
+        private final BOpContext<IBindingSet> context;
+
+        private final BOpStats stats;
+
+        private final ISortOrder<?>[] sortOrder;
+
+        private final Comparator<IBindingSet> comparator;
+
+        private final int limit;
+
+        /**
+         * The {@link IQueryAttributes} for the {@link IRunningQuery} off which
+         * we will hang the heap.
+         */
+        private final IQueryAttributes attrs;
+
+        /**
+         * The bounded max-heap. A reference to this object is stored on the
+         * {@link IQueryAttributes}.
+         */
+        private transient PriorityQueue<IBindingSet> heap;
+
+        /**
+         * The name of the key under which the {@link #heap} is stored in the
+         * {@link IQueryAttributes}.
+         */
+        private final String key;
+
+        @SuppressWarnings({ "rawtypes", "unchecked" })
+        TopKTask(final TopKSortOp op, final BOpContext<IBindingSet> context) {
+
+            this.context = context;
+
+            this.stats = context.getStats();
+
+            this.sortOrder = op.getSortOrder();
+
+            this.comparator = new BindingSetComparator(sortOrder,
+                    op.getValueComparator());
+
+            this.limit = (int) op.getLimit();
+
+            this.attrs = context.getQueryAttributes();
+
+            this.key = Integer.toString(op.getId());
+
+            heap = (PriorityQueue<IBindingSet>) attrs.get(key);
+
+            if (heap == null) {
+
+                heap = new PriorityQueue<IBindingSet>(
+                        Math.min(limit, 1024) + 1,
+                        Collections.reverseOrder(comparator));
+
+                if (attrs.putIfAbsent(key, heap) != null)
+                    throw new AssertionError();
+
+            }
+
+        }
+
+        void release() {
+
+            if (log.isInfoEnabled())
+                log.info("Releasing state");
+
+            attrs.remove(key);
+
+            heap = null;
+
+        }
+
+        @Override
+        public Void call() throws Exception {
+
+            final ICloseableIterator<IBindingSet[]> itr = context
+                    .getSource();
+
+            final IBlockingBuffer<IBindingSet[]> sink = context.getSink();
+
+            final boolean lastInvocation = context.isLastInvocation();
+
+            try {
+
+                acceptSolutions(itr);
+
+                if (lastInvocation) {
+
+                    doOrderBy(sink);
+
+                }
+
+            } catch (Throwable t) {
+
+                log.error(t, t);
+
+                throw new RuntimeException(t);
+
+            } finally {
+
+                if (lastInvocation) {
+
+                    // Discard the operator's internal state.
+                    release();
+
+                }
+
+                sink.close();
+
+            }
+
+            // Done.
+            return null;
+
+        }
+
+        /**
+         * Evaluate the value expressions for each input solution and offer the
+         * as-bound solutions to the heap.
+         * 
+         * @param itr
+         *            The source solutions.
+         */
+        private void acceptSolutions(
+                final ICloseableIterator<IBindingSet[]> itr) {
+
+            try {
+
+                while (itr.hasNext()) {
+
+                    final IBindingSet[] a = itr.next();
+
+                    stats.chunksIn.increment();
+                    stats.unitsIn.add(a.length);
+
+                    for (IBindingSet bset : a) {
+
+                        // Note: Necessary scope for type error reporting.
+                        IValueExpression<?> expr = null;
+
+                        try {
+
+                            for (ISortOrder<?> s : sortOrder) {
+
+                                /*
+                                 * Evaluate. A BIND() will have side-effect on
+                                 * [bset].
+                                 */
+                                (expr = s.getExpr()).get(bset);
+
+                            }
+
+                        } catch (SparqlTypeErrorException ex) {
+
+                            // log type error, do not drop solution (see trac 765).
+                            TypeErrorLog.handleTypeError(ex, expr, stats);
+
+                        }
+
+                        if (heap.size() == limit) {
+
+                            if (comparator.compare(bset, heap.peek()) >= 0) {
+                                // Not better than the worst retained solution.
+                                continue;
+                            }
+
+                            heap.poll();
+
+                        }
+
+                        heap.add(bset);
+
+                    } // next source solution
+
+                }
+
+            } finally {
+
+                itr.close();
+
+            }
+
+        } // acceptSolutions
+
+        /**
+         * Write out the retained solutions in order.
+         * 
+         * @param sink
+         *            Where to write the results.
+         */
+        private void doOrderBy(final IBlockingBuffer<IBindingSet[]> sink) {
+
+            final IBindingSet[] all = heap.toArray(new IBindingSet[heap
+                    .size()]);
+
+            Arrays.sort(all, comparator);
+
+            if (log.isInfoEnabled())
+                log.info("Retained " + all.length + " of "
+                        + stats.unitsIn.get() + " solutions");
+
+            // Drop variables for computed value expressions.
+            for (IBindingSet bset : all) {
+                for (ISortOrder<?> s : sortOrder) {
+                    final IValueExpression<?> expr = s.getExpr();
+                    if (expr instanceof IBind) {
+                        bset.clear(((IBind<?>) expr).getVar());
+                    }
+                }
+            }
+
+            // write output and flush.
+            if (all.length > 0)
+                sink.add(all);
+            sink.flush();
+
+        }
+
+    } // TopKTask
+
+} // TopKSortOp
@@ -267,6 +267,14 @@ abstract public class AbstractBTree implements IIndex, IAutoboxBTree,
      */
     protected final ILRUCache<Long, Object> storeCache;
 
+    /**
+     * Reads children ahead of a range scan -or- <code>null</code> if prefetch
+     * is disabled or the B+Tree is mutable or transient.
+     * 
+     * @see ChildPrefetcher
+     */
+    final ChildPrefetcher prefetcher;
+
     /**
      * Hard reference iff the index is mutable (aka unisolated) allows us to
      * avoid patterns that create short life time versions of the object to
@@ -1080,6 +1088,8 @@ abstract public class AbstractBTree implements IIndex, IAutoboxBTree,
         
         }
 
+        this.prefetcher = ChildPrefetcher.newInstance(this);
+
         lockManager = ReadWriteLockManager.getLockManager(this);
         
     }
@@ -1244,6 +1254,12 @@ abstract public class AbstractBTree implements IIndex, IAutoboxBTree,
             
         }
 
+        if (prefetcher != null) {
+
+            prefetcher.clear();
+
+        }
+
         /*
          * Clear the hard reference queue.
          * 
@@ -3897,8 +3913,8 @@ abstract public class AbstractBTree implements IIndex, IAutoboxBTree,
 
             final long begin = System.nanoTime();
             
-            // wrap as ByteBuffer and write on the store.
-            addr = store.write(slice.asByteBuffer());
+            // wrap as ByteBuffer (optionally compressed) and write on the store.
+            addr = store.write(nodeSer.compress(slice));
             
             // now we have a new address, delete previous identity if any
             if (node.isPersistent()) {
@@ -3963,14 +3979,17 @@ abstract public class AbstractBTree implements IIndex, IAutoboxBTree,
                  * Note: For a WORM store, the address is always new so there
                  * will not be an entry in the cache for that address.
                  * 
-                 * Note: For a RW store, the addresses can be reused and the
-                 * delete of the old address MUST have cleared the entry for
-                 * that address from the store's cache.
+                 * Note: For a RW store, the addresses can be reused. The
+                 * delete of the old address clears the entry for that address
+                 * from the store's cache, but a reader on an historical commit
+                 * point can re-populate the cache for that address before it
+                 * is recycled. The record we just wrote replaces that entry.
                  */
-                
-                throw new AssertionError("addr already in cache: " + addr
-                        + " for " + store.getFile());
-                
+
+                storeCache.remove(addr);
+
+                storeCache.putIfAbsent(addr, node.getDelegate());
+
             }
             
         }
@@ -4008,8 +4027,81 @@ abstract public class AbstractBTree implements IIndex, IAutoboxBTree,
 
         if (addr == IRawStore.NULL)
             throw new IllegalArgumentException();
-        
-        
+
+        IAbstractNodeData data = null;
+
+        if (storeCache != null) {
+
+            // Test the shared record cache for the store.
+            final Object tmp = storeCache.get(addr);
+
+            if (tmp instanceof IAbstractNodeData) {
+
+                data = (IAbstractNodeData) tmp;
+
+                btreeCounters.storeCacheHits.increment();
+
+            } else {
+
+                btreeCounters.storeCacheMisses.increment();
+
+            }
+
+        }
+
+        if (data == null) {
+
+            if (prefetcher != null) {
+
+                // Consume the record if it was read ahead of the scan.
+                data = prefetcher.take(addr);
+
+            }
+
+            if (data == null) {
+
+                data = readNodeData(addr);
+
+            }
+
+            if (storeCache != null) {
+
+                /*
+                 * Offer the record to the shared cache. The cache policy
+                 * decides whether or not the record is retained. If a record
+                 * was concurrently inserted for the same address then use that
+                 * record instead.
+                 */
+                final Object tmp = storeCache.putIfAbsent(addr, data);
+
+                if (tmp instanceof IAbstractNodeData) {
+
+                    data = (IAbstractNodeData) tmp;
+
+                }
+
+            }
+
+        }
+
+        // wrap as Node or Leaf.
+        return nodeSer.wrap(this, addr, data);
+
+    }
+
+    /**
+     * Read and decode the data record for a node or leaf from the store. This
+     * is thread-safe and is also used to read children ahead of a range scan.
+     * 
+     * @param addr
+     *            The address in the store.
+     * 
+     * @return The decoded data record.
+     * 
+     * @see ChildPrefetcher
+     */
+    IAbstractNodeData readNodeData(final long addr) {
+
         final ByteBuffer tmp;
         {
 
@@ -4065,17 +4157,7 @@ abstract public class AbstractBTree implements IIndex, IAutoboxBTree,
 
             }
 
-            // wrap as Node or Leaf.
-            final AbstractNode<?> node = nodeSer.wrap(this, addr, data);
-
-            // Note: The de-serialization ctor already does this.
-//            node.setDirty(false);
-
-            // Note: The de-serialization ctor already does this.
-//            touch(node);
-
-            // return Node or Leaf.
-            return node;
+            return data;
 
         } catch (Throwable t) {
 
@@ -34,6 +34,7 @@ import org.apache.log4j.Logger;
 
 import com.bigdata.btree.Leaf.ILeafListener;
 import com.bigdata.btree.isolation.IsolatedFusedView;
+import com.bigdata.btree.raba.IRaba;
 import com.bigdata.btree.view.FusedView;
 import com.bigdata.io.DataOutputBuffer;
 import com.bigdata.mdi.LocalPartitionMetadata;
@@ -486,6 +487,61 @@ abstract public class AbstractBTreeTupleCursor<I extends AbstractBTree, L extend
         
     }
     
+    /**
+     * Return a new {@link ICursorPosition} that is initially positioned on the
+     * given <i>key</i>. When the index is read-only and the key lies within
+     * the current leaf or the next leaf, that leaf is reused rather than
+     * descending from the root. A sequence of seeks in ascending key order
+     * (such as a batch of sorted probes against the index) therefore shares
+     * the leaf traversal.
+     * 
+     * @see #newPosition(byte[])
+     */
+    private AbstractCursorPosition<L, E> newPositionNear(final byte[] key) {
+
+        final AbstractCursorPosition<L, E> pos = currentPosition;
+
+        if (pos == null || !btree.isReadOnly() || !rangeCheck(key)) {
+
+            return newPosition(key);
+
+        }
+
+        final ILeafCursor<L> leafCursor = pos.getLeafCursor().clone();
+
+        if (spans(leafCursor.leaf(), key)) {
+
+            return newPosition(leafCursor, leafCursor.leaf().getKeys()
+                    .search(key), key);
+
+        }
+
+        if (leafCursor.next() != null && spans(leafCursor.leaf(), key)) {
+
+            return newPosition(leafCursor, leafCursor.leaf().getKeys()
+                    .search(key), key);
+
+        }
+
+        return newPosition(key);
+
+    }
+
+    /**
+     * Return <code>true</code> iff the key lies between the first and the last
+     * key in the leaf (inclusive), in which case that leaf must span the key.
+     */
+    private static boolean spans(final Leaf leaf, final byte[] key) {
+
+        final IRaba keys = leaf.getKeys();
+
+        final int n = keys.size();
+
+        return n > 0 && BytesUtil.compareBytes(key, keys.get(0)) >= 0
+                && BytesUtil.compareBytes(key, keys.get(n - 1)) <= 0;
+
+    }
+
     /**
      * Return a new {@link ICursorPosition} that is initially positioned on the
      * last tuple in the key-range (does not skip over deleted tuples).
@@ -729,7 +785,7 @@ abstract public class AbstractBTreeTupleCursor<I extends AbstractBTree, L extend
 //        nextPosition = priorPosition = null;
 
         // new position is that key.
-        currentPosition = newPosition(key);
+        currentPosition = newPositionNear(key);
 
         // Copy the data into [tuple].
         return currentPosition.get(tuple);
@@ -1324,6 +1324,118 @@ public class BTree extends AbstractBTree implements //ICommitter,
     	
     }
 
+    /**
+     * Relocate the persistent nodes and leaves of this {@link BTree} which lie
+     * on allocators that are the target of an online compaction of the backing
+     * store. Each such node or leaf is made mutable by copy-on-write, which
+     * also copies its immutable parents up to the root. The next checkpoint
+     * therefore writes the relocated records onto new addresses (outside of
+     * the target allocators) and releases their old addresses through the
+     * normal deferred free protocol.
+     * <p>
+     * Only the nodes are visited. A leaf is materialized only when its address
+     * lies on a target allocator.
+     * 
+     * @param store
+     *            The backing store.
+     * @param limit
+     *            The maximum #of nodes and leaves to relocate.
+     * 
+     * @return The #of nodes and leaves which were relocated.
+     * 
+     * @see IRWStrategy#isCompactionTarget(long)
+     */
+    public int relocate(final IRWStrategy store, final int limit) {
+
+        assertNotReadOnly();
+
+        if (store == null)
+            throw new IllegalArgumentException();
+
+        if (limit <= 0)
+            throw new IllegalArgumentException();
+
+        final int[] n = new int[1];
+
+        AbstractNode<?> root = getRoot();
+
+        if (!root.isDirty() && root.isPersistent()
+                && store.isCompactionTarget(root.getIdentity())) {
+
+            root = root.copyOnWrite(IRawStore.NULL);
+
+            n[0]++;
+
+        }
+
+        if (!root.isLeaf()) {
+
+            relocate(store, (Node) root, 0/* depth */, n, limit);
+
+        }
+
+        if (log.isInfoEnabled())
+            log.info("relocated=" + n[0] + ", index="
+                    + getIndexMetadata().getName());
+
+        return n[0];
+
+    }
+
+    /**
+     * Relocate the children of the node (recursively).
+     * 
+     * @return The current version of the node, which is a copy of the given
+     *         node if the given node was copied when a child was relocated.
+     */
+    private Node relocate(final IRWStrategy store, Node node,
+            final int depth, final int[] n, final int limit) {
+
+        // true iff the children of this node are leaves.
+        final boolean leaves = depth + 1 == getHeight();
+
+        final int nchildren = node.getChildCount();
+
+        for (int i = 0; i < nchildren && n[0] < limit; i++) {
+
+            final long addr = node.getChildAddr(i);
+
+            final boolean target = addr != IRawStore.NULL
+                    && store.isCompactionTarget(addr);
+
+            if (leaves && !target) {
+
+                // Do not materialize the leaf.
+                continue;
+
+            }
+
+            AbstractNode<?> child = node.getChild(i);
+
+            if (target && !child.isDirty()) {
+
+                // Note: copies the node (and its parents) iff not dirty.
+                child = child.copyOnWrite(IRawStore.NULL);
+
+                n[0]++;
+
+            }
+
+            if (!leaves) {
+
+                child = relocate(store, (Node) child, depth + 1, n, limit);
+
+            }
+
+            // The parent may have been copied.
+            node = child.getParent();
+
+        }
+
+        return node;
+
+    }
+
     /**
      * Remove all entries in the B+Tree.
      * <p>
@@ -0,0 +1,458 @@
+/**
+
+Copyright (C) SYSTAP, LLC 2006-2015.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@systap.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+/*
+ * Created on Oct 17, 2026
+ */
+
+package com.bigdata.btree;
+
+import org.apache.log4j.Logger;
+
+import com.bigdata.btree.data.IAbstractNodeData;
+import com.bigdata.rawstore.IRawStore;
+
+/**
+ * Builds a fully packed {@link BTree} bottom-up directly onto an
+ * {@link IRawStore} (typically a {@link com.bigdata.journal.Journal}) from
+ * tuples presented in strictly ascending key order. The shape of the output
+ * tree is given by an {@link IndexSegmentPlan}, exactly as for the
+ * {@link IndexSegmentBuilder}, but the nodes and leaves are coded with the
+ * {@link BTree}'s own {@link NodeSerializer} and written onto the store so the
+ * result is a mutable {@link BTree} which may be registered as a named index.
+ * <p>
+ * Each node and leaf is written exactly once. This avoids the repeated
+ * copy-on-write of leaves which occurs when an empty index is populated by
+ * incremental inserts, so the cost of an initial import is dominated by the
+ * cost of sorting the tuples.
+ * <p>
+ * Usage:
+ * 
+ * <pre>
+ * final BTreeBulkBuilder builder = new BTreeBulkBuilder(store, metadata, n);
+ * for (...) builder.add(key, val); // n tuples in key order.
+ * final BTree btree = builder.build();
+ * </pre>
+ * 
+ * Note: Delete markers, version timestamps and raw records are not supported.
+ * Those features are only meaningful for indices which are populated
+ * incrementally. The {@link BloomFilter} is populated iff one is configured
+ * and the #of tuples does not exceed the maximum for its error rate.
+ * <p>
+ * Note: This class is NOT thread-safe.
+ */
+public class BTreeBulkBuilder {
+
+    private static final Logger log = Logger.getLogger(BTreeBulkBuilder.class);
+
+    private final IRawStore store;
+
+    private final IndexMetadata metadata;
+
+    /**
+     * The plan for the shape of the output tree.
+     */
+    private final IndexSegmentPlan plan;
+
+    /**
+     * Used to code the nodes and leaves.
+     */
+    private final NodeSerializer nodeSer;
+
+    /**
+     * The optional bloom filter.
+     */
+    private final BloomFilter bloomFilter;
+
+    /**
+     * The leaf which is currently being filled.
+     */
+    private MutableLeafData leaf;
+
+    /**
+     * The index of the current leaf in the leaf level.
+     */
+    private int leafIndex = 0;
+
+    /**
+     * The separator key for the leaf which is currently being filled (
+     * <code>null</code> for the first leaf).
+     */
+    private byte[] pendingSeparator = null;
+
+    /**
+     * The node which is currently being filled at each level of the tree above
+     * the leaves.
+     */
+    private final MutableNodeData[] nodes;
+
+    /**
+     * The #of children in the current node at each level.
+     */
+    private final int[] nchildren;
+
+    /**
+     * The index of the current node within each level.
+     */
+    private final int[] nodeIndex;
+
+    /**
+     * The separator key for the current node at each level, which is the
+     * separator key of its first child.
+     */
+    private final byte[][] nodeSeparator;
+
+    /**
+     * The last key added (used to verify the order and to compute the shortest
+     * separator keys).
+     */
+    private byte[] lastKey = null;
+
+    /**
+     * The #of tuples added so far.
+     */
+    private long ntuples = 0L;
+
+    /**
+     * The #of nodes and leaves written so far.
+     */
+    private long nnodesWritten = 0L, nleavesWritten = 0L;
+
+    /**
+     * The address of the root node or leaf once it has been written.
+     */
+    private long addrRoot = 0L;
+
+    /**
+     * Set once {@link #build()} has been invoked.
+     */
+    private boolean done = false;
+
+    /**
+     * @param store
+     *            The backing store on which the {@link BTree} will be written.
+     * @param metadata
+     *            The metadata for the new index. The metadata record MUST NOT
+     *            have been written (use {@link IndexMetadata#clone()} if
+     *            necessary).
+     * @param nentries
+     *            The exact #of tuples which will be presented to
+     *            {@link #add(byte[], byte[])}.
+     * 
+     * @throws UnsupportedOperationException
+     *             if the index uses delete markers, version timestamps or raw
+     *             records.
+     */
+    public BTreeBulkBuilder(final IRawStore store,
+            final IndexMetadata metadata, final long nentries) {
+
+        if (store == null)
+            throw new IllegalArgumentException();
+
+        if (metadata == null)
+            throw new IllegalArgumentException();
+
+        if (nentries < 0)
+            throw new IllegalArgumentException();
+
+        if (metadata.getMetadataAddr() != 0L)
+            throw new IllegalStateException("Metadata record already in use");
+
+        if (metadata.getIndexType() != IndexTypeEnum.BTree)
+            throw new IllegalStateException("Wrong index type: "
+                    + metadata.getIndexType());
+
+        if (metadata.getDeleteMarkers() || metadata.getVersionTimestamps()
+                || metadata.getRawRecords())
+            throw new UnsupportedOperationException(metadata.getName());
+
+        this.store = store;
+
+        this.metadata = metadata;
+
+        final int m = metadata.getBranchingFactor();
+
+        this.plan = new IndexSegmentPlan(m, nentries);
+
+        this.nodeSer = new NodeSerializer(//
+                store, // addressManager
+                IndexSegmentBuilder.NOPNodeFactory.INSTANCE,//
+                m,//
+                0, // initialBufferCapacity
+                metadata,//
+                false, // NOT read-only (we are using it for writing).
+                metadata.getBtreeRecordCompressorFactory()//
+                );
+
+        final BloomFilterFactory factory = metadata.getBloomFilterFactory();
+
+        BloomFilter filter = factory == null ? null : factory
+                .newBloomFilter();
+
+        if (filter != null && nentries > filter.getMaxN()) {
+
+            log.warn("Bloom filter not built - maximum error rate would be exceeded: nentries="
+                    + nentries + ", factory=" + factory);
+
+            filter = null;
+
+        }
+
+        this.bloomFilter = filter;
+
+        this.nodes = new MutableNodeData[plan.height];
+
+        this.nchildren = new int[plan.height];
+
+        this.nodeIndex = new int[plan.height];
+
+        this.nodeSeparator = new byte[plan.height][];
+
+    }
+
+    /**
+     * Add the next tuple.
+     * 
+     * @param key
+     *            The key, which MUST be strictly greater than the previous key.
+     * @param val
+     *            The value (may be <code>null</code>).
+     * 
+     * @throws IllegalArgumentException
+     *             if the key is <code>null</code> or out of order.
+     * @throws IllegalStateException
+     *             if more tuples are presented than were declared to the
+     *             constructor.
+     */
+    public void add(final byte[] key, final byte[] val) {
+
+        if (key == null)
+            throw new IllegalArgumentException();
+
+        if (done || ntuples == plan.nentries)
+            throw new IllegalStateException();
+
+        if (lastKey != null && BytesUtil.compareBytes(lastKey, key) >= 0)
+            throw new IllegalArgumentException("Key out of order: "
+                    + BytesUtil.toString(key));
+
+        if (leaf == null) {
+
+            leaf = new MutableLeafData(plan.m, false/* versionTimestamps */,
+                    false/* deleteMarkers */, false/* rawRecords */);
+
+        }
+
+        final int i = leaf.keys.nkeys;
+
+        if (i == 0 && lastKey != null) {
+
+            /*
+             * The first key of a leaf other than the first leaf. The shortest
+             * separator between the last key of the previous leaf and this key
+             * separates the two leaves and, transitively, their ancestors.
+             */
+
+            pendingSeparator = BytesUtil.getSeparatorKey(key, lastKey);
+
+        }
+
+        leaf.keys.keys[i] = key;
+        leaf.keys.nkeys++;
+
+        leaf.vals.values[i] = val;
+        leaf.vals.nvalues++;
+
+        if (bloomFilter != null)
+            bloomFilter.add(key);
+
+        lastKey = key;
+
+        ntuples++;
+
+        if (leaf.keys.nkeys == plan.numInLeaf[leafIndex]) {
+
+            flushLeaf();
+
+        }
+
+    }
+
+    /**
+     * Write the current leaf and add it to its parent.
+     */
+    private void flushLeaf() {
+
+        final long nentries = leaf.keys.nkeys;
+
+        final long addr = write(leaf);
+
+        nleavesWritten++;
+
+        leaf = null;
+
+        leafIndex++;
+
+        addChild(plan.height - 1, addr, nentries, pendingSeparator);
+
+    }
+
+    /**
+     * Add a child to the current node at the given level. When the node is
+     * full, it is written and added to its own parent. When the level is
+     * negative, the child is the root.
+     * 
+     * @param level
+     *            The level of the parent (zero is the root).
+     * @param addr
+     *            The address of the child.
+     * @param nentries
+     *            The #of tuples spanned by the child.
+     * @param separator
+     *            The separator key which precedes the child (
+     *            <code>null</code> for the first child in the tree).
+     */
+    private void addChild(final int level, final long addr,
+            final long nentries, final byte[] separator) {
+
+        if (level < 0) {
+
+            addrRoot = addr;
+
+            return;
+
+        }
+
+        MutableNodeData node = nodes[level];
+
+        if (node == null) {
+
+            node = nodes[level] = new MutableNodeData(plan.m, false/* versionTimestamps */);
+
+            nodeSeparator[level] = separator;
+
+        }
+
+        final int c = nchildren[level];
+
+        if (c > 0) {
+
+            node.keys.keys[node.keys.nkeys++] = separator;
+
+        }
+
+        node.childAddr[c] = addr;
+
+        node.childEntryCounts[c] = nentries;
+
+        node.nentries += nentries;
+
+        nchildren[level]++;
+
+        if (nchildren[level] == plan.numInNode[level][nodeIndex[level]]) {
+
+            final long naddr = write(node);
+
+            nnodesWritten++;
+
+            nodes[level] = null;
+
+            nchildren[level] = 0;
+
+            nodeIndex[level]++;
+
+            addChild(level - 1, naddr, node.nentries, nodeSeparator[level]);
+
+        }
+
+    }
+
+    /**
+     * Code the node or leaf and write it onto the store.
+     */
+    private long write(final IAbstractNodeData data) {
+
+        return store.write(nodeSer.compress(nodeSer.encodeLive(data).data()));
+
+    }
+
+    /**
+     * Write the bloom filter, the metadata record and the first
+     * {@link Checkpoint} record and load the {@link BTree} from that
+     * {@link Checkpoint}. The caller is responsible for registering the
+     * returned index (if desired) and for the commit.
+     * 
+     * @return The mutable {@link BTree}.
+     * 
+     * @throws IllegalStateException
+     *             if fewer tuples were presented than were declared to the
+     *             constructor.
+     */
+    public BTree build() {
+
+        if (done)
+            throw new IllegalStateException();
+
+        if (ntuples != plan.nentries)
+            throw new IllegalStateException("Expecting " + plan.nentries
+                    + " tuples, but have " + ntuples);
+
+        done = true;
+
+        nodeSer.close();
+
+        // Note: The metadata address is set as a side-effect.
+        metadata.write(store);
+
+        if (plan.nentries == 0L) {
+
+            // An empty tree has no root. It will be created on demand.
+            final Checkpoint checkpoint = metadata.firstCheckpoint();
+
+            checkpoint.write(store);
+
+            return BTree.load(store, checkpoint.getCheckpointAddr(), false/* readOnly */);
+
+        }
+
+        assert addrRoot != 0L;
+        assert nleavesWritten == plan.nleaves;
+        assert nnodesWritten == plan.nnodes;
+
+        final long addrBloomFilter = bloomFilter != null
+                && bloomFilter.isDirty() ? bloomFilter.write(store) : 0L;
+
+        final Checkpoint checkpoint = new Checkpoint(metadata, addrRoot,
+                addrBloomFilter, plan.height, nnodesWritten, nleavesWritten,
+                ntuples);
+
+        checkpoint.write(store);
+
+        if (log.isInfoEnabled())
+            log.info("name=" + metadata.getName() + ", " + checkpoint);
+
+        return BTree.load(store, checkpoint.getCheckpointAddr(), false/* readOnly */);
+
+    }
+
+}
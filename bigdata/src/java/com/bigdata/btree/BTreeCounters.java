@@ -161,6 +161,8 @@ final public class BTreeCounters implements Cloneable, ICounterSetAccess {
         deserializeNanos.add(o.deserializeNanos.get());
         rawRecordsRead.add(o.rawRecordsRead.get());
         rawRecordsBytesRead.add(o.rawRecordsBytesRead.get());
+        storeCacheHits.add(o.storeCacheHits.get());
+        storeCacheMisses.add(o.storeCacheMisses.get());
         // IO writes.
         nodesWritten += o.nodesWritten;
         leavesWritten += o.leavesWritten;
@@ -227,6 +229,8 @@ final public class BTreeCounters implements Cloneable, ICounterSetAccess {
         t.deserializeNanos.add(-o.deserializeNanos.get());
         t.rawRecordsRead.add(-o.rawRecordsRead.get());
         t.rawRecordsBytesRead.add(-o.rawRecordsBytesRead.get());
+        t.storeCacheHits.add(-o.storeCacheHits.get());
+        t.storeCacheMisses.add(-o.storeCacheMisses.get());
         // IO writes.
         t.nodesWritten -= o.nodesWritten;
         t.leavesWritten -= o.leavesWritten;
@@ -353,6 +357,16 @@ final public class BTreeCounters implements Cloneable, ICounterSetAccess {
     public final CAT rawRecordsRead = new CAT();
     /** Total bytes read for raw records. */
     public final CAT rawRecordsBytesRead = new CAT();
+    /**
+     * #of nodes and leaves found in the shared per-store record cache (only
+     * non-zero when the {@link com.bigdata.LRUNexus} is enabled).
+     */
+    public final CAT storeCacheHits = new CAT();
+    /**
+     * #of nodes and leaves which were not found in the shared per-store
+     * record cache and had to be read from the store.
+     */
+    public final CAT storeCacheMisses = new CAT();
 
     // IO writes (single-threaded)
     public int nodesWritten = 0;
@@ -919,6 +933,27 @@ final public class BTreeCounters implements Cloneable, ICounterSetAccess {
                         setValue(rawRecordsBytesRead.get());
                     }
                 });
+
+                /*
+                 * Shared record cache (LRUNexus).
+                 */
+                tmp.addCounter("storeCacheHits", new Instrument<Long>() {
+                    protected void sample() {
+                        setValue(storeCacheHits.get());
+                    }
+                });
+                tmp.addCounter("storeCacheMisses", new Instrument<Long>() {
+                    protected void sample() {
+                        setValue(storeCacheMisses.get());
+                    }
+                });
+                tmp.addCounter("storeCacheHitRatio", new Instrument<Double>() {
+                    protected void sample() {
+                        final long hits = storeCacheHits.get();
+                        final long n = hits + storeCacheMisses.get();
+                        setValue(n == 0 ? 0d : hits / (double) n);
+                    }
+                });
                 tmp.addCounter("rawRecordsWritten", new Instrument<Long>() {
                     protected void sample() {
                         setValue(rawRecordsWritten);
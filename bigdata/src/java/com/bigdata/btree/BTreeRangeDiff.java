@@ -0,0 +1,241 @@
+/**
+
+Copyright (C) SYSTAP, LLC 2006-2015.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@systap.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+/*
+ * Created on Oct 17, 2026
+ */
+
+package com.bigdata.btree;
+
+import com.bigdata.btree.raba.IRaba;
+import com.bigdata.rawstore.IRawStore;
+
+/**
+ * Utility class reports whether a key range has changed between two views of
+ * the same B+Tree, e.g., the views associated with two different commit points
+ * on a journal. Since nodes and leaves are copy-on-write, any subtree whose
+ * address is the same in both views is known to be unchanged and is not
+ * visited. Only the paths through the subtrees which were touched by a write
+ * and which overlap the key range are read. When the structure of the two
+ * views diverges (a split, join or rotation), the tuples in the remaining
+ * overlap are compared directly.
+ */
+public class BTreeRangeDiff {
+
+    private BTreeRangeDiff() {
+        
+    }
+
+    /**
+     * Return <code>true</code> iff the tuples visible in the key range are the
+     * same for both views.
+     * 
+     * @param a
+     *            One view of the index.
+     * @param b
+     *            Another view of the same index.
+     * @param fromKey
+     *            The first key that will be compared (inclusive) -or-
+     *            <code>null</code> if there is no lower bound.
+     * @param toKey
+     *            The first key that will not be compared (exclusive) -or-
+     *            <code>null</code> if there is no upper bound.
+     */
+    public static boolean isUnchanged(final AbstractBTree a,
+            final AbstractBTree b, final byte[] fromKey, final byte[] toKey) {
+
+        if (a == null)
+            throw new IllegalArgumentException();
+
+        if (b == null)
+            throw new IllegalArgumentException();
+
+        if (a == b)
+            return true;
+
+        return isUnchanged(a, b, a.getRoot(), b.getRoot(), null/* lo */,
+                null/* hi */, fromKey, toKey);
+
+    }
+
+    /**
+     * Compare two subtrees spanning the same separator keys.
+     * 
+     * @param lo
+     *            The inclusive lower bound of the subtree -or- <code>null</code>
+     *            if unbounded.
+     * @param hi
+     *            The exclusive upper bound of the subtree -or-
+     *            <code>null</code> if unbounded.
+     */
+    private static boolean isUnchanged(final AbstractBTree a,
+            final AbstractBTree b, final AbstractNode<?> x,
+            final AbstractNode<?> y, final byte[] lo, final byte[] hi,
+            final byte[] fromKey, final byte[] toKey) {
+
+        if (x.isPersistent() && y.isPersistent()
+                && x.getIdentity() == y.getIdentity()) {
+
+            // Same record, hence same tuples.
+            return true;
+
+        }
+
+        if (!x.isLeaf() && !y.isLeaf() && sameSeparatorKeys((Node) x, (Node) y)) {
+
+            final Node nx = (Node) x;
+            final Node ny = (Node) y;
+            final IRaba keys = nx.getKeys();
+            final int nkeys = nx.getKeyCount();
+
+            for (int i = 0; i <= nkeys; i++) {
+
+                final byte[] clo = i == 0 ? lo : keys.get(i - 1);
+                final byte[] chi = i == nkeys ? hi : keys.get(i);
+
+                if (!overlaps(clo, chi, fromKey, toKey))
+                    continue;
+
+                final long addr = nx.getChildAddr(i);
+
+                if (addr != IRawStore.NULL && addr == ny.getChildAddr(i)) {
+
+                    // Child is unchanged.
+                    continue;
+
+                }
+
+                if (!isUnchanged(a, b, nx.getChild(i), ny.getChild(i), clo,
+                        chi, fromKey, toKey)) {
+
+                    return false;
+
+                }
+
+            }
+
+            return true;
+
+        }
+
+        // The structure diverges. Compare the tuples in the overlap.
+        return sameTuples(a, b, max(lo, fromKey), min(hi, toKey));
+
+    }
+
+    private static boolean sameSeparatorKeys(final Node x, final Node y) {
+
+        final int nkeys = x.getKeyCount();
+
+        if (nkeys != y.getKeyCount())
+            return false;
+
+        final IRaba kx = x.getKeys();
+        final IRaba ky = y.getKeys();
+
+        for (int i = 0; i < nkeys; i++) {
+
+            if (!BytesUtil.bytesEqual(kx.get(i), ky.get(i)))
+                return false;
+
+        }
+
+        return true;
+
+    }
+
+    private static boolean sameTuples(final AbstractBTree a,
+            final AbstractBTree b, final byte[] fromKey, final byte[] toKey) {
+
+        final ITupleIterator<?> itra = a.rangeIterator(fromKey, toKey,
+                0/* capacity */, IRangeQuery.DEFAULT, null/* filter */);
+
+        final ITupleIterator<?> itrb = b.rangeIterator(fromKey, toKey,
+                0/* capacity */, IRangeQuery.DEFAULT, null/* filter */);
+
+        while (itra.hasNext()) {
+
+            if (!itrb.hasNext())
+                return false;
+
+            final ITuple<?> ta = itra.next();
+            final ITuple<?> tb = itrb.next();
+
+            if (!BytesUtil.bytesEqual(ta.getKey(), tb.getKey()))
+                return false;
+
+            if (ta.isNull() != tb.isNull())
+                return false;
+
+            if (!ta.isNull()
+                    && !BytesUtil.bytesEqual(ta.getValue(), tb.getValue()))
+                return false;
+
+        }
+
+        return !itrb.hasNext();
+
+    }
+
+    /**
+     * Return <code>true</code> iff the half-open ranges overlap. A
+     * <code>null</code> bound is unbounded.
+     */
+    private static boolean overlaps(final byte[] lo1, final byte[] hi1,
+            final byte[] lo2, final byte[] hi2) {
+
+        if (hi1 != null && lo2 != null && BytesUtil.compareBytes(lo2, hi1) >= 0)
+            return false;
+
+        if (hi2 != null && lo1 != null && BytesUtil.compareBytes(lo1, hi2) >= 0)
+            return false;
+
+        return true;
+
+    }
+
+    private static byte[] max(final byte[] a, final byte[] b) {
+
+        if (a == null)
+            return b;
+
+        if (b == null)
+            return a;
+
+        return BytesUtil.compareBytes(a, b) >= 0 ? a : b;
+
+    }
+
+    private static byte[] min(final byte[] a, final byte[] b) {
+
+        if (a == null)
+            return b;
+
+        if (b == null)
+            return a;
+
+        return BytesUtil.compareBytes(a, b) <= 0 ? a : b;
+
+    }
+
+}
@@ -261,6 +261,45 @@ public class Checkpoint implements ICheckpoint, Externalizable {
         
     }
 
+    /**
+     * Create the first checkpoint record for a {@link BTree} whose nodes and
+     * leaves were written bottom-up onto the backing store by the
+     * {@link BTreeBulkBuilder}.
+     *
+     * @param metadata
+     *            The index metadata record (already written on the store).
+     * @param addrRoot
+     *            The address of the root node or leaf.
+     * @param addrBloomFilter
+     *            The address of the bloom filter or <code>0L</code> if none.
+     * @param height
+     *            The height of the tree (zero iff the root is a leaf).
+     * @param nnodes
+     *            The #of nodes written.
+     * @param nleaves
+     *            The #of leaves written.
+     * @param nentries
+     *            The #of tuples written.
+     */
+    Checkpoint(final IndexMetadata metadata, final long addrRoot,
+            final long addrBloomFilter, final int height, final long nnodes,
+            final long nleaves, final long nentries) {
+
+        this( //
+                metadata.getMetadataAddr(), //
+                addrRoot,//
+                addrBloomFilter,//
+                height,//
+                nnodes,//
+                nleaves,//
+                nentries,//
+                0L, // counter
+                0L, // recordVersion
+                metadata.getIndexType()//
+        );
+
+    }
+
     /**
      * Creates a {@link Checkpoint} record from a {@link BTree}.
      * <p>
@@ -159,7 +159,10 @@ class ChildIterator implements INodeIterator {
         }
 
         lastVisited = index++;
-        
+
+        // read ahead of the scan (NOP unless prefetch is enabled).
+        node.prefetchChildren(index, toIndex);
+
         return node.getChild(lastVisited);
         
     }
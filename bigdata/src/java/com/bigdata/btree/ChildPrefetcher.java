@@ -0,0 +1,324 @@
+/**
+
+Copyright (C) SYSTAP, LLC 2006-2015.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@systap.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+/*
+ * Created on Oct 17, 2026
+ */
+
+package com.bigdata.btree;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.log4j.Logger;
+
+import com.bigdata.btree.data.IAbstractNodeData;
+import com.bigdata.util.concurrent.DaemonThreadFactory;
+
+/**
+ * Overlaps the reads of child nodes and leaves of a read-only
+ * {@link AbstractBTree} with the scan which will visit them. When a
+ * {@link Node} is visited by a range scan, the next few children which are not
+ * materialized are read and decoded on a shared I/O thread pool. The decoded
+ * data records are handed to {@link AbstractBTree#readNodeOrLeaf(long)} when
+ * the scan reaches those children, which turns a scan on a cold cache from a
+ * series of latency bound reads into a queue depth bound scan.
+ * <p>
+ * Prefetch is disabled unless {@link Options#PREFETCH_DEPTH} is positive and
+ * is only used for read-only views since the records of a mutable
+ * {@link BTree} may be replaced while a read is in flight.
+ */
+class ChildPrefetcher {
+
+    private static final Logger log = Logger.getLogger(ChildPrefetcher.class);
+
+    /**
+     * JVM wide configuration options (specified as system properties).
+     */
+    interface Options {
+
+        /**
+         * The maximum #of children of a {@link Node} which are read ahead of
+         * a range scan (default {@value #DEFAULT_PREFETCH_DEPTH}). Prefetch is
+         * disabled when this is ZERO (0).
+         */
+        String PREFETCH_DEPTH = ChildPrefetcher.class.getName()
+                + ".prefetchDepth";
+
+        int DEFAULT_PREFETCH_DEPTH = 0;
+
+        /**
+         * The #of threads in the JVM wide pool used to read children ahead of
+         * a range scan (default {@value #DEFAULT_PREFETCH_THREADS}). Since the
+         * reads are I/O bound, this may be larger than the #of cores. It
+         * effectively bounds the queue depth presented to the disk.
+         */
+        String PREFETCH_THREADS = ChildPrefetcher.class.getName()
+                + ".prefetchThreads";
+
+        int DEFAULT_PREFETCH_THREADS = 16;
+
+    }
+
+    /**
+     * @see Options#PREFETCH_DEPTH
+     */
+    static final int DEPTH = Integer.getInteger(Options.PREFETCH_DEPTH,
+            Options.DEFAULT_PREFETCH_DEPTH);
+
+    /**
+     * The JVM wide pool for the reads.
+     */
+    private static volatile ExecutorService service;
+
+    private static ExecutorService getService() {
+
+        if (service == null) {
+
+            synchronized (ChildPrefetcher.class) {
+
+                if (service == null) {
+
+                    final int nthreads = Integer.getInteger(
+                            Options.PREFETCH_THREADS,
+                            Options.DEFAULT_PREFETCH_THREADS);
+
+                    service = Executors.newFixedThreadPool(nthreads,
+                            new DaemonThreadFactory(ChildPrefetcher.class
+                                    .getName()));
+
+                }
+
+            }
+
+        }
+
+        return service;
+
+    }
+
+    /**
+     * Return a prefetcher for the index -or- <code>null</code> if prefetch is
+     * disabled or not applicable to that index.
+     */
+    static ChildPrefetcher newInstance(final AbstractBTree btree) {
+
+        if (DEPTH <= 0 || btree.store == null || !btree.isReadOnly())
+            return null;
+
+        return new ChildPrefetcher(btree, DEPTH);
+
+    }
+
+    private final AbstractBTree btree;
+
+    private final int depth;
+
+    /**
+     * The prefetched records and in-flight reads keyed by the address of the
+     * child. The map is bounded. When it overflows, the eldest read (which the
+     * scan has apparently abandoned) is cancelled and discarded.
+     */
+    private final LinkedHashMap<Long, Future<IAbstractNodeData>> pending;
+
+    /**
+     * #of reads issued.
+     */
+    final AtomicLong nprefetch = new AtomicLong();
+
+    /**
+     * #of reads which were consumed by the scan.
+     */
+    final AtomicLong nhits = new AtomicLong();
+
+    ChildPrefetcher(final AbstractBTree btree, final int depth) {
+
+        this.btree = btree;
+
+        this.depth = depth;
+
+        final int capacity = depth * 4;
+
+        this.pending = new LinkedHashMap<Long, Future<IAbstractNodeData>>(
+                capacity) {
+
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(
+                    final Map.Entry<Long, Future<IAbstractNodeData>> eldest) {
+
+                if (size() > capacity) {
+
+                    eldest.getValue().cancel(false/* mayInterruptIfRunning */);
+
+                    return true;
+
+                }
+
+                return false;
+
+            }
+
+        };
+
+    }
+
+    /**
+     * The maximum #of children read ahead of the scan.
+     */
+    int getDepth() {
+
+        return depth;
+
+    }
+
+    /**
+     * Issue an asynchronous read for the child at that address unless one has
+     * already been issued.
+     */
+    void prefetch(final long addr) {
+
+        final Long key = Long.valueOf(addr);
+
+        final FutureTask<IAbstractNodeData> ft;
+
+        synchronized (pending) {
+
+            if (pending.containsKey(key))
+                return;
+
+            ft = new FutureTask<IAbstractNodeData>(
+                    new Callable<IAbstractNodeData>() {
+                        @Override
+                        public IAbstractNodeData call() throws Exception {
+                            return btree.readNodeData(addr);
+                        }
+                    });
+
+            pending.put(key, ft);
+
+        }
+
+        try {
+
+            getService().execute(ft);
+
+            nprefetch.incrementAndGet();
+
+        } catch (RejectedExecutionException ex) {
+
+            synchronized (pending) {
+
+                pending.remove(key);
+
+            }
+
+        }
+
+    }
+
+    /**
+     * Return the prefetched data record for the child at that address,
+     * waiting if the read is still in flight.
+     * 
+     * @return The data record -or- <code>null</code> if no read was issued
+     *         for that address or if the read failed, in which case the caller
+     *         must read the record itself.
+     */
+    IAbstractNodeData take(final long addr) {
+
+        final Future<IAbstractNodeData> f;
+
+        synchronized (pending) {
+
+            f = pending.remove(Long.valueOf(addr));
+
+        }
+
+        if (f == null)
+            return null;
+
+        try {
+
+            final IAbstractNodeData data = f.get();
+
+            nhits.incrementAndGet();
+
+            return data;
+
+        } catch (InterruptedException ex) {
+
+            // Propagate the interrupt.
+            Thread.currentThread().interrupt();
+
+            return null;
+
+        } catch (ExecutionException ex) {
+
+            if (log.isInfoEnabled())
+                log.info("Prefetch failed: addr=" + addr + " : " + ex);
+
+            return null;
+
+        } catch (CancellationException ex) {
+
+            return null;
+
+        }
+
+    }
+
+    /**
+     * Cancel any reads which are still in flight.
+     */
+    void clear() {
+
+        synchronized (pending) {
+
+            final Iterator<Future<IAbstractNodeData>> itr = pending.values()
+                    .iterator();
+
+            while (itr.hasNext()) {
+
+                itr.next().cancel(false/* mayInterruptIfRunning */);
+
+                itr.remove();
+
+            }
+
+        }
+
+    }
+
+}
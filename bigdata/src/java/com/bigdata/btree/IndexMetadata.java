@@ -59,6 +59,7 @@ import com.bigdata.htree.HTree;
 import com.bigdata.io.DirectBufferPool;
 import com.bigdata.io.LongPacker;
 import com.bigdata.io.SerializerUtil;
+import com.bigdata.io.compression.DefaultRecordCompressorFactory;
 import com.bigdata.io.compression.IRecordCompressorFactory;
 import com.bigdata.journal.IIndexManager;
 import com.bigdata.mdi.LocalPartitionMetadata;
@@ -608,12 +609,16 @@ public class IndexMetadata implements Serializable, Externalizable, Cloneable,
 
         /**
          * An optional factory providing record-level compression for the nodes
-         * and leaves of an {@link IndexSegment} (default
-         * {@value #DEFAULT_BTREE_RECORD_COMPRESSOR_FACTORY}).
+         * and leaves of a {@link BTree} (default
+         * {@value #DEFAULT_BTREE_RECORD_COMPRESSOR_FACTORY}). When specified,
+         * each coded node or leaf is compressed when it is written onto the
+         * backing store and decompressed when it is read. Records which do not
+         * become smaller are written without compression. For example,
+         * {@link DefaultRecordCompressorFactory} provides fast deflate based
+         * compression.
          * 
          * @see #INDEX_SEGMENT_RECORD_COMPRESSOR_FACTORY
-         * 
-         * FIXME Record level compression support is not finished.
+         * @see NodeSerializer#TYPE_COMPRESSED
          */
         String BTREE_RECORD_COMPRESSOR_FACTORY = (BTree.class.getName()
                 + ".recordCompressorFactory").intern();
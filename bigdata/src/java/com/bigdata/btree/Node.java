@@ -2082,6 +2082,52 @@ public class Node extends AbstractNode<Node> implements INodeData {
 
     }
 
+    /**
+     * Issue asynchronous reads for the children in
+     * <code>[fromIndex:toIndex)</code> which are not materialized, up to the
+     * prefetch depth. This is a NOP unless prefetch is enabled for the owning
+     * B+Tree.
+     * 
+     * @param fromIndex
+     *            The index of the first child to read ahead.
+     * @param toIndex
+     *            The index of the first child which will not be visited.
+     * 
+     * @see ChildPrefetcher
+     */
+    void prefetchChildren(final int fromIndex, final int toIndex) {
+
+        final ChildPrefetcher prefetcher = btree.prefetcher;
+
+        if (prefetcher == null)
+            return;
+
+        final int n = Math.min(Math.min(toIndex, getKeyCount() + 1),
+                fromIndex + prefetcher.getDepth());
+
+        for (int i = fromIndex; i < n; i++) {
+
+            final Reference<AbstractNode<?>> ref = childRefs[i];
+
+            if (ref != null && ref.get() != null) {
+
+                // Already materialized.
+                continue;
+
+            }
+
+            final long addr = getChildAddr(i);
+
+            if (addr != IRawStore.NULL) {
+
+                prefetcher.prefetch(addr);
+
+            }
+
+        }
+
+    }
+
     /**
      * Return the right sibling of the specified child of a common parent. This
      * method is invoked on the parent, passing in one child and returning its
@@ -2126,6 +2172,9 @@ public class Node extends AbstractNode<Node> implements INodeData {
 
                 if (materialize) {
 
+                    // read ahead of a leaf cursor scan (NOP unless enabled).
+                    prefetchChildren(index + 1, getKeyCount() + 1);
+
                     sibling = getChild(index);
 
                 }
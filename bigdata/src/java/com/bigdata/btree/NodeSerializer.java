@@ -26,6 +26,7 @@ Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
  */
 package com.bigdata.btree;
 
+import java.io.ByteArrayOutputStream;
 import java.nio.BufferUnderflowException;
 import java.nio.ByteBuffer;
 
@@ -164,6 +165,25 @@ public class NodeSerializer {
      * single threaded.
      */
     private IRecordCompressor _writeCompressor;
+
+    /**
+     * Instances used to decompress records (one per reader thread) -or-
+     * <code>null</code> if there is no {@link #recordCompressorFactory}.
+     */
+    private final ThreadLocal<IRecordCompressor> readCompressor;
+
+    /**
+     * The value of the type byte for a node or leaf record which was
+     * compressed using the {@link IRecordCompressorFactory} for the index. The
+     * type byte is followed by the compressed coded record. The value is
+     * disjoint from the type bytes of the coded records, so compressed and
+     * uncompressed records may be mixed in the same index.
+     * 
+     * @see AbstractReadOnlyNodeData#NODE
+     * @see AbstractReadOnlyNodeData#LEAF
+     * @see AbstractReadOnlyNodeData#LINKED_LEAF
+     */
+    public static final byte TYPE_COMPRESSED = 16;
     
     private final int initialBufferCapacity;
 
@@ -251,6 +271,14 @@ public class NodeSerializer {
         
         // MAY be null
         this.recordCompressorFactory = recordCompressorFactory;
+
+        this.readCompressor = recordCompressorFactory == null ? null
+                : new ThreadLocal<IRecordCompressor>() {
+                    @Override
+                    protected IRecordCompressor initialValue() {
+                        return recordCompressorFactory.getInstance();
+                    }
+                };
         
         if (readOnly) {
 
@@ -331,11 +359,17 @@ public class NodeSerializer {
      *         FIXME modify to accept {@link IDataRecord} rather than
      *         {@link ByteBuffer}.
      */
-    public IAbstractNodeData decode(final ByteBuffer buf) {
+    public IAbstractNodeData decode(ByteBuffer buf) {
 
         if (buf == null)
             throw new IllegalArgumentException();
 
+        if (buf.get(AbstractReadOnlyNodeData.O_TYPE) == TYPE_COMPRESSED) {
+
+            buf = decompress(buf);
+
+        }
+
         final boolean isNode = AbstractReadOnlyNodeData.isNode(buf
                 .get(AbstractReadOnlyNodeData.O_TYPE));
 
@@ -364,6 +398,79 @@ public class NodeSerializer {
 
     }
 
+    /**
+     * Return the record to be written onto the backing store for a coded node
+     * or leaf (NOT thread-safe). When the index is configured with an
+     * {@link IRecordCompressorFactory}, the record is compressed and prefixed
+     * by {@link #TYPE_COMPRESSED} unless compression would not make it
+     * smaller. Otherwise the coded record is returned as is.
+     * 
+     * @param slice
+     *            The coded node or leaf.
+     * 
+     * @return The record to be written.
+     */
+    public ByteBuffer compress(final AbstractFixedByteArrayBuffer slice) {
+
+        if (recordCompressorFactory == null) {
+
+            return slice.asByteBuffer();
+
+        }
+
+        final int len = slice.len();
+
+        final ByteArrayOutputStream os = new ByteArrayOutputStream(len);
+
+        os.write(TYPE_COMPRESSED);
+
+        getRecordCompressor().compress(slice.array(), slice.off(), len, os);
+
+        if (os.size() >= len) {
+
+            // Not worth it.
+            return slice.asByteBuffer();
+
+        }
+
+        return ByteBuffer.wrap(os.toByteArray());
+
+    }
+
+    /**
+     * Decompress a record written by {@link #compress(AbstractFixedByteArrayBuffer)}
+     * (thread-safe).
+     * 
+     * @param buf
+     *            The record, including the leading {@link #TYPE_COMPRESSED}
+     *            byte.
+     * 
+     * @return The coded node or leaf in an exact fit byte[].
+     */
+    private ByteBuffer decompress(final ByteBuffer buf) {
+
+        if (readCompressor == null) {
+
+            throw new IllegalStateException(
+                    "Compressed record but no record compressor is configured");
+
+        }
+
+        final ByteBuffer tmp = buf.duplicate();
+
+        tmp.position(AbstractReadOnlyNodeData.O_TYPE + 1);
+
+        // Note: view onto a buffer which is reused by the compressor.
+        final ByteBuffer b = readCompressor.get().decompress(tmp.slice());
+
+        final byte[] a = new byte[b.remaining()];
+
+        b.get(a);
+
+        return ByteBuffer.wrap(a);
+
+    }
+
     /**
      * Wrap an {@link INodeData} or {@link ILeafData} instance as a {@link Node}
      * or a {@link Leaf}. This DOES NOT set the parent of the new {@link Node}
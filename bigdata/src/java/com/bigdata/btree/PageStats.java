@@ -42,6 +42,18 @@ abstract public class PageStats extends BaseIndexStats {
     public long minNodeBytes, maxNodeBytes;
     /** The min/max bytes per leaf. */
     public long minLeafBytes, maxLeafBytes;
+    /**
+     * The #of bytes in the coded records for the nodes visited before any
+     * record level compression. This is the same as {@link #nodeBytes} unless
+     * the index uses a record compressor.
+     */
+    public long nodeCodedBytes;
+    /**
+     * The #of bytes in the coded records for the leaves visited before any
+     * record level compression. This is the same as {@link #leafBytes} unless
+     * the index uses a record compressor.
+     */
+    public long leafCodedBytes;
     /**
      * Histogram of the allocation slot sizes based on {@link #SLOT_SIZES}. The
      * indices into this array are correlated with the indices into the
@@ -127,6 +139,17 @@ abstract public class PageStats extends BaseIndexStats {
         return (nrawRecs== 0 ? 0 : rawRecBytes / nrawRecs);
     }
 
+    /**
+     * The ratio of the bytes on the store for the nodes and leaves to the
+     * bytes in their coded records before record level compression (1.0 if
+     * the records are not compressed).
+     */
+    public double getCompressionRatio() {
+        final long codedBytes = nodeCodedBytes + leafCodedBytes;
+        return (codedBytes == 0 ? 1d : (nodeBytes + leafBytes)
+                / (double) codedBytes);
+    }
+
     public String toString() {
         final StringBuilder sb = new StringBuilder();
         sb.append(getClass().getName());
@@ -145,6 +168,9 @@ abstract public class PageStats extends BaseIndexStats {
         sb.append(",bytesPerNode=" + getBytesPerNode());
         sb.append(",bytesPerLeaf=" + getBytesPerLeaf());
         sb.append(",bytesPerRawRec=" + getBytesPerRawRecord());
+        sb.append(",nodeCodedBytes=" + nodeCodedBytes);
+        sb.append(",leafCodedBytes=" + leafCodedBytes);
+        sb.append(",compressionRatio=" + round(getCompressionRatio()));
         sb.append(",nerrors=" + nerrors);
         final long npages = (nleaves + nnodes);
         for (int i = 0; i < SLOT_SIZES.length; i++) {
@@ -239,6 +265,14 @@ abstract public class PageStats extends BaseIndexStats {
         sb.append('\t');
         sb.append("curM");
 
+        // Record level compression.
+        sb.append('\t');
+        sb.append("nodeCodedBytes");
+        sb.append('\t');
+        sb.append("leafCodedBytes");
+        sb.append('\t');
+        sb.append("compressionRatio");
+
         return sb.toString();
     }
 
@@ -313,6 +347,13 @@ abstract public class PageStats extends BaseIndexStats {
         sb.append('\t');
         sb.append(stats.m);
 
+        sb.append('\t');
+        sb.append(stats.nodeCodedBytes);
+        sb.append('\t');
+        sb.append(stats.leafCodedBytes);
+        sb.append('\t');
+        sb.append(stats.getCompressionRatio());
+
         return sb.toString();
     }
 
@@ -383,10 +424,14 @@ abstract public class PageStats extends BaseIndexStats {
 
             final boolean isLeaf = node.isLeaf();
 
+            // The size of the coded record before record level compression.
+            final long codedBytes = node.isCoded() ? node.data().len() : nbytes;
+
             if (isLeaf) {
 
                 stats.nleaves++;
                 stats.leafBytes += nbytes;
+                stats.leafCodedBytes += codedBytes;
                 if (stats.minLeafBytes > nbytes || stats.minLeafBytes == 0)
                     stats.minLeafBytes = nbytes;
                 if (stats.maxLeafBytes < nbytes)
@@ -410,6 +455,7 @@ abstract public class PageStats extends BaseIndexStats {
 
                 stats.nnodes++;
                 stats.nodeBytes += nbytes;
+                stats.nodeCodedBytes += codedBytes;
                 if (stats.minNodeBytes > nbytes || stats.minNodeBytes == 0)
                     stats.minNodeBytes = nbytes;
                 if (stats.maxNodeBytes < nbytes)
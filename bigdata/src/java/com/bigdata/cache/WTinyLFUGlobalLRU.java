@@ -0,0 +1,1288 @@
+/**
+
+Copyright (C) SYSTAP, LLC 2006-2015.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@systap.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+/*
+ * Created on Oct 17, 2026
+ */
+
+package com.bigdata.cache;
+
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.bigdata.BigdataStatics;
+import com.bigdata.LRUNexus.CacheSettings;
+import com.bigdata.counters.CounterSet;
+import com.bigdata.counters.Instrument;
+import com.bigdata.counters.OneShotInstrument;
+import com.bigdata.io.IDataRecordAccess;
+import com.bigdata.rawstore.IAddressManager;
+import com.bigdata.rawstore.IRawStore;
+
+/**
+ * A canonicalizing collection of per-{@link IRawStore} hash maps backed by a
+ * single, byte bounded, scan resistant W-TinyLFU replacement policy.
+ * <p>
+ * Entries are first inserted into a small LRU admission window. Entries which
+ * fall off the window become candidates for the main region, which is a
+ * segmented LRU (a probation segment and a protected segment). When the cache
+ * is over capacity, the candidate competes with the LRU entry of the probation
+ * segment and the entry with the lower estimated access frequency is evicted.
+ * The access frequency is estimated by a count-min sketch over all keys across
+ * all cache instances, including keys which are not (or are no longer)
+ * buffered. The sketch is periodically aged by halving its counters.
+ * <p>
+ * The effect is that a large range scan, whose records are each visited once,
+ * churns the admission window and the probation segment but does not displace
+ * the frequently used records (such as the upper levels of the statement
+ * indices) which have been promoted to the protected segment.
+ * <p>
+ * Entries are weighted by the decompressed byte length of the record when the
+ * value implements {@link IDataRecordAccess} and the sizes of the window and
+ * protected segments are expressed as fractions of
+ * {@link CacheSettings#maximumBytesInMemory}.
+ * <p>
+ * Note: Thread-safety is enforced using a single {@link ReentrantLock}.
+ * 
+ * @param <K>
+ *            The generic type of the key.
+ * @param <V>
+ *            The generic type of the value.
+ * 
+ * @see <a href="http://arxiv.org/abs/1512.00727">TinyLFU: A Highly Efficient
+ *      Cache Admission Policy</a>
+ */
+public class WTinyLFUGlobalLRU<K, V> implements IHardReferenceGlobalLRU<K, V> {
+
+    /**
+     * The fraction of the maximum bytes in memory used by the admission
+     * window.
+     */
+    static final double WINDOW_PERCENT = .01;
+
+    /**
+     * The fraction of the main region (everything except the admission window)
+     * used by the protected segment.
+     */
+    static final double PROTECTED_PERCENT = .8;
+
+    /*
+     * Segment identifiers.
+     */
+    private static final byte WINDOW = 0;
+    private static final byte PROBATION = 1;
+    private static final byte PROTECTED = 2;
+
+    /**
+     * A canonicalizing mapping for per-{@link IRawStore} caches. Cache
+     * instances MAY be retained when the backing store is closed. However,
+     * cache instances will be lost if their {@link WeakReference} is cleared
+     * and this will typically happen once the {@link IRawStore} is no longer
+     * strongly referenced.
+     */
+    private final ConcurrentWeakValueCache<UUID, CacheImpl<K, V>> cacheSet;
+
+    /**
+     * Lock used to gate access to the replacement policy. A fair policy is NOT
+     * selected in the hopes that the cache will have higher throughput.
+     */
+    private final ReentrantLock lock = new ReentrantLock(false/* fair */);
+
+    /**
+     * The maximum bytes in memory across all cache instances.
+     */
+    private final long maximumBytesInMemory;
+
+    /**
+     * The maximum bytes in memory for the admission window.
+     */
+    private final long maximumWindowBytes;
+
+    /**
+     * The maximum bytes in memory for the protected segment.
+     */
+    private final long maximumProtectedBytes;
+
+    /**
+     * The initial capacity for each cache instance.
+     */
+    private final int initialCacheCapacity;
+
+    /**
+     * The load factor for each cache instance.
+     */
+    private final float loadFactor;
+
+    /**
+     * The access frequency estimates.
+     */
+    private final FrequencySketch sketch;
+
+    /**
+     * The admission window (LRU).
+     */
+    private final Segment<K, V> window = new Segment<K, V>();
+
+    /**
+     * The probation segment of the main region (LRU).
+     */
+    private final Segment<K, V> probation = new Segment<K, V>();
+
+    /**
+     * The protected segment of the main region (LRU).
+     */
+    private final Segment<K, V> protect = new Segment<K, V>();
+
+    /**
+     * The #of entries across all cache instances.
+     */
+    private volatile int size = 0;
+
+    /**
+     * The counters for the shared policy.
+     */
+    private final Counters counters = new Counters();
+
+    /**
+     * The designated constructor used by {@link CacheSettings}.
+     * 
+     * @param s
+     *            The {@link CacheSettings}.
+     */
+    public WTinyLFUGlobalLRU(final CacheSettings s) {
+
+        this(s.maximumBytesInMemory, s.minCacheSetSize,
+                s.initialCacheCapacity, s.loadFactor);
+
+    }
+
+    /**
+     * @param maximumBytesInMemory
+     *            The maximum bytes in memory for the cached records across all
+     *            cache instances.
+     * @param minimumCacheSetCapacity
+     *            The #of per-{@link IRawStore} {@link ILRUCache} instances that
+     *            will be maintained by hard references unless their cache is
+     *            explicitly discarded.
+     * @param initialCacheCapacity
+     *            The initial capacity of each new cache instance.
+     * @param loadFactor
+     *            The load factor for the cache instances.
+     */
+    public WTinyLFUGlobalLRU(final long maximumBytesInMemory,
+            final int minimumCacheSetCapacity, final int initialCacheCapacity,
+            final float loadFactor) {
+
+        if (maximumBytesInMemory <= 0)
+            throw new IllegalArgumentException();
+
+        this.maximumBytesInMemory = maximumBytesInMemory;
+
+        this.maximumWindowBytes = Math.max(1L,
+                (long) (maximumBytesInMemory * WINDOW_PERCENT));
+
+        this.maximumProtectedBytes = (long) ((maximumBytesInMemory - maximumWindowBytes) * PROTECTED_PERCENT);
+
+        this.initialCacheCapacity = initialCacheCapacity;
+
+        this.loadFactor = loadFactor;
+
+        /*
+         * Size the sketch for the #of records which could be buffered assuming
+         * a typical decoded node or leaf of ~1k.
+         */
+        this.sketch = new FrequencySketch(maximumBytesInMemory / 1024);
+
+        cacheSet = new ConcurrentWeakValueCache<UUID, CacheImpl<K, V>>(
+                minimumCacheSetCapacity);
+
+    }
+
+    public ILRUCache<K, V> getCache(final UUID uuid, final IAddressManager am) {
+
+        if (uuid == null)
+            throw new IllegalArgumentException();
+
+        CacheImpl<K, V> cache = cacheSet.get(uuid);
+
+        if (cache == null) {
+
+            cache = new CacheImpl<K, V>(uuid, am, this, initialCacheCapacity,
+                    loadFactor);
+
+            final CacheImpl<K, V> oldVal = cacheSet.putIfAbsent(uuid, cache);
+
+            if (oldVal != null) {
+
+                // concurrent insert.
+                cache = oldVal;
+
+            }
+
+        }
+
+        return cache;
+
+    }
+
+    public int getRecordCount() {
+
+        return size;
+
+    }
+
+    public long getEvictionCount() {
+
+        return counters.evictionCount.get();
+
+    }
+
+    public long getEvictionByteCount() {
+
+        return counters.evictionByteCount.get();
+
+    }
+
+    /**
+     * The #of candidates which were not admitted to the main region because
+     * their estimated access frequency was not greater than that of the
+     * victim.
+     */
+    public long getRejectionCount() {
+
+        return counters.rejectionCount.get();
+
+    }
+
+    public long getBytesOnDisk() {
+
+        return counters.bytesOnDisk.get();
+
+    }
+
+    public long getBytesInMemory() {
+
+        return counters.bytesInMemory.get();
+
+    }
+
+    public long getMaximumBytesInMemory() {
+
+        return maximumBytesInMemory;
+
+    }
+
+    public int getCacheSetSize() {
+
+        return cacheSet.size();
+
+    }
+
+    public void deleteCache(final UUID uuid) {
+
+        if (uuid == null)
+            throw new IllegalArgumentException();
+
+        // remove cache from the cacheSet.
+        final CacheImpl<K, V> cache = cacheSet.remove(uuid);
+
+        if (cache != null) {
+
+            // if cache exists, the clear it.
+            cache.clear();
+
+            if (BigdataStatics.debug)
+                System.err.println("Cleared cache: " + uuid);
+
+        }
+
+    }
+
+    public void discardAllCaches() {
+
+        lock.lock();
+        try {
+
+            final Iterator<WeakReference<CacheImpl<K, V>>> itr = cacheSet
+                    .iterator();
+
+            while (itr.hasNext()) {
+
+                final CacheImpl<K, V> cache = itr.next().get();
+
+                if (cache == null) {
+
+                    // weak reference was cleared.
+                    continue;
+
+                }
+
+                cache.clear();
+
+            }
+
+            assert size == 0;
+
+            sketch.clear();
+
+            counters.clear();
+
+        } finally {
+
+            lock.unlock();
+
+        }
+
+    }
+
+    public CounterSet getCounterSet() {
+
+        final CounterSet root = counters.getCounterSet();
+
+        final Iterator<WeakReference<CacheImpl<K, V>>> itr = cacheSet
+                .iterator();
+
+        while (itr.hasNext()) {
+
+            final CacheImpl<K, V> cache = itr.next().get();
+
+            if (cache == null) {
+
+                // weak reference was cleared.
+                continue;
+
+            }
+
+            // add the per-cache counters.
+            root.makePath(cache.storeUUID.toString()).attach(
+                    cache.counters.getCounters());
+
+        }
+
+        return root;
+
+    }
+
+    public String toString() {
+
+        return getCounterSet().toString();
+
+    }
+
+    /*
+     * Replacement policy. All methods MUST be invoked while holding the lock.
+     */
+
+    /**
+     * Record a hit on an entry, updating its position in the policy.
+     */
+    private void onHit(final Entry<K, V> e) {
+
+        assert lock.isHeldByCurrentThread();
+
+        sketch.increment(e.hash);
+
+        switch (e.segment) {
+        case WINDOW:
+            window.moveToTail(e);
+            break;
+        case PROBATION:
+            // promote to the protected segment.
+            probation.remove(e);
+            protect.addTail(e);
+            e.segment = PROTECTED;
+            // demote the LRU protected entries if over capacity.
+            while (protect.bytes > maximumProtectedBytes
+                    && protect.head != e) {
+                final Entry<K, V> t = protect.head;
+                protect.remove(t);
+                probation.addTail(t);
+                t.segment = PROBATION;
+            }
+            break;
+        case PROTECTED:
+            protect.moveToTail(e);
+            break;
+        default:
+            throw new AssertionError();
+        }
+
+    }
+
+    /**
+     * Insert a new entry into the admission window and then restore the
+     * capacity constraints.
+     */
+    private void insert(final Entry<K, V> e) {
+
+        assert lock.isHeldByCurrentThread();
+
+        window.addTail(e);
+        e.segment = WINDOW;
+
+        size++;
+        counters.bytesInMemory.addAndGet(e.bytesInMemory);
+        counters.bytesOnDisk.addAndGet(e.bytesOnDisk);
+
+        evict();
+
+    }
+
+    /**
+     * Move the entries which overflow the admission window into the probation
+     * segment as candidates and then evict either the candidate or the victim
+     * (the LRU probation entry) until the cache is within its capacity.
+     */
+    private void evict() {
+
+        while (window.bytes > maximumWindowBytes && window.head != null) {
+
+            final Entry<K, V> t = window.head;
+            window.remove(t);
+            probation.addTail(t);
+            t.segment = PROBATION;
+
+        }
+
+        while (counters.bytesInMemory.get() > maximumBytesInMemory) {
+
+            // The LRU entry of the main region.
+            Entry<K, V> victim = probation.head;
+
+            if (victim == null)
+                victim = protect.head;
+
+            if (victim == null)
+                victim = window.head;
+
+            // The most recently admitted candidate.
+            final Entry<K, V> candidate = probation.tail;
+
+            if (candidate == null || candidate == victim) {
+
+                evictEntry(victim);
+
+                continue;
+
+            }
+
+            if (sketch.frequency(candidate.hash) > sketch
+                    .frequency(victim.hash)) {
+
+                evictEntry(victim);
+
+            } else {
+
+                evictEntry(candidate);
+
+                counters.rejectionCount.incrementAndGet();
+
+            }
+
+        }
+
+    }
+
+    /**
+     * Evict an entry from the policy and from its owning cache.
+     */
+    private void evictEntry(final Entry<K, V> e) {
+
+        final int bytesOnDisk = e.bytesOnDisk;
+
+        final int bytesInMemory = e.bytesInMemory;
+
+        e.cache.map.remove(e.k);
+
+        removeEntry(e);
+
+        counters.evictionCount.incrementAndGet();
+
+        counters.evictionByteCount.addAndGet(bytesOnDisk == 0 ? bytesInMemory
+                : bytesOnDisk);
+
+    }
+
+    /**
+     * Unlink an entry from its segment.
+     * 
+     * @return The value associated with the entry.
+     */
+    private V removeEntry(final Entry<K, V> e) {
+
+        assert lock.isHeldByCurrentThread();
+
+        switch (e.segment) {
+        case WINDOW:
+            window.remove(e);
+            break;
+        case PROBATION:
+            probation.remove(e);
+            break;
+        case PROTECTED:
+            protect.remove(e);
+            break;
+        default:
+            throw new AssertionError();
+        }
+
+        size--;
+        counters.bytesInMemory.addAndGet(-e.bytesInMemory);
+        counters.bytesOnDisk.addAndGet(-e.bytesOnDisk);
+
+        return e.v;
+
+    }
+
+    /**
+     * A (key,value) pair with (prior,next) references used to maintain a
+     * double-linked list within one of the segments of the policy.
+     */
+    final private static class Entry<K, V> {
+
+        private Entry<K, V> prior;
+
+        private Entry<K, V> next;
+
+        private final K k;
+
+        private final V v;
+
+        /** The owning cache for this entry. */
+        private final CacheImpl<K, V> cache;
+
+        /** The hash code used for the frequency sketch. */
+        private final int hash;
+
+        /** The bytes in memory for this entry (the weight). */
+        private final int bytesInMemory;
+
+        /** The bytes on disk for this entry. */
+        private final int bytesOnDisk;
+
+        /** The segment in which the entry is linked. */
+        private byte segment;
+
+        Entry(final CacheImpl<K, V> cache, final K k, final V v, final int hash) {
+
+            this.cache = cache;
+
+            this.k = k;
+
+            this.v = v;
+
+            this.hash = hash;
+
+            if (v instanceof IDataRecordAccess) {
+
+                bytesInMemory = ((IDataRecordAccess) v).data().len();
+
+            } else {
+
+                // Can not track w/o IDataRecord.
+                bytesInMemory = 0;
+
+            }
+
+            if (cache.am != null) {
+
+                bytesOnDisk = cache.am.getByteCount((Long) k);
+
+            } else {
+
+                // Can not track w/o IAddressManager.
+                bytesOnDisk = 0;
+
+            }
+
+        }
+
+        /**
+         * Human readable representation used for debugging in test cases.
+         */
+        public String toString() {
+            return "Entry{key=" + k + ",val=" + v + ",segment=" + segment
+                    + ",bytesInMemory=" + bytesInMemory + ",bytesOnDisk="
+                    + bytesOnDisk + "}";
+        }
+
+    }
+
+    /**
+     * A double-linked list of entries in LRU order.
+     */
+    final private static class Segment<K, V> {
+
+        /** The LRU entry. */
+        private Entry<K, V> head;
+
+        /** The MRU entry. */
+        private Entry<K, V> tail;
+
+        /** The bytes in memory for the entries in this segment. */
+        private long bytes;
+
+        void addTail(final Entry<K, V> e) {
+            if (tail == null) {
+                head = tail = e;
+            } else {
+                tail.next = e;
+                e.prior = tail;
+                tail = e;
+            }
+            bytes += e.bytesInMemory;
+        }
+
+        void remove(final Entry<K, V> e) {
+            final Entry<K, V> prior = e.prior;
+            final Entry<K, V> next = e.next;
+            if (head == e) {
+                head = next;
+            }
+            if (tail == e) {
+                tail = prior;
+            }
+            if (prior != null) {
+                prior.next = next;
+            }
+            if (next != null) {
+                next.prior = prior;
+            }
+            e.prior = e.next = null;
+            bytes -= e.bytesInMemory;
+        }
+
+        void moveToTail(final Entry<K, V> e) {
+            if (tail == e)
+                return;
+            remove(e);
+            addTail(e);
+        }
+
+    }
+
+    /**
+     * A count-min sketch of 4-bit saturating counters used to estimate the
+     * access frequency of keys. When the #of increments reaches the sample
+     * size, all counters are halved so the estimates favor recent history.
+     */
+    static class FrequencySketch {
+
+        private static final int DEPTH = 4;
+
+        private static final int MAX_COUNT = 15;
+
+        private static final long[] SEED = new long[] { 0xc3a5c85c97cb3127L,
+                0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L };
+
+        /** The counters for each row, laid out row by row. */
+        private final byte[] table;
+
+        /** The width of each row (a power of two). */
+        private final int width;
+
+        /** The #of increments before the counters are aged. */
+        private final int sampleSize;
+
+        /** The #of increments since the counters were last aged. */
+        private int additions;
+
+        /**
+         * @param expectedEntries
+         *            The expected #of entries in the cache.
+         */
+        FrequencySketch(final long expectedEntries) {
+
+            final int n = (int) Math.max(1 << 10,
+                    Math.min(1 << 22, expectedEntries));
+
+            width = Integer.highestOneBit(n - 1) << 1;
+
+            table = new byte[DEPTH * width];
+
+            sampleSize = 10 * width;
+
+        }
+
+        private int indexOf(final int hash, final int row) {
+
+            long h = (hash + SEED[row]) * SEED[row];
+
+            h += h >>> 32;
+
+            return row * width + ((int) h & (width - 1));
+
+        }
+
+        private static int spread(int h) {
+
+            h = ((h >>> 16) ^ h) * 0x45d9f3b;
+            h = ((h >>> 16) ^ h) * 0x45d9f3b;
+            return (h >>> 16) ^ h;
+
+        }
+
+        /**
+         * Return the estimated #of recent accesses for the hash code.
+         */
+        int frequency(final int hashCode) {
+
+            final int hash = spread(hashCode);
+
+            int min = MAX_COUNT;
+
+            for (int i = 0; i < DEPTH; i++) {
+
+                min = Math.min(min, table[indexOf(hash, i)]);
+
+            }
+
+            return min;
+
+        }
+
+        /**
+         * Increment the estimated access frequency for the hash code.
+         */
+        void increment(final int hashCode) {
+
+            final int hash = spread(hashCode);
+
+            for (int i = 0; i < DEPTH; i++) {
+
+                final int index = indexOf(hash, i);
+
+                if (table[index] < MAX_COUNT) {
+
+                    table[index]++;
+
+                }
+
+            }
+
+            if (++additions >= sampleSize) {
+
+                reset();
+
+            }
+
+        }
+
+        /**
+         * Age the counters by halving them.
+         */
+        private void reset() {
+
+            for (int i = 0; i < table.length; i++) {
+
+                table[i] = (byte) (table[i] >>> 1);
+
+            }
+
+            additions /= 2;
+
+        }
+
+        void clear() {
+
+            Arrays.fill(table, (byte) 0);
+
+            additions = 0;
+
+        }
+
+    }
+
+    /**
+     * Counters for the {@link WTinyLFUGlobalLRU}.
+     */
+    private class Counters {
+
+        /**
+         * The sum of the compressed storage on the disk for the buffered data
+         * records.
+         */
+        private final AtomicLong bytesOnDisk = new AtomicLong();
+
+        /**
+         * The sum of the decompressed byte[] lengths (the weights).
+         */
+        private final AtomicLong bytesInMemory = new AtomicLong();
+
+        /**
+         * The #of cache entries that have been evicted.
+         */
+        private final AtomicLong evictionCount = new AtomicLong();
+
+        /**
+         * The #of bytes for cache entries that have been evicted.
+         */
+        private final AtomicLong evictionByteCount = new AtomicLong();
+
+        /**
+         * The #of candidates which lost to the victim.
+         */
+        private final AtomicLong rejectionCount = new AtomicLong();
+
+        public void clear() {
+
+            bytesOnDisk.set(0L);
+
+            bytesInMemory.set(0L);
+
+            evictionCount.set(0L);
+
+            evictionByteCount.set(0L);
+
+            rejectionCount.set(0L);
+
+        }
+
+        public CounterSet getCounterSet() {
+
+            final CounterSet counters = new CounterSet();
+
+            counters.addCounter(IGlobalLRU.IGlobalLRUCounters.BYTES_ON_DISK,
+                    new Instrument<Long>() {
+                        @Override
+                        protected void sample() {
+                            setValue(bytesOnDisk.get());
+                        }
+                    });
+
+            counters.addCounter(IGlobalLRU.IGlobalLRUCounters.BYTES_IN_MEMORY,
+                    new Instrument<Long>() {
+                        @Override
+                        protected void sample() {
+                            setValue(bytesInMemory.get());
+                        }
+                    });
+
+            counters.addCounter(
+                    IGlobalLRU.IGlobalLRUCounters.PERCENT_BYTES_IN_MEMORY,
+                    new Instrument<Double>() {
+                        @Override
+                        protected void sample() {
+                            setValue(((int) (10000 * bytesInMemory.get() / (double) maximumBytesInMemory)) / 10000d);
+                        }
+                    });
+
+            counters.addCounter(
+                    IGlobalLRU.IGlobalLRUCounters.MAXIMUM_ALLOWED_BYTES_IN_MEMORY,
+                    new OneShotInstrument<Long>(maximumBytesInMemory));
+
+            counters.addCounter(
+                    IGlobalLRU.IGlobalLRUCounters.BUFFERED_RECORD_COUNT,
+                    new Instrument<Integer>() {
+                        @Override
+                        protected void sample() {
+                            setValue(size);
+                        }
+                    });
+
+            counters.addCounter(
+                    IGlobalLRU.IGlobalLRUCounters.BUFFERED_RECORD_EVICTION_COUNT,
+                    new Instrument<Long>() {
+                        @Override
+                        protected void sample() {
+                            setValue(evictionCount.get());
+                        }
+                    });
+
+            counters.addCounter(
+                    IGlobalLRU.IGlobalLRUCounters.BUFFERED_RECORD_EVICTION_BYTE_COUNT,
+                    new Instrument<Long>() {
+                        @Override
+                        protected void sample() {
+                            setValue(evictionByteCount.get());
+                        }
+                    });
+
+            // The #of candidates which were not admitted to the main region.
+            counters.addCounter("Admission Rejected Count",
+                    new Instrument<Long>() {
+                        @Override
+                        protected void sample() {
+                            setValue(rejectionCount.get());
+                        }
+                    });
+
+            // The bytes in memory for the protected segment.
+            counters.addCounter("Protected Bytes In Memory",
+                    new Instrument<Long>() {
+                        @Override
+                        protected void sample() {
+                            setValue(protect.bytes);
+                        }
+                    });
+
+            counters.addCounter(IGlobalLRU.IGlobalLRUCounters.CACHE_COUNT,
+                    new Instrument<Integer>() {
+                        @Override
+                        protected void sample() {
+                            setValue(cacheSet.size());
+                        }
+                    });
+
+            return counters;
+
+        }
+
+        public String toString() {
+
+            return getCounterSet().toString();
+
+        }
+
+    }
+
+    /**
+     * A hard reference hash map for the records of one {@link IRawStore}
+     * backed by the shared W-TinyLFU policy.
+     * <p>
+     * Note: Thread-safety is enforced using {@link WTinyLFUGlobalLRU#lock}.
+     * Nested locking, such as using <code>synchronized</code> on the instances
+     * of this class can cause deadlocks because evictions may be made from any
+     * {@link CacheImpl}.
+     */
+    private static class CacheImpl<K, V> implements ILRUCache<K, V> {
+
+        /**
+         * Counters for a {@link CacheImpl} instance (protected by the lock).
+         */
+        private class CacheCounters {
+
+            /** The #of inserts into the cache. */
+            private long ninserts = 0;
+
+            /** The #of cache tests (get())). */
+            private long ntests = 0;
+
+            /**
+             * The #of cache hits (get() returns non-<code>null</code>).
+             */
+            private long nsuccess = 0;
+
+            public void clear() {
+
+                ninserts = ntests = nsuccess = 0;
+
+            }
+
+            public CounterSet getCounters() {
+
+                final CounterSet c = new CounterSet();
+
+                // The size of this per-store cache.
+                c.addCounter("size", new Instrument<Integer>() {
+                    @Override
+                    protected void sample() {
+                        setValue(size());
+                    }
+                });
+
+                // The #of inserts into the cache (does not count touches).
+                c.addCounter("ninserts", new Instrument<Long>() {
+                    @Override
+                    protected void sample() {
+                        setValue(ninserts);
+                    }
+                });
+
+                // The #of cache tests (get()).
+                c.addCounter("ntests", new Instrument<Long>() {
+                    @Override
+                    protected void sample() {
+                        setValue(ntests);
+                    }
+                });
+
+                // The #of successful cache tests.
+                c.addCounter("nsuccess", new Instrument<Long>() {
+                    @Override
+                    protected void sample() {
+                        setValue(nsuccess);
+                    }
+                });
+
+                // The percentage of lookups which are satisfied by the cache.
+                c.addCounter("hitRatio", new Instrument<Double>() {
+                    @Override
+                    protected void sample() {
+                        final long tmp = ntests;
+                        setValue(tmp == 0 ? 0 : (double) nsuccess / tmp);
+                    }
+                });
+
+                return c;
+
+            }
+
+            public String toString() {
+
+                return getCounters().toString();
+
+            }
+
+        }
+
+        private final CacheCounters counters = new CacheCounters();
+
+        /**
+         * The {@link UUID} of the associated {@link IRawStore}.
+         */
+        private final UUID storeUUID;
+
+        /**
+         * Mixed into the hash code of each key for the frequency sketch.
+         */
+        private final int storeHash;
+
+        /**
+         * An {@link IAddressManager} that can decode the record byte count from
+         * the record address without causing the {@link IRawStore} reference to
+         * be retained.
+         */
+        private final IAddressManager am;
+
+        /**
+         * The shared policy.
+         */
+        private final WTinyLFUGlobalLRU<K, V> globalLRU;
+
+        /**
+         * The hash map from keys to entries (protected by the lock).
+         */
+        private final HashMap<K, Entry<K, V>> map;
+
+        public CacheImpl(final UUID storeUUID, final IAddressManager am,
+                final WTinyLFUGlobalLRU<K, V> lru, final int initialCapacity,
+                final float loadFactor) {
+
+            if (storeUUID == null)
+                throw new IllegalArgumentException();
+
+            // [am] MAY be null.
+
+            /*
+             * This would cause the IRawStore to be retained by a hard
+             * reference!
+             */
+            assert !(am instanceof IRawStore) : am.getClass().getName()
+                    + " implements " + IRawStore.class.getName();
+
+            if (lru == null)
+                throw new IllegalArgumentException();
+
+            this.storeUUID = storeUUID;
+
+            this.storeHash = storeUUID.hashCode() * 31;
+
+            this.am = am;
+
+            this.globalLRU = lru;
+
+            this.map = new HashMap<K, Entry<K, V>>(initialCapacity, loadFactor);
+
+        }
+
+        public IAddressManager getAddressManager() {
+
+            return am;
+
+        }
+
+        public UUID getStoreUUID() {
+
+            return storeUUID;
+
+        }
+
+        public void clear() {
+
+            globalLRU.lock.lock();
+
+            try {
+
+                final Iterator<Entry<K, V>> itr = map.values().iterator();
+
+                while (itr.hasNext()) {
+
+                    final Entry<K, V> e = itr.next();
+
+                    itr.remove();
+
+                    globalLRU.removeEntry(e);
+
+                }
+
+                counters.clear();
+
+            } finally {
+
+                globalLRU.lock.unlock();
+
+            }
+
+        }
+
+        public int size() {
+
+            globalLRU.lock.lock();
+
+            try {
+
+                return map.size();
+
+            } finally {
+
+                globalLRU.lock.unlock();
+
+            }
+
+        }
+
+        /**
+         * {@inheritDoc}
+         * <p>
+         * Note: The record is always inserted into the admission window, but
+         * it may be evicted before this method returns if it is larger than
+         * the admission window and is not admitted to the main region.
+         */
+        public V putIfAbsent(final K k, final V v) {
+
+            if (k == null)
+                throw new IllegalArgumentException();
+
+            if (v == null)
+                throw new IllegalArgumentException();
+
+            globalLRU.lock.lock();
+
+            try {
+
+                Entry<K, V> entry = map.get(k);
+
+                if (entry != null) {
+
+                    // Update entry ordering.
+                    globalLRU.onHit(entry);
+
+                    // Return the old value.
+                    return entry.v;
+
+                }
+
+                entry = new Entry<K, V>(this, k, v, storeHash + k.hashCode());
+
+                map.put(k, entry);
+
+                counters.ninserts++;
+
+                globalLRU.insert(entry);
+
+                // return [null] since there was no entry under the key.
+                return null;
+
+            } finally {
+
+                globalLRU.lock.unlock();
+
+            }
+
+        }
+
+        public V get(final K key) {
+
+            if (key == null)
+                throw new IllegalArgumentException();
+
+            globalLRU.lock.lock();
+
+            try {
+
+                final Entry<K, V> entry = map.get(key);
+
+                counters.ntests++;
+
+                if (entry == null) {
+
+                    // Note: misses are counted so re-reads are admitted.
+                    globalLRU.sketch.increment(storeHash + key.hashCode());
+
+                    return null;
+
+                }
+
+                globalLRU.onHit(entry);
+
+                counters.nsuccess++;
+
+                return entry.v;
+
+            } finally {
+
+                globalLRU.lock.unlock();
+
+            }
+
+        }
+
+        public V remove(final K key) {
+
+            if (key == null)
+                throw new IllegalArgumentException();
+
+            globalLRU.lock.lock();
+
+            try {
+
+                final Entry<K, V> entry = map.remove(key);
+
+                if (entry == null)
+                    return null;
+
+                return globalLRU.removeEntry(entry);
+
+            } finally {
+
+                globalLRU.lock.unlock();
+
+            }
+
+        }
+
+        public String toString() {
+
+            return super.toString() + "{" + counters.toString() + "}";
+
+        }
+
+    }
+
+}
@@ -51,6 +51,8 @@ import java.util.concurrent.locks.ReentrantLock;
 
 import org.apache.log4j.Logger;
 
+import com.bigdata.counters.CounterSet;
+import com.bigdata.counters.Instrument;
 import com.bigdata.ha.msg.HAMessageWrapper;
 import com.bigdata.ha.msg.HASendState;
 import com.bigdata.ha.msg.IHAMessage;
@@ -1377,6 +1379,75 @@ abstract public class QuorumPipelineImpl<S extends HAPipelineGlue> /*extends
 
     }
 
+    /**
+     * Return the {@link HASendService} which replicates data to the downstream
+     * service. This is the send service of the leader and the relay of the
+     * {@link HAReceiveService} of a follower (iff any). Returns
+     * <code>null</code> rather than waiting if the pipeline is being changed.
+     */
+    private HASendService getDownstreamSendService() {
+
+        if (!lock.tryLock())
+            return null;
+        try {
+            if (sendService != null)
+                return sendService;
+            if (receiveService != null)
+                return receiveService.getSendService();
+            return null;
+        } finally {
+            lock.unlock();
+        }
+
+    }
+
+    /**
+     * Return performance counters for the replication of data to the
+     * downstream service. The cumulative counters are reset when the write
+     * pipeline is set up again for this service.
+     */
+    public CounterSet getCounters() {
+
+        final CounterSet root = new CounterSet();
+
+        root.addCounter("sendsInFlight", new Instrument<Integer>() {
+            @Override
+            public void sample() {
+                final HASendService s = getDownstreamSendService();
+                setValue(s == null ? 0 : s.getSendsInFlight());
+            }
+        });
+
+        root.addCounter("bytesInFlight", new Instrument<Long>() {
+            @Override
+            public void sample() {
+                final HASendService s = getDownstreamSendService();
+                setValue(s == null ? 0L : s.getBytesInFlight());
+            }
+        });
+
+        root.addCounter("sendCount", new Instrument<Long>() {
+            @Override
+            public void sample() {
+                final HASendService s = getDownstreamSendService();
+                if (s != null)
+                    setValue(s.getSendCount());
+            }
+        });
+
+        root.addCounter("bytesSent", new Instrument<Long>() {
+            @Override
+            public void sample() {
+                final HASendService s = getDownstreamSendService();
+                if (s != null)
+                    setValue(s.getBytesSent());
+            }
+        });
+
+        return root;
+
+    }
+
     /*
      * This is the leader, so send() the buffer.
      */
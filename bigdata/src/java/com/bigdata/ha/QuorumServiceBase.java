@@ -37,6 +37,7 @@ import java.util.concurrent.TimeoutException;
 
 import org.apache.log4j.Logger;
 
+import com.bigdata.counters.CounterSet;
 import com.bigdata.ha.msg.IHASendState;
 import com.bigdata.ha.msg.IHASyncRequest;
 import com.bigdata.ha.msg.IHAWriteMessage;
@@ -260,6 +261,17 @@ abstract public class QuorumServiceBase<S extends HAGlue, L extends AbstractJour
 
     }
 
+    /**
+     * Return performance counters for the write replication pipeline.
+     * 
+     * @see QuorumPipelineImpl#getCounters()
+     */
+    public CounterSet getPipelineCounters() {
+
+        return pipelineImpl.getCounters();
+
+    }
+
     /**
      * Core implementation handles the message and payload when received on a
      * service.
@@ -34,7 +34,10 @@ import java.util.concurrent.CancellationException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 
 import org.apache.log4j.Logger;
@@ -103,6 +106,29 @@ public class HASendService {
      */
 	final private AtomicReference<SocketChannel> socketChannel = new AtomicReference<SocketChannel>();
 
+    /**
+     * The #of sends which have been submitted but not yet completed (the depth
+     * of the pipeline at this service).
+     */
+    private final AtomicInteger sendsInFlight = new AtomicInteger();
+
+    /**
+     * The #of payload bytes for the sends which have been submitted but not
+     * yet completed.
+     */
+    private final AtomicLong bytesInFlight = new AtomicLong();
+
+    /**
+     * The #of sends which have completed successfully.
+     */
+    private final AtomicLong sendCount = new AtomicLong();
+
+    /**
+     * The #of payload bytes sent by the sends which have completed
+     * successfully.
+     */
+    private final AtomicLong bytesSent = new AtomicLong();
+
 	/*
 	 * Note: toString() must be thread-safe.
 	 */
@@ -128,6 +154,44 @@ public class HASendService {
     }
     
     
+    /**
+     * Return the #of sends which have been submitted but not yet completed.
+     */
+    public int getSendsInFlight() {
+
+        return sendsInFlight.get();
+
+    }
+
+    /**
+     * Return the #of payload bytes for the sends which have been submitted but
+     * not yet completed.
+     */
+    public long getBytesInFlight() {
+
+        return bytesInFlight.get();
+
+    }
+
+    /**
+     * Return the #of sends which have completed successfully.
+     */
+    public long getSendCount() {
+
+        return sendCount.get();
+
+    }
+
+    /**
+     * Return the #of payload bytes sent by the sends which have completed
+     * successfully.
+     */
+    public long getBytesSent() {
+
+        return bytesSent.get();
+
+    }
+
     /**
      * Designated constructor (flyweight initialization).
      * 
@@ -350,13 +414,35 @@ public class HASendService {
 
 //        reopenChannel();
         
+        final int nbytes = buffer.remaining();
+
+        /*
+         * Note: done() is invoked exactly once, whether the task succeeds,
+         * fails, or is cancelled before it runs.
+         */
+        final FutureTask<Void> ft = new FutureTask<Void>(newIncSendTask(
+                buffer.asReadOnlyBuffer(), marker)) {
+            @Override
+            protected void done() {
+                sendsInFlight.decrementAndGet();
+                bytesInFlight.addAndGet(-nbytes);
+            }
+        };
+
+        sendsInFlight.incrementAndGet();
+        bytesInFlight.addAndGet(nbytes);
+
         try {
 
-            return tmp
-                    .submit(newIncSendTask(buffer.asReadOnlyBuffer(), marker));
+            tmp.execute(ft);
+
+            return ft;
 
         } catch (Throwable t) {
 
+            sendsInFlight.decrementAndGet();
+            bytesInFlight.addAndGet(-nbytes);
+
             launderThrowable(t);
             
             // make the compiler happy.
@@ -649,12 +735,25 @@ public class HASendService {
 
                 final ByteBuffer markerBB = marker != null ? ByteBuffer
                         .wrap(marker) : null;
+
+                /*
+                 * The marker and the payload are written using a gathering
+                 * write so the marker does not cost a separate system call
+                 * (and, for small payloads, a separate packet). The payload is
+                 * written directly from the caller's (direct) buffer.
+                 */
+                final ByteBuffer[] gather = markerBB != null ? new ByteBuffer[] {
+                        markerBB, data } : null;
                 
                 while (nwritten < remaining) {
                 	
                     if (marker != null && nmarker < marker.length) {
                     
-                        nmarker += socketChannel.write(markerBB);
+                        socketChannel.write(gather);
+
+                        nmarker = markerBB.position();
+
+                        nwritten = remaining - data.remaining();
 
                         continue;
                         
@@ -739,6 +838,10 @@ public class HASendService {
                 throw new IOException("Did not write all data: expected="
                         + remaining + ", actual=" + data.remaining());
 
+            sendCount.incrementAndGet();
+
+            bytesSent.addAndGet(remaining);
+
             return null;
 
         }
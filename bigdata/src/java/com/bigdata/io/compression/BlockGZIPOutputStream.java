@@ -0,0 +1,415 @@
+/**
+
+Copyright (C) SYSTAP, LLC 2006-2015.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@systap.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+/*
+ * Created on Oct 17, 2026
+ */
+
+package com.bigdata.io.compression;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.LinkedList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+import com.bigdata.rawstore.Bytes;
+
+/**
+ * An {@link OutputStream} which writes a GZIP file as a sequence of
+ * independently compressed members. The stream is cut into fixed size blocks
+ * and each block is compressed by a task running on an {@link Executor}, so
+ * several blocks are compressed in parallel while the members are written
+ * onto the underlying stream in order.
+ * <p>
+ * The output remains a valid GZIP file (a concatenation of GZIP members) and
+ * may be read by a {@link java.util.zip.GZIPInputStream}. In addition, the
+ * header of each member carries an extra field giving the compressed length
+ * of that member. The members may therefore be located without decompressing
+ * the file, which allows the {@link BlockGZIPReader} to decompress or verify
+ * the file in parallel.
+ */
+public class BlockGZIPOutputStream extends OutputStream {
+
+    /**
+     * The default size of an uncompressed block.
+     */
+    public static final int DEFAULT_BLOCK_SIZE = Bytes.megabyte32;
+
+    /**
+     * The length of the member header, including the extra field.
+     */
+    static final int HEADER_SIZE = 20;
+
+    /**
+     * The length of the member trailer (CRC32 and ISIZE).
+     */
+    static final int TRAILER_SIZE = 8;
+
+    /**
+     * The first byte of the extra field subfield identifier.
+     */
+    static final byte SI1 = 'B';
+
+    /**
+     * The second byte of the extra field subfield identifier.
+     */
+    static final byte SI2 = 'D';
+
+    private final OutputStream out;
+
+    private final Executor executor;
+
+    private final int maxPending;
+
+    private final int level;
+
+    /**
+     * The block which is being filled.
+     */
+    private byte[] buf;
+
+    /**
+     * The #of bytes in {@link #buf}.
+     */
+    private int count = 0;
+
+    /**
+     * The compression tasks in the order in which their members must be
+     * written.
+     */
+    private final LinkedList<FutureTask<byte[]>> pending = new LinkedList<FutureTask<byte[]>>();
+
+    /**
+     * The #of members written on the underlying stream.
+     */
+    private long nmembers = 0L;
+
+    private boolean open = true;
+
+    /**
+     * @param out
+     *            The underlying stream.
+     * @param executor
+     *            The executor on which the blocks are compressed.
+     * @param nparallel
+     *            The maximum #of blocks which are compressed concurrently.
+     */
+    public BlockGZIPOutputStream(final OutputStream out,
+            final Executor executor, final int nparallel) {
+
+        this(out, executor, nparallel, DEFAULT_BLOCK_SIZE,
+                Deflater.DEFAULT_COMPRESSION);
+
+    }
+
+    /**
+     * @param out
+     *            The underlying stream.
+     * @param executor
+     *            The executor on which the blocks are compressed.
+     * @param nparallel
+     *            The maximum #of blocks which are compressed concurrently.
+     * @param blockSize
+     *            The size of an uncompressed block.
+     * @param level
+     *            The compression level.
+     * 
+     * @see Deflater
+     */
+    public BlockGZIPOutputStream(final OutputStream out,
+            final Executor executor, final int nparallel,
+            final int blockSize, final int level) {
+
+        if (out == null)
+            throw new IllegalArgumentException();
+
+        if (executor == null)
+            throw new IllegalArgumentException();
+
+        if (nparallel <= 0)
+            throw new IllegalArgumentException();
+
+        if (blockSize <= 0)
+            throw new IllegalArgumentException();
+
+        this.out = out;
+
+        this.executor = executor;
+
+        this.maxPending = nparallel;
+
+        this.level = level;
+
+        this.buf = new byte[blockSize];
+
+    }
+
+    @Override
+    public void write(final int b) throws IOException {
+
+        if (count == buf.length)
+            submit();
+
+        buf[count++] = (byte) b;
+
+    }
+
+    @Override
+    public void write(final byte[] b, int off, int len) throws IOException {
+
+        while (len > 0) {
+
+            if (count == buf.length)
+                submit();
+
+            final int n = Math.min(len, buf.length - count);
+
+            System.arraycopy(b, off, buf, count, n);
+
+            count += n;
+
+            off += n;
+
+            len -= n;
+
+        }
+
+    }
+
+    /**
+     * Compresses any buffered data as a (possibly short) member, writes all
+     * members on the underlying stream, and flushes that stream.
+     */
+    @Override
+    public void flush() throws IOException {
+
+        if (!open)
+            throw new IOException("Closed");
+
+        if (count > 0)
+            submit();
+
+        while (!pending.isEmpty())
+            writeNext();
+
+        out.flush();
+
+    }
+
+    @Override
+    public void close() throws IOException {
+
+        if (!open)
+            return;
+
+        try {
+
+            flush();
+
+            if (nmembers == 0L) {
+
+                // An empty GZIP file still has one (empty) member.
+                out.write(compress(new byte[0], 0, level));
+
+            }
+
+        } finally {
+
+            open = false;
+
+            out.close();
+
+        }
+
+    }
+
+    /**
+     * Submit the current block for compression, first writing the oldest
+     * member if the maximum #of blocks are already in flight.
+     */
+    private void submit() throws IOException {
+
+        if (!open)
+            throw new IOException("Closed");
+
+        while (pending.size() >= maxPending)
+            writeNext();
+
+        final byte[] block = buf;
+
+        final int len = count;
+
+        final FutureTask<byte[]> ft = new FutureTask<byte[]>(
+                new Callable<byte[]>() {
+                    @Override
+                    public byte[] call() throws Exception {
+                        return compress(block, len, level);
+                    }
+                });
+
+        pending.add(ft);
+
+        executor.execute(ft);
+
+        buf = new byte[block.length];
+
+        count = 0;
+
+    }
+
+    /**
+     * Wait for the oldest compression task and write its member.
+     */
+    private void writeNext() throws IOException {
+
+        final FutureTask<byte[]> ft = pending.removeFirst();
+
+        final byte[] member;
+        try {
+            member = ft.get();
+        } catch (InterruptedException e) {
+            for (FutureTask<byte[]> f : pending)
+                f.cancel(true/* mayInterruptIfRunning */);
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            for (FutureTask<byte[]> f : pending)
+                f.cancel(true/* mayInterruptIfRunning */);
+            throw new IOException(e);
+        }
+
+        out.write(member);
+
+        nmembers++;
+
+    }
+
+    /**
+     * Compress a block as a single GZIP member.
+     * 
+     * @param b
+     *            The data.
+     * @param len
+     *            The #of bytes of data.
+     * @param level
+     *            The compression level.
+     * 
+     * @return The member.
+     */
+    static byte[] compress(final byte[] b, final int len, final int level) {
+
+        final Deflater deflater = new Deflater(level, true/* nowrap */);
+
+        try {
+
+            deflater.setInput(b, 0, len);
+
+            deflater.finish();
+
+            // Deflate never expands by more than a few bytes per 16k block.
+            byte[] a = new byte[HEADER_SIZE + len + (len >> 3) + 64
+                    + TRAILER_SIZE];
+
+            int pos = HEADER_SIZE;
+
+            while (!deflater.finished()) {
+
+                if (pos == a.length - TRAILER_SIZE) {
+
+                    final byte[] t = new byte[a.length * 2];
+
+                    System.arraycopy(a, 0, t, 0, pos);
+
+                    a = t;
+
+                }
+
+                pos += deflater.deflate(a, pos, a.length - TRAILER_SIZE - pos);
+
+            }
+
+            final CRC32 crc = new CRC32();
+
+            crc.update(b, 0, len);
+
+            final int size = pos + TRAILER_SIZE;
+
+            // The fixed header (ID1, ID2, CM=deflate, FLG=FEXTRA).
+            a[0] = (byte) 0x1f;
+            a[1] = (byte) 0x8b;
+            a[2] = 8;
+            a[3] = 4;
+            // MTIME, XFL
+            a[4] = a[5] = a[6] = a[7] = a[8] = 0;
+            // OS (unknown)
+            a[9] = (byte) 0xff;
+            // XLEN
+            putShortLE(a, 10, 8);
+            // The subfield giving the length of the member.
+            a[12] = SI1;
+            a[13] = SI2;
+            putShortLE(a, 14, 4);
+            putIntLE(a, 16, size);
+
+            // The trailer.
+            putIntLE(a, pos, (int) crc.getValue());
+            putIntLE(a, pos + 4, len);
+
+            if (size == a.length)
+                return a;
+
+            final byte[] t = new byte[size];
+
+            System.arraycopy(a, 0, t, 0, size);
+
+            return t;
+
+        } finally {
+
+            deflater.end();
+
+        }
+
+    }
+
+    private static void putShortLE(final byte[] a, final int off, final int v) {
+
+        a[off] = (byte) v;
+        a[off + 1] = (byte) (v >>> 8);
+
+    }
+
+    private static void putIntLE(final byte[] a, final int off, final int v) {
+
+        a[off] = (byte) v;
+        a[off + 1] = (byte) (v >>> 8);
+        a[off + 2] = (byte) (v >>> 16);
+        a[off + 3] = (byte) (v >>> 24);
+
+    }
+
+}
@@ -0,0 +1,513 @@
+/**
+
+Copyright (C) SYSTAP, LLC 2006-2015.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@systap.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+/*
+ * Created on Oct 17, 2026
+ */
+
+package com.bigdata.io.compression;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+
+import org.apache.log4j.Logger;
+
+import com.bigdata.io.FileChannelUtility;
+
+/**
+ * Parallel decompression and verification of the files written by a
+ * {@link BlockGZIPOutputStream}. The members of such a file are located from
+ * the extra field in each member header, which gives the compressed length of
+ * that member, and the uncompressed length found in each member trailer. The
+ * members are then decompressed by tasks running on an {@link Executor}.
+ * <p>
+ * Other GZIP files are processed sequentially using a {@link GZIPInputStream}.
+ */
+public class BlockGZIPReader {
+
+    private static final Logger log = Logger.getLogger(BlockGZIPReader.class);
+
+    /**
+     * A member of the GZIP file.
+     */
+    static class Member {
+
+        /** The offset of the member in the compressed file. */
+        final long offset;
+
+        /** The length of the member in the compressed file. */
+        final int size;
+
+        /** The offset of the member's data in the uncompressed file. */
+        final long dataOffset;
+
+        /** The uncompressed length of the member's data. */
+        final int dataSize;
+
+        Member(final long offset, final int size, final long dataOffset,
+                final int dataSize) {
+            this.offset = offset;
+            this.size = size;
+            this.dataOffset = dataOffset;
+            this.dataSize = dataSize;
+        }
+
+    }
+
+    private BlockGZIPReader() {
+        // Static methods only.
+    }
+
+    /**
+     * Return the members of the file.
+     * 
+     * @return The members -or- <code>null</code> if the file was not written
+     *         by a {@link BlockGZIPOutputStream}.
+     * 
+     * @throws IOException
+     *             if the file is truncated or only some of its members carry
+     *             their compressed length.
+     */
+    static List<Member> readIndex(final FileChannel ch) throws IOException {
+
+        final long fileSize = ch.size();
+
+        final List<Member> members = new ArrayList<Member>();
+
+        final ByteBuffer header = ByteBuffer
+                .allocate(BlockGZIPOutputStream.HEADER_SIZE);
+
+        header.order(ByteOrder.LITTLE_ENDIAN);
+
+        final ByteBuffer trailer = ByteBuffer
+                .allocate(BlockGZIPOutputStream.TRAILER_SIZE);
+
+        trailer.order(ByteOrder.LITTLE_ENDIAN);
+
+        long offset = 0L;
+
+        long dataOffset = 0L;
+
+        while (offset < fileSize) {
+
+            if (fileSize - offset < BlockGZIPOutputStream.HEADER_SIZE
+                    + BlockGZIPOutputStream.TRAILER_SIZE) {
+
+                if (members.isEmpty())
+                    return null;
+
+                throw new IOException("Truncated member: offset=" + offset);
+
+            }
+
+            header.clear();
+
+            FileChannelUtility.readAll(ch, header, offset);
+
+            if (header.get(0) != (byte) 0x1f || header.get(1) != (byte) 0x8b
+                    || (header.get(3) & 4/* FEXTRA */) == 0
+                    || header.getShort(10) != 8
+                    || header.get(12) != BlockGZIPOutputStream.SI1
+                    || header.get(13) != BlockGZIPOutputStream.SI2) {
+
+                if (members.isEmpty())
+                    return null;
+
+                throw new IOException("Not a block member: offset=" + offset);
+
+            }
+
+            final int size = header.getInt(16);
+
+            if (size < BlockGZIPOutputStream.HEADER_SIZE
+                    + BlockGZIPOutputStream.TRAILER_SIZE
+                    || offset + size > fileSize)
+                throw new IOException("Bad member length: offset=" + offset
+                        + ", size=" + size);
+
+            trailer.clear();
+
+            FileChannelUtility.readAll(ch, trailer, offset + size
+                    - BlockGZIPOutputStream.TRAILER_SIZE);
+
+            final int dataSize = trailer.getInt(4);
+
+            members.add(new Member(offset, size, dataOffset, dataSize));
+
+            offset += size;
+
+            dataOffset += dataSize;
+
+        }
+
+        return members.isEmpty() ? null : members;
+
+    }
+
+    /**
+     * Read and decompress a member.
+     * 
+     * @throws IOException
+     *             if the member is corrupt.
+     */
+    static byte[] readMember(final FileChannel ch, final Member m)
+            throws IOException {
+
+        final ByteBuffer b = ByteBuffer.allocate(m.size);
+
+        FileChannelUtility.readAll(ch, b, m.offset);
+
+        final byte[] a = b.array();
+
+        final byte[] data = new byte[m.dataSize];
+
+        final Inflater inflater = new Inflater(true/* nowrap */);
+
+        try {
+
+            /*
+             * Note: The trailer is included in the input since the inflater
+             * may need a byte beyond the end of the deflate stream when using
+             * [nowrap].
+             */
+            inflater.setInput(a, BlockGZIPOutputStream.HEADER_SIZE, m.size
+                    - BlockGZIPOutputStream.HEADER_SIZE);
+
+            int n = 0;
+
+            while (n < data.length) {
+
+                final int k = inflater.inflate(data, n, data.length - n);
+
+                if (k == 0) {
+                    // finished, needs input, or needs a dictionary.
+                    break;
+                }
+
+                n += k;
+
+            }
+
+            if (n != data.length)
+                throw new IOException("Bad member length: offset=" + m.offset);
+
+        } catch (DataFormatException ex) {
+
+            throw new IOException("Corrupt member: offset=" + m.offset, ex);
+
+        } finally {
+
+            inflater.end();
+
+        }
+
+        final CRC32 crc = new CRC32();
+
+        crc.update(data);
+
+        final int expected = ByteBuffer.wrap(a, m.size
+                - BlockGZIPOutputStream.TRAILER_SIZE, 4)
+                .order(ByteOrder.LITTLE_ENDIAN).getInt();
+
+        if ((int) crc.getValue() != expected)
+            throw new IOException("Bad CRC: offset=" + m.offset);
+
+        return data;
+
+    }
+
+    /**
+     * Decompress a GZIP file.
+     * 
+     * @param src
+     *            The GZIP file.
+     * @param dst
+     *            The file on which the decompressed data will be written.
+     * @param executor
+     *            The executor on which the members are decompressed.
+     * @param nparallel
+     *            The maximum #of members decompressed concurrently.
+     * 
+     * @throws IOException
+     */
+    public static void decompress(final File src, final File dst,
+            final Executor executor, final int nparallel) throws IOException {
+
+        final RandomAccessFile in = new RandomAccessFile(src, "r");
+
+        try {
+
+            final List<Member> members = readIndex(in.getChannel());
+
+            if (members == null) {
+
+                copySequential(src, dst);
+
+                return;
+
+            }
+
+            final RandomAccessFile out = new RandomAccessFile(dst, "rw");
+
+            try {
+
+                final FileChannel inch = in.getChannel();
+
+                final FileChannel outch = out.getChannel();
+
+                final LinkedList<FutureTask<byte[]>> pending = new LinkedList<FutureTask<byte[]>>();
+
+                try {
+
+                    for (final Member m : members) {
+
+                        while (pending.size() >= nparallel)
+                            get(pending.removeFirst());
+
+                        final FutureTask<byte[]> ft = new FutureTask<byte[]>(
+                                new Callable<byte[]>() {
+                                    @Override
+                                    public byte[] call() throws Exception {
+                                        final byte[] data = readMember(inch, m);
+                                        FileChannelUtility.writeAll(outch,
+                                                ByteBuffer.wrap(data),
+                                                m.dataOffset);
+                                        return null;
+                                    }
+                                });
+
+                        pending.add(ft);
+
+                        executor.execute(ft);
+
+                    }
+
+                    while (!pending.isEmpty())
+                        get(pending.removeFirst());
+
+                } finally {
+
+                    for (FutureTask<byte[]> ft : pending)
+                        ft.cancel(true/* mayInterruptIfRunning */);
+
+                }
+
+                outch.force(false/* metaData */);
+
+            } finally {
+
+                out.close();
+
+            }
+
+            if (log.isInfoEnabled())
+                log.info("src=" + src + ", dst=" + dst + ", members="
+                        + members.size());
+
+        } finally {
+
+            in.close();
+
+        }
+
+    }
+
+    /**
+     * Update the digest with the decompressed data of a GZIP file.
+     * 
+     * @param src
+     *            The GZIP file.
+     * @param digest
+     *            The digest.
+     * @param executor
+     *            The executor on which the members are decompressed.
+     * @param nparallel
+     *            The maximum #of members decompressed concurrently.
+     * 
+     * @throws IOException
+     *             if the file is corrupt.
+     */
+    public static void digest(final File src, final MessageDigest digest, final Executor executor,
+            final int nparallel) throws IOException {
+
+        final RandomAccessFile in = new RandomAccessFile(src, "r");
+
+        try {
+
+            final FileChannel inch = in.getChannel();
+
+            final List<Member> members = readIndex(inch);
+
+            if (members == null) {
+
+                digestSequential(src, digest);
+
+                return;
+
+            }
+
+            final LinkedList<FutureTask<byte[]>> pending = new LinkedList<FutureTask<byte[]>>();
+
+            try {
+
+                for (final Member m : members) {
+
+                    while (pending.size() >= nparallel)
+                        digest.update(get(pending.removeFirst()));
+
+                    final FutureTask<byte[]> ft = new FutureTask<byte[]>(
+                            new Callable<byte[]>() {
+                                @Override
+                                public byte[] call() throws Exception {
+                                    return readMember(inch, m);
+                                }
+                            });
+
+                    pending.add(ft);
+
+                    executor.execute(ft);
+
+                }
+
+                while (!pending.isEmpty())
+                    digest.update(get(pending.removeFirst()));
+
+            } finally {
+
+                for (FutureTask<byte[]> ft : pending)
+                    ft.cancel(true/* mayInterruptIfRunning */);
+
+            }
+
+        } finally {
+
+            in.close();
+
+        }
+
+    }
+
+    private static <T> T get(final FutureTask<T> ft) throws IOException {
+
+        try {
+
+            return ft.get();
+
+        } catch (InterruptedException e) {
+
+            throw new RuntimeException(e);
+
+        } catch (ExecutionException e) {
+
+            if (e.getCause() instanceof IOException)
+                throw (IOException) e.getCause();
+
+            throw new IOException(e);
+
+        }
+
+    }
+
+    private static void copySequential(final File src, final File dst)
+            throws IOException {
+
+        final InputStream is = new GZIPInputStream(new FileInputStream(src));
+
+        try {
+
+            final OutputStream os = new FileOutputStream(dst);
+
+            try {
+
+                final byte[] buf = new byte[1024 * 4];
+
+                int n;
+
+                while ((n = is.read(buf)) != -1) {
+
+                    os.write(buf, 0, n);
+
+                }
+
+                os.flush();
+
+            } finally {
+
+                os.close();
+
+            }
+
+        } finally {
+
+            is.close();
+
+        }
+
+    }
+
+    private static void digestSequential(final File src,
+            final MessageDigest digest) throws IOException {
+
+        final InputStream is = new GZIPInputStream(new FileInputStream(src));
+
+        try {
+
+            final byte[] buf = new byte[1024 * 4];
+
+            int n;
+
+            while ((n = is.read(buf)) != -1) {
+
+                digest.update(buf, 0, n);
+
+            }
+
+        } finally {
+
+            is.close();
+
+        }
+
+    }
+
+}
@@ -53,13 +53,13 @@ public class DefaultRecordCompressorFactory implements
     /**
      * Instance configured for {@link Deflater#BEST_SPEED}.
      */
-    public IRecordCompressorFactory<RecordCompressor> BEST_SPEED = new DefaultRecordCompressorFactory(
+    public static final IRecordCompressorFactory<RecordCompressor> BEST_SPEED = new DefaultRecordCompressorFactory(
             Deflater.BEST_SPEED);
 
     /**
      * Instance configured for {@link Deflater#BEST_COMPRESSION}.
      */
-    public IRecordCompressorFactory<RecordCompressor> BEST_COMPRESSION = new DefaultRecordCompressorFactory(
+    public static final IRecordCompressorFactory<RecordCompressor> BEST_COMPRESSION = new DefaultRecordCompressorFactory(
             Deflater.BEST_COMPRESSION);
 
     public String toString() {
@@ -68,6 +68,17 @@ public class DefaultRecordCompressorFactory implements
         
     }
 
+    /**
+     * De-serialization constructor. This is also used when the factory is
+     * specified by its class name, in which case it is configured for
+     * {@link Deflater#BEST_SPEED}.
+     */
+    public DefaultRecordCompressorFactory() {
+
+        this(Deflater.BEST_SPEED);
+
+    }
+
     private DefaultRecordCompressorFactory(final int level) {
 
         this.level = level;
@@ -1640,9 +1640,9 @@ abstract public class WriteCache implements IWriteCache {
         final ByteBuffer b = peek().duplicate();
         b.flip();
 
-        final ByteBuffer send;
+        ByteBuffer send;
 
-        final String compressorKey  = getCompressorKey();
+        String compressorKey  = getCompressorKey();
         
         final IRecordCompressor compressor = CompressorRegistry.getInstance()
                 .get(compressorKey);
@@ -1650,7 +1650,22 @@ abstract public class WriteCache implements IWriteCache {
         if (compressor != null) {
         
             // Compress current buffer
-            send = compressor.compress(b);
+            send = compressor.compress(b.duplicate());
+
+            if (send.limit() >= b.limit()) {
+
+                /*
+                 * The block did not compress (for example, because the
+                 * records were already compressed). Send it as is. This
+                 * avoids the expansion on the followers and keeps the HALog
+                 * no larger than the raw block.
+                 */
+
+                send = b;
+
+                compressorKey = null;
+
+            }
 
         } else {
             
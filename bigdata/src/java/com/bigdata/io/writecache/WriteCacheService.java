@@ -3204,6 +3204,22 @@ abstract public class WriteCacheService implements IWriteCache {
 
     }
 
+    /**
+     * Non-blocking query of the write cache and read cache buffers which does
+     * NOT read through to the backing store on a cache miss. This is used when
+     * the caller has a cheaper path to the backing store, e.g., a memory
+     * mapped region, and does not want the record installed into the read
+     * cache.
+     * 
+     * @return The record -or- <code>null</code> on a cache miss.
+     */
+    public ByteBuffer readCached(final long offset, final int nbytes)
+            throws InterruptedException, ChecksumError {
+
+        return _readFromCache(offset, nbytes);
+
+    }
+
     /**
      * Attempt to read record from cache (either write cache or read cache
      * depending on the service map state).
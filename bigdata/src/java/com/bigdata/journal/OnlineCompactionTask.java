@@ -0,0 +1,196 @@
+/**
+
+Copyright (C) SYSTAP, LLC 2006-2015.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@systap.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+/*
+ * Created on Oct 17, 2026
+ */
+
+package com.bigdata.journal;
+
+import com.bigdata.btree.BTree;
+import com.bigdata.btree.ILocalBTreeView;
+import com.bigdata.rwstore.IRWStrategy;
+import com.bigdata.rwstore.RWStore;
+
+/**
+ * Online, incremental compaction of a {@link Journal} backed by the
+ * {@link RWStore} (unisolated write operation). The task marks the sparse
+ * allocators of the {@link RWStore} as compaction targets, relocates the
+ * nodes and leaves of the named indices which lie on those allocators using
+ * copy-on-write, and checkpoints the indices while the targets are in effect
+ * so the rewritten records land on denser allocators. The old records are
+ * released by the commit through the normal deferred free protocol and the
+ * writes are replicated like any other commit when the journal is highly
+ * available.
+ * <p>
+ * The amount of work done by each execution is bounded, so the task may be
+ * submitted repeatedly during quiet periods until it no longer relocates any
+ * records. Unlike the {@link CompactJournalUtility}, the journal remains
+ * available while the task runs, but the task holds an exclusive lock on each
+ * named index until it completes.
+ * <p>
+ * Note: The file is not truncated. The index of an allocator is encoded in
+ * the addresses of the records on that allocator, so a drained allocator
+ * remains in place and its storage is reused by later allocations rather
+ * than released back to the file system.
+ * 
+ * @see CompactJournalUtility
+ * @see RWStore#selectCompactionTargets(float)
+ * @see BTree#relocate(IRWStrategy, int)
+ */
+public class OnlineCompactionTask extends AbstractTask<Integer> {
+
+    /**
+     * The default maximum fill of a target allocator.
+     */
+    public static final float DEFAULT_MAX_FILL = .25f;
+
+    /**
+     * The default maximum #of nodes and leaves relocated by a single run.
+     */
+    public static final int DEFAULT_LIMIT = 10000;
+
+    private final float maxFill;
+
+    private final int limit;
+
+    /**
+     * @param concurrencyManager
+     * @param names
+     *            The names of the indices to be compacted.
+     */
+    public OnlineCompactionTask(final IConcurrencyManager concurrencyManager,
+            final String[] names) {
+
+        this(concurrencyManager, names, DEFAULT_MAX_FILL, DEFAULT_LIMIT);
+
+    }
+
+    /**
+     * @param concurrencyManager
+     * @param names
+     *            The names of the indices to be compacted.
+     * @param maxFill
+     *            The maximum fill, in <code>(0:1)</code>, of an allocator
+     *            whose records will be relocated.
+     * @param limit
+     *            The maximum #of nodes and leaves to relocate.
+     */
+    public OnlineCompactionTask(final IConcurrencyManager concurrencyManager,
+            final String[] names, final float maxFill, final int limit) {
+
+        super(concurrencyManager, ITx.UNISOLATED, names);
+
+        if (maxFill <= 0f || maxFill >= 1f)
+            throw new IllegalArgumentException();
+
+        if (limit <= 0)
+            throw new IllegalArgumentException();
+
+        this.maxFill = maxFill;
+
+        this.limit = limit;
+
+    }
+
+    /**
+     * Relocate the records of the named indices which lie on sparse
+     * allocators.
+     * 
+     * @return The #of nodes and leaves which were relocated. This is ZERO (0)
+     *         if the journal is not backed by the {@link RWStore}.
+     */
+    @Override
+    protected Integer doTask() throws Exception {
+
+        final IBufferStrategy bufferStrategy = resourceManager
+                .getLiveJournal().getBufferStrategy();
+
+        if (!(bufferStrategy instanceof RWStrategy)) {
+
+            // Only the RWStore is compacted.
+            return 0;
+
+        }
+
+        final RWStrategy strategy = (RWStrategy) bufferStrategy;
+
+        final RWStore store = strategy.getStore();
+
+        if (store.selectCompactionTargets(maxFill) == 0) {
+
+            // Nothing to do.
+            return 0;
+
+        }
+
+        int n = 0;
+
+        try {
+
+            for (String name : getResource()) {
+
+                if (n >= limit)
+                    break;
+
+                final ILocalBTreeView ndx = getIndex(name);
+
+                if (!(ndx instanceof BTree)) {
+
+                    continue;
+
+                }
+
+                final BTree btree = (BTree) ndx;
+
+                final int m = btree.relocate(strategy, limit - n);
+
+                if (m > 0) {
+
+                    /*
+                     * Write the relocated records while the targets are still
+                     * in effect. The checkpoint made when the task completes
+                     * will find the index clean.
+                     */
+                    btree.writeCheckpoint();
+
+                    n += m;
+
+                }
+
+            }
+
+        } finally {
+
+            store.clearCompactionTargets();
+
+        }
+
+        if (log.isInfoEnabled())
+            log.info("relocated=" + n);
+
+        return n;
+
+    }
+
+}
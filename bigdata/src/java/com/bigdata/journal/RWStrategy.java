@@ -800,6 +800,21 @@ public class RWStrategy extends AbstractRawStore implements IBufferStrategy,
 	    
 	}
 
+    /**
+     * Return <code>true</code> iff the address lies on an allocator which is
+     * the target of an online compaction.
+     * 
+     * @param addr
+     *            The address.
+     * 
+     * @see RWStore#selectCompactionTargets(float)
+     */
+    public boolean isCompactionTarget(final long addr) {
+
+        return m_store.isCompactionTarget(decodeAddr(addr));
+
+    }
+
     /**
      * Return <code>true</code> iff the address was in the write cache as of the
      * moment the write cache was inspected.
@@ -33,6 +33,17 @@ public interface IRWStrategy extends IBufferStrategy, IAllocationManager,
      */
     public boolean isCommitted(long addr);
 
+    /**
+     * Return <code>true</code> iff the allocation having that address lies on
+     * an allocator which is the target of an online compaction. A record at
+     * such an address should be rewritten so it is relocated onto another
+     * allocator.
+     * 
+     * @param addr
+     *            The address.
+     */
+    public boolean isCompactionTarget(long addr);
+
     /**
      * Optionally return a {@link Lock} that must be used (when non-
      * <code>null</code>) to make the {@link IBufferStrategy#commit()} /
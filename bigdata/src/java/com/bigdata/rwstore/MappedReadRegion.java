@@ -0,0 +1,252 @@
+/**
+
+Copyright (C) SYSTAP, LLC 2006-2015.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@systap.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+/*
+ * Created on Oct 17, 2026
+ */
+
+package com.bigdata.rwstore;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.log4j.Logger;
+
+import com.bigdata.io.IReopenChannel;
+
+/**
+ * A read-only memory mapping of the committed region of the backing file of
+ * an {@link RWStore}. The file is mapped in fixed size segments which are
+ * mapped lazily and remapped when the committed region grows beyond the
+ * mapped extent of a segment (e.g., after the file has been extended and a
+ * commit has laid down records in the new extent). Reads against the mapped
+ * region avoid a read system call and let the OS page cache stand in for a
+ * second copy of the record in the JVM heap.
+ * <p>
+ * Records which are not fully contained within the committed region or which
+ * straddle a segment boundary are not served and the caller must read through
+ * to the file.
+ * <p>
+ * Note: Java does not provide for a synchronous unmap. Mapped segments are
+ * released when they are finalized after {@link #close()} clears the
+ * references. See {@link com.bigdata.journal.MappedBufferStrategy}.
+ */
+class MappedReadRegion {
+
+    private static final Logger log = Logger.getLogger(MappedReadRegion.class);
+
+    /**
+     * The default segment size (256M).
+     */
+    static final int DEFAULT_SEGMENT_SIZE = 1 << 28;
+
+    private final IReopenChannel<FileChannel> opener;
+
+    /**
+     * The size of each segment in bytes.
+     */
+    private final int segmentSize;
+
+    /**
+     * The mapped segments. The array is grown as the committed region grows.
+     * An entry is <code>null</code> until the segment is first read. The
+     * {@link ByteBuffer#capacity()} of a mapped segment is its mapped extent.
+     */
+    private volatile MappedByteBuffer[] segments = new MappedByteBuffer[0];
+
+    private volatile boolean open = true;
+
+    /**
+     * The #of reads served from the mapped region.
+     */
+    final AtomicLong nreads = new AtomicLong();
+
+    /**
+     * The #of times a segment was mapped (including remaps).
+     */
+    final AtomicLong nmaps = new AtomicLong();
+
+    /**
+     * @param opener
+     *            Used to (re-)open the backing file channel.
+     * @param segmentSize
+     *            The size of each mapped segment in bytes.
+     */
+    MappedReadRegion(final IReopenChannel<FileChannel> opener,
+            final int segmentSize) {
+
+        if (opener == null)
+            throw new IllegalArgumentException();
+
+        if (segmentSize <= 0)
+            throw new IllegalArgumentException();
+
+        this.opener = opener;
+
+        this.segmentSize = segmentSize;
+
+    }
+
+    /**
+     * Return a read-only view of the record.
+     * 
+     * @param offset
+     *            The byte offset of the record in the file.
+     * @param nbytes
+     *            The #of bytes in the record.
+     * @param limit
+     *            The byte offset of the end of the committed region. This must
+     *            not be greater than the length of the file.
+     * 
+     * @return A read-only view of the record having position zero and limit
+     *         <i>nbytes</i> -or- <code>null</code> if the record can not be
+     *         served from the mapped region.
+     */
+    ByteBuffer read(final long offset, final int nbytes, final long limit) {
+
+        if (!open || offset < 0 || nbytes <= 0 || offset + nbytes > limit)
+            return null;
+
+        final int index = (int) (offset / segmentSize);
+
+        final int off = (int) (offset % segmentSize);
+
+        if (off + nbytes > segmentSize) {
+
+            // The record straddles a segment boundary.
+            return null;
+
+        }
+
+        final MappedByteBuffer seg = getSegment(index, off + nbytes, limit);
+
+        if (seg == null)
+            return null;
+
+        // Note: duplicate() since the position and limit are not thread-safe.
+        final ByteBuffer b = seg.duplicate();
+
+        b.limit(off + nbytes);
+
+        b.position(off);
+
+        nreads.incrementAndGet();
+
+        return b.slice();
+
+    }
+
+    /**
+     * Return the segment, (re-)mapping it if its mapped extent does not cover
+     * <i>minExtent</i> bytes.
+     */
+    private MappedByteBuffer getSegment(final int index, final int minExtent,
+            final long limit) {
+
+        MappedByteBuffer[] a = segments;
+
+        MappedByteBuffer seg = index < a.length ? a[index] : null;
+
+        if (seg != null && seg.capacity() >= minExtent)
+            return seg;
+
+        synchronized (this) {
+
+            if (!open)
+                return null;
+
+            a = segments;
+
+            seg = index < a.length ? a[index] : null;
+
+            if (seg != null && seg.capacity() >= minExtent)
+                return seg;
+
+            final long pos = (long) index * segmentSize;
+
+            final int extent = (int) Math.min(segmentSize, limit - pos);
+
+            try {
+
+                seg = opener.reopenChannel().map(MapMode.READ_ONLY, pos,
+                        extent);
+
+            } catch (IOException ex) {
+
+                /*
+                 * Note: The caller will read through to the file.
+                 */
+                log.warn("Could not map segment: index=" + index + ", extent="
+                        + extent + " : " + ex);
+
+                return null;
+
+            }
+
+            if (index >= a.length) {
+
+                final MappedByteBuffer[] b = new MappedByteBuffer[index + 1];
+
+                System.arraycopy(a, 0, b, 0, a.length);
+
+                a = b;
+
+            } else {
+
+                a = a.clone();
+
+            }
+
+            a[index] = seg;
+
+            segments = a;
+
+            nmaps.incrementAndGet();
+
+            if (log.isInfoEnabled())
+                log.info("Mapped segment: index=" + index + ", extent="
+                        + extent);
+
+            return seg;
+
+        }
+
+    }
+
+    /**
+     * Clear the references to the mapped segments. No further reads will be
+     * served.
+     */
+    synchronized void close() {
+
+        open = false;
+
+        segments = new MappedByteBuffer[0];
+
+    }
+
+}
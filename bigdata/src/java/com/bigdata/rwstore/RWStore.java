@@ -41,6 +41,7 @@ import java.security.MessageDigest;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.Map;
@@ -384,6 +385,23 @@ public class RWStore implements IStore, IBufferedWriter, IBackingReader {
         String DOUBLE_BUFFER_WRITES = RWStore.class.getName() + ".doubleBuffer";
         
         String DEFAULT_DOUBLE_BUFFER_WRITES = "true";
+
+        /**
+         * When <code>true</code>, the committed region of the backing file is
+         * memory mapped (read-only) and records which miss the
+         * {@link WriteCacheService} are read from the mapped region rather
+         * than by a read on the file channel (default
+         * {@value #DEFAULT_MEMORY_MAPPED_READS}). The mapping is extended as
+         * the committed region grows. Records read from the mapped region are
+         * not installed into the read cache since the OS page cache already
+         * holds them. This is intended for read-mostly deployments, such as
+         * query replicas, where a large share of the CPU is otherwise spent in
+         * read system calls and buffer copies.
+         */
+        String MEMORY_MAPPED_READS = RWStore.class.getName()
+                + ".memoryMappedReads";
+
+        String DEFAULT_MEMORY_MAPPED_READS = "false";
         
 //        /**
 //         * When <code>true</code> fills recycled storage with a recognizable
@@ -488,6 +506,16 @@ public class RWStore implements IStore, IBufferedWriter, IBackingReader {
      * configured threshold.
      */
     private ArrayList<FixedAllocator> m_freeFixed[];
+
+    /**
+     * The {@link FixedAllocator}s whose live records are being relocated by an
+     * online compaction. New records are not allocated from these allocators
+     * until the targets are cleared.
+     * 
+     * @see #selectCompactionTargets(float)
+     * @see #clearCompactionTargets()
+     */
+    private final Set<FixedAllocator> m_compactionTargets = new HashSet<FixedAllocator>();
     
 //  /** lists of free blob allocators. */
     // private final ArrayList<BlobAllocator> m_freeBlobs;
@@ -686,6 +714,12 @@ public class RWStore implements IStore, IBufferedWriter, IBackingReader {
      */
     private final ReopenFileChannel m_reopener;
 
+    /**
+     * The read-only mapping of the committed region of the backing file
+     * -or- <code>null</code> unless {@link Options#MEMORY_MAPPED_READS}.
+     */
+    private final MappedReadRegion m_mappedReads;
+
     private volatile BufferedWrite m_bufferedWrite;
     
     /**
@@ -875,6 +909,15 @@ public class RWStore implements IStore, IBufferedWriter, IBackingReader {
             throw new RuntimeException(e1);
         }
 
+        if (Boolean.valueOf(fileMetadata.getProperty(
+                Options.MEMORY_MAPPED_READS,
+                Options.DEFAULT_MEMORY_MAPPED_READS))) {
+            m_mappedReads = new MappedReadRegion(m_reopener,
+                    MappedReadRegion.DEFAULT_SEGMENT_SIZE);
+        } else {
+            m_mappedReads = null;
+        }
+
         if (Boolean.valueOf(fileMetadata.getProperty(
                 Options.DOUBLE_BUFFER_WRITES,
                 Options.DEFAULT_DOUBLE_BUFFER_WRITES))) {
@@ -1234,6 +1277,9 @@ public class RWStore implements IStore, IBufferedWriter, IBackingReader {
                 m_bufferedWrite = null;
             }
             m_writeCacheService.close();
+            if (m_mappedReads != null) {
+                m_mappedReads.close();
+            }
             m_reopener.raf.close();
         } catch (Throwable t) {
             throw new RuntimeException(t);
@@ -1819,7 +1865,7 @@ public class RWStore implements IStore, IBufferedWriter, IBackingReader {
         final ArrayList<FixedAllocator> list = m_freeFixed[block];
         for (int i = 0; i < list.size(); i++) {
             FixedAllocator f = list.get(i);
-            if (!m_commitList.contains(f)) {
+            if (!m_commitList.contains(f) && !m_compactionTargets.contains(f)) {
                 list.remove(i);
                 return f;
             }
@@ -1954,6 +2000,21 @@ public class RWStore implements IStore, IBufferedWriter, IBackingReader {
                 
                 assert paddr > 0;
                 try {
+                    if (m_mappedReads != null) {
+                        /*
+                         * Records which are dirty in the write cache (or
+                         * already in the read cache) are returned from the
+                         * cache. Otherwise read from the mapped region without
+                         * installing the record into the read cache.
+                         */
+                        final ByteBuffer tmp = m_writeCacheService
+                                .readCached(paddr, sze + 4);
+                        if (tmp != null)
+                            return tmp;
+                        final ByteBuffer mapped = readMapped(paddr, sze + 4);
+                        if (mapped != null)
+                            return mapped;
+                    }
                     return m_writeCacheService.read(paddr, sze+4);
                 } catch (Throwable e) {
                     /*
@@ -2203,6 +2264,66 @@ public class RWStore implements IStore, IBufferedWriter, IBackingReader {
 //          throw new IllegalStateException("Invalid when rebuilding");
 //  }
 
+    /**
+     * The byte offset of the end of the committed region of the backing file.
+     */
+    private long getCommittedExtent() {
+
+        return Math.min(convertAddr(m_committedNextAllocation),
+                convertAddr(m_fileSize));
+
+    }
+
+    /**
+     * Read a record from the mapped region, verifying its checksum.
+     * 
+     * @param paddr
+     *            The physical address of the record.
+     * @param nbytes
+     *            The length of the record, including the 4 byte checksum.
+     * 
+     * @return A read-only view of the record (excluding the checksum) -or-
+     *         <code>null</code> if the record is not in the mapped region.
+     */
+    private ByteBuffer readMapped(final long paddr, final int nbytes) {
+
+        final long begin = System.nanoTime();
+
+        final ByteBuffer b = m_mappedReads.read(paddr, nbytes,
+                getCommittedExtent());
+
+        if (b == null)
+            return null;
+
+        final int chk = ChecksumUtility.getCHK().checksum(b, 0, nbytes - 4);
+
+        final int tstchk = b.getInt(nbytes - 4);
+
+        if (chk != tstchk) {
+
+            throw new IllegalStateException(
+                    "Invalid data checksum from address: " + paddr
+                            + ", size: " + (nbytes - 4));
+
+        }
+
+        b.limit(nbytes - 4);
+
+        final StoreCounters<?> c = (StoreCounters<?>) storeCounters.get()
+                .acquire();
+        try {
+            c.nreads++;
+            c.nmappedReads++;
+            c.bytesRead += nbytes;
+            c.elapsedReadNanos += System.nanoTime() - begin;
+        } finally {
+            c.release();
+        }
+
+        return b;
+
+    }
+
     private void assertAllocators() {
         final Lock lock = m_allocationReadLock;
         lock.lock();
@@ -2639,7 +2760,8 @@ public class RWStore implements IStore, IBufferedWriter, IBackingReader {
                     m_spareAllocation += (block - size); // Isn't adjusted by frees!
                     
                     final ArrayList<FixedAllocator> list = m_freeFixed[i];
-                    if (list.size() == 0) {
+                    final FixedAllocator free = firstFree(list);
+                    if (free == null) {
 
                         allocator = new FixedAllocator(this, block);
                         
@@ -2667,7 +2789,7 @@ public class RWStore implements IStore, IBufferedWriter, IBackingReader {
                                 tsti++;
                             }
                         }
-                        allocator = list.get(0);
+                        allocator = free;
                     }
                     
                 }
@@ -4321,6 +4443,131 @@ public class RWStore implements IStore, IBufferedWriter, IBackingReader {
 
     }
 
+    /**
+     * Return the first allocator on the free list which is not the target of an
+     * online compaction and <code>null</code> if there is no such allocator.
+     * The caller must hold the {@link #m_allocationWriteLock}.
+     */
+    private FixedAllocator firstFree(final ArrayList<FixedAllocator> list) {
+
+        if (m_compactionTargets.isEmpty())
+            return list.isEmpty() ? null : list.get(0);
+
+        for (FixedAllocator fa : list) {
+
+            if (!m_compactionTargets.contains(fa))
+                return fa;
+
+        }
+
+        return null;
+
+    }
+
+    /**
+     * Mark each {@link FixedAllocator} whose allocated slots occupy no more
+     * than the given fraction of its reserved storage as the target of an
+     * online compaction. Until the targets are cleared, new records are not
+     * allocated from a target allocator, so records which are rewritten (for
+     * example, by the copy-on-write of the B+Tree nodes and leaves found on
+     * those allocators) move onto the denser allocators and the target
+     * allocators drain as their old slots are released.
+     * <p>
+     * Note: A target allocator is not handed to an {@link IAllocationContext}
+     * which needs a new allocator, but a context which already owns a target
+     * allocator continues to allocate from it.
+     * 
+     * @param maxFill
+     *            The maximum fill, in <code>(0:1)</code>, of a target
+     *            allocator.
+     * 
+     * @return The #of target allocators.
+     */
+    public int selectCompactionTargets(final float maxFill) {
+
+        if (maxFill <= 0f || maxFill >= 1f)
+            throw new IllegalArgumentException();
+
+        m_allocationWriteLock.lock();
+        try {
+
+            m_compactionTargets.clear();
+
+            for (FixedAllocator fa : m_allocs) {
+
+                final long storage = fa.getFileStorage();
+
+                final long allocated = fa.getAllocatedSlots();
+
+                if (storage == 0L || allocated == 0L) {
+                    // Nothing to relocate.
+                    continue;
+                }
+
+                if (((double) allocated / storage) <= maxFill) {
+
+                    m_compactionTargets.add(fa);
+
+                }
+
+            }
+
+            if (log.isInfoEnabled())
+                log.info("compactionTargets=" + m_compactionTargets.size()
+                        + ", maxFill=" + maxFill);
+
+            return m_compactionTargets.size();
+
+        } finally {
+            m_allocationWriteLock.unlock();
+        }
+
+    }
+
+    /**
+     * Return <code>true</code> iff the address lies on an allocator which is
+     * the target of an online compaction.
+     * 
+     * @param addr
+     *            The address.
+     * 
+     * @see #selectCompactionTargets(float)
+     */
+    public boolean isCompactionTarget(final int addr) {
+
+        m_allocationReadLock.lock();
+        try {
+
+            if (m_compactionTargets.isEmpty())
+                return false;
+
+            final FixedAllocator fa = getBlockByAddress(addr);
+
+            return fa != null && m_compactionTargets.contains(fa);
+
+        } finally {
+            m_allocationReadLock.unlock();
+        }
+
+    }
+
+    /**
+     * Clear the targets of an online compaction, allowing new records to be
+     * allocated from those allocators again.
+     */
+    public void clearCompactionTargets() {
+
+        m_allocationWriteLock.lock();
+        try {
+
+            m_compactionTargets.clear();
+
+        } finally {
+            m_allocationWriteLock.unlock();
+        }
+
+    }
+
     /********************************************************************************
      * handle dual address format, if addr is positive then it is the physical
      * address, so the Allocators must be searched.
@@ -5455,6 +5702,13 @@ public class RWStore implements IStore, IBufferedWriter, IBackingReader {
          * #of bytes that have been read from the disk.
          */
         public volatile long bytesReadFromDisk;
+
+        /**
+         * #of read requests that were served from the memory mapped region.
+         * 
+         * @see Options#MEMORY_MAPPED_READS
+         */
+        public volatile long nmappedReads;
         
         /**
          * Total elapsed time for reads.
@@ -5573,6 +5827,7 @@ public class RWStore implements IStore, IBufferedWriter, IBackingReader {
             ndiskRead += o.ndiskRead;
             bytesRead += o.bytesRead;
             bytesReadFromDisk += o.bytesReadFromDisk;
+            nmappedReads += o.nmappedReads;
             maxReadSize = Math.max(maxReadSize, o.maxReadSize);
             elapsedReadNanos += o.elapsedReadNanos;
             elapsedDiskReadNanos += o.elapsedDiskReadNanos;
@@ -5604,6 +5859,7 @@ public class RWStore implements IStore, IBufferedWriter, IBackingReader {
             t.ndiskRead -= o.ndiskRead;
             t.bytesRead -= o.bytesRead;
             t.bytesReadFromDisk -= o.bytesReadFromDisk;
+            t.nmappedReads -= o.nmappedReads;
             t.maxReadSize -= o.maxReadSize; // @todo report max? min?
             t.elapsedReadNanos -= o.elapsedReadNanos;
             t.elapsedDiskReadNanos -= o.elapsedDiskReadNanos;
@@ -5634,6 +5890,7 @@ public class RWStore implements IStore, IBufferedWriter, IBackingReader {
             ndiskRead = 0;
             bytesRead = 0;
             bytesReadFromDisk = 0;
+            nmappedReads = 0;
             maxReadSize = 0;
             elapsedReadNanos = 0;
             elapsedDiskReadNanos = 0;
@@ -5775,6 +6032,12 @@ public class RWStore implements IStore, IBufferedWriter, IBackingReader {
                     }
                 });
 
+                disk.addCounter("nmappedReads", new Instrument<Long>() {
+                    public void sample() {
+                        setValue(nmappedReads);
+                    }
+                });
+
                 disk.addCounter("bytesRead", new Instrument<Long>() {
                     public void sample() {
                         setValue(bytesReadFromDisk);
@@ -6264,6 +6527,26 @@ public class RWStore implements IStore, IBufferedWriter, IBackingReader {
                 final long pos = offset;
                 final int length = dst.limit();
 
+                if (m_mappedReads != null) {
+                    final ByteBuffer src = m_mappedReads.read(pos,
+                            dst.remaining(), getCommittedExtent());
+                    if (src != null) {
+                        // copy from the mapped region (no system call).
+                        dst.duplicate().put(src);
+                        final StoreCounters<?> c = (StoreCounters<?>) storeCounters
+                                .get().acquire();
+                        try {
+                            c.nreads++;
+                            c.nmappedReads++;
+                            c.bytesRead += length;
+                            c.elapsedReadNanos += System.nanoTime() - beginDisk;
+                        } finally {
+                            c.release();
+                        }
+                        return dst;
+                    }
+                }
+
                 // read on the disk.
                 final int ndiskRead = FileChannelUtility.readAll(m_reopener,
                         dst, pos);
@@ -6528,6 +6811,7 @@ public class RWStore implements IStore, IBufferedWriter, IBackingReader {
                 
                 // Remove all current allocators
                 m_allocs.clear();
+                m_compactionTargets.clear();
                 
                 assert m_nextAllocation != 0;
                 
@@ -477,6 +477,13 @@ public class MemStrategy implements IBufferStrategy, IRWStrategy, IAllocationMan
 		return m_mmgr.isCommitted(addr);
 	}
 
+	/**
+	 * Always <code>false</code>. The memory manager is not compacted.
+	 */
+	public boolean isCompactionTarget(final long addr) {
+		return false;
+	}
+
 	@Override
 	public InputStream getInputStream(final long addr) {
 		return m_mmgr.getInputStream(addr);
@@ -0,0 +1,244 @@
+/**
+
+Copyright (C) SYSTAP, LLC 2006-2015.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@systap.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+/*
+ * Created on Oct 17, 2026
+ */
+
+package com.bigdata.bop.bindingSet;
+
+import com.bigdata.bop.Constant;
+import com.bigdata.bop.IBindingSet;
+import com.bigdata.bop.IConstant;
+import com.bigdata.bop.IVariable;
+import com.bigdata.bop.Var;
+
+/**
+ * Unit tests for {@link ColumnarSolutionChunk} and its row views.
+ */
+public class TestColumnarSolutionChunk extends TestIBindingSet {
+
+    /**
+     * 
+     */
+    public TestColumnarSolutionChunk() {
+    }
+
+    /**
+     * @param name
+     */
+    public TestColumnarSolutionChunk(final String name) {
+        super(name);
+    }
+
+    @Override
+    protected IBindingSet newBindingSet(final IVariable<?> vars[],
+            final IConstant<?> vals[]) {
+
+        return ColumnarSolutionChunk.valueOf(
+                new IBindingSet[] { new ListBindingSet(vars, vals) }, null/* variablesToKeep */)
+                .toBindingSets()[0];
+
+    }
+
+    @Override
+    protected IBindingSet newBindingSet(final int sizeIsIgnored) {
+
+        return ColumnarSolutionChunk.valueOf(
+                new IBindingSet[] { new ListBindingSet() }, null/* variablesToKeep */)
+                .toBindingSets()[0];
+
+    }
+
+    private final Var<?> x = Var.var("x");
+    private final Var<?> y = Var.var("y");
+    private final Var<?> z = Var.var("z");
+
+    private final IConstant<?> c1 = new Constant<Integer>(1);
+    private final IConstant<?> c2 = new Constant<Integer>(2);
+    private final IConstant<?> c3 = new Constant<Integer>(3);
+
+    private IBindingSet[] newSolutions() {
+
+        return new IBindingSet[] {//
+                new ListBindingSet(new IVariable[] { x, y }, new IConstant[] {
+                        c1, c2 }),//
+                new ListBindingSet(new IVariable[] { x, z }, new IConstant[] {
+                        c2, c3 }),//
+                new ListBindingSet(new IVariable[] { y }, new IConstant[] { c3 }),//
+        };
+
+    }
+
+    /**
+     * Verify the conversion of row oriented solutions into columns, including
+     * unbound variables.
+     */
+    public void test_valueOf() {
+
+        final IBindingSet[] a = newSolutions();
+
+        final ColumnarSolutionChunk c = ColumnarSolutionChunk.valueOf(a, null/* variablesToKeep */);
+
+        assertEquals(3, c.size());
+
+        assertEquals(3, c.getVariables().length);
+
+        final IBindingSet[] b = c.toBindingSets();
+
+        assertEquals(a.length, b.length);
+
+        for (int i = 0; i < a.length; i++) {
+
+            assertEquals(a[i], b[i]);
+
+            assertEquals(a[i].hashCode(), b[i].hashCode());
+
+        }
+
+        assertTrue(ColumnarSolutionChunk.getChunk(b) == c);
+
+        // Not a columnar chunk.
+        assertNull(ColumnarSolutionChunk.getChunk(a));
+
+    }
+
+    /**
+     * Verify projection, both from row oriented solutions and from an existing
+     * columnar chunk (which shares the columns).
+     */
+    public void test_project() {
+
+        final IVariable<?>[] vars = new IVariable[] { x, z };
+
+        final IBindingSet[] a = newSolutions();
+
+        final IBindingSet[] b = ColumnarSolutionChunk.valueOf(a, vars)
+                .toBindingSets();
+
+        final ColumnarSolutionChunk c = ColumnarSolutionChunk.valueOf(a, null/* variablesToKeep */);
+
+        final IBindingSet[] d = ColumnarSolutionChunk.valueOf(
+                c.toBindingSets(), vars).toBindingSets();
+
+        assertTrue(c.getColumn(x) == ColumnarSolutionChunk.getChunk(d)
+                .getColumn(x));
+
+        assertNull(ColumnarSolutionChunk.getChunk(d).getColumn(y));
+
+        for (int i = 0; i < a.length; i++) {
+
+            assertEquals(a[i].copy(vars), b[i]);
+
+            assertEquals(a[i].copy(vars), d[i]);
+
+        }
+
+    }
+
+    /**
+     * Verify selection vectors and slices.
+     */
+    public void test_selectAndSlice() {
+
+        final IBindingSet[] a = newSolutions();
+
+        final ColumnarSolutionChunk c = ColumnarSolutionChunk.valueOf(a, null/* variablesToKeep */);
+
+        final IBindingSet[] b = c.select(new int[] { 2, 0, -1 }, 2)
+                .toBindingSets();
+
+        assertEquals(2, b.length);
+        assertEquals(a[2], b[0]);
+        assertEquals(a[0], b[1]);
+
+        final IBindingSet[] d = c.slice(1, 2).toBindingSets();
+
+        assertEquals(2, d.length);
+        assertEquals(a[1], d[0]);
+        assertEquals(a[2], d[1]);
+
+        // A subset of the row views is still recognized.
+        final ColumnarSolutionChunk e = ColumnarSolutionChunk.valueOf(
+                new IBindingSet[] { d[1] }, null/* variablesToKeep */);
+
+        assertEquals(1, e.size());
+        assertEquals(2, e.getRow(0));
+
+    }
+
+    /**
+     * Verify that a row view is not equal to a solution having the same #of
+     * bindings when that solution does not bind one of the variables of the
+     * row (and the reverse).
+     */
+    public void test_equals_unboundVariable() {
+
+        final IBindingSet[] a = newSolutions();
+
+        final IBindingSet row = ColumnarSolutionChunk.valueOf(a, null/* variablesToKeep */)
+                .toBindingSets()[0];
+
+        final IBindingSet other = new ListBindingSet(new IVariable[] { x, z },
+                new IConstant[] { c1, c2 });
+
+        assertEquals(row.size(), other.size());
+
+        assertFalse(row.equals(other));
+
+        assertFalse(other.equals(row));
+
+        assertTrue(row.equals(a[0]));
+
+        assertTrue(a[0].equals(row));
+
+    }
+
+    /**
+     * Verify that a row view is copy-on-write.
+     */
+    public void test_copyOnWrite() {
+
+        final IBindingSet[] a = newSolutions();
+
+        final IBindingSet[] b = ColumnarSolutionChunk.valueOf(a, null/* variablesToKeep */)
+                .toBindingSets();
+
+        final IBindingSet tmp = b[0].clone();
+
+        assertTrue(ColumnarSolutionChunk.isUnmodifiedRow(tmp));
+
+        tmp.set(z, c1);
+
+        assertFalse(ColumnarSolutionChunk.isUnmodifiedRow(tmp));
+
+        assertEquals(c1, tmp.get(z));
+
+        // The source row (and hence the column) is unchanged.
+        assertNull(b[0].get(z));
+
+        assertTrue(ColumnarSolutionChunk.getChunk(b) != null);
+
+    }
+
+}
@@ -219,6 +219,19 @@ public class MockRunningQuery implements IRunningQuery {
         
     }
 
+    @Override
+    public QueryMemoryGovernor getMemoryGovernor() {
+        
+        return memoryGovernor;
+        
+    }
+
+    /**
+     * No limit on the JVM heap for the mock query.
+     */
+    private final QueryMemoryGovernor memoryGovernor = new QueryMemoryGovernor(
+            0L/* maxBytes */);
+
     @Override
     public IQueryAttributes getAttributes() {
 
@@ -84,6 +84,9 @@ public class TestAll extends TestCase {
         // test suite for the bop statistics class.
         suite.addTestSuite(TestBOpStats.class);
 
+        // test suite for the per-query JVM heap governor.
+        suite.addTestSuite(TestQueryMemoryGovernor.class);
+
         // test suite for startOp messages.
         suite.addTestSuite(TestStartOpMessage.class);
         
@@ -102,6 +105,9 @@ public class TestAll extends TestCase {
         // test suite for query evaluation (basic JOINs).
         suite.addTestSuite(TestQueryEngine.class);
 
+        // test suite for query evaluation using the work stealing scheduler.
+        suite.addTestSuite(TestQueryEngine_WorkStealingScheduler.class);
+
 		/*
 		 * The following integration tests examine the behavior of various
 		 * operators which must either buffer the solutions or otherwise use
@@ -0,0 +1,187 @@
+/**
+
+Copyright (C) SYSTAP, LLC 2006-2015.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@systap.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+/*
+ * Created on Oct 17, 2026
+ */
+
+package com.bigdata.bop.engine;
+
+import junit.framework.TestCase2;
+
+import com.bigdata.bop.Constant;
+import com.bigdata.bop.IBindingSet;
+import com.bigdata.bop.Var;
+import com.bigdata.bop.bindingSet.ListBindingSet;
+
+/**
+ * Test suite for {@link QueryMemoryGovernor}.
+ */
+public class TestQueryMemoryGovernor extends TestCase2 {
+
+    public TestQueryMemoryGovernor() {
+
+    }
+
+    public TestQueryMemoryGovernor(String name) {
+        super(name);
+    }
+
+    /**
+     * A governor without a limit grants every reservation but still tracks
+     * the reserved and peak bytes.
+     */
+    public void test_unbounded() {
+
+        final QueryMemoryGovernor g = new QueryMemoryGovernor(0L);
+
+        assertTrue(g.reserve("a", 1000L));
+        assertTrue(g.reserve("a", Long.MAX_VALUE / 2));
+
+        assertEquals(1000L + Long.MAX_VALUE / 2, g.getReservedBytes());
+        assertEquals(g.getReservedBytes(), g.getPeakBytes());
+
+        assertEquals(1000L + Long.MAX_VALUE / 2, g.release("a"));
+        assertEquals(0L, g.getReservedBytes());
+
+    }
+
+    /**
+     * A denied reservation reserves nothing. Releasing an owner returns its
+     * bytes to the budget.
+     */
+    public void test_bounded() {
+
+        final QueryMemoryGovernor g = new QueryMemoryGovernor(100L);
+
+        assertTrue(g.reserve("a", 60L));
+        assertTrue(g.reserve("b", 40L));
+        assertFalse(g.reserve("a", 1L));
+
+        assertEquals(100L, g.getReservedBytes());
+        assertEquals(60L, g.getReservedBytes("a"));
+        assertEquals(40L, g.getReservedBytes("b"));
+
+        assertEquals(60L, g.release("a"));
+        assertEquals(40L, g.getReservedBytes());
+        assertEquals(0L, g.getReservedBytes("a"));
+
+        assertTrue(g.reserve("c", 60L));
+        assertEquals(100L, g.getPeakBytes());
+
+        // Releasing an unknown owner is a NOP.
+        assertEquals(0L, g.release("d"));
+
+    }
+
+    /**
+     * {@link QueryMemoryGovernor#reserveOrFail(Object, long)} breaks the query
+     * when the reservation is denied.
+     */
+    public void test_reserveOrFail() {
+
+        final QueryMemoryGovernor g = new QueryMemoryGovernor(10L);
+
+        g.reserveOrFail("a", 10L);
+
+        try {
+            g.reserveOrFail("a", 1L);
+            fail("Expecting: " + QueryMemoryLimitException.class);
+        } catch (QueryMemoryLimitException ex) {
+            if (log.isInfoEnabled())
+                log.info("Ignoring expected exception: " + ex);
+        }
+
+        assertEquals(10L, g.getReservedBytes());
+
+    }
+
+    /**
+     * Spilling an owner releases its reservation and is counted.
+     */
+    public void test_spilled() {
+
+        final QueryMemoryGovernor g = new QueryMemoryGovernor(10L);
+
+        assertTrue(g.reserve("a", 10L));
+        assertFalse(g.reserve("a", 1L));
+
+        assertEquals(10L, g.spilled("a"));
+        assertEquals(1L, g.getSpillCount());
+        assertEquals(0L, g.getReservedBytes());
+
+        assertTrue(g.reserve("a", 1L));
+
+    }
+
+    /**
+     * The size estimate grows with the #of bindings.
+     */
+    public void test_estimateSize() {
+
+        final IBindingSet bset = new ListBindingSet();
+
+        final long empty = QueryMemoryGovernor.estimateSize(bset);
+
+        bset.set(Var.var("x"), new Constant<String>("x"));
+
+        final long one = QueryMemoryGovernor.estimateSize(bset);
+
+        assertTrue(one > empty);
+
+        assertEquals(empty + one, QueryMemoryGovernor
+                .estimateSize(new IBindingSet[] { new ListBindingSet(), bset }));
+
+    }
+
+    public void test_illegalArgs() {
+
+        try {
+            new QueryMemoryGovernor(-1L);
+            fail("Expecting: " + IllegalArgumentException.class);
+        } catch (IllegalArgumentException ex) {
+            if (log.isInfoEnabled())
+                log.info("Ignoring expected exception: " + ex);
+        }
+
+        final QueryMemoryGovernor g = new QueryMemoryGovernor(0L);
+
+        try {
+            g.reserve(null, 1L);
+            fail("Expecting: " + IllegalArgumentException.class);
+        } catch (IllegalArgumentException ex) {
+            if (log.isInfoEnabled())
+                log.info("Ignoring expected exception: " + ex);
+        }
+
+        try {
+            g.reserve("a", -1L);
+            fail("Expecting: " + IllegalArgumentException.class);
+        } catch (IllegalArgumentException ex) {
+            if (log.isInfoEnabled())
+                log.info("Ignoring expected exception: " + ex);
+        }
+
+    }
+
+}
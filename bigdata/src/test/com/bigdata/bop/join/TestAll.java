@@ -69,6 +69,9 @@ public class TestAll extends TestCase {
         // Test suite for the guts of the HTree hash join logic.
         suite.addTestSuite(TestHTreeHashJoinUtility.class);
         
+        // Test suite for the HTree DISTINCT filter.
+        suite.addTestSuite(TestHTreeDistinctFilter.class);
+
         // Test suite for a hash join with an access path.
         suite.addTestSuite(TestJVMHashJoinOp.class); // JVM
         suite.addTestSuite(TestHTreeHashJoinOp.class); // HTree
@@ -0,0 +1,191 @@
+/**
+
+Copyright (C) SYSTAP, LLC 2006-2015.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@systap.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+/*
+ * Created on Oct 17, 2026
+ */
+
+package com.bigdata.bop.join;
+
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.FutureTask;
+
+import junit.framework.TestCase;
+
+import com.bigdata.bop.BOp;
+import com.bigdata.bop.BOpContext;
+import com.bigdata.bop.Constant;
+import com.bigdata.bop.IBindingSet;
+import com.bigdata.bop.IVariable;
+import com.bigdata.bop.NV;
+import com.bigdata.bop.PipelineOp;
+import com.bigdata.bop.Var;
+import com.bigdata.bop.bindingSet.ListBindingSet;
+import com.bigdata.bop.engine.AbstractQueryEngineTestCase;
+import com.bigdata.bop.engine.BOpStats;
+import com.bigdata.io.DirectBufferPool;
+import com.bigdata.rdf.internal.IV;
+import com.bigdata.rdf.internal.VTE;
+import com.bigdata.rdf.internal.impl.TermId;
+import com.bigdata.rwstore.sector.MemoryManager;
+import com.bigdata.striterator.Chunkerator;
+
+/**
+ * Test suite for the {@link HTreeDistinctFilter}.
+ */
+public class TestHTreeDistinctFilter extends TestCase {
+
+    public TestHTreeDistinctFilter() {
+    }
+
+    public TestHTreeDistinctFilter(final String name) {
+        super(name);
+    }
+
+    private MemoryManager mmgr;
+
+    @Override
+    protected void setUp() throws Exception {
+
+        super.setUp();
+
+        mmgr = new MemoryManager(DirectBufferPool.INSTANCE);
+
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+
+        if (mmgr != null) {
+            mmgr.clear();
+            mmgr = null;
+        }
+
+        super.tearDown();
+
+    }
+
+    private static class MockPipelineOp extends PipelineOp {
+
+        public MockPipelineOp(final BOp[] args, final NV... anns) {
+
+            super(args, NV.asMap(anns));
+
+        }
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public FutureTask<Void> eval(BOpContext<IBindingSet> context) {
+            throw new UnsupportedOperationException();
+        }
+
+    }
+
+    @SuppressWarnings("rawtypes")
+    private static IBindingSet solution(final IVariable<?>[] vars,
+            final IV... vals) {
+
+        final IBindingSet bset = new ListBindingSet();
+
+        for (int i = 0; i < vars.length; i++) {
+
+            if (vals[i] != null)
+                bset.set(vars[i], new Constant<IV>(vals[i]));
+
+        }
+
+        return bset;
+
+    }
+
+    /**
+     * Verify that duplicates are dropped, that only the projected variables
+     * are retained, that an unbound variable is distinct from a bound one,
+     * and that the index scan visits the accepted solutions.
+     */
+    @SuppressWarnings("rawtypes")
+    public void test_distinctFilter() {
+
+        final IVariable<?> x = Var.var("x");
+        final IVariable<?> y = Var.var("y");
+        final IVariable<?> z = Var.var("z");
+
+        final IV a = new TermId(VTE.URI, 1L);
+        final IV b = new TermId(VTE.URI, 2L);
+        final IV c = new TermId(VTE.URI, 3L);
+
+        final IVariable<?>[] all = new IVariable[] { x, y, z };
+
+        final List<IBindingSet> in = new LinkedList<IBindingSet>();
+        in.add(solution(all, a, b, c));
+        in.add(solution(all, a, b, a)); // duplicate on (x,y).
+        in.add(solution(all, a, null, c));
+        in.add(solution(all, b, a, null));
+        in.add(solution(all, a, null, null)); // duplicate on (x,y).
+
+        final IVariable<?>[] projected = new IVariable[] { x, y };
+
+        final IBindingSet[] expected = new IBindingSet[] {
+                solution(projected, a, b),//
+                solution(projected, a, null),//
+                solution(projected, b, a),//
+        };
+
+        final HTreeDistinctFilter filter = new HTreeDistinctFilter(projected,
+                mmgr, new MockPipelineOp(BOp.NOARGS));
+
+        try {
+
+            final AbstractHashJoinUtilityTestCase.TestBuffer<IBindingSet> out = new AbstractHashJoinUtilityTestCase.TestBuffer<IBindingSet>();
+
+            final BOpStats stats = new BOpStats();
+
+            final long n = filter.filterSolutions(
+                    new Chunkerator<IBindingSet>(in.iterator()), stats, out);
+
+            assertEquals(expected.length, n);
+
+            assertEquals(in.size(), stats.unitsIn.get());
+
+            assertEquals(expected.length, filter.size());
+
+            AbstractQueryEngineTestCase.assertSameSolutionsAnyOrder(expected,
+                    out.iterator());
+
+            AbstractQueryEngineTestCase.assertSameSolutionsAnyOrder(expected,
+                    filter.indexScan());
+
+            // Solutions already accepted are still rejected.
+            assertNull(filter.accept(solution(all, b, a, c)));
+
+        } finally {
+
+            filter.release();
+
+        }
+
+    }
+
+}
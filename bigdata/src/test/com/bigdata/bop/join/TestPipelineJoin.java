@@ -441,6 +441,101 @@ public class TestPipelineJoin extends TestCase2 {
         
     }
 
+    /**
+     * Unit test for a pipeline join using
+     * {@link PipelineJoin.Annotations#SORTED_PROBES}. The probes are evaluated
+     * in a single pass over the index, including a probe which does not match
+     * anything.
+     * 
+     * @throws InterruptedException
+     * @throws ExecutionException
+     */
+    public void test_join_sortedProbes() throws InterruptedException,
+            ExecutionException {
+
+        final int joinId = 2;
+        final int predId = 3;
+
+        final Predicate<E> predOp = new Predicate<E>(new IVariableOrConstant[] {
+                Var.var("x"), Var.var("y") }, NV
+                .asMap(new NV[] {//
+                        new NV(Predicate.Annotations.RELATION_NAME,
+                                new String[] { namespace }),//
+                        new NV(Predicate.Annotations.BOP_ID, predId),//
+                        new NV(Annotations.TIMESTAMP,
+                                ITx.READ_COMMITTED),//
+                }));
+
+        final PipelineJoin<E> query = new PipelineJoin<E>(
+                new BOp[] { },// args
+                new NV(Predicate.Annotations.BOP_ID, joinId),//
+                new NV(PipelineJoin.Annotations.PREDICATE, predOp),//
+                new NV(PipelineJoin.Annotations.SORTED_PROBES, true)//
+                );
+
+        // the expected solutions.
+        final IBindingSet[] expected = new IBindingSet[] {//
+                new ListBindingSet(//
+                        new IVariable[] { Var.var("x"), Var.var("y") },//
+                        new IConstant[] { new Constant<String>("Mary"), new Constant<String>("John") }//
+                ),//
+                new ListBindingSet(//
+                        new IVariable[] { Var.var("x"), Var.var("y") },//
+                        new IConstant[] { new Constant<String>("Mary"), new Constant<String>("Paul") }//
+                ),//
+                new ListBindingSet(//
+                        new IVariable[] { Var.var("x"), Var.var("y") },//
+                        new IConstant[] { new Constant<String>("Leon"), new Constant<String>("Paul") }//
+                ),//
+        };
+
+        final PipelineJoinStats stats = query.newStats();
+
+        final IAsynchronousIterator<IBindingSet[]> source;
+        {
+
+            final IBindingSet bset1 = new ListBindingSet();
+            final IBindingSet bset2 = new ListBindingSet();
+            final IBindingSet bset3 = new ListBindingSet();
+
+            bset1.set(Var.var("x"), new Constant<String>("Mary"));
+            bset2.set(Var.var("x"), new Constant<String>("Nobody"));
+            bset3.set(Var.var("x"), new Constant<String>("Leon"));
+                
+            source = new ThickAsynchronousIterator<IBindingSet[]>(
+                    new IBindingSet[][] { new IBindingSet[] { bset1, bset2,
+                            bset3 } });
+
+        }
+
+        final IBlockingBuffer<IBindingSet[]> sink = new BlockingBufferWithStats<IBindingSet[]>(query, stats);
+
+        final BOpContext<IBindingSet> context = new BOpContext<IBindingSet>(
+                new MockRunningQuery(null/* fed */, jnl/* indexManager */
+                ), -1/* partitionId */, stats,query/* op */,
+                false/* lastInvocation */, 
+                source, sink, null/* sink2 */);
+
+        // get task.
+        final FutureTask<Void> ft = query.eval(context);
+        
+        // execute task.
+        jnl.getExecutorService().execute(ft);
+
+        AbstractQueryEngineTestCase.assertSameSolutionsAnyOrder(expected, sink.iterator(),
+                ft);
+
+        // join task
+        assertEquals(1L, stats.chunksIn.get());
+        assertEquals(3L, stats.unitsIn.get());
+        assertEquals(3L, stats.unitsOut.get());
+        // access path
+        assertEquals(3L, stats.accessPathCount.get());
+        assertEquals(2L, stats.accessPathChunksIn.get());
+        assertEquals(3L, stats.accessPathUnitsIn.get());
+        
+    }
+
     /**
      * Unit test for a pipeline join in which we expect duplicate access paths to
      * be eliminated.
@@ -27,6 +27,9 @@ Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
 
 package com.bigdata.bop.joinGraph.rto;
 
+import java.util.HashMap;
+import java.util.Map;
+
 import junit.framework.TestCase2;
 
 import com.bigdata.bop.BOp;
@@ -40,6 +43,8 @@ import com.bigdata.bop.Var;
 import com.bigdata.bop.ap.Predicate;
 import com.bigdata.bop.constraint.Constraint;
 import com.bigdata.bop.constraint.NEConstant;
+import com.bigdata.bop.engine.BOpStats;
+import com.bigdata.bop.join.PipelineJoinStats;
 
 /**
  * Unit tests for the {@link JoinGraph} operator.
@@ -287,4 +292,65 @@ public class TestJoinGraph extends TestCase2 {
 
     }
 
+
+    /**
+     * The adaptive mode is disabled by default.
+     */
+    public void test_adaptive_defaults() {
+
+        final IPredicate[] vertices = new IPredicate[] {
+                new Predicate(new BOp[]{Var.var("x"),Var.var("y")}),//
+                new Predicate(new BOp[]{Var.var("y"),Var.var("z")}),//
+        };
+        final JoinGraph joinGraph = new JoinGraph(new BOp[0],//
+                new NV(JoinGraph.Annotations.VERTICES, vertices),//
+                new NV(JoinGraph.Annotations.CONTROLLER, true), //
+                new NV(JoinGraph.Annotations.EVALUATION_CONTEXT,
+                        BOpEvaluationContext.CONTROLLER)//
+        );
+        assertFalse("adaptive", joinGraph.isAdaptive());
+        assertEquals("threshold",
+                JoinGraph.Annotations.DEFAULT_ADAPTIVE_THRESHOLD,
+                joinGraph.getAdaptiveThreshold());
+        assertEquals("limit", JoinGraph.Annotations.DEFAULT_ADAPTIVE_LIMIT,
+                joinGraph.getAdaptiveLimit());
+
+    }
+
+    /**
+     * A join is reported once its output exceeds its estimate by more than the
+     * threshold. Joins without an estimate or without statistics are ignored.
+     */
+    public void test_getMisestimatedJoin() {
+
+        final int[] joinIds = new int[] { 1, 2, 3 };
+
+        final long[] estimates = new long[] { 10L, -1L, 100L };
+
+        final Map<Integer, BOpStats> stats = new HashMap<Integer, BOpStats>();
+
+        final PipelineJoinStats s1 = new PipelineJoinStats();
+        final PipelineJoinStats s2 = new PipelineJoinStats();
+        stats.put(1, s1);
+        stats.put(2, s2);
+
+        s1.outputSolutions.add(100L);
+        s2.outputSolutions.add(1000000L);
+
+        // Within the threshold. No estimate for the 2nd join.
+        assertEquals(-1, JoinGraph.getMisestimatedJoin(stats, joinIds,
+                estimates, 10d/* threshold */));
+
+        s1.outputSolutions.add(1L);
+
+        // The 1st join now exceeds the threshold.
+        assertEquals(0, JoinGraph.getMisestimatedJoin(stats, joinIds,
+                estimates, 10d/* threshold */));
+
+        // But not a larger threshold.
+        assertEquals(-1, JoinGraph.getMisestimatedJoin(stats, joinIds,
+                estimates, 20d/* threshold */));
+
+    }
+
 }
@@ -87,6 +87,8 @@ public class TestAll extends TestCase {
         
         // in-memory sort operator.
         suite.addTestSuite(TestMemorySortOp.class);
+        suite.addTestSuite(TestParallelSortOp.class);
+        suite.addTestSuite(TestTopKSortOp.class);
 
         /*
          * Aggregation
@@ -0,0 +1,341 @@
+/**
+
+Copyright (C) SYSTAP, LLC 2006-2015.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@systap.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+/*
+ * Created on Oct 17, 2026
+ */
+
+package com.bigdata.bop.solutions;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.FutureTask;
+
+import junit.framework.TestCase2;
+
+import com.bigdata.bop.BOp;
+import com.bigdata.bop.BOpContext;
+import com.bigdata.bop.BOpEvaluationContext;
+import com.bigdata.bop.Constant;
+import com.bigdata.bop.IBindingSet;
+import com.bigdata.bop.IConstant;
+import com.bigdata.bop.IQueryContext;
+import com.bigdata.bop.IVariable;
+import com.bigdata.bop.NV;
+import com.bigdata.bop.PipelineOp;
+import com.bigdata.bop.Var;
+import com.bigdata.bop.bindingSet.ListBindingSet;
+import com.bigdata.bop.engine.AbstractQueryEngineTestCase;
+import com.bigdata.bop.engine.BOpStats;
+import com.bigdata.bop.engine.BlockingBufferWithStats;
+import com.bigdata.bop.engine.IRunningQuery;
+import com.bigdata.bop.engine.MockRunningQuery;
+import com.bigdata.rdf.internal.IV;
+import com.bigdata.rdf.internal.VTE;
+import com.bigdata.rdf.internal.impl.TermId;
+import com.bigdata.rdf.internal.impl.literal.XSDNumericIV;
+import com.bigdata.rdf.model.BigdataLiteral;
+import com.bigdata.rdf.model.BigdataURI;
+import com.bigdata.rdf.model.BigdataValue;
+import com.bigdata.rdf.model.BigdataValueFactory;
+import com.bigdata.rdf.model.BigdataValueFactoryImpl;
+import com.bigdata.relation.accesspath.IAsynchronousIterator;
+import com.bigdata.relation.accesspath.IBlockingBuffer;
+import com.bigdata.relation.accesspath.ThickAsynchronousIterator;
+
+/**
+ * Unit tests for the {@link ParallelSortOp}.
+ * 
+ * @see TestMemorySortOp
+ */
+public class TestParallelSortOp extends TestCase2 {
+
+    public TestParallelSortOp() {
+    }
+
+    public TestParallelSortOp(String name) {
+        super(name);
+    }
+
+    private long termId = 1;
+
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    private IV makeIV(final BigdataValue v) {
+
+        final IV iv = new TermId(v instanceof BigdataURI ? VTE.URI
+                : VTE.LITERAL, termId++);
+
+        iv.setValue(v);
+
+        return iv;
+
+    }
+
+    private SortOp newSortOp(final ISortOrder<?>[] sors, final NV... anns) {
+
+        final List<NV> a = new ArrayList<NV>();
+        a.add(new NV(ParallelSortOp.Annotations.BOP_ID, 1));
+        a.add(new NV(ParallelSortOp.Annotations.SORT_ORDER, sors));
+        a.add(new NV(ParallelSortOp.Annotations.VALUE_COMPARATOR,
+                new IVComparator()));
+        a.add(new NV(ParallelSortOp.Annotations.EVALUATION_CONTEXT,
+                BOpEvaluationContext.CONTROLLER));
+        a.add(new NV(ParallelSortOp.Annotations.MAX_PARALLEL, 1));
+        a.add(new NV(PipelineOp.Annotations.REORDER_SOLUTIONS, false));
+        a.add(new NV(ParallelSortOp.Annotations.LAST_PASS, true));
+        for (NV nv : anns)
+            a.add(nv);
+
+        return new ParallelSortOp(new BOp[] {}, NV.asMap(a
+                .toArray(new NV[a.size()])));
+
+    }
+
+    /**
+     * Run the operator over the data and verify the solutions (in order).
+     */
+    private BOpStats runSort(final SortOp query, final IBindingSet[] data,
+            final IBindingSet[] expected) {
+
+        final BOpStats stats = query.newStats();
+
+        final IAsynchronousIterator<IBindingSet[]> source = new ThickAsynchronousIterator<IBindingSet[]>(
+                new IBindingSet[][] { data });
+
+        final IBlockingBuffer<IBindingSet[]> sink = new BlockingBufferWithStats<IBindingSet[]>(
+                query, stats);
+
+        final IQueryContext queryContext = new MockQueryContext(
+                UUID.randomUUID());
+
+        final IRunningQuery runningQuery = new MockRunningQuery(null/* fed */
+        , null/* indexManager */, queryContext);
+
+        final BOpContext<IBindingSet> context = new BOpContext<IBindingSet>(
+                runningQuery, -1/* partitionId */
+                , stats, query/* op */, true/* lastInvocation */, source, sink,
+                null/* sink2 */
+        );
+
+        final FutureTask<Void> ft = query.eval(context);
+        // Run the query.
+        {
+            final Thread t = new Thread() {
+                public void run() {
+                    ft.run();
+                }
+            };
+            t.setDaemon(true);
+            t.start();
+        }
+
+        // Check the solutions.
+        AbstractQueryEngineTestCase.assertSameSolutions(expected,
+                sink.iterator(), ft);
+
+        // The operator state was released.
+        assertNull(queryContext.getAttributes().get("1"));
+
+        return stats;
+
+    }
+
+    /**
+     * Test with materialized IVs (same data as {@link TestMemorySortOp}).
+     */
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    public void testMaterializedIVs() {
+
+        final BigdataValueFactory f = BigdataValueFactoryImpl
+                .getInstance(getName());
+
+        final IVariable<IV> x = Var.var("x");
+        final IVariable<IV> y = Var.var("y");
+        final IConstant<IV> a = new Constant<IV>(makeIV(f.createLiteral("a")));
+        final IConstant<IV> b = new Constant<IV>(makeIV(f.createLiteral("b")));
+        final IConstant<IV> c = new Constant<IV>(makeIV(f.createLiteral("c")));
+        final IConstant<IV> d = new Constant<IV>(makeIV(f.createLiteral("d")));
+        final IConstant<IV> e = new Constant<IV>(makeIV(f.createLiteral("e")));
+
+        final ISortOrder<?> sors[] = new ISortOrder[] { //
+                new SortOrder(x, true/*asc*/),//
+                new SortOrder(y, false/*asc*/)//
+                };
+
+        final IBindingSet data [] = new IBindingSet []
+        {
+              new ListBindingSet ( new IVariable<?> [] { x, y }, new IConstant [] { a, a } )
+            , new ListBindingSet ( new IVariable<?> [] { x, y }, new IConstant [] { a, e } )
+            , new ListBindingSet ( new IVariable<?> [] { x },    new IConstant [] { c }    )
+            , new ListBindingSet ( new IVariable<?> [] { x, y }, new IConstant [] { d, a } )
+            , new ListBindingSet ( new IVariable<?> [] { x, y }, new IConstant [] { d, b } )
+            , new ListBindingSet ( new IVariable<?> [] {},       new IConstant [] {}       )
+            , new ListBindingSet ( new IVariable<?> [] { x, y }, new IConstant [] { a, c } )
+            , new ListBindingSet ( new IVariable<?> [] { x, y }, new IConstant [] { b, d } )
+            , new ListBindingSet ( new IVariable<?> [] { y },    new IConstant [] { a }    )
+            , new ListBindingSet ( new IVariable<?> [] { x, y }, new IConstant [] { b, b } )
+        } ;
+
+        final IBindingSet expected [] = new IBindingSet []
+        {
+              new ListBindingSet ( new IVariable<?> [] { y },    new IConstant [] { a }    )
+            , new ListBindingSet ( new IVariable<?> [] {},       new IConstant [] {}       )
+            , new ListBindingSet ( new IVariable<?> [] { x, y }, new IConstant [] { a, e } )
+            , new ListBindingSet ( new IVariable<?> [] { x, y }, new IConstant [] { a, c } )
+            , new ListBindingSet ( new IVariable<?> [] { x, y }, new IConstant [] { a, a } )
+            , new ListBindingSet ( new IVariable<?> [] { x, y }, new IConstant [] { b, d } )
+            , new ListBindingSet ( new IVariable<?> [] { x, y }, new IConstant [] { b, b } )
+            , new ListBindingSet ( new IVariable<?> [] { x },    new IConstant [] { c }    )
+            , new ListBindingSet ( new IVariable<?> [] { x, y }, new IConstant [] { d, b } )
+            , new ListBindingSet ( new IVariable<?> [] { x, y }, new IConstant [] { d, a } )
+        } ;
+
+        final BOpStats stats = runSort(newSortOp(sors), data, expected);
+
+        assertEquals(1, stats.chunksIn.get());
+        assertEquals(10, stats.unitsIn.get());
+        assertEquals(10, stats.unitsOut.get());
+        assertEquals(1, stats.chunksOut.get());
+
+    }
+
+    /**
+     * Unit test with runs spilled onto the memory manager and a k-way merge on
+     * the last pass, in both ascending and descending order.
+     */
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    public void testSpilledRuns() {
+
+        final IVariable<IV> x = Var.var("x");
+
+        final int n = 1000;
+
+        final List<Integer> values = new ArrayList<Integer>();
+        for (int i = 0; i < n; i++)
+            values.add(i);
+        Collections.shuffle(values, new Random(n));
+
+        final IBindingSet[] data = new IBindingSet[n];
+        for (int i = 0; i < n; i++)
+            data[i] = new ListBindingSet(new IVariable[] { x },
+                    new IConstant[] { new Constant<IV>(new XSDNumericIV(values
+                            .get(i))) });
+
+        for (boolean asc : new boolean[] { true, false }) {
+
+            final IBindingSet[] expected = new IBindingSet[n];
+            for (int i = 0; i < n; i++)
+                expected[i] = new ListBindingSet(new IVariable[] { x },
+                        new IConstant[] { new Constant<IV>(new XSDNumericIV(
+                                asc ? i : n - i - 1)) });
+
+            final BOpStats stats = runSort(newSortOp(
+                    new ISortOrder[] { new SortOrder(x, asc) },
+                    new NV(ParallelSortOp.Annotations.RUN_CAPACITY, 64),
+                    new NV(ParallelSortOp.Annotations.CHUNK_CAPACITY, 100)),
+                    data, expected);
+
+            assertEquals(n, stats.unitsIn.get());
+            assertEquals(n, stats.unitsOut.get());
+
+        }
+
+    }
+
+    /**
+     * Unit test for top-K evaluation when a limit is given.
+     */
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    public void testTopK() {
+
+        final IVariable<IV> x = Var.var("x");
+
+        final int n = 500;
+
+        final IBindingSet[] data = new IBindingSet[n];
+        for (int i = 0; i < n; i++)
+            data[i] = new ListBindingSet(new IVariable[] { x },
+                    new IConstant[] { new Constant<IV>(new XSDNumericIV(
+                            (i * 7919) % n)) });
+
+        final IBindingSet[] expected = new IBindingSet[10];
+        for (int i = 0; i < expected.length; i++)
+            expected[i] = new ListBindingSet(new IVariable[] { x },
+                    new IConstant[] { new Constant<IV>(new XSDNumericIV(n - i
+                            - 1)) });
+
+        final BOpStats stats = runSort(newSortOp(
+                new ISortOrder[] { new SortOrder(x, false/* asc */) },
+                new NV(ParallelSortOp.Annotations.LIMIT, 10L)), data, expected);
+
+        assertEquals(n, stats.unitsIn.get());
+        assertEquals(10, stats.unitsOut.get());
+
+    }
+
+    /**
+     * Verify that the prefix keys never contradict the {@link IVComparator}.
+     */
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    public void testPrefixKeyConsistentWithComparator() {
+
+        final BigdataValueFactory f = BigdataValueFactoryImpl
+                .getInstance(getName());
+
+        final List<IV> ivs = new ArrayList<IV>();
+        ivs.add(null);
+        ivs.add(makeIV(f.createURI("http://a.org/x")));
+        ivs.add(makeIV(f.createURI("http://b.org/x")));
+        ivs.add(makeIV(f.createURI("urn:x")));
+        ivs.add(makeIV(f.createLiteral("abc")));
+        ivs.add(makeIV(f.createLiteral("abd")));
+        ivs.add(makeIV(f.createLiteral("")));
+        ivs.add(makeIV(f.createLiteral("abc", "en")));
+        ivs.add(makeIV(f.createLiteral("zzz", "de")));
+        ivs.add(makeIV(f.createLiteral(-12.5d)));
+        ivs.add(makeIV(f.createLiteral(3)));
+        ivs.add(new XSDNumericIV(-4));
+        ivs.add(new XSDNumericIV(0));
+        ivs.add(new XSDNumericIV(1000000L));
+        ivs.add(new XSDNumericIV(2.5f));
+        ivs.add(makeIV(f.createLiteral(true)));
+
+        final IVComparator c = new IVComparator();
+
+        for (IV a : ivs) {
+            for (IV b : ivs) {
+                final long ka = ParallelSortOp.prefixKey(a);
+                final long kb = ParallelSortOp.prefixKey(b);
+                if (ka < kb)
+                    assertTrue(a + " < " + b, c.compare(a, b) < 0);
+                if (ka > kb)
+                    assertTrue(a + " > " + b, c.compare(a, b) > 0);
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,257 @@
+/**
+
+Copyright (C) SYSTAP, LLC 2006-2015.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@systap.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+/*
+ * Created on Oct 17, 2026
+ */
+
+package com.bigdata.bop.solutions;
+
+import java.util.UUID;
+import java.util.concurrent.FutureTask;
+
+import junit.framework.TestCase2;
+
+import com.bigdata.bop.BOp;
+import com.bigdata.bop.BOpContext;
+import com.bigdata.bop.BOpEvaluationContext;
+import com.bigdata.bop.Bind;
+import com.bigdata.bop.Constant;
+import com.bigdata.bop.IBindingSet;
+import com.bigdata.bop.IConstant;
+import com.bigdata.bop.IQueryContext;
+import com.bigdata.bop.IVariable;
+import com.bigdata.bop.NV;
+import com.bigdata.bop.PipelineOp;
+import com.bigdata.bop.Var;
+import com.bigdata.bop.bindingSet.ListBindingSet;
+import com.bigdata.bop.engine.AbstractQueryEngineTestCase;
+import com.bigdata.bop.engine.BOpStats;
+import com.bigdata.bop.engine.BlockingBufferWithStats;
+import com.bigdata.bop.engine.IRunningQuery;
+import com.bigdata.bop.engine.MockRunningQuery;
+import com.bigdata.journal.ITx;
+import com.bigdata.rdf.internal.IV;
+import com.bigdata.rdf.internal.constraints.MathBOp;
+import com.bigdata.rdf.internal.impl.literal.XSDNumericIV;
+import com.bigdata.rdf.sparql.ast.GlobalAnnotations;
+import com.bigdata.relation.accesspath.IAsynchronousIterator;
+import com.bigdata.relation.accesspath.IBlockingBuffer;
+import com.bigdata.relation.accesspath.ThickAsynchronousIterator;
+
+/**
+ * Unit tests for the {@link TopKSortOp}.
+ */
+public class TestTopKSortOp extends TestCase2 {
+
+    public TestTopKSortOp() {
+    }
+
+    public TestTopKSortOp(String name) {
+        super(name);
+    }
+
+    private SortOp newSortOp(final ISortOrder<?>[] sors, final long limit) {
+
+        return new TopKSortOp(new BOp[] {}, NV.asMap(new NV[] {//
+                new NV(TopKSortOp.Annotations.BOP_ID, 1),//
+                new NV(TopKSortOp.Annotations.SORT_ORDER, sors),//
+                new NV(TopKSortOp.Annotations.VALUE_COMPARATOR,
+                        new IVComparator()),//
+                new NV(TopKSortOp.Annotations.EVALUATION_CONTEXT,
+                        BOpEvaluationContext.CONTROLLER),//
+                new NV(TopKSortOp.Annotations.MAX_PARALLEL, 1),//
+                new NV(PipelineOp.Annotations.REORDER_SOLUTIONS, false),//
+                new NV(TopKSortOp.Annotations.LAST_PASS, true),//
+                new NV(TopKSortOp.Annotations.LIMIT, limit),//
+        }));
+
+    }
+
+    /**
+     * Run the operator over the chunks and verify the solutions (in order).
+     */
+    private BOpStats runSort(final SortOp query, final IBindingSet[][] data,
+            final IBindingSet[] expected) {
+
+        final BOpStats stats = query.newStats();
+
+        final IAsynchronousIterator<IBindingSet[]> source = new ThickAsynchronousIterator<IBindingSet[]>(
+                data);
+
+        final IBlockingBuffer<IBindingSet[]> sink = new BlockingBufferWithStats<IBindingSet[]>(
+                query, stats);
+
+        final IQueryContext queryContext = new MockQueryContext(
+                UUID.randomUUID());
+
+        final IRunningQuery runningQuery = new MockRunningQuery(null/* fed */
+        , null/* indexManager */, queryContext);
+
+        final BOpContext<IBindingSet> context = new BOpContext<IBindingSet>(
+                runningQuery, -1/* partitionId */
+                , stats, query/* op */, true/* lastInvocation */, source, sink,
+                null/* sink2 */
+        );
+
+        final FutureTask<Void> ft = query.eval(context);
+        // Run the query.
+        {
+            final Thread t = new Thread() {
+                public void run() {
+                    ft.run();
+                }
+            };
+            t.setDaemon(true);
+            t.start();
+        }
+
+        // Check the solutions.
+        AbstractQueryEngineTestCase.assertSameSolutions(expected,
+                sink.iterator(), ft);
+
+        // The operator state was released.
+        assertNull(queryContext.getAttributes().get("1"));
+
+        return stats;
+
+    }
+
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    private IConstant<IV> num(final int i) {
+
+        return new Constant<IV>(new XSDNumericIV(i));
+
+    }
+
+    /**
+     * Top-K over several chunks with a tie broken by a second sort key.
+     */
+    @SuppressWarnings({ "rawtypes" })
+    public void testTopK() {
+
+        final IVariable<IV> x = Var.var("x");
+        final IVariable<IV> y = Var.var("y");
+
+        final ISortOrder<?> sors[] = new ISortOrder[] { //
+                new SortOrder(x, false/* asc */),//
+                new SortOrder(y, true/* asc */)//
+        };
+
+        final IBindingSet[][] data = new IBindingSet[][] {
+                new IBindingSet[] {
+                        new ListBindingSet(new IVariable[] { x, y },
+                                new IConstant[] { num(3), num(1) }),
+                        new ListBindingSet(new IVariable[] { x, y },
+                                new IConstant[] { num(9), num(2) }),
+                        new ListBindingSet(new IVariable[] { x, y },
+                                new IConstant[] { num(1), num(1) }), },
+                new IBindingSet[] {
+                        new ListBindingSet(new IVariable[] { x, y },
+                                new IConstant[] { num(9), num(1) }),
+                        new ListBindingSet(new IVariable[] { y },
+                                new IConstant[] { num(5) }),
+                        new ListBindingSet(new IVariable[] { x, y },
+                                new IConstant[] { num(7), num(1) }), } };
+
+        final IBindingSet[] expected = new IBindingSet[] {
+                new ListBindingSet(new IVariable[] { x, y }, new IConstant[] {
+                        num(9), num(1) }),
+                new ListBindingSet(new IVariable[] { x, y }, new IConstant[] {
+                        num(9), num(2) }),
+                new ListBindingSet(new IVariable[] { x, y }, new IConstant[] {
+                        num(7), num(1) }), };
+
+        final BOpStats stats = runSort(newSortOp(sors, 3L), data, expected);
+
+        assertEquals(2, stats.chunksIn.get());
+        assertEquals(6, stats.unitsIn.get());
+        assertEquals(3, stats.unitsOut.get());
+        assertEquals(1, stats.chunksOut.get());
+
+    }
+
+    /**
+     * A limit larger than the #of solutions is a full sort.
+     */
+    @SuppressWarnings({ "rawtypes" })
+    public void testLimitExceedsSolutions() {
+
+        final IVariable<IV> x = Var.var("x");
+
+        final ISortOrder<?> sors[] = new ISortOrder[] { new SortOrder(x,
+                true/* asc */) };
+
+        final IBindingSet[][] data = new IBindingSet[][] { new IBindingSet[] {
+                new ListBindingSet(new IVariable[] { x },
+                        new IConstant[] { num(2) }),
+                new ListBindingSet(new IVariable[] {}, new IConstant[] {}),
+                new ListBindingSet(new IVariable[] { x },
+                        new IConstant[] { num(1) }), } };
+
+        final IBindingSet[] expected = new IBindingSet[] {
+                new ListBindingSet(new IVariable[] {}, new IConstant[] {}),
+                new ListBindingSet(new IVariable[] { x },
+                        new IConstant[] { num(1) }),
+                new ListBindingSet(new IVariable[] { x },
+                        new IConstant[] { num(2) }), };
+
+        runSort(newSortOp(sors, 10L), data, expected);
+
+    }
+
+    /**
+     * A computed sort key is bound while sorting and dropped on output.
+     */
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    public void testComputedSortKey() {
+
+        final IVariable<IV> x = Var.var("x");
+        final IVariable<IV> y = Var.var("y");
+        final IVariable<IV> z = Var.var("z");
+
+        // ORDER BY DESC(?x - ?y)
+        final ISortOrder<?> sors[] = new ISortOrder[] { new SortOrder(
+                new Bind(z, new MathBOp(x, y, MathBOp.MathOp.MINUS,
+                        new GlobalAnnotations(getName(), ITx.READ_COMMITTED))),
+                false/* asc */) };
+
+        final IBindingSet[][] data = new IBindingSet[][] { new IBindingSet[] {
+                new ListBindingSet(new IVariable[] { x, y }, new IConstant[] {
+                        num(5), num(1) }),
+                new ListBindingSet(new IVariable[] { x, y }, new IConstant[] {
+                        num(9), num(8) }),
+                new ListBindingSet(new IVariable[] { x, y }, new IConstant[] {
+                        num(4), num(2) }), } };
+
+        final IBindingSet[] expected = new IBindingSet[] {
+                new ListBindingSet(new IVariable[] { x, y }, new IConstant[] {
+                        num(5), num(1) }),
+                new ListBindingSet(new IVariable[] { x, y }, new IConstant[] {
+                        num(4), num(2) }), };
+
+        runSort(newSortOp(sors, 2L), data, expected);
+
+    }
+
+}
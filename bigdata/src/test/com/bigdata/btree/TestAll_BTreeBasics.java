@@ -102,6 +102,13 @@ public class TestAll_BTreeBasics extends TestCase {
         suite.addTestSuite(TestIncrementalWrite.class);
         // test copy-on-write scenarios.
         suite.addTestSuite(TestCopyOnWrite.class);
+        // test key range comparison of two views.
+        suite.addTestSuite(TestBTreeRangeDiff.class);
+        suite.addTestSuite(TestBTreeBulkBuilder.class);
+        // test read ahead of children for range scans.
+        suite.addTestSuite(TestChildPrefetcher.class);
+        // test record level compression of nodes and leaves.
+        suite.addTestSuite(TestRecordCompression.class);
 
         /*
          * test with delete markers.
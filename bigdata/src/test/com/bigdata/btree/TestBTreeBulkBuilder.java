@@ -0,0 +1,298 @@
+/**
+
+Copyright (C) SYSTAP, LLC 2006-2015.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@systap.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+/*
+ * Created on Oct 17, 2026
+ */
+
+package com.bigdata.btree;
+
+import java.util.UUID;
+
+import com.bigdata.btree.keys.TestKeyBuilder;
+import com.bigdata.rawstore.IRawStore;
+import com.bigdata.rawstore.SimpleMemoryRawStore;
+
+/**
+ * Test suite for {@link BTreeBulkBuilder}.
+ */
+public class TestBTreeBulkBuilder extends AbstractBTreeTestCase {
+
+    public TestBTreeBulkBuilder() {
+    }
+
+    public TestBTreeBulkBuilder(String name) {
+        super(name);
+    }
+
+    private static byte[] k(final int i) {
+
+        return TestKeyBuilder.asSortKey(i);
+
+    }
+
+    /**
+     * Build a {@link BTree} bottom-up from the keys <code>[0:n)</code> (the
+     * value of each tuple is its key).
+     */
+    private static BTree bulkBuild(final IRawStore store,
+            final IndexMetadata metadata, final int n) {
+
+        final BTreeBulkBuilder builder = new BTreeBulkBuilder(store, metadata,
+                n);
+
+        for (int i = 0; i < n; i++) {
+
+            builder.add(k(i), k(i));
+
+        }
+
+        return builder.build();
+
+    }
+
+    /**
+     * An empty tree may be built and then written on.
+     */
+    public void test_emptyTree() {
+
+        final IRawStore store = new SimpleMemoryRawStore();
+
+        final BTree btree = bulkBuild(store, new IndexMetadata(UUID
+                .randomUUID()), 0);
+
+        assertEquals(0L, btree.getEntryCount());
+
+        btree.insert(k(1), k(1));
+
+        assertEquals(1L, btree.getEntryCount());
+
+    }
+
+    /**
+     * The bulk built tree has the same data as a tree populated by incremental
+     * inserts and has the shape given by the {@link IndexSegmentPlan}.
+     */
+    public void test_sameData() {
+
+        final int[] branchingFactors = new int[] { 3, 4, 5, 16 };
+
+        final int[] sizes = new int[] { 1, 2, 3, 4, 5, 10, 17, 100, 1000 };
+
+        for (int m : branchingFactors) {
+
+            for (int n : sizes) {
+
+                final IRawStore store = new SimpleMemoryRawStore();
+
+                final IndexMetadata metadata = new IndexMetadata(UUID
+                        .randomUUID());
+
+                metadata.setBranchingFactor(m);
+
+                final BTree expected = BTree.create(store, metadata.clone());
+
+                for (int i = 0; i < n; i++) {
+
+                    expected.insert(k(i), k(i));
+
+                }
+
+                final BTree actual = bulkBuild(store, metadata, n);
+
+                final IndexSegmentPlan plan = new IndexSegmentPlan(m, n);
+
+                assertEquals("height", plan.height, actual.getHeight());
+                assertEquals("nleaves", plan.nleaves, actual.getLeafCount());
+                assertEquals("nnodes", plan.nnodes, actual.getNodeCount());
+                assertEquals("nentries", n, actual.getEntryCount());
+
+                assertTrue(actual.dump(System.err));
+
+                assertSameBTree(expected, actual);
+
+            }
+
+        }
+
+    }
+
+    /**
+     * The bulk built tree is mutable and restart safe.
+     */
+    public void test_mutableAndReload() {
+
+        final IRawStore store = new SimpleMemoryRawStore();
+
+        final IndexMetadata metadata = new IndexMetadata(UUID.randomUUID());
+
+        metadata.setBranchingFactor(4);
+
+        final BTree btree = bulkBuild(store, metadata, 100);
+
+        // reload from the first checkpoint.
+        {
+            final BTree tmp = BTree.load(store, btree.getCheckpoint()
+                    .getCheckpointAddr(), true/* readOnly */);
+
+            assertEquals(100L, tmp.getEntryCount());
+
+            assertEquals(k(50), tmp.lookup(k(50)));
+
+        }
+
+        // remove and insert, forcing joins and splits.
+        for (int i = 0; i < 100; i += 2) {
+
+            assertEquals(k(i), btree.remove(k(i)));
+
+        }
+
+        for (int i = 100; i < 150; i++) {
+
+            btree.insert(k(i), k(i));
+
+        }
+
+        assertTrue(btree.dump(System.err));
+
+        final long addr = btree.writeCheckpoint();
+
+        final BTree tmp = BTree.load(store, addr, true/* readOnly */);
+
+        assertEquals(100L, tmp.getEntryCount());
+
+        assertNull(tmp.lookup(k(50)));
+
+        assertEquals(k(51), tmp.lookup(k(51)));
+
+        assertEquals(k(149), tmp.lookup(k(149)));
+
+    }
+
+    /**
+     * The bloom filter is populated when one is configured.
+     */
+    public void test_bloomFilter() {
+
+        final IRawStore store = new SimpleMemoryRawStore();
+
+        final IndexMetadata metadata = new IndexMetadata(UUID.randomUUID());
+
+        metadata.setBloomFilterFactory(new BloomFilterFactory(10000/* n */));
+
+        final BTree btree = bulkBuild(store, metadata, 1000);
+
+        assertTrue(btree.getCheckpoint().getBloomFilterAddr() != 0L);
+
+        for (int i = 0; i < 1000; i++) {
+
+            assertTrue(btree.contains(k(i)));
+
+        }
+
+        assertFalse(btree.contains(k(1000)));
+
+    }
+
+    /**
+     * Keys must be presented in strictly ascending order.
+     */
+    public void test_keysOutOfOrder() {
+
+        final BTreeBulkBuilder builder = new BTreeBulkBuilder(
+                new SimpleMemoryRawStore(), new IndexMetadata(UUID
+                        .randomUUID()), 3);
+
+        builder.add(k(2), null);
+
+        try {
+            builder.add(k(1), null);
+            fail("Expecting: " + IllegalArgumentException.class);
+        } catch (IllegalArgumentException ex) {
+            if (log.isInfoEnabled())
+                log.info("Ignoring expected exception: " + ex);
+        }
+
+        try {
+            builder.add(k(2), null);
+            fail("Expecting: " + IllegalArgumentException.class);
+        } catch (IllegalArgumentException ex) {
+            if (log.isInfoEnabled())
+                log.info("Ignoring expected exception: " + ex);
+        }
+
+    }
+
+    /**
+     * The #of tuples must agree with the #of tuples declared to the
+     * constructor.
+     */
+    public void test_wrongTupleCount() {
+
+        final BTreeBulkBuilder builder = new BTreeBulkBuilder(
+                new SimpleMemoryRawStore(), new IndexMetadata(UUID
+                        .randomUUID()), 2);
+
+        builder.add(k(1), null);
+
+        try {
+            builder.build();
+            fail("Expecting: " + IllegalStateException.class);
+        } catch (IllegalStateException ex) {
+            if (log.isInfoEnabled())
+                log.info("Ignoring expected exception: " + ex);
+        }
+
+        builder.add(k(2), null);
+
+        try {
+            builder.add(k(3), null);
+            fail("Expecting: " + IllegalStateException.class);
+        } catch (IllegalStateException ex) {
+            if (log.isInfoEnabled())
+                log.info("Ignoring expected exception: " + ex);
+        }
+
+    }
+
+    /**
+     * Delete markers are not supported.
+     */
+    public void test_deleteMarkersNotSupported() {
+
+        final IndexMetadata metadata = new IndexMetadata(UUID.randomUUID());
+
+        metadata.setDeleteMarkers(true);
+
+        try {
+            new BTreeBulkBuilder(new SimpleMemoryRawStore(), metadata, 1);
+            fail("Expecting: " + UnsupportedOperationException.class);
+        } catch (UnsupportedOperationException ex) {
+            if (log.isInfoEnabled())
+                log.info("Ignoring expected exception: " + ex);
+        }
+
+    }
+
+}
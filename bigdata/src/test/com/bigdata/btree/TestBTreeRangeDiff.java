@@ -0,0 +1,126 @@
+/**
+
+Copyright (C) SYSTAP, LLC 2006-2015.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@systap.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+/*
+ * Created on Oct 17, 2026
+ */
+
+package com.bigdata.btree;
+
+import java.util.UUID;
+
+import junit.framework.TestCase2;
+
+import com.bigdata.btree.keys.TestKeyBuilder;
+import com.bigdata.rawstore.IRawStore;
+import com.bigdata.rawstore.SimpleMemoryRawStore;
+
+/**
+ * Test suite for {@link BTreeRangeDiff}.
+ */
+public class TestBTreeRangeDiff extends TestCase2 {
+
+    public TestBTreeRangeDiff() {
+    }
+
+    public TestBTreeRangeDiff(String name) {
+        super(name);
+    }
+
+    private static byte[] k(final int i) {
+
+        return TestKeyBuilder.asSortKey(i);
+
+    }
+
+    /**
+     * Write a checkpoint and return a read-only view of that checkpoint.
+     */
+    private static BTree checkpoint(final IRawStore store, final BTree btree) {
+
+        final long addr = btree.writeCheckpoint();
+
+        return BTree.load(store, addr, true/* readOnly */);
+
+    }
+
+    /**
+     * Changes are reported iff they fall within the key range, including when
+     * the structure of the B+Tree changes between the two views.
+     */
+    public void test_rangeDiff() {
+
+        final IRawStore store = new SimpleMemoryRawStore();
+
+        final IndexMetadata metadata = new IndexMetadata(UUID.randomUUID());
+
+        metadata.setBranchingFactor(4);
+
+        final BTree btree = BTree.create(store, metadata);
+
+        for (int i = 0; i < 200; i += 2) {
+
+            btree.insert(k(i), k(i));
+
+        }
+
+        final BTree v1 = checkpoint(store, btree);
+
+        // Nothing changed.
+        final BTree v2 = checkpoint(store, btree);
+        assertTrue(BTreeRangeDiff.isUnchanged(v1, v2, null, null));
+
+        // Overwrite one value.
+        btree.insert(k(50), k(-50));
+        final BTree v3 = checkpoint(store, btree);
+        assertFalse(BTreeRangeDiff.isUnchanged(v2, v3, null, null));
+        assertFalse(BTreeRangeDiff.isUnchanged(v2, v3, k(40), k(60)));
+        assertFalse(BTreeRangeDiff.isUnchanged(v2, v3, k(50), k(51)));
+        assertTrue(BTreeRangeDiff.isUnchanged(v2, v3, k(0), k(50)));
+        assertTrue(BTreeRangeDiff.isUnchanged(v2, v3, k(51), null));
+
+        // Insert keys which cause splits in the range [100:120).
+        for (int i = 101; i < 120; i += 2) {
+
+            btree.insert(k(i), k(i));
+
+        }
+        final BTree v4 = checkpoint(store, btree);
+        assertFalse(BTreeRangeDiff.isUnchanged(v3, v4, k(100), k(120)));
+        assertTrue(BTreeRangeDiff.isUnchanged(v3, v4, null, k(101)));
+        assertTrue(BTreeRangeDiff.isUnchanged(v3, v4, k(120), null));
+
+        // Remove a key.
+        btree.remove(k(10));
+        final BTree v5 = checkpoint(store, btree);
+        assertFalse(BTreeRangeDiff.isUnchanged(v4, v5, k(0), k(20)));
+        assertTrue(BTreeRangeDiff.isUnchanged(v4, v5, k(11), null));
+
+        // Compare across several checkpoints.
+        assertFalse(BTreeRangeDiff.isUnchanged(v1, v5, null, null));
+        assertTrue(BTreeRangeDiff.isUnchanged(v1, v5, k(20), k(50)));
+        assertTrue(BTreeRangeDiff.isUnchanged(v1, v5, k(120), null));
+
+    }
+
+}
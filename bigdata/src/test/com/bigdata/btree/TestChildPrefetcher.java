@@ -0,0 +1,190 @@
+/**
+
+Copyright (C) SYSTAP, LLC 2006-2015.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@systap.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+/*
+ * Created on Oct 17, 2026
+ */
+
+package com.bigdata.btree;
+
+import java.util.UUID;
+
+import junit.framework.TestCase2;
+
+import com.bigdata.btree.data.IAbstractNodeData;
+import com.bigdata.btree.keys.TestKeyBuilder;
+import com.bigdata.rawstore.IRawStore;
+import com.bigdata.rawstore.SimpleMemoryRawStore;
+
+/**
+ * Test suite for {@link ChildPrefetcher}.
+ */
+public class TestChildPrefetcher extends TestCase2 {
+
+    public TestChildPrefetcher() {
+    }
+
+    public TestChildPrefetcher(String name) {
+        super(name);
+    }
+
+    private static byte[] k(final int i) {
+
+        return TestKeyBuilder.asSortKey(i);
+
+    }
+
+    /**
+     * Return a read-only view of a B+Tree with several levels.
+     */
+    private static BTree newReadOnlyBTree(final IRawStore store) {
+
+        final IndexMetadata metadata = new IndexMetadata(UUID.randomUUID());
+
+        metadata.setBranchingFactor(4);
+
+        final BTree btree = BTree.create(store, metadata);
+
+        for (int i = 0; i < 100; i++) {
+
+            btree.insert(k(i), k(i));
+
+        }
+
+        final long addr = btree.writeCheckpoint();
+
+        return BTree.load(store, addr, true/* readOnly */);
+
+    }
+
+    /**
+     * Prefetch is disabled by default and is never used for a mutable B+Tree.
+     */
+    public void test_disabledByDefault() {
+
+        final IRawStore store = new SimpleMemoryRawStore();
+
+        try {
+
+            if (ChildPrefetcher.DEPTH == 0) {
+
+                assertNull(newReadOnlyBTree(store).prefetcher);
+
+            }
+
+            assertNull(BTree.create(store,
+                    new IndexMetadata(UUID.randomUUID())).prefetcher);
+
+        } finally {
+
+            store.destroy();
+
+        }
+
+    }
+
+    /**
+     * A prefetched record is consumed exactly once and has the same data as
+     * the record read directly from the store.
+     */
+    public void test_prefetchTake() {
+
+        final IRawStore store = new SimpleMemoryRawStore();
+
+        try {
+
+            final BTree btree = newReadOnlyBTree(store);
+
+            final ChildPrefetcher prefetcher = new ChildPrefetcher(btree,
+                    4/* depth */);
+
+            final Node root = (Node) btree.getRoot();
+
+            final long addr = root.getChildAddr(1);
+
+            // Nothing was read ahead.
+            assertNull(prefetcher.take(addr));
+
+            prefetcher.prefetch(addr);
+
+            // Duplicate requests are ignored.
+            prefetcher.prefetch(addr);
+
+            assertEquals(1L, prefetcher.nprefetch.get());
+
+            final IAbstractNodeData data = prefetcher.take(addr);
+
+            assertNotNull(data);
+
+            assertEquals(1L, prefetcher.nhits.get());
+
+            // Consumed.
+            assertNull(prefetcher.take(addr));
+
+            final IAbstractNodeData expected = btree.readNodeData(addr);
+
+            assertEquals(expected.isLeaf(), data.isLeaf());
+
+            assertEquals(expected.data().toByteArray(), data.data()
+                    .toByteArray());
+
+        } finally {
+
+            store.destroy();
+
+        }
+
+    }
+
+    /**
+     * Records which were read ahead but never consumed are discarded by
+     * {@link ChildPrefetcher#clear()}.
+     */
+    public void test_clear() {
+
+        final IRawStore store = new SimpleMemoryRawStore();
+
+        try {
+
+            final BTree btree = newReadOnlyBTree(store);
+
+            final ChildPrefetcher prefetcher = new ChildPrefetcher(btree,
+                    4/* depth */);
+
+            final Node root = (Node) btree.getRoot();
+
+            prefetcher.prefetch(root.getChildAddr(0));
+
+            prefetcher.clear();
+
+            assertNull(prefetcher.take(root.getChildAddr(0)));
+
+        } finally {
+
+            store.destroy();
+
+        }
+
+    }
+
+}
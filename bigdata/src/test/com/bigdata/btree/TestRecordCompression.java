@@ -0,0 +1,181 @@
+/**
+
+Copyright (C) SYSTAP, LLC 2006-2015.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@systap.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+/*
+ * Created on Oct 17, 2026
+ */
+
+package com.bigdata.btree;
+
+import java.nio.ByteBuffer;
+import java.util.UUID;
+
+import junit.framework.TestCase2;
+
+import com.bigdata.btree.keys.TestKeyBuilder;
+import com.bigdata.io.compression.DefaultRecordCompressorFactory;
+import com.bigdata.rawstore.IRawStore;
+import com.bigdata.rawstore.SimpleMemoryRawStore;
+
+/**
+ * Test suite for record level compression of the nodes and leaves of a
+ * {@link BTree}.
+ * 
+ * @see IndexMetadata.Options#BTREE_RECORD_COMPRESSOR_FACTORY
+ */
+public class TestRecordCompression extends TestCase2 {
+
+    public TestRecordCompression() {
+    }
+
+    public TestRecordCompression(String name) {
+        super(name);
+    }
+
+    private static byte[] k(final int i) {
+
+        return TestKeyBuilder.asSortKey(i);
+
+    }
+
+    /**
+     * A value which compresses well.
+     */
+    private static byte[] v(final int i) {
+
+        final byte[] v = new byte[64];
+
+        v[0] = (byte) i;
+
+        return v;
+
+    }
+
+    private static BTree newBTree(final IRawStore store,
+            final boolean compress) {
+
+        final IndexMetadata metadata = new IndexMetadata(UUID.randomUUID());
+
+        metadata.setBranchingFactor(32);
+
+        if (compress) {
+
+            metadata.setBtreeRecordCompressorFactory(DefaultRecordCompressorFactory.BEST_SPEED);
+
+        }
+
+        final BTree btree = BTree.create(store, metadata);
+
+        for (int i = 0; i < 1000; i++) {
+
+            btree.insert(k(i), v(i));
+
+        }
+
+        return BTree.load(store, btree.writeCheckpoint(), true/* readOnly */);
+
+    }
+
+    private static AbstractNode<?> firstLeaf(final BTree btree) {
+
+        AbstractNode<?> node = btree.getRoot();
+
+        while (!node.isLeaf()) {
+
+            node = ((Node) node).getChild(0);
+
+        }
+
+        return node;
+
+    }
+
+    /**
+     * The records are written compressed, read back correctly, and the
+     * compression is reported by the {@link BTreePageStats}.
+     */
+    public void test_compressedRecords() {
+
+        final IRawStore store = new SimpleMemoryRawStore();
+
+        try {
+
+            final BTree btree = newBTree(store, true/* compress */);
+
+            for (int i = 0; i < 1000; i++) {
+
+                assertEquals(v(i), btree.lookup(k(i)));
+
+            }
+
+            // The first leaf was written as a compressed record.
+            final ByteBuffer b = store.read(firstLeaf(btree).getIdentity());
+
+            assertEquals(NodeSerializer.TYPE_COMPRESSED, b.get(0));
+
+            final BTreePageStats stats = (BTreePageStats) btree
+                    .dumpPages(true/* recursive */);
+
+            assertTrue(stats.leafBytes < stats.leafCodedBytes);
+
+            assertTrue(stats.getCompressionRatio() < 1d);
+
+        } finally {
+
+            store.destroy();
+
+        }
+
+    }
+
+    /**
+     * Without a record compressor the records are written as coded.
+     */
+    public void test_uncompressedRecords() {
+
+        final IRawStore store = new SimpleMemoryRawStore();
+
+        try {
+
+            final BTree btree = newBTree(store, false/* compress */);
+
+            final ByteBuffer b = store.read(firstLeaf(btree).getIdentity());
+
+            assertFalse(NodeSerializer.TYPE_COMPRESSED == b.get(0));
+
+            final BTreePageStats stats = (BTreePageStats) btree
+                    .dumpPages(true/* recursive */);
+
+            assertEquals(stats.leafBytes, stats.leafCodedBytes);
+
+            assertEquals(1d, stats.getCompressionRatio());
+
+        } finally {
+
+            store.destroy();
+
+        }
+
+    }
+
+}
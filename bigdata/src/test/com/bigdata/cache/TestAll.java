@@ -87,6 +87,9 @@ public class TestAll extends TestCase {
 
         suite.addTestSuite(TestHardReferenceGlobalLRURecyclerExplicitDeleteRequired.class);
 
+        // scan resistant (W-TinyLFU) admission policy.
+        suite.addTestSuite(TestWTinyLFUGlobalLRU.class);
+
         /*
          * A high concurrency cache based on the infinispan project w/o support
          * for memory cap. This implementation has the disadvantage that we can
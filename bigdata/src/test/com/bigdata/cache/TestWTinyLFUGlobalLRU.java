@@ -0,0 +1,155 @@
+/**
+
+Copyright (C) SYSTAP, LLC 2006-2015.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@systap.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+/*
+ * Created on Oct 17, 2026
+ */
+
+package com.bigdata.cache;
+
+import com.bigdata.cache.IGlobalLRU.ILRUCache;
+import com.bigdata.rawstore.Bytes;
+
+/**
+ * Some unit tests for the {@link WTinyLFUGlobalLRU}.
+ */
+public class TestWTinyLFUGlobalLRU extends AbstractHardReferenceGlobalLRUTest {
+
+    public TestWTinyLFUGlobalLRU() {
+    }
+
+    public TestWTinyLFUGlobalLRU(String name) {
+        super(name);
+    }
+
+    protected void setUp() throws Exception {
+
+        super.setUp();
+
+        final long maximumBytesInMemory = 10 * Bytes.kilobyte;
+
+        final int minimumCacheSetCapacity = 0;
+
+        final int initialCacheCapacity = 16;
+
+        final float loadFactor = .75f;
+
+        lru = new WTinyLFUGlobalLRU<Long, Object>(maximumBytesInMemory,
+                minimumCacheSetCapacity, initialCacheCapacity, loadFactor);
+
+    }
+
+    /**
+     * Read a record through the cache in the same manner as the B+Tree.
+     */
+    private static void read(final ILRUCache<Long, Object> cache,
+            final long addr) {
+
+        if (cache.get(addr) == null) {
+
+            cache.putIfAbsent(addr, new MockDataRecord(new byte[100]));
+
+        }
+
+    }
+
+    /**
+     * Frequently used records survive a scan over many more records than the
+     * cache can hold, which would flush them from an LRU cache.
+     */
+    public void test_scanResistance() {
+
+        final ILRUCache<Long, Object> cache = lru.getCache(store1.getUUID(),
+                am1);
+
+        final int nhot = 20;
+
+        // read the hot records several times.
+        for (int pass = 0; pass < 4; pass++) {
+
+            for (long i = 0; i < nhot; i++) {
+
+                read(cache, i);
+
+            }
+
+        }
+
+        // a scan which reads each of many records once.
+        for (long i = 1000; i < 2000; i++) {
+
+            read(cache, i);
+
+        }
+
+        assertTrue(lru.getEvictionCount() > 0);
+
+        assertTrue(lru.getBytesInMemory() <= lru.getMaximumBytesInMemory());
+
+        for (long i = 0; i < nhot; i++) {
+
+            assertNotNull("addr=" + i, cache.get(i));
+
+        }
+
+        assertTrue(((WTinyLFUGlobalLRU<Long, Object>) lru).getRejectionCount() > 0);
+
+    }
+
+    /**
+     * The sketch counts recent accesses and ages its counters.
+     */
+    public void test_frequencySketch() {
+
+        final WTinyLFUGlobalLRU.FrequencySketch sketch = new WTinyLFUGlobalLRU.FrequencySketch(
+                1024);
+
+        assertEquals(0, sketch.frequency(12));
+
+        sketch.increment(12);
+        sketch.increment(12);
+        sketch.increment(12);
+
+        assertEquals(3, sketch.frequency(12));
+
+        // saturates.
+        for (int i = 0; i < 100; i++) {
+            sketch.increment(7);
+        }
+
+        assertEquals(15, sketch.frequency(7));
+
+        // many other accesses age the counters.
+        for (int i = 0; i < 10 * 1024; i++) {
+            sketch.increment(100000 + i);
+        }
+
+        assertTrue(sketch.frequency(7) < 15);
+
+        sketch.clear();
+
+        assertEquals(0, sketch.frequency(7));
+
+    }
+
+}
@@ -143,6 +143,58 @@ public class TestHASendAndReceive extends AbstractHASendAndReceiveTestCase {
 
     }
 
+    /**
+     * Verify that the in-flight counters of the {@link HASendService} return
+     * to zero once the sends are done and that the sent counters reflect the
+     * total payload.
+     * 
+     * @throws TimeoutException
+     * @throws ExecutionException
+     * @throws InterruptedException
+     * @throws ImmediateDownstreamReplicationException
+     */
+    public void testCounters() throws TimeoutException, InterruptedException,
+            ExecutionException, ImmediateDownstreamReplicationException {
+
+        final long timeout = 5000; // ms
+
+        assertEquals(0, sendService.getSendsInFlight());
+        assertEquals(0L, sendService.getBytesInFlight());
+        assertEquals(0L, sendService.getSendCount());
+        assertEquals(0L, sendService.getBytesSent());
+
+        final int nsends = 20;
+        long nbytes = 0L;
+        for (int i = 0; i < nsends; i++) {
+            final int sze = 1 + r.nextInt(100000);
+            final ByteBuffer tst = getRandomData(sze);
+            final HAMessageWrapper msg = newHAWriteMessage(sze, tst);
+            final ByteBuffer rcv = ByteBuffer.allocate(sze);
+            final Future<Void> futRec = receiveService.receiveData(msg, rcv);
+            final Future<Void> futSnd = sendService.send(tst, msg.getMarker());
+            futSnd.get(timeout, TimeUnit.MILLISECONDS);
+            futRec.get(timeout, TimeUnit.MILLISECONDS);
+            assertEquals(tst, rcv);
+            nbytes += sze;
+        }
+
+        /*
+         * Note: FutureTask.done() runs after the waiters are released, so the
+         * in-flight counters are not necessarily decremented yet.
+         */
+        assertCondition(new Runnable() {
+            @Override
+            public void run() {
+                assertEquals(0, sendService.getSendsInFlight());
+                assertEquals(0L, sendService.getBytesInFlight());
+            }
+        }, timeout, TimeUnit.MILLISECONDS);
+
+        assertEquals(nsends, sendService.getSendCount());
+        assertEquals(nbytes, sendService.getBytesSent());
+
+    }
+
     /**
      * Sends a large number of random buffers, confirming successful
      * transmission.
@@ -72,6 +72,9 @@ public class TestAll extends TestCase {
         suite.addTestSuite(TestRecordCompressor_BestSpeed.class);
 
         suite.addTestSuite(TestRecordCompressor_BestCompression.class);
+
+        // tests for block parallel GZIP files.
+        suite.addTestSuite(TestBlockGZIP.class);
         
         // Test suite for message compression.
         suite.addTestSuite(TestCompressorRegistry.class);
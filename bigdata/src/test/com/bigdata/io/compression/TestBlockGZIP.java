@@ -0,0 +1,286 @@
+/**
+
+Copyright (C) SYSTAP, LLC 2006-2015.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@systap.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+/*
+ * Created on Oct 17, 2026
+ */
+
+package com.bigdata.io.compression;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.security.MessageDigest;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import junit.framework.TestCase2;
+
+import com.bigdata.util.concurrent.DaemonThreadFactory;
+
+/**
+ * Test suite for the {@link BlockGZIPOutputStream} and the
+ * {@link BlockGZIPReader}.
+ */
+public class TestBlockGZIP extends TestCase2 {
+
+    public TestBlockGZIP() {
+    }
+
+    public TestBlockGZIP(String name) {
+        super(name);
+    }
+
+    private ExecutorService executor;
+
+    private File src, dst;
+
+    @Override
+    protected void setUp() throws Exception {
+
+        super.setUp();
+
+        executor = Executors.newFixedThreadPool(4, new DaemonThreadFactory(
+                getName()));
+
+        src = File.createTempFile(getName(), ".gz");
+
+        dst = File.createTempFile(getName(), ".out");
+
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+
+        if (executor != null)
+            executor.shutdownNow();
+
+        if (src != null)
+            src.delete();
+
+        if (dst != null)
+            dst.delete();
+
+        super.tearDown();
+
+    }
+
+    /**
+     * Data which is partly compressible.
+     */
+    private static byte[] getData(final int len) {
+
+        final Random r = new Random(len);
+
+        final byte[] a = new byte[len];
+
+        for (int i = 0; i < len; i++) {
+
+            a[i] = (byte) (i % 7 == 0 ? r.nextInt() : i % 31);
+
+        }
+
+        return a;
+
+    }
+
+    private void writeBlocks(final byte[] data, final int blockSize)
+            throws IOException {
+
+        final OutputStream os = new BlockGZIPOutputStream(
+                new FileOutputStream(src), executor, 3/* nparallel */,
+                blockSize, Deflater.BEST_SPEED);
+
+        try {
+
+            // Write in odd sized chunks to cross the block boundaries.
+            for (int off = 0; off < data.length; off += 1001) {
+
+                os.write(data, off, Math.min(1001, data.length - off));
+
+            }
+
+        } finally {
+
+            os.close();
+
+        }
+
+    }
+
+    private static byte[] readFully(final InputStream is) throws IOException {
+
+        try {
+
+            final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+
+            final byte[] buf = new byte[1024];
+
+            int n;
+
+            while ((n = is.read(buf)) != -1) {
+
+                baos.write(buf, 0, n);
+
+            }
+
+            return baos.toByteArray();
+
+        } finally {
+
+            is.close();
+
+        }
+
+    }
+
+    private void doRoundTrip(final byte[] data, final int blockSize)
+            throws Exception {
+
+        writeBlocks(data, blockSize);
+
+        // The members are found from their headers.
+        {
+            final RandomAccessFile raf = new RandomAccessFile(
+                    src, "r");
+            try {
+                assertEquals(Math.max(1, (data.length + blockSize - 1)
+                        / blockSize), BlockGZIPReader.readIndex(
+                        raf.getChannel()).size());
+            } finally {
+                raf.close();
+            }
+        }
+
+        // Readable as a GZIP stream.
+        assertEquals(data, readFully(new GZIPInputStream(new FileInputStream(
+                src))));
+
+        // Parallel decompression.
+        BlockGZIPReader.decompress(src, dst, executor, 3/* nparallel */);
+
+        assertEquals(data, readFully(new FileInputStream(dst)));
+
+        // Parallel digest.
+        final MessageDigest expected = MessageDigest.getInstance("MD5");
+
+        expected.update(data);
+
+        final MessageDigest actual = MessageDigest.getInstance("MD5");
+
+        BlockGZIPReader.digest(src, actual, executor, 3/* nparallel */);
+
+        assertEquals(expected.digest(), actual.digest());
+
+    }
+
+    public void test_roundTrip() throws Exception {
+
+        doRoundTrip(getData(100000), 8192/* blockSize */);
+
+    }
+
+    public void test_roundTrip_exactBlocks() throws Exception {
+
+        doRoundTrip(getData(8192 * 4), 8192/* blockSize */);
+
+    }
+
+    public void test_roundTrip_empty() throws Exception {
+
+        doRoundTrip(new byte[0], 8192/* blockSize */);
+
+    }
+
+    /**
+     * A file written by a {@link GZIPOutputStream} is processed sequentially.
+     */
+    public void test_sequentialFallback() throws Exception {
+
+        final byte[] data = getData(50000);
+
+        final OutputStream os = new GZIPOutputStream(new FileOutputStream(src));
+
+        try {
+            os.write(data);
+        } finally {
+            os.close();
+        }
+
+        BlockGZIPReader.decompress(src, dst, executor, 3/* nparallel */);
+
+        assertEquals(data, readFully(new FileInputStream(dst)));
+
+        final MessageDigest expected = MessageDigest.getInstance("MD5");
+
+        expected.update(data);
+
+        final MessageDigest actual = MessageDigest.getInstance("MD5");
+
+        BlockGZIPReader.digest(src, actual, executor, 3/* nparallel */);
+
+        assertEquals(expected.digest(), actual.digest());
+
+    }
+
+    /**
+     * A corrupt member is detected.
+     */
+    public void test_corruptMember() throws Exception {
+
+        writeBlocks(getData(100000), 8192/* blockSize */);
+
+        final RandomAccessFile raf = new RandomAccessFile(src,
+                "rw");
+
+        try {
+            // Flip a byte in the compressed data of the first member.
+            raf.seek(BlockGZIPOutputStream.HEADER_SIZE + 10);
+            final int b = raf.read();
+            raf.seek(BlockGZIPOutputStream.HEADER_SIZE + 10);
+            raf.write(~b);
+        } finally {
+            raf.close();
+        }
+
+        try {
+            BlockGZIPReader.digest(src, MessageDigest.getInstance("MD5"),
+                    executor, 3/* nparallel */);
+            fail("Expecting: " + IOException.class);
+        } catch (IOException ex) {
+            if (log.isInfoEnabled())
+                log.info("Ignoring expected exception: " + ex);
+        }
+
+    }
+
+}
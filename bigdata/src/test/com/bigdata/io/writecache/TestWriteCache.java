@@ -34,15 +34,18 @@ import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
 import java.util.ArrayList;
 import java.util.Random;
+import java.util.UUID;
 import java.util.concurrent.atomic.AtomicLong;
 
 import junit.framework.AssertionFailedError;
 
+import com.bigdata.ha.msg.IHAWriteMessage;
 import com.bigdata.io.DirectBufferPool;
 import com.bigdata.io.FileChannelUtility;
 import com.bigdata.io.IBufferAccess;
 import com.bigdata.io.IReopenChannel;
 import com.bigdata.io.TestCase3;
+import com.bigdata.io.compression.CompressorRegistry;
 import com.bigdata.io.writecache.WriteCache;
 import com.bigdata.rawstore.Bytes;
 import com.bigdata.util.ChecksumError;
@@ -147,6 +150,124 @@ public class TestWriteCache extends TestCase3 {
         }
     }
 
+    /**
+     * Verify the {@link WriteCache.HAPackage} which is replicated to the
+     * followers when a compressor is configured. A block which does not shrink
+     * is sent as is with a <code>null</code> compressor key, while a block
+     * which does shrink is sent compressed. In both cases the payload which
+     * the follower expands is byte identical to the block.
+     */
+    public void test_newHAPackage() throws IOException, InterruptedException {
+
+        final File file = File.createTempFile(getName(), ".tmp");
+
+        final ReopenFileChannel opener = new ReopenFileChannel(file, mode);
+
+        final IBufferAccess buf = DirectBufferPool.INSTANCE.acquire();
+
+        try {
+
+            final WriteCache writeCache = new WriteCache.FileChannelWriteCache(
+                    0, buf, true/* useChecksum */, true/* isHighlyAvailable */,
+                    false/* bufferHasData */, opener, 0L/* fileExtent */) {
+
+                @Override
+                protected String getCompressorKey() {
+
+                    return CompressorRegistry.DEFLATE_BEST_SPEED;
+
+                }
+
+            };
+
+            try {
+
+                final ByteBuffer checksumBuffer = ByteBuffer
+                        .allocate(DirectBufferPool.INSTANCE.getBufferCapacity());
+
+                // Random data does not compress.
+                final ByteBuffer data1 = getRandomData(8192);
+                final int chk1 = ChecksumUtility.threadChk.get().checksum(
+                        data1, 0/* offset */, data1.limit());
+
+                writeCache.write(0L/* offset */, data1, chk1);
+
+                assertHAPackage(writeCache, checksumBuffer, false/* compressed */);
+
+                writeCache.reset();
+
+                // Zeros compress.
+                final ByteBuffer data2 = ByteBuffer.allocate(8192);
+                final int chk2 = ChecksumUtility.threadChk.get().checksum(
+                        data2, 0/* offset */, data2.limit());
+
+                writeCache.write(0L/* offset */, data2, chk2);
+
+                assertHAPackage(writeCache, checksumBuffer, true/* compressed */);
+
+            } finally {
+
+                writeCache.close();
+
+            }
+
+        } finally {
+
+            buf.release();
+
+            opener.destroy();
+
+        }
+
+    }
+
+    /**
+     * Build the {@link WriteCache.HAPackage} for the current block and verify
+     * the compressor key and the payload as expanded by a follower.
+     */
+    private void assertHAPackage(final WriteCache writeCache,
+            final ByteBuffer checksumBuffer, final boolean compressed) {
+
+        // A copy of the block.
+        final byte[] expected;
+        {
+            final ByteBuffer b = writeCache.peek().duplicate();
+            b.flip();
+            expected = new byte[b.remaining()];
+            b.get(expected);
+        }
+
+        final WriteCache.HAPackage pkg = writeCache.newHAPackage(
+                UUID.randomUUID(), 0L/* quorumToken */,
+                0L/* lastCommitCounter */, 0L/* lastCommitTime */,
+                0L/* sequence */, 3/* replicationFactor */, checksumBuffer);
+
+        final IHAWriteMessage msg = pkg.getMessage();
+
+        final ByteBuffer data = pkg.getData();
+
+        assertEquals(data.limit(), msg.getSize());
+
+        if (compressed) {
+
+            assertEquals(CompressorRegistry.DEFLATE_BEST_SPEED,
+                    msg.getCompressorKey());
+
+            assertTrue(data.limit() < expected.length);
+
+        } else {
+
+            assertNull(msg.getCompressorKey());
+
+            assertEquals(expected.length, data.limit());
+
+        }
+
+        // The payload as expanded by a follower.
+        assertEquals(expected, msg.expand(data.duplicate()));
+
+    }
+
     /**
      * Exercises most of the API.
      * 
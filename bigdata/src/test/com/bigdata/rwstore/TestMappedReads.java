@@ -0,0 +1,212 @@
+/**
+
+Copyright (C) SYSTAP, LLC 2006-2015.  All rights reserved.
+
+Contact:
+     SYSTAP, LLC
+     2501 Calvert ST NW #106
+     Washington, DC 20008
+     licenses@systap.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; version 2 of the License.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+/*
+ * Created on Oct 17, 2026
+ */
+
+package com.bigdata.rwstore;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Properties;
+import java.util.Random;
+
+import junit.framework.TestCase2;
+
+import com.bigdata.io.IReopenChannel;
+import com.bigdata.journal.BufferMode;
+import com.bigdata.journal.Journal;
+import com.bigdata.journal.RWStrategy;
+
+/**
+ * Test suite for the memory mapped read path of the {@link RWStore}.
+ * 
+ * @see RWStore.Options#MEMORY_MAPPED_READS
+ */
+public class TestMappedReads extends TestCase2 {
+
+    public TestMappedReads() {
+    }
+
+    public TestMappedReads(String name) {
+        super(name);
+    }
+
+    private static byte[] getBytes(final ByteBuffer b) {
+
+        final byte[] a = new byte[b.remaining()];
+
+        b.duplicate().get(a);
+
+        return a;
+
+    }
+
+    /**
+     * Reads are served only within the committed region and within a single
+     * segment, and a segment is remapped when the committed region grows.
+     */
+    public void test_mappedReadRegion() throws IOException {
+
+        final File file = File.createTempFile(getName(), ".tmp");
+
+        final RandomAccessFile raf = new RandomAccessFile(file, "rw");
+
+        try {
+
+            final byte[] data = new byte[4096];
+
+            new Random().nextBytes(data);
+
+            raf.write(data);
+
+            final MappedReadRegion region = new MappedReadRegion(
+                    new IReopenChannel<FileChannel>() {
+                        @Override
+                        public FileChannel reopenChannel() throws IOException {
+                            return raf.getChannel();
+                        }
+                    }, 1024/* segmentSize */);
+
+            // within the committed region.
+            {
+                final ByteBuffer b = region.read(10, 100, 1500/* limit */);
+                assertNotNull(b);
+                assertEquals(0, b.position());
+                assertEquals(100, b.limit());
+                assertEquals(data[10], b.get(0));
+                assertEquals(data[109], b.get(99));
+            }
+
+            // extends beyond the committed region.
+            assertNull(region.read(1400, 200, 1500/* limit */));
+
+            // straddles a segment boundary.
+            assertNull(region.read(1000, 100, 4096/* limit */));
+
+            // 2nd segment is mapped up to the committed region.
+            assertNotNull(region.read(1024, 100, 1500/* limit */));
+            assertEquals(2L, region.nmaps.get());
+
+            // the committed region grows : the 2nd segment is remapped.
+            {
+                final ByteBuffer b = region.read(1600, 100, 4096/* limit */);
+                assertNotNull(b);
+                assertEquals(data[1600], b.get(0));
+                assertEquals(3L, region.nmaps.get());
+            }
+
+            region.close();
+
+            assertNull(region.read(10, 100, 4096/* limit */));
+
+        } finally {
+
+            raf.close();
+
+            file.delete();
+
+        }
+
+    }
+
+    /**
+     * Records written on a journal are read back correctly before and after
+     * the commit, and are served from the mapped region once the journal has
+     * been re-opened (when the records are no longer in the write cache).
+     */
+    public void test_journalMappedReads() throws IOException {
+
+        final File file = File.createTempFile(getName(), Journal.Options.JNL);
+
+        file.delete();
+
+        final Properties properties = new Properties();
+
+        properties.setProperty(Journal.Options.BUFFER_MODE, BufferMode.DiskRW
+                .toString());
+
+        properties.setProperty(Journal.Options.FILE, file.toString());
+
+        properties.setProperty(RWStore.Options.MEMORY_MAPPED_READS, "true");
+
+        final Random r = new Random();
+
+        final int n = 100;
+
+        final byte[][] records = new byte[n][];
+
+        final long[] addrs = new long[n];
+
+        Journal journal = new Journal(properties);
+
+        try {
+
+            for (int i = 0; i < n; i++) {
+
+                records[i] = new byte[1 + r.nextInt(2000)];
+
+                r.nextBytes(records[i]);
+
+                addrs[i] = journal.write(ByteBuffer.wrap(records[i]));
+
+            }
+
+            // read back before the commit (from the write cache).
+            for (int i = 0; i < n; i++) {
+
+                assertEquals(records[i], getBytes(journal.read(addrs[i])));
+
+            }
+
+            journal.commit();
+
+            journal.close();
+
+            journal = new Journal(properties);
+
+            // read back after the re-open.
+            for (int i = 0; i < n; i++) {
+
+                assertEquals(records[i], getBytes(journal.read(addrs[i])));
+
+            }
+
+            final RWStore store = ((RWStrategy) journal.getBufferStrategy())
+                    .getStore();
+
+            assertTrue(store.getStoreCounters().nmappedReads > 0);
+
+        } finally {
+
+            journal.destroy();
+
+        }
+
+    }
+
+}
@@ -64,6 +64,7 @@ import com.bigdata.journal.ICommitRecord;
 import com.bigdata.journal.IRootBlockView;
 import com.bigdata.journal.Journal;
 import com.bigdata.journal.Journal.Options;
+import com.bigdata.journal.OnlineCompactionTask;
 import com.bigdata.journal.RWStrategy;
 import com.bigdata.journal.TestJournalAbort;
 import com.bigdata.journal.TestJournalBasics;
@@ -122,6 +123,9 @@ public class TestRWJournal extends AbstractJournalTestCase {
 		// ..and add TestAllocBits
 		suite.addTestSuite(TestAllocBits.class);
 
+		// test suite for the memory mapped read path.
+		suite.addTestSuite(TestMappedReads.class);
+
 		/*
 		 * Pickup the basic journal test suite. This is a proxied test suite, so
 		 * all the tests will run with the configuration specified in this test
@@ -397,6 +401,93 @@ public class TestRWJournal extends AbstractJournalTestCase {
 
     }
 
+    /**
+     * Unit test for the online compaction of the {@link RWStore}. The nodes and
+     * leaves of an index are relocated off of the sparse allocators and the
+     * index remains readable after the commit.
+     */
+    public void test_onlineCompaction() throws Exception {
+
+        final Journal store = new Journal(getProperties());
+
+        try {
+
+            final String name = "test";
+
+            {
+
+                final IndexMetadata metadata = new IndexMetadata(name, UUID
+                        .randomUUID());
+
+                metadata.setBranchingFactor(3);
+
+                store.registerIndex(metadata);
+
+            }
+
+            final KeyBuilder keyBuilder = new KeyBuilder(Bytes.SIZEOF_INT);
+
+            final int N = 1000;
+
+            {
+
+                final BTree btree = store.getIndex(name);
+
+                for (int i = 0; i < N; i++) {
+
+                    btree.insert(keyBuilder.reset().append(i).getKey(),
+                            new SimpleEntry(i));
+
+                }
+
+                // Remove most of the entries to leave sparse allocators.
+                for (int i = 0; i < N; i++) {
+
+                    if (i % 10 != 0)
+                        btree.remove(keyBuilder.reset().append(i).getKey());
+
+                }
+
+                store.commit();
+
+            }
+
+            final long commitCounter = store.getRootBlockView()
+                    .getCommitCounter();
+
+            final int n = store.submit(
+                    new OnlineCompactionTask(store, new String[] { name },
+                            .99f/* maxFill */, Integer.MAX_VALUE/* limit */))
+                    .get();
+
+            assertTrue(n > 0);
+
+            assertEquals(commitCounter + 1, store.getRootBlockView()
+                    .getCommitCounter());
+
+            {
+
+                final BTree btree = store.getIndex(name);
+
+                assertEquals(N / 10, btree.rangeCount());
+
+                for (int i = 0; i < N; i += 10) {
+
+                    assertEquals(new SimpleEntry(i), btree.lookup(keyBuilder
+                            .reset().append(i).getKey()));
+
+                }
+
+            }
+
+        } finally {
+
+            store.destroy();
+
+        }
+
+    }
+
     /**
      * Unit test for an issue where the {@link RWStore} did not discard the
      * logged delete blocks in {@link RWStore#reset()}.